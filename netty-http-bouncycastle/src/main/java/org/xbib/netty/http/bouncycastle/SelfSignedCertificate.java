@@ -3,6 +3,9 @@ package org.xbib.netty.http.bouncycastle;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.asn1.x509.Certificate;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.cert.X509v3CertificateBuilder;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
@@ -12,6 +15,7 @@ import org.bouncycastle.operator.DefaultDigestAlgorithmIdentifierFinder;
 import org.bouncycastle.operator.DefaultSignatureAlgorithmIdentifierFinder;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.operator.bc.BcRSAContentSignerBuilder;
+import org.bouncycastle.util.IPAddress;
 import org.bouncycastle.util.encoders.Base64;
 
 import java.io.ByteArrayInputStream;
@@ -27,6 +31,8 @@ import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.PrivateKey;
 import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 
 /**
@@ -69,6 +75,23 @@ public final class SelfSignedCertificate {
      */
     public void generate(String fqdn, SecureRandom random, int bits)
             throws IOException, NoSuchProviderException, NoSuchAlgorithmException, OperatorCreationException {
+        generate(fqdn, Collections.emptyList(), random, bits);
+    }
+
+    /**
+     * Creates a new instance that is valid for more than one name.
+     *
+     * @param fqdn a fully qualified domain name
+     * @param subjectAlternativeNames the DNS names and IP addresses of the subject alternative names
+     * @param random the {@link SecureRandom} to use
+     * @param bits the number of bits of the generated private key
+     * @throws NoSuchAlgorithmException if algorithm does not exist
+     * @throws NoSuchProviderException if provider does not exist
+     * @throws OperatorCreationException if provider does not exist
+     * @throws IOException if generation fails
+     */
+    public void generate(String fqdn, Collection<String> subjectAlternativeNames, SecureRandom random, int bits)
+            throws IOException, NoSuchProviderException, NoSuchAlgorithmException, OperatorCreationException {
         KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA", "BC");
         keyGen.initialize(bits, random);
         KeyPair keypair = keyGen.generateKeyPair();
@@ -78,6 +101,12 @@ public final class SelfSignedCertificate {
         X509v3CertificateBuilder certificateBuilder =
                 new X509v3CertificateBuilder(name, BigInteger.valueOf(System.currentTimeMillis()),
                         DEFAULT_NOT_BEFORE, DEFAULT_NOT_AFTER, name, subjectPublicKeyInfo);
+        if (!subjectAlternativeNames.isEmpty()) {
+            GeneralName[] generalNames = subjectAlternativeNames.stream()
+                    .map(san -> new GeneralName(IPAddress.isValid(san) ? GeneralName.iPAddress : GeneralName.dNSName, san))
+                    .toArray(GeneralName[]::new);
+            certificateBuilder.addExtension(Extension.subjectAlternativeName, false, new GeneralNames(generalNames));
+        }
         AlgorithmIdentifier sigAlgId =
                 new DefaultSignatureAlgorithmIdentifierFinder().find("SHA256WithRSAEncryption");
         AlgorithmIdentifier digestAlgId =
@@ -2,6 +2,7 @@ package org.xbib.netty.http.client.api;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -11,7 +12,14 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.DiskAttribute;
+import io.netty.handler.codec.http.multipart.DiskFileUpload;
+import io.netty.handler.codec.http.multipart.FileUpload;
+import io.netty.handler.codec.http.multipart.HttpData;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
+import io.netty.handler.codec.http.multipart.MemoryAttribute;
+import io.netty.handler.codec.http.multipart.MemoryFileUpload;
 import io.netty.handler.codec.http2.HttpConversionUtil;
 import io.netty.util.AsciiString;
 import org.xbib.net.URL;
@@ -20,8 +28,13 @@ import org.xbib.netty.http.common.HttpResponse;
 import org.xbib.netty.http.common.cookie.Cookie;
 import org.xbib.netty.http.common.util.CaseInsensitiveParameters;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -32,19 +45,45 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * HTTP client request.
  */
 public final class Request {
 
-    private final URL url;
+    /**
+     * The name of the {@code Priority} header of RFC 9218.
+     */
+    public static final String PRIORITY = "priority";
+
+    /**
+     * The default urgency of RFC 9218, for requests without priority.
+     */
+    public static final int DEFAULT_URGENCY = 3;
+
+    private volatile URL url;
+
+    private String absolute;
+
+    private String relative;
+
+    private String authority;
+
+    private HttpAddress httpAddress;
+
+    private final String socketPath;
 
     private final HttpVersion httpVersion;
 
+    private final boolean automaticVersion;
+
     private final HttpMethod httpMethod;
 
     private final HttpHeaders headers;
@@ -71,12 +110,14 @@ public final class Request {
 
     private ResponseListener<HttpResponse> responseListener;
 
-    private Request(URL url, HttpVersion httpVersion, HttpMethod httpMethod,
-                    HttpHeaders headers, Collection<Cookie> cookies, ByteBuf content, List<InterfaceHttpData> bodyData,
-                    long timeoutInMillis, boolean followRedirect, int maxRedirect, int redirectCount,
+    private Request(URL url, String socketPath, HttpVersion httpVersion, boolean automaticVersion,
+                    HttpMethod httpMethod, HttpHeaders headers, Collection<Cookie> cookies, ByteBuf content,
+                    List<InterfaceHttpData> bodyData, long timeoutInMillis, boolean followRedirect, int maxRedirect, int redirectCount,
                     boolean isBackOff, BackOff backOff, ResponseListener<HttpResponse> responseListener) {
         this.url = url;
+        this.socketPath = socketPath;
         this.httpVersion = httpVersion;
+        this.automaticVersion = automaticVersion;
         this.httpMethod = httpMethod;
         this.headers = headers;
         this.cookies = cookies;
@@ -91,16 +132,86 @@ public final class Request {
         this.responseListener = responseListener;
     }
 
+    /**
+     * Create a request from a template. The URL is given in its encoded forms and parsed only if needed.
+     */
+    Request(String absolute, String relative, String authority, HttpAddress httpAddress, boolean automaticVersion,
+            HttpMethod httpMethod, HttpHeaders headers, Collection<Cookie> cookies, ByteBuf content,
+            long timeoutInMillis, boolean followRedirect, int maxRedirect,
+            boolean isBackOff, BackOff backOff, ResponseListener<HttpResponse> responseListener) {
+        this(null, httpAddress.getSocketPath(), httpAddress.getVersion(), automaticVersion, httpMethod, headers,
+                cookies, content, Collections.emptyList(), timeoutInMillis, followRedirect, maxRedirect, 0,
+                isBackOff, backOff, responseListener);
+        this.absolute = absolute;
+        this.relative = relative;
+        this.authority = authority;
+        this.httpAddress = httpAddress;
+    }
+
     public URL url() {
-        return url;
+        URL u = url;
+        if (u == null) {
+            u = URL.from(absolute);
+            url = u;
+        }
+        return u;
+    }
+
+    /**
+     * The path of the unix domain socket the request is sent to, instead of the host and port of the URL.
+     *
+     * @return the socket path, or null
+     */
+    public String socketPath() {
+        return socketPath;
     }
 
     public String absolute() {
-        return url.toExternalForm();
+        String s = absolute;
+        if (s == null) {
+            s = url().toExternalForm();
+            absolute = s;
+        }
+        return s;
     }
 
     public String relative() {
-        return url.relativeReference();
+        String s = relative;
+        if (s == null) {
+            s = url().relativeReference();
+            relative = s;
+        }
+        return s;
+    }
+
+    /**
+     * The authority of the request, host and optional port, as sent in the {@code :authority}
+     * pseudo header of HTTP/2.
+     *
+     * @return the authority
+     */
+    public String authority() {
+        String s = authority;
+        if (s == null) {
+            URL u = url();
+            s = u.getHost() + (u.getPort() != null ? ":" + u.getPort() : "");
+            authority = s;
+        }
+        return s;
+    }
+
+    /**
+     * The address that this request is sent to, for the HTTP version of the request.
+     *
+     * @return the address
+     */
+    public HttpAddress httpAddress() {
+        HttpAddress a = httpAddress;
+        if (a == null) {
+            a = HttpAddress.of(url(), httpVersion, socketPath);
+            httpAddress = a;
+        }
+        return a;
     }
 
     public HttpVersion httpVersion() {
@@ -136,6 +247,64 @@ public final class Request {
         return timeoutInMillis;
     }
 
+    /**
+     * Return true if no HTTP version was set for this request. Then a client with protocol memory
+     * may send the request with the version that the origin is known to speak.
+     *
+     * @return true if the version of this request is the default version
+     */
+    public boolean isAutomaticVersion() {
+        return automaticVersion;
+    }
+
+    /**
+     * Return true if the body of this request is held back until the server answers with
+     * {@code 100 Continue}.
+     *
+     * @return true if the request has the header {@code Expect: 100-continue}
+     */
+    public boolean isExpectContinue() {
+        return headers.containsValue(HttpHeaderNames.EXPECT, HttpHeaderValues.CONTINUE, true);
+    }
+
+    /**
+     * The urgency of this request (RFC 9218), from 0 (highest) to 7 (lowest). Requests with a lower urgency
+     * are sent first when a connection has reached its limit of concurrent streams.
+     *
+     * @return the urgency of the {@code priority} header, or {@link #DEFAULT_URGENCY}
+     */
+    public int getUrgency() {
+        String priority = headers.get(PRIORITY);
+        if (priority != null) {
+            for (String parameter : priority.split(",")) {
+                String s = parameter.trim();
+                if (s.length() == 3 && s.startsWith("u=") && s.charAt(2) >= '0' && s.charAt(2) <= '7') {
+                    return s.charAt(2) - '0';
+                }
+            }
+        }
+        return DEFAULT_URGENCY;
+    }
+
+    /**
+     * Return true if the response to this request can be processed incrementally (RFC 9218),
+     * so the server may interleave it with other responses of the same urgency.
+     *
+     * @return true if the {@code priority} header has the incremental parameter
+     */
+    public boolean isIncremental() {
+        String priority = headers.get(PRIORITY);
+        if (priority != null) {
+            for (String parameter : priority.split(",")) {
+                String s = parameter.trim();
+                if (s.equals("i") || s.equals("i=?1")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public boolean isFollowRedirect() {
         return followRedirect;
     }
@@ -148,6 +317,14 @@ public final class Request {
         return backOff;
     }
 
+    int getMaxRedirects() {
+        return maxRedirects;
+    }
+
+    ResponseListener<HttpResponse> getResponseListener() {
+        return responseListener;
+    }
+
     public boolean canRedirect() {
         if (!followRedirect) {
             return false;
@@ -163,11 +340,17 @@ public final class Request {
         if (content != null) {
             content.release();
         }
+        // temporary files of disk-backed parts are deleted, files given by the caller are kept
+        for (InterfaceHttpData data : bodyData) {
+            if (data.refCnt() > 0) {
+                data.release();
+            }
+        }
     }
 
     @Override
     public String toString() {
-        return "Request[url=" + url +
+        return "Request[url=" + absolute() +
                 ",version=" + httpVersion +
                 ",method=" + httpMethod +
                 ",headers=" + headers.entries() +
@@ -240,12 +423,15 @@ public final class Request {
     }
 
     public static Builder builder(HttpMethod httpMethod, Request request) {
-        return builder(PooledByteBufAllocator.DEFAULT, httpMethod)
+        Builder builder = builder(PooledByteBufAllocator.DEFAULT, httpMethod)
                 .setVersion(request.httpVersion)
-                .url(request.url)
+                .url(request.url())
+                .setSocketPath(request.socketPath)
                 .setHeaders(request.headers)
                 .content(request.content)
                 .setResponseListener(request.responseListener);
+        builder.automaticVersion = request.automaticVersion;
+        return builder;
     }
 
     public static Builder builder(ByteBufAllocator allocator, HttpMethod httpMethod) {
@@ -276,6 +462,15 @@ public final class Request {
 
         private static final String DEFAULT_FORM_CONTENT_TYPE = "application/x-www-form-urlencoded; charset=utf-8";
 
+        private static final long DEFAULT_MULTIPART_THRESHOLD = 16 * 1024L;
+
+        private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+        private static final Set<String> DEFAULT_COMPRESSIBLE_CONTENT_TYPES = Set.of("text/*",
+                "application/json", "application/*+json", "application/x-ndjson",
+                "application/xml", "application/*+xml", "application/javascript",
+                "application/x-www-form-urlencoded");
+
         private final ByteBufAllocator allocator;
 
         private final List<String> removeHeaders;
@@ -288,14 +483,20 @@ public final class Request {
 
         private HttpVersion httpVersion;
 
+        private boolean automaticVersion;
+
         private String userAgent;
 
         private boolean keepalive;
 
         private boolean gzip;
 
+        private boolean expectContinue;
+
         private URL url;
 
+        private String socketPath;
+
         private CharSequence contentType;
 
         private final CaseInsensitiveParameters uriParameters;
@@ -306,6 +507,14 @@ public final class Request {
 
         private final List<InterfaceHttpData> bodyData;
 
+        private long multipartThreshold;
+
+        private String contentEncoding;
+
+        private int compressionThreshold;
+
+        private Set<String> compressibleContentTypes;
+
         private long timeoutInMillis;
 
         private boolean followRedirect;
@@ -322,6 +531,7 @@ public final class Request {
             this.allocator = allocator;
             this.httpMethod = DEFAULT_METHOD;
             this.httpVersion = DEFAULT_HTTP_VERSION;
+            this.automaticVersion = true;
             this.userAgent = DEFAULT_USER_AGENT;
             this.gzip = DEFAULT_GZIP;
             this.keepalive = DEFAULT_KEEPALIVE;
@@ -333,6 +543,9 @@ public final class Request {
             this.removeHeaders = new ArrayList<>();
             this.cookies = new HashSet<>();
             this.bodyData = new ArrayList<>();
+            this.multipartThreshold = DEFAULT_MULTIPART_THRESHOLD;
+            this.compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+            this.compressibleContentTypes = DEFAULT_COMPRESSIBLE_CONTENT_TYPES;
             this.contentType = DEFAULT_FORM_CONTENT_TYPE;
             this.formParameters = new CaseInsensitiveParameters();
             this.uriParameters = new CaseInsensitiveParameters();
@@ -345,21 +558,25 @@ public final class Request {
 
         public Builder enableHttp1() {
             this.httpVersion = HttpVersion.HTTP_1_1;
+            this.automaticVersion = false;
             return this;
         }
 
         public Builder enableHttp2() {
             this.httpVersion = HTTP_2_0;
+            this.automaticVersion = false;
             return this;
         }
 
         public Builder setVersion(HttpVersion httpVersion) {
             this.httpVersion = httpVersion;
+            this.automaticVersion = false;
             return this;
         }
 
         public Builder setVersion(String httpVersion) {
             this.httpVersion = HttpVersion.valueOf(httpVersion);
+            this.automaticVersion = false;
             return this;
         }
 
@@ -375,6 +592,19 @@ public final class Request {
                     .port(httpAddress.getInetSocketAddress().getPort())
                     .build();
             this.httpVersion = httpAddress.getVersion();
+            this.automaticVersion = false;
+            this.socketPath = httpAddress.getSocketPath();
+            return this;
+        }
+
+        /**
+         * Send the request to a unix domain socket. The URL still gives the path and the {@code Host} header.
+         *
+         * @param socketPath the path of the socket, or null for a TCP connection
+         * @return this builder
+         */
+        public Builder setSocketPath(String socketPath) {
+            this.socketPath = socketPath;
             return this;
         }
 
@@ -478,6 +708,103 @@ public final class Request {
             return this;
         }
 
+        /**
+         * Set the size above which multipart parts added by {@link #addBodyAttribute(String, String)} and
+         * {@link #addBodyFile(String, Path, String)} are held on disk instead of in memory. Default is 16k.
+         *
+         * @param multipartThreshold the threshold in bytes
+         * @return this builder
+         */
+        public Builder setMultipartThreshold(long multipartThreshold) {
+            this.multipartThreshold = multipartThreshold;
+            return this;
+        }
+
+        /**
+         * Compress the request body with a content encoding, {@code gzip} or {@code deflate}.
+         * The body is compressed only if it is not smaller than the compression threshold, if its
+         * content type is compressible, and if it has no {@code Content-Encoding} yet. Multipart bodies are
+         * compressed while they are streamed, if {@code multipart/form-data} is a compressible content type.
+         *
+         * @param contentEncoding the content encoding, or null for no compression
+         * @return this builder
+         */
+        public Builder setContentEncoding(String contentEncoding) {
+            if (contentEncoding != null && !"gzip".equals(contentEncoding) && !"deflate".equals(contentEncoding)) {
+                throw new IllegalArgumentException("unsupported content encoding: " + contentEncoding);
+            }
+            this.contentEncoding = contentEncoding;
+            return this;
+        }
+
+        /**
+         * Set the size of a request body below which the body is not compressed. Default is 1k.
+         *
+         * @param compressionThreshold the threshold in bytes
+         * @return this builder
+         */
+        public Builder setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        /**
+         * Set the content types of request bodies that are compressed. A type may end with {@code /*}
+         * for all subtypes, or have a {@code *+} subtype for a structured syntax suffix,
+         * like {@code application/*+json}. Default are text, JSON, XML, JavaScript and form content types.
+         *
+         * @param compressibleContentTypes the content types
+         * @return this builder
+         */
+        public Builder setCompressibleContentTypes(Collection<String> compressibleContentTypes) {
+            this.compressibleContentTypes = Set.copyOf(compressibleContentTypes);
+            return this;
+        }
+
+        /**
+         * Add a multipart attribute. A value larger than the multipart threshold is held in a temporary file.
+         *
+         * @param name the name
+         * @param value the value
+         * @return this builder
+         */
+        public Builder addBodyAttribute(String name, String value) {
+            try {
+                Attribute attribute = value.length() * 3L > multipartThreshold ?
+                        new DiskAttribute(name, StandardCharsets.UTF_8) :
+                        new MemoryAttribute(name, StandardCharsets.UTF_8);
+                attribute.setValue(value);
+                bodyData.add(attribute);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        /**
+         * Add a multipart file. A file larger than the multipart threshold is not loaded, but streamed
+         * from disk when the request is written, and it is not deleted after the request.
+         *
+         * @param name the name
+         * @param path the path of the file
+         * @param contentType the content type of the file
+         * @return this builder
+         */
+        public Builder addBodyFile(String name, Path path, String contentType) {
+            try {
+                long size = Files.size(path);
+                String filename = path.getFileName().toString();
+                FileUpload fileUpload = size > multipartThreshold ?
+                        new DiskFileUpload(name, filename, contentType, null, null, size) :
+                        new MemoryFileUpload(name, filename, contentType, null, null, size);
+                fileUpload.setContent(path.toFile());
+                bodyData.add(fileUpload);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
         public Builder addCookie(Cookie cookie) {
             cookies.add(cookie);
             return this;
@@ -493,6 +820,45 @@ public final class Request {
             return this;
         }
 
+        /**
+         * Send {@code Expect: 100-continue} with a request body, and hold back the body until the server
+         * agrees, so a large body is not sent if the server rejects the request. Ignored for requests
+         * without a body and for HTTP/1.0.
+         *
+         * @param expectContinue true for {@code Expect: 100-continue}
+         * @return this builder
+         */
+        public Builder setExpectContinue(boolean expectContinue) {
+            this.expectContinue = expectContinue;
+            return this;
+        }
+
+        /**
+         * Set the priority of the request (RFC 9218). The priority is sent in the {@code priority} header,
+         * for HTTP/1.1 and HTTP/2, and orders the requests that wait for a stream of an HTTP/2 connection.
+         *
+         * @param urgency the urgency, from 0 (highest) to 7 (lowest), the default is 3
+         * @param incremental true if the response can be processed in parts, e.g. a progressive image
+         * @return this builder
+         */
+        public Builder setPriority(int urgency, boolean incremental) {
+            if (urgency < 0 || urgency > 7) {
+                throw new IllegalArgumentException("urgency must be between 0 and 7: " + urgency);
+            }
+            if (urgency == DEFAULT_URGENCY && !incremental) {
+                headers.remove(PRIORITY);
+            } else if (urgency == DEFAULT_URGENCY) {
+                headers.set(PRIORITY, "i");
+            } else {
+                headers.set(PRIORITY, incremental ? "u=" + urgency + ", i" : "u=" + urgency);
+            }
+            return this;
+        }
+
+        public Builder setPriority(int urgency) {
+            return setPriority(urgency, false);
+        }
+
         public Builder setFollowRedirect(boolean followRedirect) {
             this.followRedirect = followRedirect;
             return this;
@@ -574,6 +940,24 @@ public final class Request {
             return this;
         }
 
+        /**
+         * Build a template for repeated requests with this configuration. The URL gives scheme, host and port,
+         * the relative reference of each request is made from the path template.
+         *
+         * @param pathTemplate the encoded path and query, with placeholders like {@code {id}} for the variable parts
+         * @return the request template
+         * @see RequestTemplate
+         */
+        public RequestTemplate template(String pathTemplate) {
+            if (url == null) {
+                throw new IllegalStateException("a request template needs a URL for scheme, host and port");
+            }
+            if (content != null || !bodyData.isEmpty()) {
+                throw new IllegalStateException("a request template can not have a body, pass content per request");
+            }
+            return new RequestTemplate(build(), pathTemplate);
+        }
+
         public Request build() {
             DefaultHttpHeaders validatedHeaders = new DefaultHttpHeaders(true);
             validatedHeaders.set(headers);
@@ -599,6 +983,21 @@ public final class Request {
             if (!formParameters.isEmpty()) {
                 content(getAsQueryString(formParameters), contentType);
             }
+            if (contentEncoding != null && !validatedHeaders.contains(HttpHeaderNames.CONTENT_ENCODING)) {
+                if (content != null) {
+                    String type = headers.get(HttpHeaderNames.CONTENT_TYPE);
+                    if (content.readableBytes() >= compressionThreshold &&
+                            isCompressible(type != null ? type : contentType != null ? contentType.toString() : null) &&
+                            compressContent()) {
+                        validatedHeaders.set(HttpHeaderNames.CONTENT_ENCODING, contentEncoding);
+                        validatedHeaders.set(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(content.readableBytes()));
+                    }
+                } else if (!bodyData.isEmpty() && bodyDataLength() >= compressionThreshold &&
+                        isCompressible(HttpHeaderValues.MULTIPART_FORM_DATA.toString())) {
+                    // the transport compresses while streaming the parts
+                    validatedHeaders.set(HttpHeaderNames.CONTENT_ENCODING, contentEncoding);
+                }
+            }
             int length = content != null ? content.readableBytes() : 0;
             if (!validatedHeaders.contains(HttpHeaderNames.CONTENT_LENGTH) && !validatedHeaders.contains(HttpHeaderNames.TRANSFER_ENCODING)) {
                 if (length < 0) {
@@ -607,6 +1006,10 @@ public final class Request {
                     validatedHeaders.set(HttpHeaderNames.CONTENT_LENGTH, Long.toString(length));
                 }
             }
+            if (expectContinue && (length > 0 || !bodyData.isEmpty()) &&
+                    !HttpVersion.HTTP_1_0.equals(httpVersion)) {
+                validatedHeaders.set(HttpHeaderNames.EXPECT, HttpHeaderValues.CONTINUE);
+            }
             if (!validatedHeaders.contains(HttpHeaderNames.ACCEPT)) {
                 validatedHeaders.set(HttpHeaderNames.ACCEPT, "*/*");
             }
@@ -620,11 +1023,72 @@ public final class Request {
             for (String headerName : removeHeaders) {
                 validatedHeaders.remove(headerName);
             }
-            return new Request(url, httpVersion, httpMethod, validatedHeaders, cookies, content, bodyData,
-                    timeoutInMillis, followRedirect, maxRedirects, 0, enableBackOff, backOff,
+            return new Request(url, socketPath, httpVersion, automaticVersion, httpMethod, validatedHeaders,
+                    cookies, content, bodyData, timeoutInMillis, followRedirect, maxRedirects, 0, enableBackOff, backOff,
                     responseListener);
         }
 
+        private boolean isCompressible(String type) {
+            if (type == null) {
+                return false;
+            }
+            int pos = type.indexOf(';');
+            String mediaType = (pos >= 0 ? type.substring(0, pos) : type).trim().toLowerCase(Locale.ROOT);
+            int slash = mediaType.indexOf('/');
+            if (slash < 0) {
+                return false;
+            }
+            for (String compressible : compressibleContentTypes) {
+                if (compressible.equals(mediaType)) {
+                    return true;
+                }
+                if (compressible.endsWith("/*") &&
+                        mediaType.regionMatches(0, compressible, 0, compressible.length() - 1)) {
+                    return true;
+                }
+                int plus = compressible.indexOf("/*+");
+                if (plus > 0 && mediaType.regionMatches(0, compressible, 0, plus + 1) &&
+                        mediaType.endsWith(compressible.substring(plus + 2))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long bodyDataLength() {
+            long length = 0L;
+            for (InterfaceHttpData data : bodyData) {
+                if (data instanceof HttpData) {
+                    length += ((HttpData) data).length();
+                }
+            }
+            return length;
+        }
+
+        /**
+         * Replace the content by its compressed form, unless compression does not make it smaller.
+         *
+         * @return true if the content was replaced
+         */
+        private boolean compressContent() {
+            ByteBuf compressed = allocator.buffer(Math.max(256, content.readableBytes() / 4));
+            try (OutputStream outputStream = "gzip".equals(contentEncoding) ?
+                    new GZIPOutputStream(new ByteBufOutputStream(compressed)) :
+                    new DeflaterOutputStream(new ByteBufOutputStream(compressed))) {
+                content.getBytes(content.readerIndex(), outputStream, content.readableBytes());
+            } catch (IOException e) {
+                compressed.release();
+                throw new UncheckedIOException(e);
+            }
+            if (compressed.readableBytes() >= content.readableBytes()) {
+                compressed.release();
+                return false;
+            }
+            content.release();
+            content = compressed;
+            return true;
+        }
+
         private void addHeader(AsciiString name, Object value) {
             if (!headers.contains(name)) {
                 headers.add(name, value);
@@ -0,0 +1,285 @@
+package org.xbib.netty.http.client.api;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpResponse;
+import org.xbib.netty.http.common.cookie.Cookie;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A template for requests that are sent to the same endpoint again and again.
+ *
+ * The address, the encoded literal parts of the path and the validated headers are prepared once.
+ * Each request from the template only encodes the values of the placeholders, copies the static headers
+ * without validating them again, and does not parse a URL, unless someone asks for it. A placeholder
+ * like {@code {id}} may appear in the path, in the query, and in header values. Values in the path and
+ * the query are percent-encoded. Values in headers are inserted as they are, but are rejected if they
+ * contain CR, LF or NUL, so a value can not split the header and inject other headers.
+ *
+ * A template is created from a request builder, which gives scheme, host, port, version, headers and options:
+ * <pre>
+ * RequestTemplate template = Request.get().url("https://api.example.com")
+ *     .addHeader("authorization", "Bearer {token}")
+ *     .template("/v1/items/{id}?view=full");
+ * Request request = template.newRequest(Map.of("id", "42", "token", token));
+ * </pre>
+ *
+ * Requests from a template do not carry a {@code Date} header, which is optional for clients.
+ * A template is immutable and can be shared between threads.
+ */
+public final class RequestTemplate {
+
+    private final HttpAddress httpAddress;
+
+    private final boolean automaticVersion;
+
+    private final HttpMethod httpMethod;
+
+    private final String origin;
+
+    private final String authority;
+
+    private final List<Part> parts;
+
+    private final List<String> variables;
+
+    private final HttpHeaders headers;
+
+    private final Map<String, List<Part>> headerTemplates;
+
+    private final Collection<Cookie> cookies;
+
+    private final long timeoutInMillis;
+
+    private final boolean followRedirect;
+
+    private final int maxRedirects;
+
+    private final boolean isBackOff;
+
+    private final BackOff backOff;
+
+    private final ResponseListener<HttpResponse> responseListener;
+
+    private final int length;
+
+    RequestTemplate(Request prototype, String pathTemplate) {
+        this.httpAddress = prototype.httpAddress();
+        this.automaticVersion = prototype.isAutomaticVersion();
+        this.httpMethod = prototype.httpMethod();
+        this.origin = prototype.url().getScheme() + "://" + prototype.url().getHostInfo();
+        this.authority = prototype.authority();
+        Set<String> names = new LinkedHashSet<>();
+        this.parts = parse(pathTemplate.startsWith("/") ? pathTemplate : "/" + pathTemplate, true, names);
+        this.headers = new DefaultHttpHeaders(false);
+        this.headerTemplates = new HashMap<>();
+        for (Map.Entry<String, String> entry : prototype.headers()) {
+            if (HttpHeaderNames.DATE.contentEqualsIgnoreCase(entry.getKey())) {
+                continue;
+            }
+            if (entry.getValue().indexOf('{') >= 0) {
+                headerTemplates.put(entry.getKey(), parse(entry.getValue(), false, names));
+            } else {
+                headers.add(entry.getKey(), entry.getValue());
+            }
+        }
+        this.variables = new ArrayList<>(names);
+        this.cookies = prototype.cookies();
+        this.timeoutInMillis = prototype.getTimeoutInMillis();
+        this.followRedirect = prototype.isFollowRedirect();
+        this.maxRedirects = prototype.getMaxRedirects();
+        this.isBackOff = prototype.isBackOff();
+        this.backOff = prototype.getBackOff();
+        this.responseListener = prototype.getResponseListener();
+        this.length = pathTemplate.length() + 16;
+        prototype.release();
+    }
+
+    public HttpAddress getHttpAddress() {
+        return httpAddress;
+    }
+
+    /**
+     * The names of the placeholders, in the order of their first appearance in the path and the headers.
+     *
+     * @return the names of the placeholders
+     */
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(variables);
+    }
+
+    /**
+     * Create a request with values for the placeholders in the order of {@link #getVariables()}.
+     *
+     * @param values the values
+     * @return the request
+     */
+    public Request newRequest(String... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("expected " + variables.size() + " values for " + variables +
+                    " but got " + values.length);
+        }
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            map.put(variables.get(i), values[i]);
+        }
+        return newRequest(map, null);
+    }
+
+    /**
+     * Create a request with named values for the placeholders.
+     *
+     * @param values the values
+     * @return the request
+     */
+    public Request newRequest(Map<String, String> values) {
+        return newRequest(values, null);
+    }
+
+    /**
+     * Create a request with named values for the placeholders, and a body. The content type of the body
+     * is given by the headers of the template.
+     *
+     * @param values the values
+     * @param content the body, or null. The request takes ownership of the buffer.
+     * @return the request
+     * @throws IllegalArgumentException if a value is missing, or a header value contains CR, LF or NUL
+     */
+    public Request newRequest(Map<String, String> values, ByteBuf content) {
+        String relative;
+        HttpHeaders requestHeaders;
+        try {
+            StringBuilder sb = new StringBuilder(length);
+            for (Part part : parts) {
+                part.appendTo(sb, values);
+            }
+            relative = sb.toString();
+            // the static headers were validated by the prototype, only the substituted values are checked
+            requestHeaders = new DefaultHttpHeaders(false).set(headers);
+            for (Map.Entry<String, List<Part>> entry : headerTemplates.entrySet()) {
+                StringBuilder value = new StringBuilder();
+                for (Part part : entry.getValue()) {
+                    part.appendTo(value, values);
+                }
+                requestHeaders.set(entry.getKey(), value.toString());
+            }
+        } catch (IllegalArgumentException e) {
+            if (content != null) {
+                content.release();
+            }
+            throw e;
+        }
+        if (content != null) {
+            requestHeaders.set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        }
+        return new Request(origin + relative, relative, authority, httpAddress, automaticVersion, httpMethod,
+                requestHeaders, new HashSet<>(cookies), content, timeoutInMillis, followRedirect, maxRedirects,
+                isBackOff, backOff, responseListener);
+    }
+
+    private static List<Part> parse(String template, boolean encode, Set<String> names) {
+        List<Part> list = new ArrayList<>();
+        boolean query = false;
+        int start = 0;
+        while (start < template.length()) {
+            int open = template.indexOf('{', start);
+            int close = open >= 0 ? template.indexOf('}', open) : -1;
+            if (open < 0 || close < 0) {
+                list.add(new Part(template.substring(start), null, false));
+                break;
+            }
+            if (open > start) {
+                String literal = template.substring(start, open);
+                query = query || literal.indexOf('?') >= 0;
+                list.add(new Part(literal, null, false));
+            }
+            String name = template.substring(open + 1, close);
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("empty placeholder in " + template);
+            }
+            names.add(name);
+            list.add(new Part(null, name, encode ? !query : null));
+            start = close + 1;
+        }
+        return list;
+    }
+
+    private static class Part {
+
+        private final String literal;
+
+        private final String name;
+
+        /**
+         * True for a path segment, false for a query component, null for a value that is not encoded.
+         */
+        private final Boolean pathSegment;
+
+        Part(String literal, String name, Boolean pathSegment) {
+            this.literal = literal;
+            this.name = name;
+            this.pathSegment = pathSegment;
+        }
+
+        void appendTo(StringBuilder sb, Map<String, String> values) {
+            if (literal != null) {
+                sb.append(literal);
+                return;
+            }
+            String value = values.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("no value for placeholder " + name);
+            }
+            if (pathSegment == null) {
+                validateHeaderValue(name, value);
+                sb.append(value);
+            } else {
+                percentEncode(sb, value);
+            }
+        }
+    }
+
+    private static void validateHeaderValue(String name, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\r' || c == '\n' || c == '\0') {
+                throw new IllegalArgumentException("value for placeholder " + name +
+                        " contains a prohibited character at index " + i);
+            }
+        }
+    }
+
+    /**
+     * Percent-encode all characters except the unreserved characters of RFC 3986, so the value is safe
+     * in a path segment and in a query component.
+     */
+    private static void percentEncode(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+                    c == '-' || c == '.' || c == '_' || c == '~') {
+                sb.append(c);
+            } else {
+                for (byte b : value.substring(i, i + Character.charCount(value.codePointAt(i)))
+                        .getBytes(StandardCharsets.UTF_8)) {
+                    sb.append('%').append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xf, 16)))
+                            .append(Character.toUpperCase(Character.forDigit(b & 0xf, 16)));
+                }
+                i += Character.charCount(value.codePointAt(i)) - 1;
+            }
+        }
+    }
+}
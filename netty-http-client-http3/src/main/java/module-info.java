@@ -0,0 +1,17 @@
+import org.xbib.netty.http.client.http3.Http3;
+
+module org.xbib.netty.http.client.http3 {
+    exports org.xbib.netty.http.client.http3;
+    requires org.xbib.netty.http.client;
+    requires org.xbib.net.url;
+    requires java.logging;
+    requires io.netty.buffer;
+    requires io.netty.common;
+    requires io.netty.handler;
+    requires io.netty.transport;
+    requires io.netty.codec.http;
+    requires io.netty.codec.http2;
+    requires io.netty.incubator.codec.quic;
+    requires io.netty.incubator.codec.http3;
+    provides org.xbib.netty.http.client.api.ClientProtocolProvider with Http3;
+}
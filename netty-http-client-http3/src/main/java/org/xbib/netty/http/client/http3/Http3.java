@@ -0,0 +1,66 @@
+package org.xbib.netty.http.client.http3;
+
+import io.netty.incubator.codec.quic.QuicSslContext;
+import io.netty.incubator.codec.quic.QuicSslContextBuilder;
+import org.xbib.netty.http.client.ClientConfig;
+import org.xbib.netty.http.client.api.ClientProtocolProvider;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The HTTP/3 protocol provider. Each client has its own provider instance, which keeps the QUIC SSL context
+ * of the client. The SSL context is shared by all connections of the client, so a connection can resume
+ * the TLS session of a previous connection to the same server, and send its first requests as early data (0-RTT).
+ */
+public class Http3 implements ClientProtocolProvider<Http3ChannelInitializer, Http3Transport> {
+
+    private final AtomicLong earlyDataCounter;
+
+    private QuicSslContext sslContext;
+
+    public Http3() {
+        this.earlyDataCounter = new AtomicLong();
+    }
+
+    @Override
+    public boolean supportsMajorVersion(int majorVersion) {
+        return majorVersion == 3;
+    }
+
+    @Override
+    public Class<Http3ChannelInitializer> initializerClass() {
+        return Http3ChannelInitializer.class;
+    }
+
+    @Override
+    public Class<Http3Transport> transportClass() {
+        return Http3Transport.class;
+    }
+
+    /**
+     * Return the QUIC SSL context of the client, created on first use.
+     *
+     * @param clientConfig the client configuration
+     * @return the SSL context
+     */
+    public synchronized QuicSslContext getSslContext(ClientConfig clientConfig) {
+        if (sslContext == null) {
+            QuicSslContextBuilder sslContextBuilder = QuicSslContextBuilder.forClient()
+                    .applicationProtocols(io.netty.incubator.codec.http3.Http3.supportedApplicationProtocols())
+                    .earlyData(true);
+            if (clientConfig.getTrustManagerFactory() != null) {
+                sslContextBuilder.trustManager(clientConfig.getTrustManagerFactory());
+            }
+            sslContext = sslContextBuilder.build();
+        }
+        return sslContext;
+    }
+
+    /**
+     * The number of connections that were ready for early data, because they resumed a previous session.
+     *
+     * @return the early data counter
+     */
+    public AtomicLong getEarlyDataCounter() {
+        return earlyDataCounter;
+    }
+}
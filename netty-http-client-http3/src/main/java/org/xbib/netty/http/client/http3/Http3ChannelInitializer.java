@@ -0,0 +1,56 @@
+package org.xbib.netty.http.client.http3;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.handler.logging.LogLevel;
+import io.netty.incubator.codec.quic.QuicSslContext;
+import org.xbib.netty.http.client.ClientConfig;
+import org.xbib.netty.http.client.handler.http.TrafficLoggingHandler;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpChannelInitializer;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Installs the QUIC client codec on the UDP channel of an HTTP/3 transport.
+ */
+public class Http3ChannelInitializer extends ChannelInitializer<Channel> implements HttpChannelInitializer {
+
+    private static final Logger logger = Logger.getLogger(Http3ChannelInitializer.class.getName());
+
+    private final ClientConfig clientConfig;
+
+    private final HttpAddress httpAddress;
+
+    private final QuicSslContext sslContext;
+
+    public Http3ChannelInitializer(ClientConfig clientConfig,
+                                   HttpAddress httpAddress,
+                                   QuicSslContext sslContext) {
+        this.clientConfig = clientConfig;
+        this.httpAddress = httpAddress;
+        this.sslContext = sslContext;
+    }
+
+    @Override
+    public void initChannel(Channel channel) {
+        if (clientConfig.isDebug()) {
+            channel.pipeline().addLast(new TrafficLoggingHandler(LogLevel.DEBUG));
+        }
+        int maxContentLength = clientConfig.getMaxContentLength();
+        ChannelHandler codec = io.netty.incubator.codec.http3.Http3.newQuicClientCodecBuilder()
+                // the engine must know the peer, the session cache of the SSL context is keyed by host and port
+                .sslEngineProvider(quicChannel ->
+                        sslContext.newEngine(quicChannel.alloc(), httpAddress.getHost(), httpAddress.getPort()))
+                .maxIdleTimeout(clientConfig.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .initialMaxData(maxContentLength)
+                .initialMaxStreamDataBidirectionalLocal(maxContentLength)
+                .build();
+        channel.pipeline().addLast("client-quic-codec", codec);
+        if (clientConfig.isDebug()) {
+            logger.log(Level.FINE, "HTTP/3 client channel initialized: " + channel.pipeline().names());
+        }
+    }
+}
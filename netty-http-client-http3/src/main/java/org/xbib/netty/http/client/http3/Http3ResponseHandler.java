@@ -0,0 +1,131 @@
+package org.xbib.netty.http.client.http3;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.incubator.codec.http3.Http3DataFrame;
+import io.netty.incubator.codec.http3.Http3Headers;
+import io.netty.incubator.codec.http3.Http3HeadersFrame;
+import io.netty.util.ReferenceCountUtil;
+import org.xbib.netty.http.common.HttpAddress;
+import java.util.Map;
+
+/**
+ * Aggregates the headers frame and the data frames of a response on a request stream into a full HTTP response.
+ * The response is complete when the server shuts down its output of the stream.
+ */
+class Http3ResponseHandler extends ChannelInboundHandlerAdapter {
+
+    private final Http3Transport transport;
+
+    private final Integer streamId;
+
+    private final int maxContentLength;
+
+    private Http3Headers headers;
+
+    private CompositeByteBuf content;
+
+    private boolean complete;
+
+    Http3ResponseHandler(Http3Transport transport, Integer streamId, int maxContentLength) {
+        this.transport = transport;
+        this.streamId = streamId;
+        this.maxContentLength = maxContentLength;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        // the request output is shut down while the response is read
+        ctx.channel().config().setOption(ChannelOption.ALLOW_HALF_CLOSURE, true);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        try {
+            if (msg instanceof Http3HeadersFrame) {
+                // a second final headers frame carries trailers, which are dropped
+                if (headers == null) {
+                    Http3Headers http3Headers = ((Http3HeadersFrame) msg).headers();
+                    HttpResponseStatus status = HttpResponseStatus.parseLine(http3Headers.status());
+                    // informational responses are followed by the final response
+                    if (status.codeClass() != HttpStatusClass.INFORMATIONAL ||
+                            status.code() == HttpResponseStatus.SWITCHING_PROTOCOLS.code()) {
+                        headers = http3Headers;
+                    }
+                }
+            } else if (msg instanceof Http3DataFrame) {
+                ByteBuf byteBuf = ((Http3DataFrame) msg).content();
+                if (content == null) {
+                    content = ctx.alloc().compositeBuffer();
+                }
+                if (content.readableBytes() + byteBuf.readableBytes() > maxContentLength) {
+                    content.release();
+                    content = null;
+                    ctx.fireExceptionCaught(new TooLongFrameException("response content exceeds " +
+                            maxContentLength + " bytes"));
+                } else {
+                    content.addComponent(true, byteBuf.retain());
+                }
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof ChannelInputShutdownEvent) {
+            responseReceived(ctx);
+        }
+        ctx.fireUserEventTriggered(evt);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // a server that closes the stream without shutting down its output ends the response, too
+        responseReceived(ctx);
+        if (content != null) {
+            content.release();
+            content = null;
+        }
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        transport.fail(ctx.channel(), cause);
+        ctx.close();
+    }
+
+    private void responseReceived(ChannelHandlerContext ctx) {
+        if (complete || headers == null) {
+            return;
+        }
+        complete = true;
+        FullHttpResponse fullHttpResponse = new DefaultFullHttpResponse(HttpAddress.HTTP_3_0,
+                HttpResponseStatus.parseLine(headers.status()),
+                content != null ? content : Unpooled.EMPTY_BUFFER);
+        content = null;
+        for (Map.Entry<CharSequence, CharSequence> entry : headers) {
+            CharSequence name = entry.getKey();
+            if (name.length() > 0 && name.charAt(0) != ':') {
+                fullHttpResponse.headers().add(name, entry.getValue());
+            }
+        }
+        try {
+            transport.responseReceived(ctx.channel(), streamId, fullHttpResponse);
+        } finally {
+            fullHttpResponse.release();
+        }
+    }
+}
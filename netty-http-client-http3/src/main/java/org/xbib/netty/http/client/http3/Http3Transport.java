@@ -0,0 +1,395 @@
+package org.xbib.netty.http.client.http3;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.incubator.codec.http3.DefaultHttp3DataFrame;
+import io.netty.incubator.codec.http3.DefaultHttp3Headers;
+import io.netty.incubator.codec.http3.DefaultHttp3HeadersFrame;
+import io.netty.incubator.codec.http3.Http3ClientConnectionHandler;
+import io.netty.incubator.codec.http3.Http3Headers;
+import io.netty.incubator.codec.quic.QuicChannel;
+import io.netty.incubator.codec.quic.QuicStreamChannel;
+import io.netty.incubator.codec.quic.SslEarlyDataReadyEvent;
+import io.netty.util.AsciiString;
+import org.xbib.net.URLSyntaxException;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.ClientProtocolProvider;
+import org.xbib.netty.http.client.api.ClientTransport;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.client.cookie.ClientCookieDecoder;
+import org.xbib.netty.http.client.cookie.ClientCookieEncoder;
+import org.xbib.netty.http.client.transport.BaseTransport;
+import org.xbib.netty.http.client.transport.Flow;
+import org.xbib.netty.http.common.DefaultHttpResponse;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.cookie.Cookie;
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A transport for HTTP/3. The transport binds its own UDP channel and opens a QUIC connection on it.
+ * Each request is sent on a new request stream of the connection.
+ *
+ * The QUIC SSL context is shared by all transports of the client. When the client has talked to the server
+ * before, the TLS session is resumed, and requests are sent as early data (0-RTT) before the handshake
+ * is complete.
+ */
+public class Http3Transport extends BaseTransport {
+
+    private static final Logger logger = Logger.getLogger(Http3Transport.class.getName());
+
+    /**
+     * Header fields that are specific to a connection and must not be sent on HTTP/3, see RFC 9114 section 4.2.
+     */
+    private static final Set<AsciiString> CONNECTION_HEADERS = Set.of(HttpHeaderNames.HOST,
+            HttpHeaderNames.CONNECTION, HttpHeaderNames.KEEP_ALIVE, HttpHeaderNames.PROXY_CONNECTION,
+            HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderNames.UPGRADE, HttpHeaderNames.TE);
+
+    private final Http3 http3;
+
+    private volatile Channel datagramChannel;
+
+    private volatile QuicChannel quicChannel;
+
+    private CompletableFuture<QuicChannel> connection;
+
+    public Http3Transport(Client client, HttpAddress httpAddress) {
+        super(client, httpAddress);
+        this.http3 = findProtocolProvider(client);
+    }
+
+    /**
+     * Execute a request on a new request stream. The QUIC connection is opened with the first request,
+     * the request stream is created when the connection is ready. This method never blocks, so it is safe
+     * to call on an event loop, e.g. for retries and continuations.
+     */
+    @Override
+    public ClientTransport execute(Request request) throws IOException {
+        if (request.content() == null && !request.getBodyData().isEmpty()) {
+            throw new IOException("multipart body data is not supported over HTTP/3");
+        }
+        if (throwable != null) {
+            return this;
+        }
+        CompletableFuture<QuicChannel> ready;
+        String channelId;
+        synchronized (this) {
+            ready = connect();
+            channelId = datagramChannel.id().toString();
+        }
+        Flow flow = flowMap.computeIfAbsent(channelId, key -> new Flow());
+        String path = request.relative().isEmpty() ? "/" : request.relative();
+        Http3Headers http3Headers = new DefaultHttp3Headers()
+                .method(request.httpMethod().asciiName())
+                .scheme("https")
+                .authority(request.authority())
+                .path(path);
+        // add matching cookies from box (previous requests) and new cookies from request builder
+        Collection<Cookie> cookies = new ArrayList<>();
+        cookies.addAll(matchCookiesFromBox(request));
+        cookies.addAll(matchCookies(request));
+        if (!cookies.isEmpty()) {
+            request.headers().set(HttpHeaderNames.COOKIE, ClientCookieEncoder.STRICT.encode(cookies));
+        }
+        for (Map.Entry<String, String> entry : request.headers()) {
+            AsciiString name = AsciiString.of(entry.getKey()).toLowerCase();
+            if (!CONNECTION_HEADERS.contains(name)) {
+                http3Headers.add(name, entry.getValue());
+            }
+        }
+        boolean hasContent = request.content() != null && request.content().readableBytes() > 0;
+        final Integer streamId;
+        final String requestKey;
+        synchronized (flow) {
+            streamId = flow.nextStreamId();
+            requestKey = getRequestKey(channelId, streamId);
+            requests.put(requestKey, request);
+        }
+        int maxContentLength = client.getClientConfig().getMaxContentLength();
+        ready.whenComplete((channel, cause) -> {
+            if (cause != null) {
+                failRequest(flow, streamId, requestKey, cause);
+                return;
+            }
+            io.netty.incubator.codec.http3.Http3.newRequestStream(channel,
+                    new Http3ResponseHandler(this, streamId, maxContentLength)).addListener(future -> {
+                if (!future.isSuccess()) {
+                    failRequest(flow, streamId, requestKey, future.cause());
+                    return;
+                }
+                QuicStreamChannel streamChannel = (QuicStreamChannel) future.getNow();
+                ChannelFuture channelFuture = streamChannel.write(new DefaultHttp3HeadersFrame(http3Headers));
+                if (hasContent) {
+                    channelFuture = streamChannel.write(new DefaultHttp3DataFrame(request.content().retain()));
+                }
+                streamChannel.flush();
+                // the end of the request is the end of the stream
+                channelFuture.addListener(QuicStreamChannel.SHUTDOWN_OUTPUT);
+            });
+        });
+        client.getRequestCounter().incrementAndGet();
+        return this;
+    }
+
+    @Override
+    public void settingsReceived(Http2Settings http2Settings) {
+        // HTTP/3 settings are handled by the connection handler of the codec
+    }
+
+    @Override
+    public void waitForSettings() {
+        // requests may be sent before the settings of the server are received
+    }
+
+    @Override
+    public void responseReceived(Channel channel, Integer streamId, FullHttpResponse fullHttpResponse) {
+        if (throwable != null) {
+            logger.log(Level.WARNING, "throwable is not null?", throwable);
+            return;
+        }
+        DefaultHttpResponse httpResponse = null;
+        client.getResponseCounter().incrementAndGet();
+        try {
+            // flows are keyed by the UDP channel, the parent of the QUIC connection
+            String channelId = ((QuicStreamChannel) channel).parent().parent().id().toString();
+            Flow flow = flowMap.get(channelId);
+            if (flow == null) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "flow is null? channelId = " + channelId);
+                }
+                return;
+            }
+            Request request = requests.remove(getRequestKey(channelId, streamId));
+            CompletableFuture<Boolean> promise = flow.get(streamId);
+            if (request == null) {
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.log(Level.WARNING, "request is null? channelId = " + channelId + " streamId = " + streamId);
+                }
+                if (promise != null) {
+                    promise.completeExceptionally(new IllegalStateException("no request"));
+                }
+                return;
+            }
+            for (String cookieString : fullHttpResponse.headers().getAll(HttpHeaderNames.SET_COOKIE)) {
+                Cookie cookie = ClientCookieDecoder.STRICT.decode(cookieString);
+                addCookie(cookie);
+            }
+            httpResponse = new DefaultHttpResponse(httpAddress, fullHttpResponse, getCookieBox());
+            try {
+                request.onResponse(httpResponse);
+                Request retryRequest = retry(request, httpResponse);
+                if (retryRequest != null) {
+                    client.retry(this, retryRequest);
+                } else {
+                    Request continueRequest = continuation(request, httpResponse);
+                    if (continueRequest != null) {
+                        client.continuation(this, continueRequest);
+                    }
+                }
+                if (promise != null) {
+                    promise.complete(true);
+                } else {
+                    logger.log(Level.FINE, "promise is null, flow lost");
+                }
+            } catch (URLSyntaxException | IOException e) {
+                if (promise != null) {
+                    promise.completeExceptionally(e);
+                } else {
+                    logger.log(Level.FINE, "promise is null, can't abort flow");
+                }
+            } finally {
+                flow.remove(streamId);
+            }
+        } finally {
+            if (httpResponse != null) {
+                httpResponse.release();
+            }
+        }
+    }
+
+    @Override
+    public void pushPromiseReceived(Channel channel, Integer streamId, Integer promisedStreamId, Http2Headers headers) {
+        logger.log(Level.FINE, "push promise ignored, stream ID = " + promisedStreamId);
+    }
+
+    /**
+     * Cancel the flows and close the QUIC connection. The TLS session stays in the session cache of the client,
+     * for resumption by the next transport.
+     */
+    @Override
+    public void cancel() {
+        super.cancel();
+        closeChannels();
+    }
+
+    @Override
+    public SSLSession getSession() {
+        QuicChannel channel = quicChannel;
+        return channel != null ? channel.sslEngine().getSession() : null;
+    }
+
+    @Override
+    protected String getRequestKey(String channelId, Integer streamId) {
+        return channelId + "#" + streamId;
+    }
+
+    /**
+     * Open the QUIC connection, if not open or opening yet. The connection is usable when the handshake
+     * is complete, or earlier, when the TLS session is resumed and early data can be sent.
+     * The UDP channel is bound and the connection is opened asynchronously, the returned future fails
+     * if the connection can not be opened within the connect timeout.
+     *
+     * @return the future of the QUIC channel
+     */
+    private synchronized CompletableFuture<QuicChannel> connect() {
+        CompletableFuture<QuicChannel> current = connection;
+        if (current != null && !current.isCompletedExceptionally() &&
+                (!current.isDone() || current.getNow(null).isActive())) {
+            return current;
+        }
+        closeChannels();
+        CompletableFuture<QuicChannel> ready = new CompletableFuture<>();
+        Http3ChannelInitializer initializer = new Http3ChannelInitializer(client.getClientConfig(), httpAddress,
+                http3.getSslContext(client.getClientConfig()));
+        ChannelFuture bindFuture = new Bootstrap()
+                .group(client.getEventLoopGroup())
+                .channel(client.getDatagramChannelClass())
+                .option(ChannelOption.ALLOCATOR, client.getByteBufAllocator())
+                .handler(initializer)
+                .bind(0);
+        final Channel udpChannel = bindFuture.channel();
+        final ClientTransport transport = this;
+        bindFuture.addListener(future -> {
+            if (!future.isSuccess()) {
+                ready.completeExceptionally(future.cause());
+                return;
+            }
+            QuicChannel.newBootstrap(udpChannel)
+                    .handler(new ChannelInitializer<QuicChannel>() {
+                        @Override
+                        protected void initChannel(QuicChannel channel) {
+                            channel.attr(TRANSPORT_ATTRIBUTE_KEY).set(transport);
+                            channel.pipeline().addLast("client-http3-connection", new Http3ClientConnectionHandler());
+                            channel.pipeline().addLast("client-early-data", new EarlyDataHandler(ready));
+                        }
+                    })
+                    .remoteAddress(httpAddress.getInetSocketAddress())
+                    .connect()
+                    .addListener(connectFuture -> {
+                        if (connectFuture.isSuccess()) {
+                            QuicChannel channel = (QuicChannel) connectFuture.getNow();
+                            ready.complete(channel);
+                            if (ready.isCompletedExceptionally()) {
+                                // timed out in the meantime
+                                channel.close();
+                            }
+                        } else {
+                            ready.completeExceptionally(connectFuture.cause());
+                        }
+                    });
+        });
+        ready.orTimeout(client.getClientConfig().getConnectTimeoutMillis(), TimeUnit.MILLISECONDS);
+        ready.whenComplete((channel, cause) -> {
+            if (cause == null) {
+                quicChannel = channel;
+                return;
+            }
+            synchronized (this) {
+                if (connection == ready) {
+                    closeChannels();
+                } else {
+                    udpChannel.close();
+                }
+            }
+            ConnectException connectException = new ConnectException("unable to connect to " + httpAddress);
+            connectException.initCause(cause instanceof CompletionException ? cause.getCause() : cause);
+            fail(udpChannel, connectException);
+        });
+        datagramChannel = udpChannel;
+        connection = ready;
+        return ready;
+    }
+
+    private void failRequest(Flow flow, Integer streamId, String requestKey, Throwable cause) {
+        completeRequestExceptionally(requestKey, cause);
+        CompletableFuture<Boolean> promise = flow.get(streamId);
+        if (promise != null) {
+            promise.completeExceptionally(cause);
+        }
+    }
+
+    private synchronized void closeChannels() {
+        connection = null;
+        QuicChannel channel = quicChannel;
+        if (channel != null) {
+            quicChannel = null;
+            channel.close();
+        }
+        Channel udpChannel = datagramChannel;
+        if (udpChannel != null) {
+            datagramChannel = null;
+            if (channel != null) {
+                channel.closeFuture().addListener(future -> udpChannel.close());
+            } else {
+                udpChannel.close();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Http3 findProtocolProvider(Client client) {
+        for (ClientProtocolProvider<?, ?> protocolProvider : client.getProtocolProviders()) {
+            if (protocolProvider instanceof Http3) {
+                return (Http3) protocolProvider;
+            }
+        }
+        throw new IllegalStateException("HTTP/3 protocol provider not found");
+    }
+
+    /**
+     * Signals that the connection is ready when the resumed TLS session allows early data,
+     * so the first requests go out in 0-RTT.
+     */
+    private class EarlyDataHandler extends ChannelInboundHandlerAdapter {
+
+        private final CompletableFuture<QuicChannel> ready;
+
+        EarlyDataHandler(CompletableFuture<QuicChannel> ready) {
+            this.ready = ready;
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+            if (evt == SslEarlyDataReadyEvent.INSTANCE) {
+                http3.getEarlyDataCounter().incrementAndGet();
+                ready.complete((QuicChannel) ctx.channel());
+            }
+            ctx.fireUserEventTriggered(evt);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            fail(ctx.channel(), cause);
+            ready.completeExceptionally(cause);
+        }
+    }
+}
@@ -1,4 +1,8 @@
+import org.xbib.netty.http.client.rest.JsonBodyCodec;
+import org.xbib.netty.http.client.rest.NdjsonBodyCodec;
+
 module org.xbib.netty.http.client.rest {
+    uses org.xbib.netty.http.client.rest.BodyCodec;
     exports org.xbib.netty.http.client.rest;
     requires org.xbib.netty.http.common;
     requires org.xbib.netty.http.client;
@@ -6,4 +10,7 @@ module org.xbib.netty.http.client.rest {
     requires io.netty.buffer;
     requires io.netty.codec.http;
     requires org.xbib.net.url;
+    requires com.fasterxml.jackson.core;
+    requires com.fasterxml.jackson.databind;
+    provides org.xbib.netty.http.client.rest.BodyCodec with JsonBodyCodec, NdjsonBodyCodec;
 }
@@ -0,0 +1,43 @@
+package org.xbib.netty.http.client.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * A codec for typed request and response bodies.
+ *
+ * A codec writes into the output stream of a pooled buffer and reads from the input stream
+ * of the response body buffer, so no intermediate strings or byte arrays are created.
+ * Codecs are found by {@link java.util.ServiceLoader} and selected by media type.
+ */
+public interface BodyCodec {
+
+    /**
+     * The media type of this codec, without parameters, e.g. {@code application/json}.
+     *
+     * @return the media type
+     */
+    String getMediaType();
+
+    /**
+     * Encode a value.
+     *
+     * @param outputStream the output stream
+     * @param value the value
+     * @throws IOException if encoding fails
+     */
+    void encode(OutputStream outputStream, Object value) throws IOException;
+
+    /**
+     * Decode the values in an input stream and pass them to a consumer, in the order they are read.
+     *
+     * @param inputStream the input stream
+     * @param type the type of the values
+     * @param consumer the consumer
+     * @param <T> the type parameter
+     * @throws IOException if decoding fails
+     */
+    <T> void decode(InputStream inputStream, Class<T> type, Consumer<? super T> consumer) throws IOException;
+}
@@ -0,0 +1,48 @@
+package org.xbib.netty.http.client.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * A JSON codec. A JSON body holds a single value.
+ */
+public class JsonBodyCodec implements BodyCodec {
+
+    public static final String MEDIA_TYPE = "application/json";
+
+    private final ObjectMapper objectMapper;
+
+    public JsonBodyCodec() {
+        this(new ObjectMapper());
+    }
+
+    public JsonBodyCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getMediaType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public void encode(OutputStream outputStream, Object value) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            objectMapper.writeValue(generator, value);
+        }
+    }
+
+    @Override
+    public <T> void decode(InputStream inputStream, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != null) {
+                consumer.accept(objectMapper.readValue(parser, type));
+            }
+        }
+    }
+}
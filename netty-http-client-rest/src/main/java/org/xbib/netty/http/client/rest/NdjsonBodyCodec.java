@@ -0,0 +1,71 @@
+package org.xbib.netty.http.client.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A newline delimited JSON codec. Each line of an NDJSON body holds a value.
+ *
+ * An {@link Iterable}, an {@link Iterator}, or a {@link Stream} is encoded as one line per element,
+ * any other value as a single line. Decoding reads one value after the other from the stream.
+ */
+public class NdjsonBodyCodec implements BodyCodec {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+
+    public NdjsonBodyCodec() {
+        this(new ObjectMapper());
+    }
+
+    public NdjsonBodyCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getMediaType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public void encode(OutputStream outputStream, Object value) throws IOException {
+        Iterator<?> iterator;
+        if (value instanceof Iterable) {
+            iterator = ((Iterable<?>) value).iterator();
+        } else if (value instanceof Iterator) {
+            iterator = (Iterator<?>) value;
+        } else if (value instanceof Stream) {
+            iterator = ((Stream<?>) value).iterator();
+        } else {
+            iterator = Collections.singleton(value).iterator();
+        }
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            // we write the line separator ourselves, also after the last value
+            generator.setRootValueSeparator(null);
+            while (iterator.hasNext()) {
+                objectMapper.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    @Override
+    public <T> void decode(InputStream inputStream, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream);
+             MappingIterator<T> iterator = objectMapper.readerFor(type).readValues(parser)) {
+            while (iterator.hasNextValue()) {
+                consumer.accept(iterator.nextValue());
+            }
+        }
+    }
+}
@@ -1,83 +1,363 @@
 package org.xbib.netty.http.client.rest;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
 import org.xbib.net.URL;
 import org.xbib.netty.http.client.Client;
-import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.client.api.Request;
 import org.xbib.netty.http.common.HttpResponse;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
-public class RestClient {
+/**
+ * A REST client on a long-lived {@link Client}.
+ *
+ * All calls share the connections of the client, HTTP/1 connections are kept alive and pooled
+ * per address, so a REST client should be created once and reused. Closing the REST client shuts down
+ * the client, unless the client was given to the builder.
+ *
+ * Typed bodies are encoded and decoded by {@link BodyCodec}s. Request bodies are encoded by the
+ * codec of the content type of the builder, response bodies are decoded by the codec of the content type
+ * of the response, or by the codec of the content type of the builder if there is no matching codec.
+ */
+public class RestClient implements AutoCloseable {
 
-    private HttpResponse response;
+    private final Client client;
 
-    private ByteBuf byteBuf;
+    private final boolean closeClient;
 
-    private RestClient() {
+    private final HttpVersion httpVersion;
+
+    private final Charset charset;
+
+    private final Map<String, BodyCodec> codecs;
+
+    private final BodyCodec defaultCodec;
+
+    private RestClient(Client client, boolean closeClient, HttpVersion httpVersion, Charset charset,
+                       Map<String, BodyCodec> codecs, BodyCodec defaultCodec) {
+        this.client = client;
+        this.closeClient = closeClient;
+        this.httpVersion = httpVersion;
+        this.charset = charset;
+        this.codecs = codecs;
+        this.defaultCodec = defaultCodec;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Client getClient() {
+        return client;
+    }
+
+    public RestResponse get(String urlString) throws IOException {
+        return execute(newRequest(urlString, HttpMethod.GET, null));
+    }
+
+    public RestResponse delete(String urlString) throws IOException {
+        return execute(newRequest(urlString, HttpMethod.DELETE, null));
+    }
+
+    public RestResponse post(String urlString, String body) throws IOException {
+        return execute(newRequest(urlString, HttpMethod.POST, body));
+    }
+
+    public RestResponse put(String urlString, String body) throws IOException {
+        return execute(newRequest(urlString, HttpMethod.PUT, body));
+    }
+
+    public CompletableFuture<RestResponse> getAsync(String urlString) {
+        return executeAsync(newRequest(urlString, HttpMethod.GET, null));
+    }
+
+    public CompletableFuture<RestResponse> deleteAsync(String urlString) {
+        return executeAsync(newRequest(urlString, HttpMethod.DELETE, null));
     }
 
-    private void setResponse(HttpResponse response) {
-        this.response = response;
-        this.byteBuf = response != null ? response.getBody().retain() : null;
+    public CompletableFuture<RestResponse> postAsync(String urlString, String body) {
+        return executeAsync(newRequest(urlString, HttpMethod.POST, body));
     }
 
-    public HttpResponse getResponse() {
-        return response;
+    public CompletableFuture<RestResponse> putAsync(String urlString, String body) {
+        return executeAsync(newRequest(urlString, HttpMethod.PUT, body));
     }
 
-    public String asString() {
-        return asString(StandardCharsets.UTF_8);
+    public <T> T get(String urlString, Class<T> type) throws IOException {
+        return call(newRequest(urlString, HttpMethod.GET), type);
     }
 
-    private String asString(Charset charset) {
-        return byteBuf != null && byteBuf.isReadable() ? byteBuf.toString(charset) : null;
+    /**
+     * Get a sequence of values, e.g. from an NDJSON response, and pass each value to a consumer
+     * as soon as it is decoded.
+     *
+     * @param urlString the URL
+     * @param type the type of the values
+     * @param consumer the consumer
+     * @param <T> the type parameter
+     * @throws IOException if the request or the decoding fails
+     */
+    public <T> void get(String urlString, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        try {
+            client.call(newRequest(urlString, HttpMethod.GET), httpResponse -> {
+                decode(httpResponse, type, consumer);
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public <T> T post(String urlString, Object body, Class<T> type) throws IOException {
+        return call(newEncodedRequest(urlString, HttpMethod.POST, body), type);
+    }
+
+    public <T> T put(String urlString, Object body, Class<T> type) throws IOException {
+        return call(newEncodedRequest(urlString, HttpMethod.PUT, body), type);
+    }
+
+    public <T> CompletableFuture<T> getAsync(String urlString, Class<T> type) {
+        return send(newRequest(urlString, HttpMethod.GET), type);
+    }
+
+    public <T> CompletableFuture<T> postAsync(String urlString, Object body, Class<T> type) {
+        try {
+            return send(newEncodedRequest(urlString, HttpMethod.POST, body), type);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
-    public static RestClient get(String urlString) throws IOException {
-        return method(urlString, HttpMethod.GET);
+    public <T> CompletableFuture<T> putAsync(String urlString, Object body, Class<T> type) {
+        try {
+            return send(newEncodedRequest(urlString, HttpMethod.PUT, body), type);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Execute a request and wait for the response.
+     *
+     * @param request the request
+     * @return the response
+     * @throws IOException if the request fails
+     */
+    public RestResponse execute(Request request) throws IOException {
+        return client.call(request, RestResponse::new);
+    }
+
+    /**
+     * Execute a request without waiting for the response.
+     *
+     * @param request the request
+     * @return the completable future of the response
+     */
+    public CompletableFuture<RestResponse> executeAsync(Request request) {
+        return client.send(request, RestResponse::new);
     }
 
-    public static RestClient delete(String urlString) throws IOException {
-        return method(urlString, HttpMethod.DELETE);
+    @Override
+    public void close() throws IOException {
+        if (closeClient) {
+            client.shutdownGracefully();
+        }
     }
 
-    public static RestClient post(String urlString, String body) throws IOException {
-        return method(urlString, body, StandardCharsets.UTF_8, HttpMethod.POST);
+    private Request newRequest(String urlString, HttpMethod httpMethod, String body) {
+        Request.Builder requestBuilder = newRequestBuilder(urlString, httpMethod);
+        if (body != null) {
+            requestBuilder.content(body, "text/plain; charset=" + charset.name().toLowerCase(), charset);
+        }
+        return requestBuilder.build();
     }
 
-    public static RestClient put(String urlString, String body) throws IOException {
-        return method(urlString, body, StandardCharsets.UTF_8, HttpMethod.PUT);
+    private Request newRequest(String urlString, HttpMethod httpMethod) {
+        return newRequestBuilder(urlString, httpMethod)
+                .setHeader(HttpHeaderNames.ACCEPT.toString(), defaultCodec.getMediaType())
+                .build();
+    }
+
+    /**
+     * Encode a value directly into a pooled buffer that becomes the content of the request.
+     */
+    private Request newEncodedRequest(String urlString, HttpMethod httpMethod, Object value) throws IOException {
+        Request.Builder requestBuilder = newRequestBuilder(urlString, httpMethod)
+                .setHeader(HttpHeaderNames.ACCEPT.toString(), defaultCodec.getMediaType());
+        ByteBuf byteBuf = client.getByteBufAllocator().buffer();
+        try (ByteBufOutputStream outputStream = new ByteBufOutputStream(byteBuf)) {
+            defaultCodec.encode(outputStream, value);
+        } catch (IOException | RuntimeException e) {
+            byteBuf.release();
+            throw e;
+        }
+        return requestBuilder.content(byteBuf, defaultCodec.getMediaType()).build();
     }
 
-    private static RestClient method(String urlString, HttpMethod httpMethod) throws IOException {
-        return method(urlString, null, null, httpMethod);
+    private Request.Builder newRequestBuilder(String urlString, HttpMethod httpMethod) {
+        return Request.builder(httpMethod)
+                .setVersion(httpVersion)
+                .url(URL.create(urlString))
+                .keepAlive(true);
     }
 
-    private static RestClient method(String urlString,
-                                     String body, Charset charset,
-                                     HttpMethod httpMethod) throws IOException {
-        URL url = URL.create(urlString);
-        RestClient restClient = new RestClient();
-        try (Client client = Client.builder()
-                .setThreadCount(2) // for redirect
-                .build()) {
-            Request.Builder requestBuilder = Request.builder(httpMethod).url(url);
-            if (body != null) {
-                ByteBuf byteBuf = client.getByteBufAllocator().buffer();
-                byteBuf.writeCharSequence(body, charset);
-                requestBuilder.content(byteBuf);
+    private <T> T call(Request request, Class<T> type) throws IOException {
+        try {
+            return client.call(request, httpResponse -> decode(httpResponse, type));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> CompletableFuture<T> send(Request request, Class<T> type) {
+        return client.send(request, httpResponse -> decode(httpResponse, type));
+    }
+
+    private <T> T decode(HttpResponse httpResponse, Class<T> type) {
+        List<T> list = new ArrayList<>(1);
+        decode(httpResponse, type, list::add);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /**
+     * Decode the response body from the response buffer, without copying it.
+     */
+    private <T> void decode(HttpResponse httpResponse, Class<T> type, Consumer<? super T> consumer) {
+        int status = httpResponse.getStatus().getCode();
+        if (status >= 400) {
+            throw new UncheckedIOException(new IOException("unexpected response status " +
+                    httpResponse.getStatus()));
+        }
+        ByteBuf byteBuf = httpResponse.getBody();
+        if (byteBuf == null || !byteBuf.isReadable()) {
+            return;
+        }
+        BodyCodec codec = findCodec(httpResponse.getHeaders().getHeader(HttpHeaderNames.CONTENT_TYPE));
+        try (InputStream inputStream = new ByteBufInputStream(byteBuf.duplicate())) {
+            codec.decode(inputStream, type, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BodyCodec findCodec(String contentType) {
+        if (contentType == null) {
+            return defaultCodec;
+        }
+        int pos = contentType.indexOf(';');
+        String mediaType = (pos >= 0 ? contentType.substring(0, pos) : contentType).trim().toLowerCase(Locale.ROOT);
+        return codecs.getOrDefault(mediaType, defaultCodec);
+    }
+
+    /**
+     * The builder for a REST client.
+     */
+    public static class Builder {
+
+        private Client client;
+
+        private HttpVersion httpVersion;
+
+        private Charset charset;
+
+        private int maxConnectionsPerAddress;
+
+        private final Map<String, BodyCodec> codecs;
+
+        private String mediaType;
+
+        private Builder() {
+            this.httpVersion = HttpVersion.HTTP_1_1;
+            this.charset = StandardCharsets.UTF_8;
+            this.codecs = new HashMap<>();
+            for (BodyCodec codec : ServiceLoader.load(BodyCodec.class)) {
+                codecs.put(codec.getMediaType(), codec);
+            }
+            this.mediaType = JsonBodyCodec.MEDIA_TYPE;
+        }
+
+        /**
+         * Use an existing client. The client is not shut down when the REST client is closed.
+         *
+         * @param client the client
+         * @return this builder
+         */
+        public Builder setClient(Client client) {
+            this.client = client;
+            return this;
+        }
+
+        public Builder setVersion(HttpVersion httpVersion) {
+            this.httpVersion = httpVersion;
+            return this;
+        }
+
+        public Builder setCharset(Charset charset) {
+            this.charset = charset;
+            return this;
+        }
+
+        public Builder setMaxConnectionsPerAddress(int maxConnectionsPerAddress) {
+            this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+            return this;
+        }
+
+        /**
+         * Add a codec, replacing a codec of the same media type that was found by the service loader.
+         *
+         * @param codec the codec
+         * @return this builder
+         */
+        public Builder addCodec(BodyCodec codec) {
+            codecs.put(codec.getMediaType(), codec);
+            return this;
+        }
+
+        /**
+         * Set the media type of the codec for request bodies. Default is {@code application/json}.
+         *
+         * @param mediaType the media type
+         * @return this builder
+         */
+        public Builder setMediaType(String mediaType) {
+            this.mediaType = mediaType;
+            return this;
+        }
+
+        public RestClient build() {
+            Objects.requireNonNull(httpVersion);
+            Objects.requireNonNull(charset);
+            BodyCodec defaultCodec = codecs.get(mediaType);
+            if (defaultCodec == null) {
+                throw new IllegalArgumentException("no codec for media type " + mediaType);
+            }
+            Map<String, BodyCodec> map = Map.copyOf(codecs);
+            if (client != null) {
+                return new RestClient(client, false, httpVersion, charset, map, defaultCodec);
+            }
+            Client.Builder clientBuilder = Client.builder();
+            if (maxConnectionsPerAddress > 0) {
+                clientBuilder.setMaxConnectionsPerAddress(maxConnectionsPerAddress);
             }
-            client.newTransport(HttpAddress.http1(url))
-                    .execute(requestBuilder.setResponseListener(restClient::setResponse).build())
-                    .close();
-        } catch (Exception e) {
-            throw new IOException(e);
+            return new RestClient(clientBuilder.build(), true, httpVersion, charset, map, defaultCodec);
         }
-        return restClient;
     }
 }
@@ -0,0 +1,62 @@
+package org.xbib.netty.http.client.rest;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.xbib.netty.http.common.HttpResponse;
+import org.xbib.netty.http.common.HttpStatus;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A REST response. The status, the headers and the body are copied from the HTTP response,
+ * so a REST response holds no buffers and need not be released.
+ */
+public class RestResponse {
+
+    private final HttpStatus status;
+
+    private final HttpHeaders headers;
+
+    private final byte[] body;
+
+    RestResponse(HttpResponse httpResponse) {
+        this.status = httpResponse.getStatus();
+        this.headers = new DefaultHttpHeaders();
+        Iterator<Map.Entry<CharSequence, CharSequence>> iterator = httpResponse.getHeaders().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<CharSequence, CharSequence> entry = iterator.next();
+            headers.add(entry.getKey(), entry.getValue());
+        }
+        ByteBuf byteBuf = httpResponse.getBody();
+        this.body = byteBuf != null && byteBuf.isReadable() ?
+                ByteBufUtil.getBytes(byteBuf) : new byte[0];
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public String getHeader(CharSequence name) {
+        return headers.get(name);
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String asString() {
+        return asString(StandardCharsets.UTF_8);
+    }
+
+    public String asString(Charset charset) {
+        return body.length > 0 ? new String(body, charset) : null;
+    }
+}
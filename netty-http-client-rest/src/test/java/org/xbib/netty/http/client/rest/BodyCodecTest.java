@@ -0,0 +1,59 @@
+package org.xbib.netty.http.client.rest;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class BodyCodecTest {
+
+    @SuppressWarnings("unchecked")
+    private static final Class<Map<String, Object>> MAP_TYPE = (Class<Map<String, Object>>) (Class<?>) Map.class;
+
+    @Test
+    void testJson() throws IOException {
+        BodyCodec codec = new JsonBodyCodec();
+        ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.buffer();
+        try {
+            try (ByteBufOutputStream outputStream = new ByteBufOutputStream(byteBuf)) {
+                codec.encode(outputStream, Map.of("a", "b"));
+            }
+            assertEquals("{\"a\":\"b\"}", byteBuf.toString(StandardCharsets.UTF_8));
+            List<Map<String, Object>> list = new ArrayList<>();
+            codec.decode(new ByteBufInputStream(byteBuf), MAP_TYPE, list::add);
+            assertEquals(1, list.size());
+            assertEquals("b", list.get(0).get("a"));
+        } finally {
+            byteBuf.release();
+        }
+    }
+
+    @Test
+    void testNdjson() throws IOException {
+        BodyCodec codec = new NdjsonBodyCodec();
+        ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.buffer();
+        try {
+            try (ByteBufOutputStream outputStream = new ByteBufOutputStream(byteBuf)) {
+                codec.encode(outputStream, List.of(Map.of("n", 1), Map.of("n", 2), Map.of("n", 3)));
+            }
+            assertEquals("{\"n\":1}\n{\"n\":2}\n{\"n\":3}\n", byteBuf.toString(StandardCharsets.UTF_8));
+            List<Map<String, Object>> list = new ArrayList<>();
+            codec.decode(new ByteBufInputStream(byteBuf), MAP_TYPE, list::add);
+            assertEquals(3, list.size());
+            assertEquals(3, list.get(2).get("n"));
+        } finally {
+            byteBuf.release();
+        }
+    }
+}
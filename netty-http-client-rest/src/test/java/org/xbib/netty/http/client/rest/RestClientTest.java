@@ -1,19 +1,56 @@
 package org.xbib.netty.http.client.rest;
 
+import io.netty.handler.codec.http.HttpResponseStatus;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
 
-import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
 @ExtendWith(NettyHttpTestExtension.class)
 class RestClientTest {
 
     private static final Logger logger = Logger.getLogger(RestClientTest.class.getName());
 
     @Test
-    void testSimpleGet() throws IOException {
-        String result = RestClient.get("https://xbib.org").asString();
-        logger.info(result);
+    void testSimpleGet() throws Exception {
+        try (RestClient restClient = RestClient.builder().build()) {
+            String result = restClient.get("https://xbib.org").asString();
+            logger.info(result);
+        }
+    }
+
+    @Test
+    void testReuseForSyncAndAsyncGet() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                                .write(Integer.toString(request.getRemoteAddress().getPort())))
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        try (RestClient restClient = RestClient.builder().build()) {
+            Client client = restClient.getClient();
+            String url = server.getServerConfig().getAddress().base().toString();
+            RestResponse response = restClient.get(url);
+            assertEquals(HttpResponseStatus.OK.code(), response.getStatus().getCode());
+            String port = response.asString();
+            response = restClient.getAsync(url).get(30, TimeUnit.SECONDS);
+            assertEquals(HttpResponseStatus.OK.code(), response.getStatus().getCode());
+            // the same client, and the same kept-alive connection, serve both calls
+            assertSame(client, restClient.getClient());
+            assertEquals(port, response.asString());
+            assertEquals(2L, client.getResponseCounter().get());
+        } finally {
+            server.shutdownGracefully();
+        }
     }
 }
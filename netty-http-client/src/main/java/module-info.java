@@ -15,6 +15,7 @@ module org.xbib.netty.http.client {
     requires transitive org.xbib.netty.http.common;
     requires org.xbib.net.url;
     requires io.netty.handler.proxy;
+    requires io.netty.resolver;
     requires java.logging;
     requires io.netty.transport;
     requires io.netty.buffer;
@@ -8,7 +8,9 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.pool.ChannelPoolHandler;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http2.Http2Settings;
@@ -21,11 +23,17 @@ import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 import org.xbib.netty.http.client.api.ClientProtocolProvider;
 import org.xbib.netty.http.client.api.Request;
 import org.xbib.netty.http.client.api.ClientTransport;
 import org.xbib.netty.http.client.pool.BoundedChannelPool;
+import org.xbib.netty.http.client.transport.BodySink;
+import org.xbib.netty.http.client.transport.ProtocolMemory;
+import org.xbib.netty.http.client.transport.SharedTransport;
+import org.xbib.netty.http.client.transport.TunnelStatistics;
+import org.xbib.netty.http.common.EpollSocketOptions;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 import org.xbib.netty.http.common.HttpResponse;
@@ -40,18 +48,25 @@ import javax.net.ssl.SSLParameters;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.security.KeyStoreException;
 import java.security.Provider;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Queue;
 import java.util.ServiceLoader;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -88,15 +103,30 @@ public final class Client implements AutoCloseable {
 
     private final Bootstrap bootstrap;
 
-    private final Queue<ClientTransport> transports;
+    /**
+     * The options that the transport provider added to the bootstrap, they apply to TCP sockets only.
+     */
+    private final Set<ChannelOption<?>> transportOptions;
+
+    private final Set<ClientTransport> transports;
+
+    private final AtomicLong transportCounter;
+
+    private final AtomicLong reclaimedTransportCounter;
 
     private final List<ClientProtocolProvider<HttpChannelInitializer, ClientTransport>> protocolProviders;
 
     private final AtomicBoolean closed;
 
+    private final Map<Integer, SslContext> sslContexts;
+
+    private final SharedTransport sharedTransport;
+
     private EventLoopGroup eventLoopGroup;
 
-    private Class<? extends SocketChannel> socketChannelClass;
+    private Class<? extends Channel> socketChannelClass;
+
+    private final TransportProvider transportProvider;
 
     private BoundedChannelPool<HttpAddress> pool;
 
@@ -114,8 +144,11 @@ public final class Client implements AutoCloseable {
         Objects.requireNonNull(clientConfig);
         this.requestCounter = new AtomicLong();
         this.responseCounter = new AtomicLong();
+        this.transportCounter = new AtomicLong();
+        this.reclaimedTransportCounter = new AtomicLong();
         this.closed = new AtomicBoolean(false);
         this.clientConfig = clientConfig;
+        this.sslContexts = new ConcurrentHashMap<>();
         this.protocolProviders = new ArrayList<>();
         for (ClientProtocolProvider<HttpChannelInitializer, ClientTransport> provider : ServiceLoader.load(ClientProtocolProvider.class)) {
             protocolProviders.add(provider);
@@ -131,14 +164,12 @@ public final class Client implements AutoCloseable {
         if (socketChannelClass != null) {
             this.socketChannelClass = socketChannelClass;
         }
-        ServiceLoader<TransportProvider> transportProviders = ServiceLoader.load(TransportProvider.class);
-        for (TransportProvider transportProvider : transportProviders) {
-            if (this.eventLoopGroup == null &&
-                    (clientConfig.getTransportProviderName() == null || clientConfig.getTransportProviderName().equals(transportProvider.getClass().getName()))) {
+        this.transportProvider = findTransportProvider(clientConfig);
+        if (transportProvider != null) {
+            if (this.eventLoopGroup == null) {
                 this.eventLoopGroup = transportProvider.createEventLoopGroup(clientConfig.getThreadCount(), new HttpClientThreadFactory());
             }
-            if (this.socketChannelClass == null &&
-                    (clientConfig.getTransportProviderName() == null || clientConfig.getTransportProviderName().equals(transportProvider.getClass().getName()))) {
+            if (this.socketChannelClass == null) {
                 this.socketChannelClass = transportProvider.createSocketChannelClass();
             }
         }
@@ -165,7 +196,14 @@ public final class Client implements AutoCloseable {
                 .option(ChannelOption.SO_RCVBUF, clientConfig.getTcpReceiveBufferSize())
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, clientConfig.getConnectTimeoutMillis())
                 .option(ChannelOption.WRITE_BUFFER_WATER_MARK, clientConfig.getWriteBufferWaterMark());
-        this.transports = new ConcurrentLinkedQueue<>();
+        Set<ChannelOption<?>> options = new HashSet<>(bootstrap.config().options().keySet());
+        if (transportProvider != null) {
+            transportProvider.configure(bootstrap, clientConfig.getEpollSocketOptions());
+        }
+        this.transportOptions = new HashSet<>(bootstrap.config().options().keySet());
+        this.transportOptions.removeAll(options);
+        this.transports = ConcurrentHashMap.newKeySet();
+        this.sharedTransport = new SharedTransport(this, bootstrap);
         if (!clientConfig.getPoolNodes().isEmpty()) {
             List<HttpAddress> nodes = clientConfig.getPoolNodes();
             Integer limit = clientConfig.getPoolNodeConnectionLimit();
@@ -179,7 +217,8 @@ public final class Client implements AutoCloseable {
             }
             ClientChannelPoolHandler clientChannelPoolHandler = new ClientChannelPoolHandler();
             this.pool = new BoundedChannelPool<>(semaphore, clientConfig.getPoolVersion(),
-                    nodes, bootstrap, clientChannelPoolHandler, retries,
+                    nodes, node -> newBootstrap(bootstrap, node).remoteAddress(createSocketAddress(node)),
+                    clientChannelPoolHandler, retries,
                     clientConfig.getPoolKeySelectorType());
             Integer nodeConnectionLimit = clientConfig.getPoolNodeConnectionLimit();
             if (nodeConnectionLimit == null || nodeConnectionLimit == 0) {
@@ -222,10 +261,119 @@ public final class Client implements AutoCloseable {
         return requestCounter;
     }
 
+    /**
+     * The statistics of the CONNECT tunnels of the shared transport, if a proxy is configured.
+     *
+     * @return the tunnel statistics
+     */
+    public TunnelStatistics getTunnelStatistics() {
+        return sharedTransport.getTunnelStatistics();
+    }
+
+    /**
+     * The number of addresses that were served by the HTTP/2 connection of another address
+     * in the shared transport.
+     *
+     * @return the coalesced connection counter
+     */
+    public AtomicLong getCoalescedConnectionCounter() {
+        return sharedTransport.getCoalescedConnectionCounter();
+    }
+
+    /**
+     * The protocols that origins are known to speak, learned by the shared transport.
+     *
+     * @return the protocol memory
+     */
+    public ProtocolMemory getProtocolMemory() {
+        return sharedTransport.getProtocolMemory();
+    }
+
+    /**
+     * The open HTTP/2 connections of the shared transport.
+     *
+     * @return the connection channels
+     */
+    public Collection<Channel> getHttp2Connections() {
+        return sharedTransport.getHttp2Connections();
+    }
+
+    /**
+     * The event loop group of this client, for protocols that bootstrap their own channels.
+     *
+     * @return the event loop group
+     */
+    public EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+
+    /**
+     * The class of UDP datagram channels for the transport of this client, used by protocols over QUIC.
+     *
+     * @return the datagram channel class
+     */
+    public Class<? extends DatagramChannel> getDatagramChannelClass() {
+        Class<? extends DatagramChannel> channelClass = transportProvider != null ?
+                transportProvider.createDatagramChannelClass() : null;
+        return channelClass != null ? channelClass : NioDatagramChannel.class;
+    }
+
     public AtomicLong getResponseCounter() {
         return responseCounter;
     }
 
+    /**
+     * Return the number of transports that were created and are not completed yet.
+     *
+     * @return the number of live transports
+     */
+    public int getLiveTransportCount() {
+        return transports.size();
+    }
+
+    /**
+     * The number of transports registered by this client. A transport that is reused after completion
+     * is counted again.
+     *
+     * @return the transport counter
+     */
+    public AtomicLong getTransportCounter() {
+        return transportCounter;
+    }
+
+    /**
+     * The number of transports that were completed and released by this client.
+     *
+     * @return the reclaimed transport counter
+     */
+    public AtomicLong getReclaimedTransportCounter() {
+        return reclaimedTransportCounter;
+    }
+
+    /**
+     * Track a transport that has work in progress. Transports are tracked when they are created, and again
+     * if they are reused for new requests after completion.
+     *
+     * @param transport the transport
+     */
+    public void registerTransport(ClientTransport transport) {
+        if (transports.add(transport)) {
+            transportCounter.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stop tracking a completed transport, so it can be garbage collected. Called by transports
+     * after their channels, requests and HTTP data have been released.
+     *
+     * @param transport the transport
+     */
+    public void reclaimTransport(ClientTransport transport) {
+        if (transports.remove(transport)) {
+            reclaimedTransportCounter.incrementAndGet();
+        }
+    }
+
     public ClientTransport newTransport() {
         return newTransport(null);
     }
@@ -265,22 +413,55 @@ public final class Client implements AutoCloseable {
         } else {
             throw new IllegalStateException("no address given to connect to");
         }
-        transports.add(transport);
+        registerTransport(transport);
         return transport;
     }
 
+    /**
+     * Create the socket address of an HTTP address for the transport of this client.
+     *
+     * @param httpAddress the HTTP address
+     * @return the socket address
+     */
+    public SocketAddress createSocketAddress(HttpAddress httpAddress) {
+        return transportProvider != null ?
+                transportProvider.createSocketAddress(httpAddress) : httpAddress.getInetSocketAddress();
+    }
+
+    /**
+     * Clone a bootstrap for connecting to an HTTP address. For a unix domain socket address, the clone
+     * gets the domain socket channel class of the transport, no TCP options, and no socket options
+     * of the transport, like the server does for unix domain sockets.
+     *
+     * @param bootstrap the bootstrap
+     * @param httpAddress the HTTP address
+     * @return the cloned bootstrap
+     */
+    public Bootstrap newBootstrap(Bootstrap bootstrap, HttpAddress httpAddress) {
+        Bootstrap clone = bootstrap.clone();
+        if (httpAddress.isUnixDomainSocket()) {
+            Class<? extends Channel> channelClass = transportProvider != null ?
+                    transportProvider.createDomainSocketChannelClass() : null;
+            if (channelClass == null) {
+                throw new UnsupportedOperationException("no unix domain socket support in transport for " + httpAddress);
+            }
+            clone.channel(channelClass)
+                    .option(ChannelOption.TCP_NODELAY, null)
+                    .option(ChannelOption.SO_KEEPALIVE, null)
+                    .option(ChannelOption.SO_REUSEADDR, null);
+            for (ChannelOption<?> option : transportOptions) {
+                clone.option(option, null);
+            }
+        }
+        return clone;
+    }
+
     public Channel newChannel(HttpAddress httpAddress) throws IOException {
         if (httpAddress != null) {
-            HttpVersion httpVersion = httpAddress.getVersion();
-            SslContext sslContext = newSslContext(clientConfig, httpAddress.getVersion());
-            SslHandlerFactory sslHandlerFactory = new SslHandlerFactory(sslContext, clientConfig, httpAddress, byteBufAllocator);
-            HttpChannelInitializer initializerTwo =
-                    findChannelInitializer(2, httpAddress, sslHandlerFactory, null);
-            HttpChannelInitializer initializer =
-                    findChannelInitializer(httpVersion.majorVersion(), httpAddress, sslHandlerFactory, initializerTwo);
+            HttpChannelInitializer initializer = newChannelInitializer(httpAddress);
             try {
-                return bootstrap.handler(initializer)
-                        .connect(httpAddress.getInetSocketAddress()).sync().await().channel();
+                return newBootstrap(bootstrap, httpAddress).handler(initializer)
+                        .connect(createSocketAddress(httpAddress)).sync().await().channel();
             } catch (InterruptedException e) {
                 throw new IOException(e);
             }
@@ -302,6 +483,22 @@ public final class Client implements AutoCloseable {
         }
     }
 
+    /**
+     * Create the initializer for the pipeline of a new channel to an address.
+     *
+     * @param httpAddress the address
+     * @return the channel initializer for the HTTP version of the address
+     * @throws IOException if the SSL context can not be created
+     */
+    public HttpChannelInitializer newChannelInitializer(HttpAddress httpAddress) throws IOException {
+        SslHandlerFactory sslHandlerFactory = new SslHandlerFactory(getSslContext(httpAddress.getVersion()),
+                clientConfig, httpAddress, byteBufAllocator);
+        HttpChannelInitializer initializerTwo =
+                findChannelInitializer(2, httpAddress, sslHandlerFactory, null);
+        return findChannelInitializer(httpAddress.getVersion().majorVersion(), httpAddress,
+                sslHandlerFactory, initializerTwo);
+    }
+
     public void releaseChannel(Channel channel, boolean close) throws IOException{
         if (channel == null) {
             return;
@@ -320,7 +517,7 @@ public final class Client implements AutoCloseable {
     }
 
     public ClientTransport execute(Request request) throws IOException {
-        return newTransport(HttpAddress.of(request.url(), request.httpVersion()))
+        return newTransport(request.httpAddress())
                 .execute(request);
     }
 
@@ -335,10 +532,132 @@ public final class Client implements AutoCloseable {
      */
     public <T> CompletableFuture<T> execute(Request request,
                                             Function<HttpResponse, T> supplier) throws IOException {
-        return newTransport(HttpAddress.of(request.url(), request.httpVersion()))
+        return newTransport(request.httpAddress())
                 .execute(request, supplier);
     }
 
+    /**
+     * Execute a request, wait for the response, and apply a function to the response.
+     *
+     * The request is executed by a transport that is shared by all callers, with HTTP/1 channels
+     * pooled per address and HTTP/2 streams multiplexed over one connection per address.
+     * Only the calling thread waits, it is parked without holding a monitor, so this method is
+     * suitable for a large number of virtual threads. It must not be called from an event loop thread
+     * of this client. The response is released after the function returns, so the function
+     * must not keep a reference to the response body.
+     *
+     * @param request the request
+     * @param function the function for the response
+     * @param <T> the result of the function for the response
+     * @return the result of the function
+     * @throws IOException if the request fails, times out, or the calling thread is interrupted
+     */
+    public <T> T call(Request request, Function<HttpResponse, T> function) throws IOException {
+        Objects.requireNonNull(function);
+        if (closed.get()) {
+            throw new IOException("client is closed");
+        }
+        for (EventExecutor eventExecutor : eventLoopGroup) {
+            if (eventExecutor.inEventLoop()) {
+                throw new IllegalStateException("blocking call not allowed on event loop thread " +
+                        Thread.currentThread().getName());
+            }
+        }
+        CompletableFuture<HttpResponse> future = sharedTransport.execute(request);
+        HttpResponse httpResponse;
+        try {
+            httpResponse = future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for response from " + request.url());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        try {
+            return function.apply(httpResponse);
+        } finally {
+            httpResponse.release();
+        }
+    }
+
+    /**
+     * Send a request without blocking.
+     *
+     * The request is executed by the shared transport, like {@link #call(Request, Function)}, but no thread
+     * waits for the response. The channel is handed back when the response has been received, redirects
+     * and retries are followed by callbacks on the event loop. The receiver of the response
+     * must release it.
+     *
+     * @param request the request
+     * @return the completion stage of the response
+     */
+    public CompletableFuture<HttpResponse> send(Request request) {
+        Objects.requireNonNull(request);
+        if (closed.get()) {
+            return CompletableFuture.failedFuture(new IOException("client is closed"));
+        }
+        return sharedTransport.execute(request);
+    }
+
+    /**
+     * Send a request without blocking, and give the body of a successful response to a body sink
+     * as it arrives, instead of aggregating it in memory. The timeout of the request counts from the
+     * last part of the body. The response of the future has an empty body. See {@link Download}
+     * for downloads to a file.
+     *
+     * @param request the request
+     * @param bodySink the body sink
+     * @return the completion stage of the response
+     */
+    public CompletableFuture<HttpResponse> send(Request request, BodySink bodySink) {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(bodySink);
+        if (closed.get()) {
+            return CompletableFuture.failedFuture(new IOException("client is closed"));
+        }
+        return sharedTransport.execute(request, bodySink);
+    }
+
+    /**
+     * Send a request without blocking and apply a function to the response.
+     * The response is released after the function returns.
+     *
+     * @param request the request
+     * @param function the function for the response
+     * @param <T> the result of the function for the response
+     * @return the completion stage of the result
+     */
+    public <T> CompletableFuture<T> send(Request request, Function<HttpResponse, T> function) {
+        Objects.requireNonNull(function);
+        return send(request).thenApply(httpResponse -> {
+            try {
+                return function.apply(httpResponse);
+            } finally {
+                httpResponse.release();
+            }
+        });
+    }
+
+    /**
+     * Publish the results of a function applied to the responses of a sequence of requests.
+     * Requests are sent only as the subscriber signals demand, and the results are published in the order
+     * of the responses. The publisher can be subscribed only once.
+     *
+     * @param requests the requests
+     * @param function the function for the responses
+     * @param <T> the result of the function for the responses
+     * @return the publisher
+     */
+    public <T> Flow.Publisher<T> publish(Iterable<Request> requests, Function<HttpResponse, T> function) {
+        Objects.requireNonNull(requests);
+        Objects.requireNonNull(function);
+        return new ResponsePublisher<>(this, requests, function);
+    }
+
     /**
      * For following redirects, construct a new transport.
      * @param transport the previous transport
@@ -346,7 +665,7 @@ public final class Client implements AutoCloseable {
      * @throws IOException if continuation fails
      */
     public void continuation(ClientTransport transport, Request request) throws IOException {
-        ClientTransport nextTransport = newTransport(HttpAddress.of(request.url(), request.httpVersion()));
+        ClientTransport nextTransport = newTransport(request.httpAddress());
         nextTransport.setCookieBox(transport.getCookieBox());
         nextTransport.execute(request);
         nextTransport.get();
@@ -382,6 +701,7 @@ public final class Client implements AutoCloseable {
                     transport.close();
                 }
                 transports.clear();
+                sharedTransport.close();
                 if (hasPooledConnections()) {
                     pool.close();
                 }
@@ -400,7 +720,7 @@ public final class Client implements AutoCloseable {
         } catch (Exception e) {
             throw new IOException(e);
         } finally {
-            transports.remove(transport);
+            reclaimTransport(transport);
         }
     }
 
@@ -422,6 +742,35 @@ public final class Client implements AutoCloseable {
         throw new IllegalStateException("no channel initializer found for major version " + majorVersion);
     }
 
+    private SslContext getSslContext(HttpVersion httpVersion) throws SSLException {
+        SslContext sslContext = sslContexts.get(httpVersion.majorVersion());
+        if (sslContext == null) {
+            // the SSL context is reused for all channels, so TLS sessions can be resumed
+            sslContext = newSslContext(clientConfig, httpVersion);
+            SslContext previous = sslContexts.putIfAbsent(httpVersion.majorVersion(), sslContext);
+            if (previous != null) {
+                sslContext = previous;
+            }
+        }
+        return sslContext;
+    }
+
+    /**
+     * Find the transport provider of the configured name, or the first provider that can be chosen
+     * automatically and is available, or null for the NIO transport.
+     */
+    private static TransportProvider findTransportProvider(ClientConfig clientConfig) {
+        String name = clientConfig.getTransportProviderName();
+        for (TransportProvider transportProvider : ServiceLoader.load(TransportProvider.class)) {
+            if (name == null ? transportProvider.isAutoSelectable() : name.equals(transportProvider.getClass().getName())) {
+                if (transportProvider.createSocketChannelClass() != null) {
+                    return transportProvider;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Initialize trust manager factory once per client lifecycle.
      * @param clientConfig the client config
@@ -462,7 +811,7 @@ public final class Client implements AutoCloseable {
                 new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
                         ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
                         ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
-                        ApplicationProtocolNames.HTTP_2);
+                        ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1);
     }
 
     static class HttpClientThreadFactory implements ThreadFactory {
@@ -490,15 +839,7 @@ public final class Client implements AutoCloseable {
         @Override
         public void channelCreated(Channel channel) throws IOException {
             HttpAddress httpAddress = channel.attr(pool.getAttributeKey()).get();
-            HttpVersion httpVersion = httpAddress.getVersion();
-            SslContext sslContext = newSslContext(clientConfig, httpAddress.getVersion());
-            SslHandlerFactory sslHandlerFactory = new SslHandlerFactory(sslContext,
-                    clientConfig, httpAddress, byteBufAllocator);
-            HttpChannelInitializer initializerTwo =
-                    findChannelInitializer(2, httpAddress, sslHandlerFactory, null);
-            HttpChannelInitializer initializer =
-                    findChannelInitializer(httpVersion.majorVersion(), httpAddress, sslHandlerFactory, initializerTwo);
-            initializer.initChannel(channel);
+            newChannelInitializer(httpAddress).initChannel(channel);
         }
     }
 
@@ -666,6 +1007,11 @@ public final class Client implements AutoCloseable {
             return this;
         }
 
+        public Builder setExpectContinueTimeoutMillis(int expectContinueTimeoutMillis) {
+            clientConfig.setExpectContinueTimeoutMillis(expectContinueTimeoutMillis);
+            return this;
+        }
+
         public Builder enableGzip(boolean enableGzip) {
             clientConfig.setEnableGzip(enableGzip);
             return this;
@@ -776,6 +1122,66 @@ public final class Client implements AutoCloseable {
             return this;
         }
 
+        public Builder setMaxConnectionsPerAddress(int maxConnectionsPerAddress) {
+            clientConfig.setMaxConnectionsPerAddress(maxConnectionsPerAddress);
+            return this;
+        }
+
+        public Builder setMaxTunnelsPerProxy(int maxTunnelsPerProxy) {
+            clientConfig.setMaxTunnelsPerProxy(maxTunnelsPerProxy);
+            return this;
+        }
+
+        /**
+         * Set socket options that are applied if the epoll transport is active.
+         *
+         * @param epollSocketOptions the epoll socket options
+         * @return this builder
+         */
+        public Builder setEpollSocketOptions(EpollSocketOptions epollSocketOptions) {
+            clientConfig.setEpollSocketOptions(epollSocketOptions);
+            return this;
+        }
+
+        /**
+         * Remember the protocol that each origin negotiates, and send requests without an explicit
+         * HTTP version over that protocol. Secure origins that are not known yet are tried with HTTP/2.
+         *
+         * @param protocolMemory true if protocol memory is enabled
+         * @return this builder
+         */
+        public Builder enableProtocolMemory(boolean protocolMemory) {
+            clientConfig.setProtocolMemory(protocolMemory);
+            return this;
+        }
+
+        /**
+         * Consolidate the flushes of concurrent requests on a connection, so that many small writes
+         * reach the socket with one system call per event loop turn, or after the given number of flushes.
+         *
+         * @param explicitFlushAfterFlushes the number of flushes after which a flush is written, 0 to disable
+         * @return this builder
+         */
+        public Builder setFlushConsolidation(int explicitFlushAfterFlushes) {
+            clientConfig.setFlushConsolidation(explicitFlushAfterFlushes);
+            return this;
+        }
+
+        public Builder enableConnectionCoalescing(boolean connectionCoalescing) {
+            clientConfig.setConnectionCoalescing(connectionCoalescing);
+            return this;
+        }
+
+        public Builder enableHttp2Bdp(boolean http2BdpEnabled) {
+            clientConfig.setHttp2BdpEnabled(http2BdpEnabled);
+            return this;
+        }
+
+        public Builder setHttp2MaxWindowSize(int http2MaxWindowSize) {
+            clientConfig.setHttp2MaxWindowSize(http2MaxWindowSize);
+            return this;
+        }
+
         public Client build() {
             return new Client(clientConfig, byteBufAllocator, eventLoopGroup, socketChannelClass);
         }
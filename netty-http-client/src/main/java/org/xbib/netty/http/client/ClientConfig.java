@@ -9,6 +9,7 @@ import io.netty.handler.ssl.CipherSuiteFilter;
 import io.netty.handler.ssl.SslProvider;
 import org.xbib.netty.http.client.api.Pool;
 import org.xbib.netty.http.client.api.BackOff;
+import org.xbib.netty.http.common.EpollSocketOptions;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.security.SecurityUtil;
 
@@ -103,6 +104,11 @@ public class ClientConfig {
          */
         int TIMEOUT_MILLIS = 5000;
 
+        /**
+         * Default time in milliseconds to wait for a 100 Continue before a held back request body is sent.
+         */
+        int EXPECT_CONTINUE_TIMEOUT_MILLIS = 1000;
+
         /**
          * Default for gzip codec.
          */
@@ -171,6 +177,42 @@ public class ClientConfig {
         BackOff BACK_OFF = BackOff.ZERO_BACKOFF;
 
         Boolean ENABLE_NEGOTIATION = false;
+
+        /**
+         * Default maximum number of HTTP/1 connections per address for shared transport.
+         */
+        int MAX_CONNECTIONS_PER_ADDRESS = 64;
+
+        /**
+         * Default for adaptive HTTP/2 flow control windows by bandwidth-delay product estimation.
+         */
+        boolean HTTP2_BDP_ENABLED = false;
+
+        /**
+         * Default maximum HTTP/2 flow control window size for BDP estimation, 16 MB.
+         */
+        int HTTP2_MAX_WINDOW_SIZE = 16 * 1024 * 1024;
+
+        /**
+         * Default maximum number of CONNECT tunnels through an HTTP proxy for shared transport.
+         */
+        int MAX_TUNNELS_PER_PROXY = 256;
+
+        /**
+         * Default for reusing secure HTTP/2 connections for other host names of the same server.
+         */
+        boolean CONNECTION_COALESCING = true;
+
+        /**
+         * Default for remembering the negotiated protocol of origins, for requests without a version.
+         */
+        boolean PROTOCOL_MEMORY = false;
+
+        /**
+         * Default number of flushes after which a consolidated flush is written to the socket,
+         * 0 disables flush consolidation.
+         */
+        int FLUSH_CONSOLIDATION = 0;
     }
 
     private boolean debug = Defaults.DEBUG;
@@ -205,6 +247,8 @@ public class ClientConfig {
 
     private int readTimeoutMillis = Defaults.TIMEOUT_MILLIS;
 
+    private int expectContinueTimeoutMillis = Defaults.EXPECT_CONTINUE_TIMEOUT_MILLIS;
+
     private boolean enableGzip = Defaults.ENABLE_GZIP;
 
     private SslProvider sslProvider = Defaults.SSL_PROVIDER;
@@ -253,6 +297,22 @@ public class ClientConfig {
 
     private boolean enableNegotiation = Defaults.ENABLE_NEGOTIATION;
 
+    private int maxConnectionsPerAddress = Defaults.MAX_CONNECTIONS_PER_ADDRESS;
+
+    private boolean http2BdpEnabled = Defaults.HTTP2_BDP_ENABLED;
+
+    private int http2MaxWindowSize = Defaults.HTTP2_MAX_WINDOW_SIZE;
+
+    private int maxTunnelsPerProxy = Defaults.MAX_TUNNELS_PER_PROXY;
+
+    private boolean connectionCoalescing = Defaults.CONNECTION_COALESCING;
+
+    private boolean protocolMemory = Defaults.PROTOCOL_MEMORY;
+
+    private int flushConsolidation = Defaults.FLUSH_CONSOLIDATION;
+
+    private EpollSocketOptions epollSocketOptions = new EpollSocketOptions();
+
     public ClientConfig setDebug(boolean debug) {
         this.debug = debug;
         return this;
@@ -407,6 +467,22 @@ public class ClientConfig {
         return readTimeoutMillis;
     }
 
+    /**
+     * Set the time to wait for a {@code 100 Continue} response to a request with {@code Expect: 100-continue}.
+     * If the server does not answer in time, the body is sent anyway.
+     *
+     * @param expectContinueTimeoutMillis the timeout in milliseconds
+     * @return this config
+     */
+    public ClientConfig setExpectContinueTimeoutMillis(int expectContinueTimeoutMillis) {
+        this.expectContinueTimeoutMillis = expectContinueTimeoutMillis;
+        return this;
+    }
+
+    public int getExpectContinueTimeoutMillis() {
+        return expectContinueTimeoutMillis;
+    }
+
     public ClientConfig setEnableGzip(boolean enableGzip) {
         this.enableGzip = enableGzip;
         return this;
@@ -637,6 +713,78 @@ public class ClientConfig {
         return enableNegotiation;
     }
 
+    public ClientConfig setMaxConnectionsPerAddress(int maxConnectionsPerAddress) {
+        this.maxConnectionsPerAddress = maxConnectionsPerAddress;
+        return this;
+    }
+
+    public int getMaxConnectionsPerAddress() {
+        return maxConnectionsPerAddress;
+    }
+
+    public ClientConfig setHttp2BdpEnabled(boolean http2BdpEnabled) {
+        this.http2BdpEnabled = http2BdpEnabled;
+        return this;
+    }
+
+    public boolean isHttp2BdpEnabled() {
+        return http2BdpEnabled;
+    }
+
+    public ClientConfig setHttp2MaxWindowSize(int http2MaxWindowSize) {
+        this.http2MaxWindowSize = http2MaxWindowSize;
+        return this;
+    }
+
+    public int getHttp2MaxWindowSize() {
+        return http2MaxWindowSize;
+    }
+
+    public ClientConfig setMaxTunnelsPerProxy(int maxTunnelsPerProxy) {
+        this.maxTunnelsPerProxy = maxTunnelsPerProxy;
+        return this;
+    }
+
+    public int getMaxTunnelsPerProxy() {
+        return maxTunnelsPerProxy;
+    }
+
+    public ClientConfig setConnectionCoalescing(boolean connectionCoalescing) {
+        this.connectionCoalescing = connectionCoalescing;
+        return this;
+    }
+
+    public boolean isConnectionCoalescing() {
+        return connectionCoalescing;
+    }
+
+    public ClientConfig setProtocolMemory(boolean protocolMemory) {
+        this.protocolMemory = protocolMemory;
+        return this;
+    }
+
+    public boolean isProtocolMemory() {
+        return protocolMemory;
+    }
+
+    public ClientConfig setFlushConsolidation(int flushConsolidation) {
+        this.flushConsolidation = flushConsolidation;
+        return this;
+    }
+
+    public int getFlushConsolidation() {
+        return flushConsolidation;
+    }
+
+    public ClientConfig setEpollSocketOptions(EpollSocketOptions epollSocketOptions) {
+        this.epollSocketOptions = epollSocketOptions;
+        return this;
+    }
+
+    public EpollSocketOptions getEpollSocketOptions() {
+        return epollSocketOptions;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,640 @@
+package org.xbib.netty.http.client;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.client.transport.BodySink;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A download of a resource into a file.
+ *
+ * The body is written into the file as it arrives, at the offset where it belongs, without aggregating it
+ * in memory, see {@link Client#send(Request, BodySink)}. A large resource can be split into segments that
+ * are downloaded with concurrent range requests, over the pooled HTTP/1 connections or the streams of an
+ * HTTP/2 connection, and over mirrors that serve the same resource. The first request asks for the first segment,
+ * and when its response tells the length, the other segments are requested. If the server does not support
+ * ranges, the first request gets the whole resource.
+ *
+ * The progress of a download is kept in a state file next to the file, with the suffix {@code .download}.
+ * A download that is started again with the state file requests only the missing ranges, with {@code If-Range},
+ * so the download starts over if the resource has changed. Then the other segments are abandoned, and the whole
+ * resource is downloaded again with a single request. The state file is deleted when the download is complete.
+ */
+public final class Download {
+
+    private static final Logger logger = Logger.getLogger(Download.class.getName());
+
+    private static final String STATE_SUFFIX = ".download";
+
+    private final Client client;
+
+    private final List<String> urls;
+
+    private final Path path;
+
+    private final Path statePath;
+
+    private final int segments;
+
+    private final long minSegmentSize;
+
+    private final boolean resume;
+
+    private final HttpVersion httpVersion;
+
+    private final long timeoutMillis;
+
+    private final AtomicLong transferred;
+
+    private final CompletableFuture<Path> future;
+
+    /**
+     * The ranges that are written, start and end (exclusive), merged.
+     */
+    private final TreeMap<Long, Long> done;
+
+    /**
+     * The segments that are requested and not completed yet.
+     */
+    private final Set<Segment> running;
+
+    private FileChannel fileChannel;
+
+    private long length;
+
+    private String validator;
+
+    private int active;
+
+    private int next;
+
+    private Throwable failure;
+
+    private boolean started;
+
+    private Download(Builder builder) {
+        this.client = builder.client;
+        this.urls = builder.urls;
+        this.path = builder.path;
+        this.statePath = path.resolveSibling(path.getFileName() + STATE_SUFFIX);
+        this.segments = builder.segments;
+        this.minSegmentSize = builder.minSegmentSize;
+        this.resume = builder.resume;
+        this.httpVersion = builder.httpVersion;
+        this.timeoutMillis = builder.timeoutMillis;
+        this.transferred = new AtomicLong();
+        this.future = new CompletableFuture<>();
+        this.done = new TreeMap<>();
+        this.running = new HashSet<>();
+        this.length = -1L;
+    }
+
+    public static Builder builder(Client client, Path path) {
+        return new Builder(client, path);
+    }
+
+    /**
+     * Start the download.
+     *
+     * @return a future that completes with the path of the file when the download is complete
+     */
+    public synchronized CompletableFuture<Path> start() {
+        if (started) {
+            return future;
+        }
+        started = true;
+        try {
+            fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (resume && loadState()) {
+                List<long[]> missing = missing();
+                if (missing.isEmpty()) {
+                    finish();
+                } else {
+                    logger.log(Level.FINE, () -> "resuming download of " + urls.get(0) + " to " + path +
+                            ", missing " + missing.size() + " ranges");
+                    for (long[] range : split(missing, segments)) {
+                        launch(new Segment(range[0], range[1] - 1L, false));
+                    }
+                }
+            } else {
+                fileChannel.truncate(0L);
+                done.clear();
+                launch(new Segment(0L, segments > 1 ? minSegmentSize - 1L : -1L, true));
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            finish();
+        }
+        return future;
+    }
+
+    /**
+     * The length of the resource, if known.
+     *
+     * @return the length, or -1 if it is not known yet
+     */
+    public synchronized long getLength() {
+        return length;
+    }
+
+    /**
+     * The number of bytes written by this download, not counting the bytes of a download that is resumed.
+     *
+     * @return the number of bytes
+     */
+    public long getTransferred() {
+        return transferred.get();
+    }
+
+    public Path getStatePath() {
+        return statePath;
+    }
+
+    private void launch(Segment segment) {
+        active++;
+        running.add(segment);
+        String url = urls.get(next++ % urls.size());
+        Request.Builder builder = Request.get().url(url)
+                .acceptGzip(false)
+                .setTimeoutInMillis(timeoutMillis);
+        if (httpVersion != null) {
+            builder.setVersion(httpVersion);
+        }
+        if (segment.start > 0L || segment.end >= 0L) {
+            builder.setHeader(HttpHeaderNames.RANGE.toString(),
+                    "bytes=" + segment.start + "-" + (segment.end >= 0L ? segment.end : ""));
+            if (validator != null) {
+                builder.setHeader(HttpHeaderNames.IF_RANGE.toString(), validator);
+            }
+        }
+        client.send(builder.build(), segment).whenComplete((response, throwable) -> {
+            Throwable cause = throwable;
+            if (response != null) {
+                int code = response.getStatus().getCode();
+                response.release();
+                if (code < 200 || code >= 300) {
+                    cause = new IOException("status " + code + " for " + url);
+                }
+            }
+            completed(segment, cause);
+        });
+    }
+
+    private synchronized void completed(Segment segment, Throwable throwable) {
+        active--;
+        running.remove(segment);
+        // an abandoned segment wrote nothing that is kept, and its failure does not matter
+        if (!segment.abandoned) {
+            long position = segment.position;
+            if (position > segment.from) {
+                add(segment.from, position);
+            }
+            if (throwable == null && segment.end >= 0L && position != segment.end + 1L) {
+                throwable = new IOException("incomplete range " + segment.start + "-" + segment.end +
+                        ", received up to " + position);
+            }
+            if (throwable == null && segment.end < 0L && length < 0L) {
+                length = position;
+            }
+            if (throwable != null && failure == null) {
+                failure = throwable;
+            }
+        }
+        if (active == 0) {
+            finish();
+        } else {
+            saveState();
+        }
+    }
+
+    private void finish() {
+        try {
+            if (failure == null && (length < 0L || !missing().isEmpty())) {
+                failure = new IOException("download of " + urls.get(0) + " is incomplete");
+            }
+            if (fileChannel != null) {
+                if (failure == null) {
+                    fileChannel.force(false);
+                }
+                fileChannel.close();
+            }
+            if (failure == null) {
+                Files.deleteIfExists(statePath);
+            } else {
+                saveState();
+            }
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(path);
+        }
+    }
+
+    /**
+     * Start over, because the resource has changed or the server ignores ranges. The running segments,
+     * except the given one, are abandoned, and the ranges written so far and their validator are dropped,
+     * in memory and in the state file.
+     *
+     * @param keep the segment that downloads the whole resource, or null
+     */
+    private void restart(Segment keep) throws IOException {
+        for (Segment segment : running) {
+            if (segment != keep) {
+                segment.abandon();
+            }
+        }
+        fileChannel.truncate(0L);
+        done.clear();
+        validator = null;
+        length = -1L;
+        Files.deleteIfExists(statePath);
+    }
+
+    private void add(long start, long end) {
+        long s = start;
+        long e = end;
+        Map.Entry<Long, Long> floor = done.floorEntry(s);
+        if (floor != null && floor.getValue() >= s) {
+            s = floor.getKey();
+            e = Math.max(e, floor.getValue());
+        }
+        Map.Entry<Long, Long> entry;
+        while ((entry = done.ceilingEntry(s)) != null && entry.getKey() <= e) {
+            e = Math.max(e, entry.getValue());
+            done.remove(entry.getKey());
+        }
+        done.put(s, e);
+    }
+
+    private List<long[]> missing() {
+        List<long[]> list = new ArrayList<>();
+        long position = 0L;
+        for (Map.Entry<Long, Long> entry : done.entrySet()) {
+            if (entry.getKey() > position) {
+                list.add(new long[] { position, entry.getKey() });
+            }
+            position = Math.max(position, entry.getValue());
+        }
+        if (position < length) {
+            list.add(new long[] { position, length });
+        }
+        return list;
+    }
+
+    /**
+     * Split the largest ranges in halves, until there are as many ranges as segments, or the ranges
+     * are too small to be split.
+     */
+    private List<long[]> split(List<long[]> ranges, int count) {
+        List<long[]> list = new ArrayList<>(ranges);
+        while (list.size() < count) {
+            long[] largest = list.stream().max(Comparator.comparingLong(r -> r[1] - r[0])).orElse(null);
+            if (largest == null || largest[1] - largest[0] < 2L * minSegmentSize) {
+                break;
+            }
+            long middle = largest[0] + (largest[1] - largest[0]) / 2L;
+            list.remove(largest);
+            list.add(new long[] { largest[0], middle });
+            list.add(new long[] { middle, largest[1] });
+        }
+        return list;
+    }
+
+    private boolean loadState() throws IOException {
+        if (!Files.exists(statePath) || !Files.exists(path)) {
+            return false;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(statePath)) {
+            properties.load(inputStream);
+        }
+        if (!urls.get(0).equals(properties.getProperty("url")) || properties.getProperty("validator") == null) {
+            return false;
+        }
+        try {
+            length = Long.parseLong(properties.getProperty("length", "-1"));
+            String ranges = properties.getProperty("done", "");
+            for (String range : ranges.split(",")) {
+                int pos = range.indexOf('-');
+                if (pos > 0) {
+                    add(Long.parseLong(range.substring(0, pos)), Long.parseLong(range.substring(pos + 1)));
+                }
+            }
+        } catch (NumberFormatException e) {
+            done.clear();
+            return false;
+        }
+        if (length < 0L) {
+            done.clear();
+            return false;
+        }
+        validator = properties.getProperty("validator");
+        return true;
+    }
+
+    private void saveState() {
+        if (validator == null || length < 0L) {
+            // a download without a validator can not be resumed
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("url", urls.get(0));
+        properties.setProperty("validator", validator);
+        properties.setProperty("length", Long.toString(length));
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Long, Long> entry : done.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(entry.getKey()).append('-').append(entry.getValue());
+        }
+        properties.setProperty("done", sb.toString());
+        try (OutputStream outputStream = Files.newOutputStream(statePath)) {
+            properties.store(outputStream, null);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "unable to save download state " + statePath, e);
+        }
+    }
+
+    private static String validator(HttpResponse response) {
+        String etag = response.headers().get(HttpHeaderNames.ETAG);
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.headers().get(HttpHeaderNames.LAST_MODIFIED);
+    }
+
+    /**
+     * Parse {@code bytes first-last/length}.
+     *
+     * @return first, last, and length or -1 if the length is not known, or null
+     */
+    private static long[] parseContentRange(String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return null;
+        }
+        int dash = contentRange.indexOf('-');
+        int slash = contentRange.indexOf('/');
+        if (dash < 0 || slash < dash) {
+            return null;
+        }
+        try {
+            String total = contentRange.substring(slash + 1).trim();
+            return new long[] {
+                    Long.parseLong(contentRange.substring(6, dash).trim()),
+                    Long.parseLong(contentRange.substring(dash + 1, slash).trim()),
+                    "*".equals(total) ? -1L : Long.parseLong(total)
+            };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A range of the resource, and the body sink that writes it into the file. The end is inclusive,
+     * or -1 for the rest of the resource.
+     */
+    private class Segment implements BodySink {
+
+        private final long start;
+
+        private volatile long end;
+
+        private final boolean first;
+
+        /**
+         * The start of the range that is written, 0 if the server sends the whole resource.
+         */
+        private volatile long from;
+
+        private volatile long position;
+
+        /**
+         * Set when the download starts over without this segment, under the lock of the download and
+         * of the segment, so that no write of an abandoned segment reaches the file after the restart.
+         */
+        private boolean abandoned;
+
+        Segment(long start, long end, boolean first) {
+            this.start = start;
+            this.end = end;
+            this.first = first;
+            this.from = start;
+            this.position = start;
+        }
+
+        @Override
+        public void begin(HttpResponse response) throws IOException {
+            synchronized (Download.this) {
+                if (abandoned) {
+                    throw new IOException("download restarted, range from " + start + " abandoned");
+                }
+                if (response.status().code() == HttpResponseStatus.PARTIAL_CONTENT.code()) {
+                    long[] range = parseContentRange(response.headers().get(HttpHeaderNames.CONTENT_RANGE));
+                    if (range == null || range[0] != start) {
+                        throw new IOException("unexpected content range " +
+                                response.headers().get(HttpHeaderNames.CONTENT_RANGE) + " for range from " + start);
+                    }
+                    String responseValidator = validator(response);
+                    if (validator != null && responseValidator != null && !validator.equals(responseValidator)) {
+                        // a range of another version of the resource, start over with a new request
+                        restart(null);
+                        launch(new Segment(0L, -1L, true));
+                        throw new IOException("validator " + responseValidator + " does not match " +
+                                "for range from " + start);
+                    }
+                    if (length < 0L) {
+                        length = range[2];
+                    }
+                    if (validator == null) {
+                        validator = responseValidator;
+                    }
+                    end = range[1];
+                    if (first) {
+                        saveState();
+                        if (length > end + 1L) {
+                            for (long[] r : split(List.<long[]>of(new long[] { end + 1L, length }), segments - 1)) {
+                                launch(new Segment(r[0], r[1] - 1L, false));
+                            }
+                        }
+                    }
+                    return;
+                }
+                // the whole resource, because the server ignores ranges, or the resource has changed,
+                // this segment continues alone
+                restart(this);
+                from = 0L;
+                position = 0L;
+                end = -1L;
+                String contentLength = response.headers().get(HttpHeaderNames.CONTENT_LENGTH);
+                length = contentLength != null ? Long.parseLong(contentLength) : -1L;
+                validator = validator(response);
+            }
+        }
+
+        @Override
+        public synchronized void write(ByteBuf content) throws IOException {
+            if (abandoned) {
+                throw new IOException("download restarted, range from " + start + " abandoned");
+            }
+            int n = content.readableBytes();
+            long p = position;
+            if (end >= 0L && p + n > end + 1L) {
+                throw new IOException("more data than requested for range " + start + "-" + end);
+            }
+            int index = content.readerIndex();
+            int remaining = n;
+            while (remaining > 0) {
+                int written = content.getBytes(index, fileChannel, p, remaining);
+                index += written;
+                p += written;
+                remaining -= written;
+            }
+            position = p;
+            transferred.addAndGet(n);
+        }
+
+        synchronized void abandon() {
+            abandoned = true;
+        }
+    }
+
+    /**
+     * A builder for a download.
+     */
+    public static class Builder {
+
+        private final Client client;
+
+        private final Path path;
+
+        private final List<String> urls;
+
+        private int segments = 1;
+
+        private long minSegmentSize = 8L * 1024L * 1024L;
+
+        private boolean resume = true;
+
+        private HttpVersion httpVersion;
+
+        private long timeoutMillis;
+
+        private Builder(Client client, Path path) {
+            this.client = Objects.requireNonNull(client);
+            this.path = Objects.requireNonNull(path);
+            this.urls = new ArrayList<>();
+        }
+
+        /**
+         * Set the URL of the resource.
+         *
+         * @param url the URL
+         * @return this builder
+         */
+        public Builder url(String url) {
+            urls.add(0, Objects.requireNonNull(url));
+            return this;
+        }
+
+        /**
+         * Add the URL of a mirror that serves the same resource. The segments are distributed over the URL
+         * and the mirrors.
+         *
+         * @param url the URL of the mirror
+         * @return this builder
+         */
+        public Builder addMirror(String url) {
+            urls.add(Objects.requireNonNull(url));
+            return this;
+        }
+
+        /**
+         * Set the number of concurrent range requests. The default is 1.
+         *
+         * @param segments the number of segments
+         * @return this builder
+         */
+        public Builder setSegments(int segments) {
+            this.segments = segments;
+            return this;
+        }
+
+        /**
+         * Set the minimum size of a segment, and the size of the first segment. The default is 8 MB.
+         *
+         * @param minSegmentSize the minimum segment size
+         * @return this builder
+         */
+        public Builder setMinSegmentSize(long minSegmentSize) {
+            this.minSegmentSize = minSegmentSize;
+            return this;
+        }
+
+        /**
+         * Resume from the state file of a previous download. The default is true.
+         *
+         * @param resume true if the download is resumed
+         * @return this builder
+         */
+        public Builder setResume(boolean resume) {
+            this.resume = resume;
+            return this;
+        }
+
+        public Builder setVersion(HttpVersion httpVersion) {
+            this.httpVersion = httpVersion;
+            return this;
+        }
+
+        /**
+         * Set the time a request may wait for a response, or for the next part of the body.
+         * The default is the read timeout of the client.
+         *
+         * @param timeoutMillis the timeout in milliseconds
+         * @return this builder
+         */
+        public Builder setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        public Download build() {
+            if (urls.isEmpty()) {
+                throw new IllegalStateException("no URL");
+            }
+            if (segments < 1 || minSegmentSize < 1L) {
+                throw new IllegalArgumentException("segments and segment size must be positive");
+            }
+            return new Download(this);
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package org.xbib.netty.http.client;
+
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpResponse;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A scheduler for fetching from many hosts, with politeness per host and a global limit of requests in flight.
+ *
+ * Requests are queued per host, and within a host by the urgency of their priority (RFC 9218), see
+ * {@link Request.Builder#setPriority(int, boolean)}. A host gets at most {@code maxPerHost} requests in flight,
+ * and the start of a request to a host waits for the host delay after the previous start and after the previous
+ * response. Across hosts, ready hosts are served by the urgency of their next request, and in the order in which
+ * they became ready. Not more than {@code maxInFlight} requests are in flight at all.
+ *
+ * The requests are sent with {@link Client#send(Request)}, so no thread waits for a response. The connections
+ * of the shared transport are reused per host, HTTP/1 channels from the pool of the address, HTTP/2 streams
+ * on the connection of the address, and the name of a host is resolved when a connection is opened.
+ *
+ * Requests are given one by one with {@link #submit(Request)}, or as a source with {@link #submitAll(Iterator)},
+ * which is read only as far as the queues have room for {@code maxQueued} requests, so a source of millions
+ * of requests does not fill the memory. Host queues are dropped when they are empty and the host delay has passed,
+ * so a request that comes later for the same host still waits for the delay. The results are given
+ * to the {@link Listener} as they arrive, on an event loop thread, and the responses are released after the
+ * listener returns.
+ */
+public final class FetchScheduler implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(FetchScheduler.class.getName());
+
+    private static final int LEVELS = 8;
+
+    private static final int NOT_READY = Integer.MAX_VALUE;
+
+    /**
+     * Receives the results of the requests.
+     */
+    public interface Listener {
+
+        /**
+         * A response has been received. The response is released after this method returns.
+         *
+         * @param request the request
+         * @param response the response
+         */
+        void onResponse(Request request, HttpResponse response);
+
+        /**
+         * A request has failed.
+         *
+         * @param request the request
+         * @param throwable the cause
+         */
+        void onFailure(Request request, Throwable throwable);
+    }
+
+    private final Client client;
+
+    private final Listener listener;
+
+    private final int maxInFlight;
+
+    private final int maxPerHost;
+
+    private final int maxQueued;
+
+    private final long hostDelayNanos;
+
+    private final Map<String, Host> hosts;
+
+    private final ArrayDeque<Host>[] ready;
+
+    private final ArrayDeque<Iterator<Request>> sources;
+
+    private int inFlight;
+
+    private int queued;
+
+    private long completed;
+
+    private long failed;
+
+    private boolean closed;
+
+    private CompletableFuture<Void> idle;
+
+    @SuppressWarnings("unchecked")
+    private FetchScheduler(Builder builder) {
+        this.client = builder.client;
+        this.listener = builder.listener;
+        this.maxInFlight = builder.maxInFlight;
+        this.maxPerHost = builder.maxPerHost;
+        this.maxQueued = builder.maxQueued;
+        this.hostDelayNanos = builder.hostDelayNanos;
+        this.hosts = new HashMap<>();
+        this.ready = new ArrayDeque[LEVELS];
+        for (int i = 0; i < LEVELS; i++) {
+            ready[i] = new ArrayDeque<>();
+        }
+        this.sources = new ArrayDeque<>();
+        this.idle = new CompletableFuture<>();
+    }
+
+    public static Builder builder(Client client) {
+        return new Builder(client);
+    }
+
+    /**
+     * Queue a request.
+     *
+     * @param request the request
+     * @return true if the request is queued, false if the queues are full or the scheduler is closed
+     */
+    public boolean submit(Request request) {
+        Objects.requireNonNull(request);
+        synchronized (this) {
+            if (closed || queued >= maxQueued) {
+                return false;
+            }
+            enqueue(request);
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * Queue the requests of a source. The source is read when the queues have room, by the thread
+     * that submits a request or by an event loop thread when a response arrives, so the iterator
+     * should not block.
+     *
+     * @param requests the source of requests
+     */
+    public void submitAll(Iterator<Request> requests) {
+        Objects.requireNonNull(requests);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            sources.add(requests);
+        }
+        schedule();
+    }
+
+    /**
+     * Return a future that completes when all queued requests and sources are done.
+     *
+     * @return the future
+     */
+    public CompletableFuture<Void> whenIdle() {
+        synchronized (this) {
+            if (isIdle()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (idle.isDone()) {
+                idle = new CompletableFuture<>();
+            }
+            return idle;
+        }
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    public synchronized int getHostCount() {
+        return hosts.size();
+    }
+
+    public synchronized long getCompletedCount() {
+        return completed;
+    }
+
+    public synchronized long getFailedCount() {
+        return failed;
+    }
+
+    /**
+     * Stop the scheduler. Queued requests are dropped, requests in flight are completed.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> future;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Host host : hosts.values()) {
+                host.clear();
+            }
+            hosts.clear();
+            for (ArrayDeque<Host> deque : ready) {
+                deque.clear();
+            }
+            sources.clear();
+            queued = 0;
+            future = inFlight == 0 ? idle : null;
+        }
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    /**
+     * Send as many requests as the limits allow. The requests are sent outside of the lock.
+     */
+    private void schedule() {
+        List<Dispatch> dispatches = new ArrayList<>();
+        CompletableFuture<Void> future = null;
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill();
+            while (!closed && inFlight < maxInFlight) {
+                Host host = pollReady(now);
+                if (host == null) {
+                    break;
+                }
+                Request request = host.poll();
+                queued--;
+                inFlight++;
+                host.active++;
+                host.notBefore = now + hostDelayNanos;
+                dispatches.add(new Dispatch(host, request));
+                update(host, now);
+                refill();
+            }
+            if (isIdle() && !idle.isDone()) {
+                future = idle;
+            }
+        }
+        for (Dispatch dispatch : dispatches) {
+            send(dispatch.host, dispatch.request);
+        }
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    private void send(Host host, Request request) {
+        CompletableFuture<HttpResponse> future = client.send(request);
+        if (future.isDone()) {
+            // a request that failed before it was sent completes in this thread, which is still in schedule()
+            future.whenCompleteAsync((response, throwable) -> complete(host, request, response, throwable),
+                    client.getEventLoopGroup());
+        } else {
+            future.whenComplete((response, throwable) -> complete(host, request, response, throwable));
+        }
+    }
+
+    private void complete(Host host, Request request, HttpResponse response, Throwable throwable) {
+        synchronized (this) {
+            inFlight--;
+            host.active--;
+            if (throwable != null) {
+                failed++;
+            } else {
+                completed++;
+            }
+            if (!closed) {
+                long now = System.nanoTime();
+                host.notBefore = Math.max(host.notBefore, now + hostDelayNanos);
+                update(host, now);
+            }
+        }
+        try {
+            if (throwable != null) {
+                listener.onFailure(request, throwable);
+            } else {
+                listener.onResponse(request, response);
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, e.getMessage(), e);
+        } finally {
+            if (response != null) {
+                response.release();
+            }
+        }
+        schedule();
+    }
+
+    private void enqueue(Request request) {
+        String key = request.httpAddress().getHost().toLowerCase(Locale.ROOT);
+        Host host = hosts.computeIfAbsent(key, Host::new);
+        host.add(request);
+        queued++;
+        update(host, System.nanoTime());
+    }
+
+    private void refill() {
+        while (!closed && queued < maxQueued && !sources.isEmpty()) {
+            Iterator<Request> iterator = sources.peek();
+            if (iterator.hasNext()) {
+                enqueue(iterator.next());
+            } else {
+                sources.poll();
+            }
+        }
+    }
+
+    private boolean isIdle() {
+        return closed ? inFlight == 0 : inFlight == 0 && queued == 0 && sources.isEmpty();
+    }
+
+    /**
+     * Find the ready host with the most urgent request. Entries of hosts that were made ready again
+     * with a higher urgency are skipped.
+     */
+    private Host pollReady(long now) {
+        for (int level = 0; level < LEVELS; level++) {
+            ArrayDeque<Host> deque = ready[level];
+            Host host;
+            while ((host = deque.poll()) != null) {
+                if (host.readyLevel != level) {
+                    continue;
+                }
+                host.readyLevel = NOT_READY;
+                if (host.isEmpty() || host.active >= maxPerHost || host.notBefore - now > 0L) {
+                    update(host, now);
+                    continue;
+                }
+                return host;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Put a host in the ready queue of its most urgent request, or wait for the host delay,
+     * or drop the host if it has nothing to do. A host without requests is kept until the host delay
+     * has passed, because a new host would not know when the last request was started.
+     */
+    private void update(Host host, long now) {
+        if (host.active >= maxPerHost || (host.isEmpty() && host.active > 0)) {
+            // a response updates the host again
+            return;
+        }
+        long delay = host.notBefore - now;
+        if (delay > 0L) {
+            if (!host.waiting) {
+                host.waiting = true;
+                client.getEventLoopGroup().schedule(() -> {
+                    synchronized (this) {
+                        host.waiting = false;
+                        if (!closed) {
+                            update(host, System.nanoTime());
+                        }
+                    }
+                    schedule();
+                }, delay, TimeUnit.NANOSECONDS);
+            }
+            return;
+        }
+        if (host.isEmpty()) {
+            if (!host.waiting) {
+                hosts.remove(host.key, host);
+            }
+            return;
+        }
+        int level = host.urgency();
+        if (level < host.readyLevel) {
+            host.readyLevel = level;
+            ready[level].add(host);
+        }
+    }
+
+    private static class Dispatch {
+
+        private final Host host;
+
+        private final Request request;
+
+        Dispatch(Host host, Request request) {
+            this.host = host;
+            this.request = request;
+        }
+    }
+
+    /**
+     * The queues of a host, one per urgency, created on demand.
+     */
+    private static class Host {
+
+        private final String key;
+
+        @SuppressWarnings("unchecked")
+        private final ArrayDeque<Request>[] levels = new ArrayDeque[LEVELS];
+
+        private int size;
+
+        private int active;
+
+        private long notBefore;
+
+        private int readyLevel;
+
+        private boolean waiting;
+
+        Host(String key) {
+            this.key = key;
+            this.notBefore = System.nanoTime();
+            this.readyLevel = NOT_READY;
+        }
+
+        void add(Request request) {
+            int urgency = request.getUrgency();
+            if (levels[urgency] == null) {
+                levels[urgency] = new ArrayDeque<>();
+            }
+            levels[urgency].add(request);
+            size++;
+        }
+
+        Request poll() {
+            for (ArrayDeque<Request> deque : levels) {
+                if (deque != null && !deque.isEmpty()) {
+                    size--;
+                    return deque.poll();
+                }
+            }
+            return null;
+        }
+
+        int urgency() {
+            for (int i = 0; i < LEVELS; i++) {
+                if (levels[i] != null && !levels[i].isEmpty()) {
+                    return i;
+                }
+            }
+            return NOT_READY;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            for (ArrayDeque<Request> deque : levels) {
+                if (deque != null) {
+                    for (Request request : deque) {
+                        request.release();
+                    }
+                    deque.clear();
+                }
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * A builder for a fetch scheduler.
+     */
+    public static class Builder {
+
+        private final Client client;
+
+        private Listener listener;
+
+        private int maxInFlight = 256;
+
+        private int maxPerHost = 1;
+
+        private int maxQueued = 65536;
+
+        private long hostDelayNanos = 0L;
+
+        private Builder(Client client) {
+            this.client = Objects.requireNonNull(client);
+        }
+
+        public Builder setListener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of requests in flight, for all hosts. The default is 256.
+         *
+         * @param maxInFlight the maximum number of requests in flight
+         * @return this builder
+         */
+        public Builder setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of requests in flight to a host. The default is 1.
+         *
+         * @param maxPerHost the maximum number of requests in flight to a host
+         * @return this builder
+         */
+        public Builder setMaxPerHost(int maxPerHost) {
+            this.maxPerHost = maxPerHost;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of queued requests, for all hosts. The default is 65536.
+         *
+         * @param maxQueued the maximum number of queued requests
+         * @return this builder
+         */
+        public Builder setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        /**
+         * Set the minimum delay between the starts of requests to a host, and between a response
+         * and the start of the next request to the host. The default is no delay.
+         *
+         * @param delay the delay
+         * @param timeUnit the time unit of the delay
+         * @return this builder
+         */
+        public Builder setHostDelay(long delay, TimeUnit timeUnit) {
+            this.hostDelayNanos = timeUnit.toNanos(delay);
+            return this;
+        }
+
+        public FetchScheduler build() {
+            Objects.requireNonNull(listener, "listener");
+            if (maxInFlight < 1 || maxPerHost < 1 || maxQueued < 1) {
+                throw new IllegalArgumentException("limits must be positive");
+            }
+            return new FetchScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.xbib.netty.http.client;
+
+import org.xbib.netty.http.client.api.Request;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import org.xbib.netty.http.common.HttpResponse;
+
+/**
+ * A publisher that sends requests as the subscriber signals demand, and publishes
+ * the results of a function applied to the responses in the order of their arrival.
+ *
+ * Not more requests are in flight than results were requested. The responses are released
+ * after the function was applied. The first failed request terminates the publisher with an error.
+ * This publisher can be subscribed only once.
+ *
+ * @param <T> the result type
+ */
+final class ResponsePublisher<T> implements Flow.Publisher<T> {
+
+    private final Client client;
+
+    private final Iterable<Request> requests;
+
+    private final Function<HttpResponse, T> function;
+
+    private final AtomicBoolean subscribed;
+
+    ResponsePublisher(Client client, Iterable<Request> requests, Function<HttpResponse, T> function) {
+        this.client = client;
+        this.requests = requests;
+        this.function = function;
+        this.subscribed = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("only one subscriber allowed"));
+            return;
+        }
+        ResponseSubscription subscription = new ResponseSubscription(subscriber, requests.iterator());
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    private class ResponseSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final Iterator<Request> iterator;
+
+        private final AtomicLong requested;
+
+        private final AtomicInteger inFlight;
+
+        private final AtomicInteger wip;
+
+        private final Queue<T> results;
+
+        private final AtomicReference<Throwable> error;
+
+        private volatile boolean cancelled;
+
+        /**
+         * The number of requests sent. Only accessed in the drain loop.
+         */
+        private long sent;
+
+        /**
+         * If the requests are exhausted. Only accessed in the drain loop.
+         */
+        private boolean exhausted;
+
+        private boolean terminated;
+
+        ResponseSubscription(Flow.Subscriber<? super T> subscriber, Iterator<Request> iterator) {
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+            this.requested = new AtomicLong();
+            this.inFlight = new AtomicInteger();
+            this.wip = new AtomicInteger();
+            this.results = new ConcurrentLinkedQueue<>();
+            this.error = new AtomicReference<>();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0L) {
+                error.compareAndSet(null, new IllegalArgumentException("non-positive request: " + n));
+            } else {
+                requested.getAndUpdate(r -> r + n < 0L ? Long.MAX_VALUE : r + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Emit results and send requests. Only one thread at a time runs the loop, other
+         * threads only signal that there is more work to do.
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!terminated) {
+                    drainLoop();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drainLoop() {
+            if (cancelled) {
+                terminated = true;
+                return;
+            }
+            Throwable throwable = error.get();
+            if (throwable != null) {
+                terminated = true;
+                subscriber.onError(throwable);
+                return;
+            }
+            T result;
+            while ((result = results.poll()) != null) {
+                subscriber.onNext(result);
+            }
+            while (!exhausted && sent < requested.get()) {
+                if (!iterator.hasNext()) {
+                    exhausted = true;
+                    break;
+                }
+                sent++;
+                inFlight.incrementAndGet();
+                client.send(iterator.next()).whenComplete((httpResponse, t) -> {
+                    if (t != null) {
+                        error.compareAndSet(null, t);
+                    } else {
+                        try {
+                            results.offer(function.apply(httpResponse));
+                        } catch (RuntimeException e) {
+                            error.compareAndSet(null, e);
+                        } finally {
+                            httpResponse.release();
+                        }
+                    }
+                    inFlight.decrementAndGet();
+                    drain();
+                });
+            }
+            if (!exhausted && !iterator.hasNext()) {
+                exhausted = true;
+            }
+            if (exhausted && inFlight.get() == 0 && results.isEmpty() && error.get() == null) {
+                terminated = true;
+                subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.xbib.netty.http.client.Client;
 import org.xbib.netty.http.client.ClientConfig;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 import org.xbib.netty.http.client.handler.http2.Http2ChannelInitializer;
+import org.xbib.netty.http.client.transport.BodySinkHandler;
 import org.xbib.netty.http.common.HttpAddress;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -97,15 +98,16 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel> impleme
     private void configureCleartext(Channel channel) {
         ChannelPipeline pipeline = channel.pipeline();
         //pipeline.addLast("client-chunk-compressor", new HttpChunkContentCompressor(6));
-        pipeline.addLast("http-client-chunk-writer", new ChunkedWriteHandler());
         pipeline.addLast("http-client-codec", new HttpClientCodec(clientConfig.getMaxInitialLineLength(),
                  clientConfig.getMaxHeadersSize(), clientConfig.getMaxChunkSize()));
+        pipeline.addLast("http-client-chunk-writer", new ChunkedWriteHandler());
         if (clientConfig.isEnableGzip()) {
             pipeline.addLast("http-client-decompressor", new HttpContentDecompressor());
         }
         HttpObjectAggregator httpObjectAggregator = new HttpObjectAggregator(clientConfig.getMaxContentLength(),
                 false);
         httpObjectAggregator.setMaxCumulationBufferComponents(clientConfig.getMaxCompositeBufferComponents());
+        pipeline.addLast("http-client-body-sink", BodySinkHandler.INSTANCE);
         pipeline.addLast("http-client-aggregator", httpObjectAggregator);
         pipeline.addLast("http-client-handler", httpResponseHandler);
     }
@@ -4,22 +4,52 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import org.xbib.netty.http.client.api.ClientTransport;
+import org.xbib.netty.http.client.transport.Exchange;
+import org.xbib.netty.http.client.transport.PendingBody;
+import java.nio.channels.ClosedChannelException;
 
 @ChannelHandler.Sharable
 public class HttpResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
 
     @Override
     public void channelRead0(ChannelHandlerContext ctx, FullHttpResponse fullHttpResponse) throws Exception {
+        int code = fullHttpResponse.status().code();
+        if (code >= 100 && code < 200 && code != HttpResponseStatus.SWITCHING_PROTOCOLS.code()) {
+            // an interim response, the final response follows on this channel
+            if (code == HttpResponseStatus.CONTINUE.code()) {
+                PendingBody.continueReceived(ctx.channel());
+            }
+            return;
+        }
+        Exchange exchange = ctx.channel().attr(Exchange.EXCHANGE_ATTRIBUTE_KEY).getAndSet(null);
+        if (exchange != null) {
+            exchange.responseReceived(ctx.channel(), fullHttpResponse);
+            return;
+        }
         ClientTransport transport = ctx.channel().attr(ClientTransport.TRANSPORT_ATTRIBUTE_KEY).get();
         if (transport != null) {
             transport.responseReceived(ctx.channel(), null, fullHttpResponse);
         }
     }
 
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        ctx.fireChannelInactive();
+        Exchange exchange = ctx.channel().attr(Exchange.EXCHANGE_ATTRIBUTE_KEY).getAndSet(null);
+        if (exchange != null) {
+            exchange.fail(ctx.channel(), new ClosedChannelException());
+        }
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         ctx.fireExceptionCaught(cause);
+        Exchange exchange = ctx.channel().attr(Exchange.EXCHANGE_ATTRIBUTE_KEY).getAndSet(null);
+        if (exchange != null) {
+            exchange.fail(ctx.channel(), cause);
+        }
         ClientTransport transport = ctx.channel().attr(ClientTransport.TRANSPORT_ATTRIBUTE_KEY).get();
         if (transport != null) {
             transport.fail(ctx.channel(), cause);
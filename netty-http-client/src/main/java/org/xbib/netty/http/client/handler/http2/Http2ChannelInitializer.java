@@ -11,6 +11,7 @@ import io.netty.handler.codec.http2.Http2FrameLogger;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.Http2MultiplexCodec;
 import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import org.xbib.netty.http.client.Client;
 import org.xbib.netty.http.client.ClientConfig;
@@ -18,6 +19,7 @@ import org.xbib.netty.http.client.handler.http.TrafficLoggingHandler;
 import org.xbib.netty.http.client.api.ClientTransport;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.HttpChannelInitializer;
+import org.xbib.netty.http.common.http2.Http2BdpEstimator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -75,8 +77,16 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel> impleme
         }
         Http2MultiplexCodec multiplexCodec = multiplexCodecBuilder.autoAckSettingsFrame(true) .build();
         ChannelPipeline pipeline = ch.pipeline();
+        if (clientConfig.getFlushConsolidation() > 0) {
+            pipeline.addLast("client-flush-consolidation",
+                    new FlushConsolidationHandler(clientConfig.getFlushConsolidation(), true));
+        }
         pipeline.addLast("client-multiplex", multiplexCodec);
         pipeline.addLast("client-messages", new ClientMessages());
+        if (clientConfig.isHttp2BdpEnabled()) {
+            new Http2BdpEstimator(clientConfig.getHttp2Settings(), clientConfig.getHttp2MaxWindowSize())
+                    .install(pipeline, "client-multiplex");
+        }
     }
 
     static class ClientMessages extends ChannelInboundHandlerAdapter {
@@ -4,14 +4,31 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http2.HttpConversionUtil;
 import org.xbib.netty.http.client.api.ClientTransport;
+import org.xbib.netty.http.client.transport.Exchange;
+import org.xbib.netty.http.client.transport.PendingBody;
+import java.nio.channels.ClosedChannelException;
 
 @ChannelHandler.Sharable
 public class Http2ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse httpResponse) throws Exception {
+        int code = httpResponse.status().code();
+        if (code >= 100 && code < 200 && code != HttpResponseStatus.SWITCHING_PROTOCOLS.code()) {
+            // an interim response, the final response follows on this channel
+            if (code == HttpResponseStatus.CONTINUE.code()) {
+                PendingBody.continueReceived(ctx.channel());
+            }
+            return;
+        }
+        Exchange exchange = ctx.channel().attr(Exchange.EXCHANGE_ATTRIBUTE_KEY).getAndSet(null);
+        if (exchange != null) {
+            exchange.responseReceived(ctx.channel(), httpResponse);
+            return;
+        }
         Integer streamId = httpResponse.headers().getInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text());
         ClientTransport transport = ctx.channel().attr(ClientTransport.TRANSPORT_ATTRIBUTE_KEY).get();
         if (transport != null) {
@@ -23,6 +40,10 @@ public class Http2ResponseHandler extends SimpleChannelInboundHandler<FullHttpRe
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         ctx.fireChannelInactive();
+        Exchange exchange = ctx.channel().attr(Exchange.EXCHANGE_ATTRIBUTE_KEY).getAndSet(null);
+        if (exchange != null) {
+            exchange.fail(ctx.channel(), new ClosedChannelException());
+        }
         ClientTransport transport = ctx.channel().attr(ClientTransport.TRANSPORT_ATTRIBUTE_KEY).get();
         if (transport != null) {
             transport.inactive(ctx.channel());
@@ -32,6 +53,10 @@ public class Http2ResponseHandler extends SimpleChannelInboundHandler<FullHttpRe
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         ctx.fireExceptionCaught(cause);
+        Exchange exchange = ctx.channel().attr(Exchange.EXCHANGE_ATTRIBUTE_KEY).getAndSet(null);
+        if (exchange != null) {
+            exchange.fail(ctx.channel(), cause);
+        }
         ClientTransport transport = ctx.channel().attr(ClientTransport.TRANSPORT_ATTRIBUTE_KEY).get();
         if (transport != null) {
             transport.fail(ctx.channel(), cause);
@@ -7,7 +7,6 @@ import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.pool.ChannelPoolHandler;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http2.DefaultHttp2GoAwayFrame;
 import io.netty.util.AttributeKey;
@@ -30,6 +29,7 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -82,6 +82,26 @@ public class BoundedChannelPool<K extends PoolKey> implements Pool<Channel> {
                               List<K> nodes, Bootstrap bootstrap,
                               ChannelPoolHandler channelPoolHandler, int retriesPerNode,
                               PoolKeySelectorType poolKeySelectorType) {
+        this(semaphore, httpVersion, nodes, node -> bootstrap.clone().remoteAddress(node.getInetSocketAddress()),
+                channelPoolHandler, retriesPerNode, poolKeySelectorType);
+    }
+
+    /**
+     * A bounded channel pool with a bootstrap for each node, e.g. for nodes on unix domain sockets.
+     *
+     * @param semaphore the level of concurrency
+     * @param httpVersion the HTTP version of the pool connections
+     * @param nodes the endpoint nodes
+     * @param bootstrapFunction a function returning a new bootstrap with the remote address of a node
+     * @param channelPoolHandler channel pool handler being notified upon new connection is created
+     * @param retriesPerNode the max count of the subsequent connection failures to the node before
+     *                       the node will be excluded from the pool. If set to 0, the value is ignored.
+     * @param poolKeySelectorType pool key selector type
+     */
+    public BoundedChannelPool(Semaphore semaphore, HttpVersion httpVersion,
+                              List<K> nodes, Function<K, Bootstrap> bootstrapFunction,
+                              ChannelPoolHandler channelPoolHandler, int retriesPerNode,
+                              PoolKeySelectorType poolKeySelectorType) {
         this.semaphore = semaphore;
         this.httpVersion = httpVersion;
         this.channelPoolhandler = channelPoolHandler;
@@ -108,8 +128,7 @@ public class BoundedChannelPool<K extends PoolKey> implements Pool<Channel> {
         failedCounts = new ConcurrentHashMap<>(numberOfNodes);
         for (K node : nodes) {
             ChannelPoolInitializer initializer = new ChannelPoolInitializer(node, channelPoolHandler);
-            bootstraps.put(node, bootstrap.clone().remoteAddress(node.getInetSocketAddress())
-                .handler(initializer));
+            bootstraps.put(node, bootstrapFunction.apply(node).handler(initializer));
             availableChannels.put(node, new ConcurrentLinkedQueue<>());
             counts.put(node, 0);
             failedCounts.put(node, 0);
@@ -376,7 +395,7 @@ public class BoundedChannelPool<K extends PoolKey> implements Pool<Channel> {
         }
     }
 
-    class ChannelPoolInitializer extends ChannelInitializer<SocketChannel> {
+    class ChannelPoolInitializer extends ChannelInitializer<Channel> {
 
         private final K key;
 
@@ -388,7 +407,7 @@ public class BoundedChannelPool<K extends PoolKey> implements Pool<Channel> {
         }
 
         @Override
-        protected void initChannel(SocketChannel channel) throws Exception {
+        protected void initChannel(Channel channel) throws Exception {
             if (!channel.eventLoop().inEventLoop()) {
                 throw new IllegalStateException();
             }
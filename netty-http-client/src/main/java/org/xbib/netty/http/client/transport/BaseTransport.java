@@ -24,6 +24,7 @@ import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnmappableCharacterException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -32,6 +33,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -61,6 +63,8 @@ public abstract class BaseTransport implements ClientTransport {
 
     protected HttpDataFactory httpDataFactory;
 
+    private final AtomicInteger executions;
+
     public BaseTransport(Client client, HttpAddress httpAddress) {
         this.client = client;
         this.httpAddress = httpAddress;
@@ -68,6 +72,7 @@ public abstract class BaseTransport implements ClientTransport {
         this.flowMap = new ConcurrentHashMap<>();
         this.requests = new ConcurrentSkipListMap<>();
         this.httpDataFactory = new DefaultHttpDataFactory();
+        this.executions = new AtomicInteger();
     }
 
     @Override
@@ -94,12 +99,66 @@ public abstract class BaseTransport implements ClientTransport {
             } else {
                 completableFuture.cancel(true);
             }
-            close();
+            if (executions.decrementAndGet() == 0) {
+                releaseLater();
+            } else {
+                releaseLater(request);
+            }
         });
-        execute(request);
+        executions.incrementAndGet();
+        try {
+            execute(request);
+        } catch (IOException | RuntimeException e) {
+            executions.decrementAndGet();
+            throw e;
+        }
         return completableFuture;
     }
 
+    /**
+     * Release the channels after the response to the last pending execution has been handled.
+     * The listener runs on the event loop before the flow of the response is completed, so we must
+     * not wait for the flows here, but cancel the remaining flows and release the channels in a later
+     * event loop task.
+     */
+    private void releaseLater() {
+        Iterator<Channel> iterator = channels.values().iterator();
+        if (iterator.hasNext()) {
+            iterator.next().eventLoop().execute(this::cancel);
+        } else {
+            cancel();
+        }
+    }
+
+    /**
+     * Release the channel and the flow of a single request, while other executions are still pending.
+     * Only a pooled channel belongs to a single request. The streams of a shared channel are removed
+     * from their flow when their responses are received.
+     *
+     * @param request the request that has been answered
+     */
+    private void releaseLater(Request request) {
+        Channel channel = channels.remove(request);
+        if (channel == null) {
+            return;
+        }
+        channel.eventLoop().execute(() -> {
+            Flow flow = flowMap.remove(channel.id().toString());
+            if (flow != null) {
+                for (Integer key : flow.keys()) {
+                    flow.get(key).cancel(true);
+                    flow.remove(key);
+                }
+                flow.close();
+            }
+            try {
+                client.releaseChannel(channel, true);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, e.getMessage(), e);
+            }
+        });
+    }
+
     @Override
     public void close() {
         get();
@@ -174,6 +233,7 @@ public abstract class BaseTransport implements ClientTransport {
                 logger.log(Level.WARNING, e.getMessage(), e);
             }
         });
+        reclaim();
         return this;
     }
 
@@ -203,9 +263,18 @@ public abstract class BaseTransport implements ClientTransport {
             }
         });
         flowMap.clear();
+        reclaim();
+    }
+
+    /**
+     * All flows are completed or cancelled, and the channels are released. Drop the references
+     * to channels and requests, remove the temporary files of HTTP data, and let the client forget us.
+     */
+    private void reclaim() {
         channels.clear();
         requests.clear();
         httpDataFactory.cleanAllHttpData();
+        client.reclaimTransport(this);
     }
 
     @Override
@@ -227,6 +296,7 @@ public abstract class BaseTransport implements ClientTransport {
             channel = switchNextChannel();
             channels.put(request, channel);
         }
+        client.registerTransport(this);
         SslHandler sslHandler = channel.pipeline().get(SslHandler.class);
         sslSession = sslHandler != null ? sslHandler.engine().getSession() : null;
         return channel;
@@ -262,43 +332,7 @@ public abstract class BaseTransport implements ClientTransport {
             return null;
         }
         try {
-            if (request.canRedirect()) {
-                int status = httpResponse.getStatus().getCode();
-                switch (status) {
-                    case 300:
-                    case 301:
-                    case 302:
-                    case 303:
-                    case 305:
-                    case 307:
-                    case 308:
-                        String location = httpResponse.getHeaders().getHeader(HttpHeaderNames.LOCATION);
-                        location = new PercentDecoder(StandardCharsets.UTF_8.newDecoder()).decode(location);
-                        if (location != null) {
-                            logger.log(Level.FINE, "found redirect location: " + location);
-                            URL redirUrl = URL.base(request.url()).resolve(location);
-                            HttpMethod method = httpResponse.getStatus().getCode() == 303 ? HttpMethod.GET : request.httpMethod();
-                            Request.Builder newHttpRequestBuilder = Request.builder(method, request)
-                                    .url(redirUrl);
-                            request.url().getQueryParams().forEach(pair ->
-                                newHttpRequestBuilder.addParameter(pair.getFirst(), pair.getSecond())
-                            );
-                            request.cookies().forEach(newHttpRequestBuilder::addCookie);
-                            Request newHttpRequest = newHttpRequestBuilder.build();
-                            StringBuilder hostAndPort = new StringBuilder();
-                            hostAndPort.append(redirUrl.getHost());
-                            if (redirUrl.getPort() != null) {
-                                hostAndPort.append(':').append(redirUrl.getPort());
-                            }
-                            newHttpRequest.headers().set(HttpHeaderNames.HOST, hostAndPort.toString());
-                            logger.log(Level.FINE, "redirect url: " + redirUrl);
-                            return newHttpRequest;
-                        }
-                        break;
-                    default:
-                        break;
-                }
-            }
+            return redirect(request, httpResponse);
         } catch (MalformedInputException | UnmappableCharacterException e) {
             this.throwable = e;
         }
@@ -314,10 +348,81 @@ public abstract class BaseTransport implements ClientTransport {
             // push promise or something else
             return null;
         }
+        long millis = backOffMillis(request, httpResponse, client.getClientConfig().getBackOff());
+        if (millis != BackOff.STOP) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            return request;
+        }
+        return null;
+    }
+
+    /**
+     * Construct the request for following a redirect response.
+     *
+     * @param request the request that was answered by a redirect
+     * @param httpResponse the response
+     * @return the new request, or null if the response is not a redirect that should be followed
+     * @throws URLSyntaxException if the location can not be resolved
+     * @throws MalformedInputException if the location can not be decoded
+     * @throws UnmappableCharacterException if the location can not be decoded
+     */
+    static Request redirect(Request request, HttpResponse httpResponse)
+            throws URLSyntaxException, MalformedInputException, UnmappableCharacterException {
+        if (request.canRedirect()) {
+            int status = httpResponse.getStatus().getCode();
+            switch (status) {
+                case 300:
+                case 301:
+                case 302:
+                case 303:
+                case 305:
+                case 307:
+                case 308:
+                    String location = httpResponse.getHeaders().getHeader(HttpHeaderNames.LOCATION);
+                    location = new PercentDecoder(StandardCharsets.UTF_8.newDecoder()).decode(location);
+                    if (location != null) {
+                        logger.log(Level.FINE, "found redirect location: " + location);
+                        URL redirUrl = URL.base(request.url()).resolve(location);
+                        HttpMethod method = httpResponse.getStatus().getCode() == 303 ? HttpMethod.GET : request.httpMethod();
+                        Request.Builder newHttpRequestBuilder = Request.builder(method, request)
+                                .url(redirUrl);
+                        request.url().getQueryParams().forEach(pair ->
+                            newHttpRequestBuilder.addParameter(pair.getFirst(), pair.getSecond())
+                        );
+                        request.cookies().forEach(newHttpRequestBuilder::addCookie);
+                        Request newHttpRequest = newHttpRequestBuilder.build();
+                        StringBuilder hostAndPort = new StringBuilder();
+                        hostAndPort.append(redirUrl.getHost());
+                        if (redirUrl.getPort() != null) {
+                            hostAndPort.append(':').append(redirUrl.getPort());
+                        }
+                        newHttpRequest.headers().set(HttpHeaderNames.HOST, hostAndPort.toString());
+                        logger.log(Level.FINE, "redirect url: " + redirUrl);
+                        return newHttpRequest;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compute the back-off delay before retrying a request.
+     *
+     * @param request the request
+     * @param httpResponse the response
+     * @param defaultBackOff the back-off of the client, used if the request has none
+     * @return the milliseconds to wait, or {@link BackOff#STOP} if the request should not be retried
+     */
+    static long backOffMillis(Request request, HttpResponse httpResponse, BackOff defaultBackOff) {
         if (request.isBackOff()) {
-            BackOff backOff = request.getBackOff() != null ?
-                    request.getBackOff() :
-                    client.getClientConfig().getBackOff();
+            BackOff backOff = request.getBackOff() != null ? request.getBackOff() : defaultBackOff;
             int status = httpResponse.getStatus ().getCode();
             switch (status) {
                 case 403:
@@ -332,12 +437,7 @@ public abstract class BaseTransport implements ClientTransport {
                         long millis = backOff.nextBackOffMillis();
                         if (millis != BackOff.STOP) {
                             logger.log(Level.FINE, () -> "status = " + status + " backing off request by " + millis + " milliseconds");
-                            try {
-                                Thread.sleep(millis);
-                            } catch (InterruptedException e) {
-                                // ignore
-                            }
-                            return request;
+                            return millis;
                         }
                     }
                     break;
@@ -345,7 +445,7 @@ public abstract class BaseTransport implements ClientTransport {
                     break;
             }
         }
-        return null;
+        return BackOff.STOP;
     }
 
     private void completeRequest(String requestKey) {
@@ -357,7 +457,7 @@ public abstract class BaseTransport implements ClientTransport {
         }
     }
 
-    private void completeRequestExceptionally(String requestKey, Throwable throwable) {
+    protected void completeRequestExceptionally(String requestKey, Throwable throwable) {
         if (requestKey != null) {
             Request request = requests.get(requestKey);
             if (request != null && request.getCompletableFuture() != null) {
@@ -376,26 +476,26 @@ public abstract class BaseTransport implements ClientTransport {
         return cookieBox;
     }
 
-    void addCookie(Cookie cookie) {
+    protected void addCookie(Cookie cookie) {
         if (cookieBox == null) {
             this.cookieBox = new CookieBox(32);
         }
         cookieBox.put(cookie, true);
     }
 
-    List<Cookie> matchCookiesFromBox(Request request) {
+    protected List<Cookie> matchCookiesFromBox(Request request) {
         return cookieBox == null ? Collections.emptyList() : cookieBox.keySet().stream().filter(cookie ->
                 matchCookie(request.url(), cookie)
         ).collect(Collectors.toList());
     }
 
-    List<Cookie> matchCookies(Request request) {
+    protected List<Cookie> matchCookies(Request request) {
         return request.cookies().stream().filter(cookie ->
                 matchCookie(request.url(), cookie)
         ).collect(Collectors.toList());
     }
 
-    private boolean matchCookie(URL url, Cookie cookie) {
+    static boolean matchCookie(URL url, Cookie cookie) {
         boolean domainMatch = cookie.domain() == null || url.getHost().endsWith(cookie.domain());
         if (!domainMatch) {
             return false;
@@ -0,0 +1,31 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpResponse;
+import java.io.IOException;
+
+/**
+ * Receives the body of a successful response as it arrives, instead of the aggregated body.
+ *
+ * The methods are called on the event loop of the channel, so they should not block for long.
+ * The exchange completes with a response that has the status and headers, but an empty body.
+ * Responses that are not successful are aggregated as usual and are not given to the sink.
+ */
+public interface BodySink {
+
+    /**
+     * The head of a successful response has been received.
+     *
+     * @param response the status and headers of the response
+     * @throws IOException if the response is not acceptable, this fails the exchange
+     */
+    void begin(HttpResponse response) throws IOException;
+
+    /**
+     * A part of the body has been received. The buffer is released after this method returns.
+     *
+     * @param content the part of the body
+     * @throws IOException if the part can not be written, this fails the exchange
+     */
+    void write(ByteBuf content) throws IOException;
+}
@@ -0,0 +1,80 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import java.io.IOException;
+
+/**
+ * Hands the body of a successful response to the {@link BodySink} of the exchange on the channel,
+ * before the body is aggregated. When the body is complete, a response with the head and the trailing headers,
+ * but an empty body, is passed on, so the exchange completes as usual. Messages of channels without
+ * a body sink are passed on unchanged.
+ */
+@ChannelHandler.Sharable
+public final class BodySinkHandler extends ChannelInboundHandlerAdapter {
+
+    public static final BodySinkHandler INSTANCE = new BodySinkHandler();
+
+    private BodySinkHandler() {
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        Exchange exchange = ctx.channel().attr(Exchange.EXCHANGE_ATTRIBUTE_KEY).get();
+        BodySink bodySink = exchange != null ? exchange.getBodySink() : null;
+        if (bodySink == null) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        if (msg instanceof HttpResponse) {
+            HttpResponse httpResponse = (HttpResponse) msg;
+            int code = httpResponse.status().code();
+            if (code < 200 || code >= 300) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            exchange.setStreamedResponse(httpResponse);
+            try {
+                bodySink.begin(httpResponse);
+            } catch (IOException e) {
+                ReferenceCountUtil.release(msg);
+                exchange.setStreamedResponse(null);
+                exchange.fail(ctx.channel(), e);
+                return;
+            }
+        }
+        HttpResponse head = exchange.getStreamedResponse();
+        if (head == null || !(msg instanceof HttpContent)) {
+            if (!(msg instanceof HttpResponse)) {
+                ctx.fireChannelRead(msg);
+            }
+            return;
+        }
+        try {
+            HttpContent httpContent = (HttpContent) msg;
+            if (httpContent.content().isReadable()) {
+                exchange.progress();
+                bodySink.write(httpContent.content());
+            }
+            if (msg instanceof LastHttpContent) {
+                exchange.setStreamedResponse(null);
+                DefaultFullHttpResponse fullHttpResponse = new DefaultFullHttpResponse(head.protocolVersion(),
+                        head.status(), Unpooled.EMPTY_BUFFER, head.headers(),
+                        ((LastHttpContent) msg).trailingHeaders());
+                ctx.fireChannelRead(fullHttpResponse);
+            }
+        } catch (IOException e) {
+            exchange.setStreamedResponse(null);
+            exchange.fail(ctx.channel(), e);
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
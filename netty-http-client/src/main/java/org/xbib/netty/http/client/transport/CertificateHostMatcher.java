@@ -0,0 +1,151 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.util.NetUtil;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import javax.security.auth.x500.X500Principal;
+
+/**
+ * Checks if the certificate of a TLS connection is valid for a host name, as required
+ * before a connection to one host is reused for another host (RFC 7540, section 9.1.1).
+ *
+ * Host names are matched against the DNS names of the subject alternative names, where a wildcard
+ * may stand for the complete leftmost label only. IP addresses are matched against the IP address
+ * entries. The common name of the subject is used only if the certificate has no DNS names
+ * (RFC 6125, section 6.4.4).
+ */
+public final class CertificateHostMatcher {
+
+    private static final int DNS_NAME = 2;
+
+    private static final int IP_ADDRESS = 7;
+
+    private CertificateHostMatcher() {
+    }
+
+    /**
+     * Check the peer certificate of a TLS session.
+     *
+     * @param sslSession the session
+     * @param host the host name or IP address
+     * @return true if the peer certificate is valid for the host
+     */
+    public static boolean matches(SSLSession sslSession, String host) {
+        try {
+            Certificate[] certificates = sslSession.getPeerCertificates();
+            return certificates.length > 0 && certificates[0] instanceof X509Certificate &&
+                    matches((X509Certificate) certificates[0], host);
+        } catch (SSLPeerUnverifiedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check a certificate.
+     *
+     * @param certificate the certificate
+     * @param host the host name or IP address
+     * @return true if the certificate is valid for the host
+     */
+    public static boolean matches(X509Certificate certificate, String host) {
+        try {
+            return matches(host, certificate.getSubjectAlternativeNames(),
+                    commonName(certificate.getSubjectX500Principal()));
+        } catch (CertificateParsingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check the names of a certificate.
+     *
+     * @param host the host name or IP address
+     * @param subjectAlternativeNames the subject alternative names as returned by
+     *                                {@link X509Certificate#getSubjectAlternativeNames()}, or null
+     * @param commonName the common name of the subject, or null
+     * @return true if the names are valid for the host
+     */
+    public static boolean matches(String host, Collection<List<?>> subjectAlternativeNames, String commonName) {
+        if (host == null || host.isEmpty()) {
+            return false;
+        }
+        String h = host.startsWith("[") && host.endsWith("]") ? host.substring(1, host.length() - 1) : host;
+        byte[] ipAddress = NetUtil.createByteArrayFromIpAddressString(h);
+        if (ipAddress != null) {
+            if (subjectAlternativeNames != null) {
+                for (List<?> name : subjectAlternativeNames) {
+                    if (name.size() > 1 && Integer.valueOf(IP_ADDRESS).equals(name.get(0)) &&
+                            name.get(1) instanceof String &&
+                            Arrays.equals(ipAddress, NetUtil.createByteArrayFromIpAddressString((String) name.get(1)))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        String hostName = normalize(h);
+        boolean hasDnsNames = false;
+        if (subjectAlternativeNames != null) {
+            for (List<?> name : subjectAlternativeNames) {
+                if (name.size() > 1 && Integer.valueOf(DNS_NAME).equals(name.get(0)) && name.get(1) instanceof String) {
+                    hasDnsNames = true;
+                    if (matchesName(hostName, normalize((String) name.get(1)))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return !hasDnsNames && commonName != null && matchesName(hostName, normalize(commonName));
+    }
+
+    private static boolean matchesName(String hostName, String pattern) {
+        if (!pattern.startsWith("*.")) {
+            return hostName.equals(pattern);
+        }
+        String suffix = pattern.substring(1);
+        // a wildcard must not cover a top level domain, and stands for exactly one label
+        if (suffix.indexOf('.', 1) < 0 || !hostName.endsWith(suffix)) {
+            return false;
+        }
+        String label = hostName.substring(0, hostName.length() - suffix.length());
+        return !label.isEmpty() && label.indexOf('.') < 0;
+    }
+
+    private static String normalize(String name) {
+        String s = name.toLowerCase(Locale.ROOT);
+        return s.endsWith(".") ? s.substring(0, s.length() - 1) : s;
+    }
+
+    private static String commonName(X500Principal principal) {
+        String name = principal.getName(X500Principal.RFC2253);
+        int i = 0;
+        while (i < name.length()) {
+            int end = i;
+            boolean escaped = false;
+            while (end < name.length()) {
+                char c = name.charAt(end);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == ',' || c == '+') {
+                    break;
+                }
+                end++;
+            }
+            String rdn = name.substring(i, end);
+            if (rdn.regionMatches(true, 0, "CN=", 0, 3)) {
+                return rdn.substring(3).replace("\\", "");
+            }
+            i = end + 1;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,134 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A chunked input that compresses the chunks of another chunked input with {@code gzip} or {@code deflate},
+ * for request bodies that are streamed with a {@code Content-Encoding}.
+ *
+ * The compressed length is not known in advance, so the length of this input is unknown.
+ */
+public final class CompressedChunkedInput implements ChunkedInput<ByteBuf> {
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final ChunkedInput<ByteBuf> input;
+
+    private final boolean gzip;
+
+    private final Deflater deflater;
+
+    private final CRC32 crc;
+
+    private final byte[] buffer;
+
+    private boolean headerWritten;
+
+    private boolean finished;
+
+    /**
+     * Create a compressing chunked input.
+     *
+     * @param input the input to compress
+     * @param contentEncoding {@code gzip} or {@code deflate}
+     */
+    public CompressedChunkedInput(ChunkedInput<ByteBuf> input, String contentEncoding) {
+        if (!"gzip".equals(contentEncoding) && !"deflate".equals(contentEncoding)) {
+            throw new IllegalArgumentException("unsupported content encoding: " + contentEncoding);
+        }
+        this.input = input;
+        this.gzip = "gzip".equals(contentEncoding);
+        // gzip writes its own header and trailer around raw deflate data, deflate is the zlib format
+        this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+        this.crc = new CRC32();
+        this.buffer = new byte[8192];
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return finished;
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            input.close();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        if (finished) {
+            return null;
+        }
+        ByteBuf out = allocator.buffer(buffer.length);
+        boolean release = true;
+        try {
+            if (gzip && !headerWritten) {
+                out.writeBytes(GZIP_HEADER);
+                headerWritten = true;
+            }
+            ByteBuf in = input.readChunk(allocator);
+            if (in != null) {
+                try {
+                    byte[] bytes = new byte[in.readableBytes()];
+                    in.readBytes(bytes);
+                    crc.update(bytes);
+                    deflater.setInput(bytes);
+                    while (!deflater.needsInput()) {
+                        deflate(out);
+                    }
+                } finally {
+                    in.release();
+                }
+            }
+            if (input.isEndOfInput()) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflate(out);
+                }
+                if (gzip) {
+                    out.writeIntLE((int) crc.getValue());
+                    out.writeIntLE((int) deflater.getBytesRead());
+                }
+                finished = true;
+            }
+            release = false;
+            return out;
+        } finally {
+            if (release) {
+                out.release();
+            }
+        }
+    }
+
+    @Override
+    public long length() {
+        return -1L;
+    }
+
+    @Override
+    public long progress() {
+        return input.progress();
+    }
+
+    private void deflate(ByteBuf out) {
+        int n = deflater.deflate(buffer, 0, buffer.length);
+        out.writeBytes(buffer, 0, n);
+    }
+}
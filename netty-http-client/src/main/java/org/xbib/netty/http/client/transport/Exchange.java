@@ -0,0 +1,175 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.channel.Channel;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The state of a single request/response exchange on a channel of a {@link SharedTransport}.
+ *
+ * An exchange is attached to the channel (HTTP/1) or the stream channel (HTTP/2) while the request
+ * is in flight, so the response handlers can deliver the response without a transport per call.
+ */
+public final class Exchange {
+
+    public static final AttributeKey<Exchange> EXCHANGE_ATTRIBUTE_KEY = AttributeKey.valueOf("exchange");
+
+    private final SharedTransport transport;
+
+    private final HttpAddress httpAddress;
+
+    private final Request request;
+
+    private final CompletableFuture<HttpResponse> future;
+
+    private final BodySink bodySink;
+
+    private final AtomicBoolean done;
+
+    private final AtomicBoolean released;
+
+    private volatile ChannelPool channelPool;
+
+    private volatile Channel channel;
+
+    private volatile ScheduledFuture<?> timeoutFuture;
+
+    private volatile long progressNanos;
+
+    private io.netty.handler.codec.http.HttpResponse streamedResponse;
+
+    Exchange(SharedTransport transport, HttpAddress httpAddress, Request request,
+             CompletableFuture<HttpResponse> future, BodySink bodySink) {
+        this.transport = transport;
+        this.httpAddress = httpAddress;
+        this.request = request;
+        this.future = future;
+        this.bodySink = bodySink;
+        this.done = new AtomicBoolean(false);
+        this.released = new AtomicBoolean(false);
+    }
+
+    public HttpAddress getHttpAddress() {
+        return httpAddress;
+    }
+
+    public Request getRequest() {
+        return request;
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public boolean isDone() {
+        return done.get() || future.isDone();
+    }
+
+    /**
+     * Called by a response handler when the response for this exchange has been received.
+     *
+     * @param channel the channel
+     * @param fullHttpResponse the response
+     */
+    public void responseReceived(Channel channel, FullHttpResponse fullHttpResponse) {
+        transport.responseReceived(this, channel, fullHttpResponse);
+    }
+
+    /**
+     * Called by a handler when the channel of this exchange failed.
+     *
+     * @param channel the channel
+     * @param throwable the cause
+     */
+    public void fail(Channel channel, Throwable throwable) {
+        transport.fail(this, throwable);
+    }
+
+    CompletableFuture<HttpResponse> getFuture() {
+        return future;
+    }
+
+    BodySink getBodySink() {
+        return bodySink;
+    }
+
+    /**
+     * The head of the response whose body is given to the body sink, or null.
+     */
+    io.netty.handler.codec.http.HttpResponse getStreamedResponse() {
+        return streamedResponse;
+    }
+
+    void setStreamedResponse(io.netty.handler.codec.http.HttpResponse streamedResponse) {
+        this.streamedResponse = streamedResponse;
+    }
+
+    /**
+     * Record that a part of the body has arrived. The timeout of an exchange with progress
+     * counts from its last progress.
+     */
+    void progress() {
+        progressNanos = System.nanoTime();
+    }
+
+    long getProgressNanos() {
+        return progressNanos;
+    }
+
+    void attach(ChannelPool channelPool, Channel channel) {
+        this.channelPool = channelPool;
+        this.channel = channel;
+        channel.attr(EXCHANGE_ATTRIBUTE_KEY).set(this);
+    }
+
+    void setTimeoutFuture(ScheduledFuture<?> timeoutFuture) {
+        this.timeoutFuture = timeoutFuture;
+    }
+
+    /**
+     * Mark this exchange as done. Only the first caller wins.
+     *
+     * @return true if this call completed the exchange
+     */
+    boolean complete() {
+        if (!done.compareAndSet(false, true)) {
+            return false;
+        }
+        ScheduledFuture<?> scheduledFuture = timeoutFuture;
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(false);
+        }
+        return true;
+    }
+
+    /**
+     * Hand the channel back. A pooled channel is released to its pool, closing it first if it can not be
+     * reused. A channel without a pool, like an HTTP/2 stream channel, is closed. The channel is handed back
+     * only once, even if a response and a timeout race.
+     *
+     * @param close true if the channel must not be reused
+     */
+    void releaseChannel(boolean close) {
+        Channel ch = this.channel;
+        if (ch == null || !released.compareAndSet(false, true)) {
+            return;
+        }
+        ch.attr(EXCHANGE_ATTRIBUTE_KEY).compareAndSet(this, null);
+        ChannelPool pool = this.channelPool;
+        if (pool != null) {
+            if (close) {
+                ch.close();
+            }
+            pool.release(ch);
+        } else {
+            ch.close();
+        }
+    }
+}
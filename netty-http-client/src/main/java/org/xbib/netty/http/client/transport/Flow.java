@@ -17,7 +17,7 @@ public class Flow {
         this.map = new ConcurrentSkipListMap<>();
     }
 
-    CompletableFuture<Boolean> get(Integer key) {
+    public CompletableFuture<Boolean> get(Integer key) {
         return map.get(key);
     }
 
@@ -37,13 +37,13 @@ public class Flow {
         map.put(key, promise);
     }
 
-    void remove(Integer key) {
+    public void remove(Integer key) {
         if (key != null) {
             map.remove(key);
         }
     }
 
-    Integer nextStreamId() {
+    public Integer nextStreamId() {
         int streamId = counter.getAndAdd(2);
         if (streamId == Integer.MIN_VALUE) {
             // reset if overflow, Java wraps atomic integers to Integer.MIN_VALUE
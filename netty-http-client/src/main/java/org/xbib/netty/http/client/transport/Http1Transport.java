@@ -1,11 +1,14 @@
 package org.xbib.netty.http.client.transport;
 
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
-import io.netty.handler.codec.http.multipart.HttpPostRequestEncoder;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.codec.http2.HttpConversionUtil;
@@ -47,10 +50,6 @@ public class Http1Transport extends BaseTransport {
         // Our algorithm is: use always "origin form" for HTTP 1, use absolute form for HTTP 2.
         // The reason is that Netty derives the HTTP/2 scheme header from the absolute form.
         String uri = request.httpVersion().majorVersion() == 1 ? request.relative() : request.absolute();
-        FullHttpRequest fullHttpRequest = request.content() == null ?
-                new DefaultFullHttpRequest(request.httpVersion(), request.httpMethod(), uri) :
-                new DefaultFullHttpRequest(request.httpVersion(), request.httpMethod(), uri, request.content());
-        HttpPostRequestEncoder httpPostRequestEncoder = null;
         final Integer streamId = flowMap.get(channelId).nextStreamId();
         if (streamId == null) {
             throw new IllegalStateException();
@@ -66,34 +65,68 @@ public class Http1Transport extends BaseTransport {
         if (!cookies.isEmpty()) {
             request.headers().set(HttpHeaderNames.COOKIE, ClientCookieEncoder.STRICT.encode(cookies));
         }
-        // add stream-id and cookie headers
-        fullHttpRequest.headers().set(request.headers());
+        if (request.isExpectContinue()) {
+            return executeExpectContinue(channel, request, uri);
+        }
         if (request.content() == null && !request.getBodyData().isEmpty()) {
-            try {
-                httpPostRequestEncoder =
-                        new HttpPostRequestEncoder(httpDataFactory, fullHttpRequest, true);
-                httpPostRequestEncoder.setBodyHttpDatas(request.getBodyData());
-                httpPostRequestEncoder.finalizeRequest();
-            } catch (HttpPostRequestEncoder.ErrorDataEncoderException e) {
-                throw new IOException(e);
+            MultipartEncoder multipartEncoder = new MultipartEncoder(request.getBodyData(),
+                    request.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            multipartEncoder.setHeaders(request.headers());
+            if (channel.isWritable()) {
+                multipartEncoder.writeHttp1(channel,
+                        new DefaultHttpRequest(request.httpVersion(), request.httpMethod(), uri, request.headers()));
+                client.getRequestCounter().incrementAndGet();
             }
+            return this;
         }
+        // the request headers, with stream-id and cookie headers, are used as they are, without copying
+        FullHttpRequest fullHttpRequest = new DefaultFullHttpRequest(request.httpVersion(), request.httpMethod(), uri,
+                request.content() != null ? request.content() : Unpooled.EMPTY_BUFFER,
+                request.headers(), EmptyHttpHeaders.INSTANCE);
         if (channel.isWritable()) {
-            channel.write(fullHttpRequest);
-            if (httpPostRequestEncoder != null && httpPostRequestEncoder.isChunked()) {
-                channel.write(httpPostRequestEncoder);
-            }
-            channel.flush();
-            if (httpPostRequestEncoder != null) {
-                httpPostRequestEncoder.cleanFiles();
-            }
+            channel.writeAndFlush(fullHttpRequest);
             client.getRequestCounter().incrementAndGet();
         }
         return this;
     }
 
+    /**
+     * Write the request head only, and hold back the body until the server answers with 100 Continue.
+     */
+    private ClientTransport executeExpectContinue(Channel channel, Request request, String uri) throws IOException {
+        MultipartEncoder multipartEncoder = null;
+        if (request.content() == null && !request.getBodyData().isEmpty()) {
+            multipartEncoder = new MultipartEncoder(request.getBodyData(),
+                    request.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            multipartEncoder.setHeaders(request.headers());
+        }
+        if (!channel.isWritable()) {
+            return this;
+        }
+        MultipartEncoder encoder = multipartEncoder;
+        PendingBody.hold(channel, () -> {
+            try {
+                if (encoder != null) {
+                    encoder.writeHttp1Body(channel);
+                } else {
+                    channel.writeAndFlush(new DefaultLastHttpContent(request.content() != null ?
+                            request.content() : Unpooled.EMPTY_BUFFER));
+                }
+            } catch (IOException e) {
+                fail(channel, e);
+            }
+        }, client.getClientConfig().getExpectContinueTimeoutMillis());
+        channel.writeAndFlush(new DefaultHttpRequest(request.httpVersion(), request.httpMethod(), uri, request.headers()));
+        client.getRequestCounter().incrementAndGet();
+        return this;
+    }
+
     @Override
     public void responseReceived(Channel channel, Integer streamId, FullHttpResponse fullHttpResponse) {
+        if (PendingBody.abandon(channel)) {
+            // the server answered before the body was sent and may still wait for it
+            channel.close();
+        }
         if (throwable != null) {
             logger.log(Level.WARNING, "throwable not null", throwable);
             return;
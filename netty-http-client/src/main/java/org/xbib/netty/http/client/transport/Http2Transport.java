@@ -10,12 +10,14 @@ import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataChunkedInput;
 import io.netty.handler.codec.http2.Http2Headers;
 import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
 import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.util.AsciiString;
 import org.xbib.net.URLSyntaxException;
 import org.xbib.netty.http.client.Client;
@@ -63,10 +65,17 @@ public class Http2Transport extends BaseTransport {
                         new HttpObjectAggregator(client.getClientConfig().getMaxContentLength()));
                 p.addLast("child-client-response-handler",
                         new Http2ResponseHandler());
+                p.addLast("child-client-chunked-write",
+                        new ChunkedWriteHandler());
             }
         };
     }
 
+    /**
+     * Execute a request on a new stream. The stream is opened asynchronously, the caller does not wait
+     * for the event loop. Stream IDs are reserved and streams are opened under the lock of the flow, so the
+     * order of the streams on the connection is the order of the reserved stream IDs.
+     */
     @Override
     public ClientTransport execute(Request request) throws IOException {
         Channel channel = mapChannel(request);
@@ -74,21 +83,13 @@ public class Http2Transport extends BaseTransport {
             return this;
         }
         final String channelId = channel.id().toString();
-        flowMap.putIfAbsent(channelId, new Flow());
-        Http2StreamChannel childChannel = new Http2StreamChannelBootstrap(channel)
-                .handler(initializer).open().syncUninterruptibly().getNow();
+        Flow flow = flowMap.computeIfAbsent(channelId, key -> new Flow());
         AsciiString method = request.httpMethod().asciiName();
-        String scheme = request.url().getScheme();
-        String authority = request.url().getHost() + (request.url().getPort() != null ? ":" + request.url().getPort() : "");
+        String scheme = request.httpAddress().isSecure() ? "https" : "http";
+        String authority = request.authority();
         String path = request.relative().isEmpty() ? "/" : request.relative();
         Http2Headers http2Headers = new DefaultHttp2Headers()
                 .method(method).scheme(scheme).authority(authority).path(path);
-        final Integer streamId = flowMap.get(channelId).nextStreamId();
-        if (streamId == null) {
-            throw new IllegalStateException();
-        }
-        requests.put(getRequestKey(channelId, streamId), request);
-        http2Headers.setInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), streamId);
         // add matching cookies from box (previous requests) and new cookies from request builder
         Collection<Cookie> cookies = new ArrayList<>();
         cookies.addAll(matchCookiesFromBox(request));
@@ -96,16 +97,57 @@ public class Http2Transport extends BaseTransport {
         if (!cookies.isEmpty()) {
             request.headers().set(HttpHeaderNames.COOKIE, ClientCookieEncoder.STRICT.encode(cookies));
         }
-        // add stream-id and cookie headers
+        MultipartEncoder multipartEncoder = null;
+        if (request.content() == null && !request.getBodyData().isEmpty()) {
+            multipartEncoder = new MultipartEncoder(request.getBodyData(),
+                    request.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            multipartEncoder.setHeaders(request.headers());
+        }
+        // add cookie headers
         HttpConversionUtil.toHttp2Headers(request.headers(), http2Headers);
         boolean hasContent = request.content() != null && request.content().readableBytes() > 0;
-        DefaultHttp2HeadersFrame headersFrame = new DefaultHttp2HeadersFrame(http2Headers, !hasContent);
-        childChannel.write(headersFrame);
-        if (hasContent) {
-            DefaultHttp2DataFrame dataFrame = new DefaultHttp2DataFrame(request.content(), true);
-            childChannel.write(dataFrame);
+        DefaultHttp2HeadersFrame headersFrame = new DefaultHttp2HeadersFrame(http2Headers,
+                !hasContent && multipartEncoder == null);
+        MultipartEncoder encoder = multipartEncoder;
+        boolean holdBody = request.isExpectContinue() && (hasContent || multipartEncoder != null);
+        synchronized (flow) {
+            final Integer streamId = flow.nextStreamId();
+            if (streamId == null) {
+                throw new IllegalStateException();
+            }
+            String requestKey = getRequestKey(channelId, streamId);
+            requests.put(requestKey, request);
+            http2Headers.setInt(HttpConversionUtil.ExtensionHeaderNames.STREAM_ID.text(), streamId);
+            new Http2StreamChannelBootstrap(channel).handler(initializer).open().addListener(future -> {
+                if (!future.isSuccess()) {
+                    completeRequestExceptionally(requestKey, future.cause());
+                    CompletableFuture<Boolean> promise = flow.get(streamId);
+                    if (promise != null) {
+                        promise.completeExceptionally(future.cause());
+                    }
+                    return;
+                }
+                Http2StreamChannel childChannel = (Http2StreamChannel) future.getNow();
+                Runnable bodyWriter = () -> {
+                    if (encoder != null) {
+                        childChannel.write(new Http2DataChunkedInput(encoder.chunkedInput(), childChannel.stream()));
+                    } else if (hasContent) {
+                        DefaultHttp2DataFrame dataFrame = new DefaultHttp2DataFrame(request.content(), true);
+                        childChannel.write(dataFrame);
+                    }
+                    childChannel.flush();
+                };
+                if (holdBody) {
+                    PendingBody.hold(childChannel, bodyWriter, client.getClientConfig().getExpectContinueTimeoutMillis());
+                }
+                childChannel.write(headersFrame);
+                if (holdBody) {
+                    childChannel.flush();
+                } else {
+                    bodyWriter.run();
+                }
+            });
         }
-        childChannel.flush();
         client.getRequestCounter().incrementAndGet();
         if (client.hasPooledConnections()) {
             client.releaseChannel(channel, false);
@@ -138,6 +180,10 @@ public class Http2Transport extends BaseTransport {
 
     @Override
     public void responseReceived(Channel channel, Integer streamId, FullHttpResponse fullHttpResponse) {
+        if (PendingBody.abandon(channel)) {
+            // reset the stream, the body will never be sent
+            channel.close();
+        }
         if (throwable != null) {
             logger.log(Level.WARNING, "throwable is not null?", throwable);
             return;
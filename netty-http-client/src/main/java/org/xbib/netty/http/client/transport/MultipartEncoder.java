@@ -0,0 +1,288 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.FileUpload;
+import io.netty.handler.codec.http.multipart.HttpData;
+import io.netty.handler.codec.http.multipart.InterfaceHttpData;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedNioFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A streaming multipart/form-data encoder.
+ *
+ * Parts that are held on disk are streamed from their files while the body is written, they are
+ * never loaded into memory. On a plain HTTP/1 channel, file parts are written as file regions, so the
+ * transport can send them without copying. On TLS channels and for HTTP/2, file parts are read in chunks.
+ * The length of the body, and so the {@code Content-Length}, is computed before anything is written.
+ * With a content encoding, the body is compressed while it is streamed, and sent without a length,
+ * in chunked transfer encoding on HTTP/1.
+ */
+public final class MultipartEncoder {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final String boundary;
+
+    private final List<Object> segments;
+
+    private final long length;
+
+    private final String contentEncoding;
+
+    /**
+     * Create an encoder for parts.
+     *
+     * @param parts the parts, attributes or file uploads
+     * @throws IOException if a part is not supported, or its content is not available
+     */
+    public MultipartEncoder(List<InterfaceHttpData> parts) throws IOException {
+        this(parts, null);
+    }
+
+    /**
+     * Create an encoder for parts that compresses the body.
+     *
+     * @param parts the parts, attributes or file uploads
+     * @param contentEncoding {@code gzip} or {@code deflate}, or null for no compression
+     * @throws IOException if a part is not supported, or its content is not available
+     */
+    public MultipartEncoder(List<InterfaceHttpData> parts, String contentEncoding) throws IOException {
+        this.contentEncoding = contentEncoding;
+        this.boundary = "----" + Long.toHexString(ThreadLocalRandom.current().nextLong()) +
+                Long.toHexString(ThreadLocalRandom.current().nextLong());
+        this.segments = new ArrayList<>();
+        long len = 0L;
+        StringBuilder sb = new StringBuilder();
+        for (InterfaceHttpData part : parts) {
+            sb.append("--").append(boundary).append("\r\n");
+            if (part instanceof FileUpload) {
+                FileUpload fileUpload = (FileUpload) part;
+                sb.append("Content-Disposition: form-data; name=\"").append(escape(fileUpload.getName()))
+                        .append("\"; filename=\"").append(escape(fileUpload.getFilename())).append("\"\r\n");
+                sb.append("Content-Type: ").append(fileUpload.getContentType());
+                if (fileUpload.getCharset() != null) {
+                    sb.append("; charset=").append(fileUpload.getCharset().name().toLowerCase());
+                }
+                sb.append("\r\n\r\n");
+            } else if (part instanceof Attribute) {
+                Attribute attribute = (Attribute) part;
+                sb.append("Content-Disposition: form-data; name=\"").append(escape(attribute.getName())).append("\"\r\n");
+                if (attribute.getCharset() != null && !StandardCharsets.UTF_8.equals(attribute.getCharset())) {
+                    sb.append("Content-Type: text/plain; charset=")
+                            .append(attribute.getCharset().name().toLowerCase()).append("\r\n");
+                }
+                sb.append("\r\n");
+            } else {
+                throw new IOException("unsupported part type " + part.getHttpDataType() + ": " + part.getName());
+            }
+            byte[] header = sb.toString().getBytes(StandardCharsets.UTF_8);
+            sb.setLength(0);
+            segments.add(header);
+            len += header.length;
+            HttpData httpData = (HttpData) part;
+            if (httpData.isInMemory()) {
+                ByteBuf byteBuf = httpData.getByteBuf();
+                segments.add(httpData);
+                len += byteBuf.readableBytes();
+            } else {
+                File file = httpData.getFile();
+                segments.add(file);
+                len += file.length();
+            }
+            segments.add(CRLF);
+            len += CRLF.length;
+        }
+        byte[] trailer = ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        segments.add(trailer);
+        len += trailer.length;
+        this.length = len;
+    }
+
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * Return the length of the body, before compression.
+     *
+     * @return the length
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Set content type and length, or transfer encoding, of the body in the request headers.
+     *
+     * @param headers the request headers
+     */
+    public void setHeaders(HttpHeaders headers) {
+        headers.set(HttpHeaderNames.CONTENT_TYPE, getContentType());
+        if (contentEncoding != null) {
+            headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+            headers.set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
+        } else {
+            headers.remove(HttpHeaderNames.TRANSFER_ENCODING);
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, length);
+        }
+    }
+
+    /**
+     * Write the body after the request head to an HTTP/1 channel. File parts are written as file regions
+     * if there is no TLS on the channel, otherwise as chunked files.
+     *
+     * @param channel the channel
+     * @param httpRequest the request head, with content type and length of this encoder
+     * @return the future of the last write
+     * @throws IOException if a part can not be read
+     */
+    public ChannelFuture writeHttp1(Channel channel, HttpRequest httpRequest) throws IOException {
+        channel.write(httpRequest);
+        return writeHttp1Body(channel);
+    }
+
+    /**
+     * Write the body to an HTTP/1 channel after the request head has been written,
+     * e.g. after a {@code 100 Continue}.
+     *
+     * @param channel the channel
+     * @return the future of the last write
+     * @throws IOException if a part can not be read
+     */
+    public ChannelFuture writeHttp1Body(Channel channel) throws IOException {
+        if (contentEncoding != null) {
+            return channel.writeAndFlush(new HttpChunkedInput(chunkedInput()));
+        }
+        boolean zeroCopy = channel.pipeline().get(SslHandler.class) == null;
+        for (Object segment : segments) {
+            if (segment instanceof byte[]) {
+                channel.write(new DefaultHttpContent(Unpooled.wrappedBuffer((byte[]) segment)));
+            } else if (segment instanceof HttpData) {
+                channel.write(new DefaultHttpContent(((HttpData) segment).getByteBuf().retainedDuplicate()));
+            } else {
+                File file = (File) segment;
+                if (zeroCopy) {
+                    channel.write(new DefaultFileRegion(file, 0L, file.length()));
+                } else {
+                    channel.write(new ChunkedNioFile(file, CHUNK_SIZE));
+                }
+            }
+        }
+        return channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+
+    /**
+     * Return the body as a chunked input, e.g. for HTTP/2 data frames. The body is compressed if
+     * the encoder has a content encoding.
+     *
+     * @return the chunked input
+     */
+    public ChunkedInput<ByteBuf> chunkedInput() {
+        return contentEncoding != null ?
+                new CompressedChunkedInput(new MultipartChunkedInput(), contentEncoding) :
+                new MultipartChunkedInput();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+    }
+
+    private class MultipartChunkedInput implements ChunkedInput<ByteBuf> {
+
+        private int index;
+
+        private FileChannel fileChannel;
+
+        private long progress;
+
+        @Override
+        public boolean isEndOfInput() {
+            return index >= segments.size();
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (fileChannel != null) {
+                fileChannel.close();
+                fileChannel = null;
+            }
+        }
+
+        @Deprecated
+        @Override
+        public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+            return readChunk(ctx.alloc());
+        }
+
+        @Override
+        public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+            if (isEndOfInput()) {
+                return null;
+            }
+            Object segment = segments.get(index);
+            ByteBuf byteBuf;
+            if (segment instanceof byte[]) {
+                byteBuf = Unpooled.wrappedBuffer((byte[]) segment);
+                index++;
+            } else if (segment instanceof HttpData) {
+                byteBuf = ((HttpData) segment).getByteBuf().retainedDuplicate();
+                index++;
+            } else {
+                if (fileChannel == null) {
+                    fileChannel = FileChannel.open(((File) segment).toPath(), StandardOpenOption.READ);
+                }
+                byteBuf = allocator.buffer(CHUNK_SIZE);
+                boolean release = true;
+                try {
+                    int n = byteBuf.writeBytes(fileChannel, CHUNK_SIZE);
+                    if (n < 0 || fileChannel.position() >= fileChannel.size()) {
+                        close();
+                        index++;
+                    }
+                    release = false;
+                } finally {
+                    if (release) {
+                        byteBuf.release();
+                    }
+                }
+            }
+            progress += byteBuf.readableBytes();
+            return byteBuf;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public long progress() {
+            return progress;
+        }
+    }
+}
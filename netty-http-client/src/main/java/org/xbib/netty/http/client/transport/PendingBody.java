@@ -0,0 +1,78 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The body of a request with {@code Expect: 100-continue} that is held back until the server agrees.
+ *
+ * The body is attached to the channel of the request, the HTTP/1 channel or the HTTP/2 stream channel.
+ * It is written when a {@code 100 Continue} response arrives, or when the timeout expires without
+ * an answer (RFC 7231, section 5.1.1). If a final response arrives first, the body is abandoned and
+ * the channel can not be reused, because the server may still wait for the body.
+ */
+public final class PendingBody {
+
+    private static final Logger logger = Logger.getLogger(PendingBody.class.getName());
+
+    private static final AttributeKey<PendingBody> PENDING_BODY_ATTRIBUTE_KEY = AttributeKey.valueOf("pendingBody");
+
+    private final AtomicReference<Runnable> writer;
+
+    private final ScheduledFuture<?> timeoutFuture;
+
+    private PendingBody(Channel channel, Runnable writer, long timeoutMillis) {
+        this.writer = new AtomicReference<>(writer);
+        this.timeoutFuture = channel.eventLoop().schedule(() -> {
+            logger.log(Level.FINE, () -> "no 100 Continue within " + timeoutMillis + " ms, sending body on " + channel);
+            continueReceived(channel);
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hold back the body of a request whose head has been written.
+     *
+     * @param channel the channel of the request
+     * @param writer writes and flushes the body
+     * @param timeoutMillis the time to wait for a {@code 100 Continue} before the body is sent anyway
+     */
+    static void hold(Channel channel, Runnable writer, long timeoutMillis) {
+        channel.attr(PENDING_BODY_ATTRIBUTE_KEY).set(new PendingBody(channel, writer, timeoutMillis));
+    }
+
+    /**
+     * A {@code 100 Continue} response was received, or the timeout expired. Write the held back body.
+     *
+     * @param channel the channel of the request
+     */
+    public static void continueReceived(Channel channel) {
+        PendingBody pendingBody = channel.attr(PENDING_BODY_ATTRIBUTE_KEY).getAndSet(null);
+        if (pendingBody != null) {
+            Runnable runnable = pendingBody.take();
+            if (runnable != null) {
+                runnable.run();
+            }
+        }
+    }
+
+    /**
+     * A final response was received, or the request failed. Drop the held back body.
+     *
+     * @param channel the channel of the request
+     * @return true if a body was dropped, then the channel must be closed
+     */
+    public static boolean abandon(Channel channel) {
+        PendingBody pendingBody = channel.attr(PENDING_BODY_ATTRIBUTE_KEY).getAndSet(null);
+        return pendingBody != null && pendingBody.take() != null;
+    }
+
+    private Runnable take() {
+        timeoutFuture.cancel(false);
+        return writer.getAndSet(null);
+    }
+}
@@ -0,0 +1,136 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import org.xbib.netty.http.common.AltSvc;
+import org.xbib.netty.http.common.HttpAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the HTTP version that an origin speaks, so requests without an explicit version
+ * are routed over the best known protocol.
+ *
+ * The version of a secure origin is learned from the ALPN result of each new connection, which is
+ * authoritative. An {@code Alt-Svc} header that announces {@code h2} on the authority of a secure origin
+ * is remembered for its max age, until a connection negotiates a protocol. An origin that is not known yet
+ * is tried with HTTP/2 if it is secure, because ALPN falls back to HTTP/1.1, and with HTTP/1.1 otherwise.
+ */
+public final class ProtocolMemory {
+
+    private final Map<String, Entry> origins;
+
+    public ProtocolMemory() {
+        this.origins = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Select the HTTP version for a request to an origin.
+     *
+     * @param httpAddress the address of the origin
+     * @return the remembered version, or the version to try
+     */
+    public HttpVersion select(HttpAddress httpAddress) {
+        HttpVersion httpVersion = get(httpAddress);
+        if (httpVersion != null) {
+            return httpVersion;
+        }
+        return httpAddress.isSecure() ? HttpAddress.HTTP_2_0 : HttpAddress.HTTP_1_1;
+    }
+
+    /**
+     * Return the remembered HTTP version of an origin.
+     *
+     * @param httpAddress the address of the origin
+     * @return the version, or null if the origin is not known or the entry has expired
+     */
+    public HttpVersion get(HttpAddress httpAddress) {
+        String origin = origin(httpAddress);
+        Entry entry = origins.get(origin);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresNanos != 0L && entry.expiresNanos - System.nanoTime() < 0L) {
+            origins.remove(origin, entry);
+            return null;
+        }
+        return entry.httpVersion;
+    }
+
+    /**
+     * Remember the protocol that a connection to an origin has negotiated with ALPN.
+     *
+     * @param httpAddress the address of the origin
+     * @param applicationProtocol the negotiated protocol, or null if the server does not support ALPN
+     */
+    public void negotiated(HttpAddress httpAddress, String applicationProtocol) {
+        HttpVersion httpVersion = ApplicationProtocolNames.HTTP_2.equals(applicationProtocol) ?
+                HttpAddress.HTTP_2_0 : HttpAddress.HTTP_1_1;
+        origins.put(origin(httpAddress), new Entry(httpVersion, 0L, true));
+    }
+
+    /**
+     * Remember the alternative services announced in a response of an origin.
+     *
+     * Only {@code h2} on the same authority is used, other protocols and authorities are ignored.
+     *
+     * @param httpAddress the address of the origin
+     * @param altSvc the value of the {@code Alt-Svc} header
+     */
+    public void alternativeServices(HttpAddress httpAddress, String altSvc) {
+        if (altSvc == null || !httpAddress.isSecure()) {
+            return;
+        }
+        String origin = origin(httpAddress);
+        List<AltSvc> list = AltSvc.parse(altSvc);
+        if (list.isEmpty()) {
+            origins.computeIfPresent(origin, (key, entry) -> entry.negotiated ? entry : null);
+            return;
+        }
+        for (AltSvc alternative : list) {
+            if (ApplicationProtocolNames.HTTP_2.equals(alternative.getProtocolId()) &&
+                    (alternative.getHost().isEmpty() || alternative.getHost().equalsIgnoreCase(httpAddress.getHost())) &&
+                    alternative.getPort() == httpAddress.getPort()) {
+                long expiresNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(alternative.getMaxAgeSeconds());
+                Entry entry = new Entry(HttpAddress.HTTP_2_0, expiresNanos == 0L ? 1L : expiresNanos, false);
+                origins.compute(origin, (key, previous) ->
+                        previous != null && previous.negotiated ? previous : entry);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forget the protocol of an origin.
+     *
+     * @param httpAddress the address of the origin
+     */
+    public void forget(HttpAddress httpAddress) {
+        origins.remove(origin(httpAddress));
+    }
+
+    public int size() {
+        return origins.size();
+    }
+
+    private static String origin(HttpAddress httpAddress) {
+        return (httpAddress.isSecure() ? "https://" : "http://") + httpAddress.getHost() + ":" + httpAddress.getPort();
+    }
+
+    private static class Entry {
+
+        private final HttpVersion httpVersion;
+
+        private final long expiresNanos;
+
+        private final boolean negotiated;
+
+        Entry(HttpVersion httpVersion, long expiresNanos, boolean negotiated) {
+            this.httpVersion = httpVersion;
+            this.expiresNanos = expiresNanos;
+            this.negotiated = negotiated;
+        }
+    }
+}
@@ -0,0 +1,938 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataChunkedInput;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.codec.http2.HttpConversionUtil;
+import io.netty.handler.proxy.HttpProxyHandler;
+import io.netty.handler.proxy.ProxyConnectException;
+import io.netty.handler.proxy.ProxyConnectionEvent;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.NoopAddressResolverGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import org.xbib.net.URLSyntaxException;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.BackOff;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.client.cookie.ClientCookieDecoder;
+import org.xbib.netty.http.client.cookie.ClientCookieEncoder;
+import org.xbib.netty.http.client.handler.http2.Http2ResponseHandler;
+import org.xbib.netty.http.common.AltSvc;
+import org.xbib.netty.http.common.DefaultHttpResponse;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpResponse;
+import org.xbib.netty.http.common.cookie.Cookie;
+import org.xbib.netty.http.common.cookie.CookieBox;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.UnmappableCharacterException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * A transport that is shared by all callers of a client.
+ *
+ * HTTP/1 channels are pooled per address and handed out to one exchange at a time. HTTP/2 requests
+ * share one connection per address and open a stream channel for each exchange. Nothing in here
+ * waits: channels are acquired, written and released by listeners, and the result of an exchange
+ * is delivered by completing a {@link CompletableFuture}.
+ *
+ * If the client is configured with an HTTP proxy, each channel is a CONNECT tunnel to its target
+ * address. Because the pools are per target address, established tunnels, and the TLS sessions inside them,
+ * are reused by later exchanges. The number of tunnels through the proxy is limited: a tunnel is reserved
+ * before connecting, and a connection waits for a free tunnel up to the connect timeout, see {@link TunnelLimiter}.
+ * While a connection waits, a tunnel that is idle in the pool of any address is closed to make room.
+ * Tunnel setup is measured apart from the TLS handshake, see {@link TunnelStatistics}.
+ *
+ * Secure HTTP/2 connections are coalesced (RFC 7540, section 9.1.1). Before connecting to a new address,
+ * its host name is resolved, and if a live connection goes to one of the resolved IP addresses on the same port,
+ * and the certificate of that connection is valid for the host name, the exchanges open their streams
+ * on that connection. If the server answers with {@code 421 Misdirected Request}, the address gets
+ * a connection of its own.
+ *
+ * If protocol memory is enabled, requests without an explicit HTTP version are sent with the version
+ * that their origin is known to speak, see {@link ProtocolMemory}. The memory is updated from the ALPN result
+ * of each secure HTTP/2 connection and from {@code Alt-Svc} response headers. If a secure HTTP/2 connection
+ * negotiates HTTP/1.1, the connection is closed, and those requests are sent again over HTTP/1.1.
+ *
+ * When an HTTP/2 connection has as many streams as the server allows, further exchanges wait for a stream,
+ * and the most urgent request (RFC 9218) is sent first, see {@link StreamScheduler}.
+ */
+public class SharedTransport implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(SharedTransport.class.getName());
+
+    private static final AttributeKey<HttpAddress> ORIGIN_ATTRIBUTE_KEY = AttributeKey.valueOf("origin");
+
+    private final Client client;
+
+    private final Bootstrap bootstrap;
+
+    private final AbstractChannelPoolMap<HttpAddress, FixedChannelPool> http1Pools;
+
+    private final Map<HttpAddress, Future<Channel>> http2Connections;
+
+    private final ChannelInitializer<Channel> streamInitializer;
+
+    private final HttpProxyHandler httpProxyHandler;
+
+    private final TunnelStatistics tunnelStatistics;
+
+    private final TunnelLimiter tunnelLimiter;
+
+    private final Set<Channel> idleTunnels;
+
+    private final Set<HttpAddress> misdirected;
+
+    private final AtomicLong coalescedConnectionCounter;
+
+    private final ProtocolMemory protocolMemory;
+
+    public SharedTransport(Client client, Bootstrap bootstrap) {
+        this.client = client;
+        this.httpProxyHandler = client.getClientConfig().getHttpProxyHandler();
+        // behind a proxy, target names are resolved by the proxy
+        this.bootstrap = httpProxyHandler != null ?
+                bootstrap.clone().resolver(NoopAddressResolverGroup.INSTANCE) : bootstrap;
+        this.tunnelStatistics = new TunnelStatistics();
+        this.idleTunnels = ConcurrentHashMap.newKeySet();
+        this.tunnelLimiter = httpProxyHandler != null ?
+                new TunnelLimiter(httpProxyHandler.proxyAddress(), client.getClientConfig().getMaxTunnelsPerProxy(),
+                        client.getClientConfig().getConnectTimeoutMillis(), tunnelStatistics.openTunnels(),
+                        this::evictIdleTunnel) : null;
+        this.http1Pools = new AbstractChannelPoolMap<HttpAddress, FixedChannelPool>() {
+            @Override
+            protected FixedChannelPool newPool(HttpAddress httpAddress) {
+                return new SharedChannelPool(httpAddress);
+            }
+        };
+        this.http2Connections = new ConcurrentHashMap<>();
+        this.misdirected = ConcurrentHashMap.newKeySet();
+        this.coalescedConnectionCounter = new AtomicLong();
+        this.protocolMemory = new ProtocolMemory();
+        final Http2ResponseHandler http2ResponseHandler = new Http2ResponseHandler();
+        this.streamInitializer = new ChannelInitializer<>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ChannelPipeline p = ch.pipeline();
+                p.addLast("child-client-frame-converter",
+                        new Http2StreamFrameToHttpObjectCodec(false));
+                p.addLast("child-client-decompressor",
+                        new HttpContentDecompressor());
+                p.addLast("child-client-body-sink",
+                        BodySinkHandler.INSTANCE);
+                p.addLast("child-client-chunk-aggregator",
+                        new HttpObjectAggregator(client.getClientConfig().getMaxContentLength()));
+                p.addLast("child-client-response-handler",
+                        http2ResponseHandler);
+                p.addLast("child-client-chunked-write",
+                        new ChunkedWriteHandler());
+            }
+        };
+    }
+
+    /**
+     * Execute a request. Redirects and retries are followed by executing new exchanges
+     * that complete the same future.
+     *
+     * @param request the request
+     * @return a future that is completed with the response. The receiver of the response must release it.
+     */
+    public CompletableFuture<HttpResponse> execute(Request request) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        execute(request, future, null);
+        return future;
+    }
+
+    /**
+     * Execute a request, and give the body of a successful response to a body sink instead of
+     * aggregating it. The timeout of the request counts from the last part of the body that arrived.
+     *
+     * @param request the request
+     * @param bodySink the body sink
+     * @return a future that is completed with the response, with an empty body
+     */
+    public CompletableFuture<HttpResponse> execute(Request request, BodySink bodySink) {
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        execute(request, future, bodySink);
+        return future;
+    }
+
+    public TunnelStatistics getTunnelStatistics() {
+        return tunnelStatistics;
+    }
+
+    /**
+     * The number of addresses that were served by the HTTP/2 connection of another address.
+     *
+     * @return the coalesced connection counter
+     */
+    public AtomicLong getCoalescedConnectionCounter() {
+        return coalescedConnectionCounter;
+    }
+
+    public ProtocolMemory getProtocolMemory() {
+        return protocolMemory;
+    }
+
+    /**
+     * The open HTTP/2 connections. A coalesced connection is listed once.
+     *
+     * @return the connection channels
+     */
+    public Collection<Channel> getHttp2Connections() {
+        Set<Channel> channels = new LinkedHashSet<>();
+        for (Future<Channel> future : http2Connections.values()) {
+            if (future.isSuccess() && future.getNow().isActive()) {
+                channels.add(future.getNow());
+            }
+        }
+        return channels;
+    }
+
+    @Override
+    public void close() {
+        for (Future<Channel> future : http2Connections.values()) {
+            if (future.isSuccess()) {
+                future.getNow().close();
+            }
+        }
+        http2Connections.clear();
+        http1Pools.close();
+    }
+
+    void execute(Request request, CompletableFuture<HttpResponse> future, BodySink bodySink) {
+        HttpAddress httpAddress = request.httpAddress();
+        if (request.isAutomaticVersion() && client.getClientConfig().isProtocolMemory() &&
+                !httpAddress.isUnixDomainSocket()) {
+            HttpVersion httpVersion = protocolMemory.select(httpAddress);
+            if (!httpVersion.equals(httpAddress.getVersion())) {
+                httpAddress = new HttpAddress(httpAddress.getHost(), httpAddress.getPort(), httpVersion,
+                        httpAddress.isSecure(), null);
+            }
+        }
+        Exchange exchange = new Exchange(this, httpAddress, request, future, bodySink);
+        long timeoutMillis = request.getTimeoutInMillis() > 0L ?
+                request.getTimeoutInMillis() : client.getClientConfig().getReadTimeoutMillis();
+        try {
+            scheduleTimeout(exchange, TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+            if (httpAddress.getVersion().majorVersion() == 2) {
+                openStream(exchange);
+            } else {
+                acquireChannel(exchange);
+            }
+        } catch (Exception e) {
+            fail(exchange, e);
+        }
+    }
+
+    /**
+     * Fail the exchange when the timeout has passed, since the start of the exchange, or since
+     * the last part of a body that is given to a body sink.
+     */
+    private void scheduleTimeout(Exchange exchange, long timeoutNanos) {
+        exchange.setTimeoutFuture(bootstrap.config().group().next().schedule(() -> {
+            long progressNanos = exchange.getProgressNanos();
+            long remainingNanos = progressNanos != 0L ? timeoutNanos - (System.nanoTime() - progressNanos) : 0L;
+            if (remainingNanos > 0L) {
+                scheduleTimeout(exchange, remainingNanos);
+            } else {
+                fail(exchange, new TimeoutException("no response from " + exchange.getHttpAddress() +
+                        " within " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms"));
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS));
+    }
+
+    void responseReceived(Exchange exchange, Channel channel, FullHttpResponse fullHttpResponse) {
+        if (!exchange.complete()) {
+            // timed out or failed before, the response is released by the handler
+            return;
+        }
+        client.getResponseCounter().incrementAndGet();
+        Request request = exchange.getRequest();
+        if (client.getClientConfig().isProtocolMemory()) {
+            protocolMemory.alternativeServices(exchange.getHttpAddress(),
+                    fullHttpResponse.headers().get(AltSvc.HEADER_NAME));
+        }
+        HttpResponse httpResponse = new DefaultHttpResponse(exchange.getHttpAddress(), fullHttpResponse,
+                decodeCookies(fullHttpResponse));
+        // a final response before the body was sent leaves the server waiting for the body, so close
+        boolean close = PendingBody.abandon(channel) || !HttpUtil.isKeepAlive(fullHttpResponse) ||
+                request.headers().containsValue(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE, true);
+        exchange.releaseChannel(close);
+        CompletableFuture<HttpResponse> future = exchange.getFuture();
+        try {
+            if (!future.isDone()) {
+                if (isMisdirected(exchange, channel, fullHttpResponse)) {
+                    httpResponse.release();
+                    execute(request, future, exchange.getBodySink());
+                    return;
+                }
+                long millis = BaseTransport.backOffMillis(request, httpResponse, client.getClientConfig().getBackOff());
+                if (millis != BackOff.STOP) {
+                    httpResponse.release();
+                    channel.eventLoop().schedule(() -> execute(request, future, exchange.getBodySink()),
+                            millis, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                Request redirectRequest = BaseTransport.redirect(request, httpResponse);
+                if (redirectRequest != null) {
+                    if (httpResponse.getCookies() != null) {
+                        redirectRequest.cookies().addAll(httpResponse.getCookies().keySet());
+                    }
+                    httpResponse.release();
+                    execute(redirectRequest, future, exchange.getBodySink());
+                    return;
+                }
+            }
+        } catch (URLSyntaxException | MalformedInputException | UnmappableCharacterException | RuntimeException e) {
+            httpResponse.release();
+            request.release();
+            future.completeExceptionally(e);
+            return;
+        }
+        request.release();
+        try {
+            request.onResponse(httpResponse);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, e.getMessage(), e);
+        }
+        if (!future.complete(httpResponse)) {
+            // nobody is waiting any more
+            httpResponse.release();
+        }
+    }
+
+    void fail(Exchange exchange, Throwable throwable) {
+        if (!exchange.complete()) {
+            return;
+        }
+        logger.log(Level.FINE, () -> "exchange with " + exchange.getHttpAddress() + " failed: " + throwable.getMessage());
+        if (exchange.getChannel() != null) {
+            PendingBody.abandon(exchange.getChannel());
+        }
+        exchange.releaseChannel(true);
+        exchange.getRequest().release();
+        exchange.getFuture().completeExceptionally(throwable);
+    }
+
+    private void acquireChannel(Exchange exchange) {
+        ChannelPool channelPool = http1Pools.get(exchange.getHttpAddress());
+        channelPool.acquire().addListener((FutureListener<Channel>) future -> {
+            if (!future.isSuccess()) {
+                fail(exchange, future.cause());
+                return;
+            }
+            Channel channel = future.getNow();
+            exchange.attach(channelPool, channel);
+            if (exchange.isDone()) {
+                exchange.releaseChannel(false);
+                return;
+            }
+            try {
+                writeHttp1(exchange, channel);
+            } catch (Exception e) {
+                fail(exchange, e);
+            }
+        });
+    }
+
+    private void writeHttp1(Exchange exchange, Channel channel) throws IOException {
+        Request request = exchange.getRequest();
+        encodeCookies(request);
+        String uri = request.relative().isEmpty() ? "/" : request.relative();
+        ChannelFutureListener writeListener = writeListener(exchange);
+        if (request.isExpectContinue()) {
+            MultipartEncoder multipartEncoder = request.content() == null && !request.getBodyData().isEmpty() ?
+                    newMultipartEncoder(request) : null;
+            // hold back the body before the head is written, the 100 Continue may come back at once
+            PendingBody.hold(channel, () -> {
+                try {
+                    if (multipartEncoder != null) {
+                        multipartEncoder.writeHttp1Body(channel).addListener(writeListener);
+                    } else {
+                        ByteBuf content = request.content() != null ?
+                                request.content().retainedDuplicate() : Unpooled.EMPTY_BUFFER;
+                        channel.writeAndFlush(new DefaultLastHttpContent(content)).addListener(writeListener);
+                    }
+                } catch (IOException e) {
+                    fail(exchange, e);
+                }
+            }, client.getClientConfig().getExpectContinueTimeoutMillis());
+            channel.writeAndFlush(new DefaultHttpRequest(request.httpVersion(), request.httpMethod(), uri,
+                    request.headers())).addListener(writeListener);
+        } else if (request.content() == null && !request.getBodyData().isEmpty()) {
+            MultipartEncoder multipartEncoder = newMultipartEncoder(request);
+            HttpRequest httpRequest = new DefaultHttpRequest(request.httpVersion(), request.httpMethod(), uri,
+                    request.headers());
+            multipartEncoder.writeHttp1(channel, httpRequest).addListener(writeListener);
+        } else {
+            ByteBuf content = request.content() != null ? request.content().retainedDuplicate() : Unpooled.EMPTY_BUFFER;
+            // the validated request headers are used as they are, without copying
+            FullHttpRequest fullHttpRequest = new DefaultFullHttpRequest(request.httpVersion(), request.httpMethod(),
+                    uri, content, request.headers(), EmptyHttpHeaders.INSTANCE);
+            channel.writeAndFlush(fullHttpRequest).addListener(writeListener);
+        }
+        client.getRequestCounter().incrementAndGet();
+    }
+
+    private void openStream(Exchange exchange) {
+        connection(exchange.getHttpAddress()).addListener((FutureListener<Channel>) future -> {
+            if (!future.isSuccess()) {
+                if (future.cause() instanceof ProtocolException && exchange.getRequest().isAutomaticVersion() &&
+                        client.getClientConfig().isProtocolMemory() && exchange.complete()) {
+                    // the origin negotiated HTTP/1.1, the protocol memory knows it now
+                    execute(exchange.getRequest(), exchange.getFuture(), exchange.getBodySink());
+                    return;
+                }
+                fail(exchange, future.cause());
+                return;
+            }
+            Channel connection = future.getNow();
+            if (connection.eventLoop().inEventLoop()) {
+                scheduleStream(exchange, connection);
+            } else {
+                connection.eventLoop().execute(() -> scheduleStream(exchange, connection));
+            }
+        });
+    }
+
+    /**
+     * Open a stream for the exchange when the connection allows another stream, more urgent requests first.
+     */
+    private void scheduleStream(Exchange exchange, Channel connection) {
+        StreamScheduler scheduler = StreamScheduler.of(connection);
+        scheduler.submit(exchange.getRequest().getUrgency(), () -> {
+            if (exchange.isDone()) {
+                // timed out while waiting
+                scheduler.release();
+                return;
+            }
+            new Http2StreamChannelBootstrap(connection).handler(streamInitializer).open()
+                    .addListener((FutureListener<Http2StreamChannel>) streamFuture -> {
+                        if (!streamFuture.isSuccess()) {
+                            scheduler.release();
+                            fail(exchange, streamFuture.cause());
+                            return;
+                        }
+                        Http2StreamChannel streamChannel = streamFuture.getNow();
+                        streamChannel.closeFuture().addListener(closeFuture -> scheduler.release());
+                        exchange.attach(null, streamChannel);
+                        if (exchange.isDone()) {
+                            exchange.releaseChannel(true);
+                            return;
+                        }
+                        try {
+                            writeHttp2(exchange, streamChannel);
+                        } catch (Exception e) {
+                            fail(exchange, e);
+                        }
+                    });
+        });
+    }
+
+    private void writeHttp2(Exchange exchange, Http2StreamChannel channel) throws IOException {
+        Request request = exchange.getRequest();
+        encodeCookies(request);
+        MultipartEncoder multipartEncoder = request.content() == null && !request.getBodyData().isEmpty() ?
+                newMultipartEncoder(request) : null;
+        String path = request.relative().isEmpty() ? "/" : request.relative();
+        Http2Headers http2Headers = new DefaultHttp2Headers()
+                .method(request.httpMethod().asciiName())
+                .scheme(exchange.getHttpAddress().isSecure() ? "https" : "http")
+                .authority(request.authority())
+                .path(path);
+        HttpConversionUtil.toHttp2Headers(request.headers(), http2Headers);
+        boolean hasContent = request.content() != null && request.content().isReadable();
+        ChannelFutureListener writeListener = writeListener(exchange);
+        Runnable bodyWriter = () -> {
+            if (multipartEncoder != null) {
+                channel.write(new Http2DataChunkedInput(multipartEncoder.chunkedInput(), channel.stream()))
+                        .addListener(writeListener);
+            } else if (hasContent) {
+                channel.write(new DefaultHttp2DataFrame(request.content().retainedDuplicate(), true))
+                        .addListener(writeListener);
+            }
+            channel.flush();
+        };
+        boolean holdBody = request.isExpectContinue() && (hasContent || multipartEncoder != null);
+        if (holdBody) {
+            PendingBody.hold(channel, bodyWriter, client.getClientConfig().getExpectContinueTimeoutMillis());
+        }
+        channel.write(new DefaultHttp2HeadersFrame(http2Headers, !hasContent && multipartEncoder == null))
+                .addListener(writeListener);
+        if (holdBody) {
+            channel.flush();
+        } else {
+            bodyWriter.run();
+        }
+        client.getRequestCounter().incrementAndGet();
+    }
+
+    /**
+     * Create a multipart encoder for the body data of a request, and set content type and length
+     * of the body in the request headers.
+     */
+    private static MultipartEncoder newMultipartEncoder(Request request) throws IOException {
+        MultipartEncoder multipartEncoder = new MultipartEncoder(request.getBodyData(),
+                request.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        multipartEncoder.setHeaders(request.headers());
+        return multipartEncoder;
+    }
+
+    /**
+     * Find the HTTP/2 connection for an address, or connect. The promise is registered before
+     * connecting, so concurrent callers share one connection attempt.
+     *
+     * @param httpAddress the address
+     * @return the future of the connection
+     */
+    private Future<Channel> connection(HttpAddress httpAddress) {
+        Future<Channel> future = http2Connections.get(httpAddress);
+        if (future != null) {
+            return future;
+        }
+        EventLoop eventLoop = bootstrap.config().group().next();
+        Promise<Channel> promise = eventLoop.newPromise();
+        future = http2Connections.putIfAbsent(httpAddress, promise);
+        if (future != null) {
+            return future;
+        }
+        if (client.getClientConfig().isConnectionCoalescing() && httpAddress.isSecure() &&
+                httpProxyHandler == null && !httpAddress.isUnixDomainSocket() && !misdirected.contains(httpAddress)) {
+            coalesce(httpAddress, eventLoop, promise);
+        } else {
+            connect(httpAddress, promise);
+        }
+        return promise;
+    }
+
+    /**
+     * Resolve the host of an address, and look for a live connection that can be reused for it.
+     * If there is none, connect.
+     */
+    private void coalesce(HttpAddress httpAddress, EventLoop eventLoop, Promise<Channel> promise) {
+        try {
+            @SuppressWarnings("unchecked")
+            AddressResolver<SocketAddress> resolver =
+                    (AddressResolver<SocketAddress>) bootstrap.config().resolver().getResolver(eventLoop);
+            resolver.resolveAll(InetSocketAddress.createUnresolved(httpAddress.getHost(), httpAddress.getPort()))
+                    .addListener((FutureListener<List<SocketAddress>>) future -> {
+                        Channel channel = future.isSuccess() ? findConnection(httpAddress, future.getNow()) : null;
+                        if (channel == null) {
+                            connect(httpAddress, promise);
+                            return;
+                        }
+                        logger.log(Level.FINE, () -> "coalescing " + httpAddress + " with " + channel);
+                        coalescedConnectionCounter.incrementAndGet();
+                        channel.closeFuture().addListener(closeFuture ->
+                                http2Connections.remove(httpAddress, promise));
+                        promise.trySuccess(channel);
+                    });
+        } catch (Exception e) {
+            connect(httpAddress, promise);
+        }
+    }
+
+    /**
+     * Find a live connection of another address to one of the given IP addresses, on the same port,
+     * with a certificate that is valid for the host of the address.
+     */
+    private Channel findConnection(HttpAddress httpAddress, List<SocketAddress> socketAddresses) {
+        for (Map.Entry<HttpAddress, Future<Channel>> entry : http2Connections.entrySet()) {
+            HttpAddress origin = entry.getKey();
+            Future<Channel> future = entry.getValue();
+            if (origin.equals(httpAddress) || !origin.isSecure() || !origin.getPort().equals(httpAddress.getPort()) ||
+                    !future.isSuccess()) {
+                continue;
+            }
+            Channel channel = future.getNow();
+            if (!channel.isActive() || !(channel.remoteAddress() instanceof InetSocketAddress)) {
+                continue;
+            }
+            InetAddress inetAddress = ((InetSocketAddress) channel.remoteAddress()).getAddress();
+            boolean sameAddress = socketAddresses.stream().anyMatch(socketAddress ->
+                    socketAddress instanceof InetSocketAddress &&
+                            inetAddress.equals(((InetSocketAddress) socketAddress).getAddress()));
+            if (!sameAddress) {
+                continue;
+            }
+            SslHandler sslHandler = channel.pipeline().get(SslHandler.class);
+            if (sslHandler != null && sslHandler.handshakeFuture().isSuccess() &&
+                    CertificateHostMatcher.matches(sslHandler.engine().getSession(), httpAddress.getHost())) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A {@code 421 Misdirected Request} on a connection that was opened for another address means
+     * that the server does not serve this address on that connection. The address is not coalesced again.
+     */
+    private boolean isMisdirected(Exchange exchange, Channel channel, FullHttpResponse fullHttpResponse) {
+        Channel connection = channel.parent();
+        if (fullHttpResponse.status().code() != HttpResponseStatus.MISDIRECTED_REQUEST.code() || connection == null ||
+                exchange.getHttpAddress().equals(connection.attr(ORIGIN_ATTRIBUTE_KEY).get())) {
+            return false;
+        }
+        HttpAddress httpAddress = exchange.getHttpAddress();
+        logger.log(Level.FINE, () -> "misdirected request for " + httpAddress + " on " + connection);
+        misdirected.add(httpAddress);
+        http2Connections.computeIfPresent(httpAddress, (key, future) ->
+                future.isSuccess() && future.getNow() == connection ? null : future);
+        return true;
+    }
+
+    private void connect(HttpAddress httpAddress, Promise<Channel> promise) {
+        if (!isTunneled(httpAddress)) {
+            connect(httpAddress, promise, false);
+            return;
+        }
+        tunnelLimiter.reserve(bootstrap.config().group().next()).addListener(future -> {
+            if (future.isSuccess()) {
+                connect(httpAddress, promise, true);
+            } else {
+                http2Connections.remove(httpAddress, promise);
+                promise.tryFailure(future.cause());
+            }
+        });
+    }
+
+    private void connect(HttpAddress httpAddress, Promise<Channel> promise, boolean tunnel) {
+        ChannelFuture channelFuture;
+        try {
+            channelFuture = client.newBootstrap(bootstrap, httpAddress)
+                    .handler(new ChannelInitializer<>() {
+                        @Override
+                        protected void initChannel(Channel channel) throws Exception {
+                            SharedTransport.this.initChannel(channel, httpAddress);
+                        }
+                    })
+                    .connect(remoteAddress(httpAddress));
+        } catch (Exception e) {
+            if (tunnel) {
+                tunnelLimiter.release();
+            }
+            http2Connections.remove(httpAddress, promise);
+            promise.tryFailure(e);
+            return;
+        }
+        if (tunnel) {
+            channelFuture.channel().closeFuture().addListener(future -> tunnelLimiter.release());
+        }
+        channelFuture.addListener((ChannelFutureListener) f -> {
+            if (!f.isSuccess()) {
+                http2Connections.remove(httpAddress, promise);
+                promise.tryFailure(f.cause());
+                return;
+            }
+            Channel channel = f.channel();
+            channel.attr(ORIGIN_ATTRIBUTE_KEY).set(httpAddress);
+            channel.closeFuture().addListener(closeFuture -> http2Connections.remove(httpAddress, promise));
+            SslHandler sslHandler = channel.pipeline().get(SslHandler.class);
+            if (sslHandler == null) {
+                promise.trySuccess(channel);
+                return;
+            }
+            sslHandler.handshakeFuture().addListener(handshakeFuture -> {
+                if (!handshakeFuture.isSuccess()) {
+                    http2Connections.remove(httpAddress, promise);
+                    promise.tryFailure(handshakeFuture.cause());
+                    return;
+                }
+                String protocol = sslHandler.applicationProtocol();
+                protocolMemory.negotiated(httpAddress, protocol);
+                // HTTP/2 over TLS is only spoken if negotiated by ALPN (RFC 7540, section 3.3)
+                if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                    promise.trySuccess(channel);
+                } else {
+                    http2Connections.remove(httpAddress, promise);
+                    channel.close();
+                    promise.tryFailure(new ProtocolException("server " + httpAddress +
+                            " negotiated " + protocol + " instead of " + ApplicationProtocolNames.HTTP_2));
+                }
+            });
+        });
+    }
+
+    /**
+     * Close one pooled tunnel that is not in use, so its reservation goes to a waiting connection.
+     * The pool hands out, health checks and takes back a channel on the event loop of the channel,
+     * so a tunnel that is still idle on its event loop can not be acquired while it is closed.
+     */
+    private void evictIdleTunnel() {
+        Iterator<Channel> iterator = idleTunnels.iterator();
+        if (!iterator.hasNext()) {
+            return;
+        }
+        Channel channel = iterator.next();
+        channel.eventLoop().execute(() -> {
+            if (idleTunnels.remove(channel)) {
+                logger.log(Level.FINE, () -> "closing idle tunnel " + channel + " for a waiting connection");
+                channel.close();
+            } else {
+                // acquired in the meantime, try the next one
+                evictIdleTunnel();
+            }
+        });
+    }
+
+    /**
+     * Unix domain sockets are local, they never go through the proxy.
+     */
+    private boolean isTunneled(HttpAddress httpAddress) {
+        return httpProxyHandler != null && !httpAddress.isUnixDomainSocket();
+    }
+
+    private SocketAddress remoteAddress(HttpAddress httpAddress) {
+        return isTunneled(httpAddress) ?
+                InetSocketAddress.createUnresolved(httpAddress.getHost(), httpAddress.getPort()) :
+                client.createSocketAddress(httpAddress);
+    }
+
+    /**
+     * Initialize a new channel. Behind a proxy, the proxy handler comes first, so the TLS handshake and
+     * all HTTP traffic go through the tunnel.
+     */
+    private void initChannel(Channel channel, HttpAddress httpAddress) throws Exception {
+        TunnelHandler tunnelHandler = null;
+        // the tunnel was reserved before connecting, see TunnelLimiter
+        if (isTunneled(httpAddress)) {
+            tunnelHandler = new TunnelHandler();
+            channel.pipeline().addLast("client-proxy", newHttpProxyHandler());
+            channel.pipeline().addLast("client-proxy-tunnel", tunnelHandler);
+        }
+        client.newChannelInitializer(httpAddress).initChannel(channel);
+        if (tunnelHandler != null) {
+            SslHandler sslHandler = channel.pipeline().get(SslHandler.class);
+            if (sslHandler != null) {
+                tunnelHandler.watch(sslHandler);
+            }
+        }
+    }
+
+    /**
+     * A proxy handler holds the state of one tunnel, so each channel gets a new one,
+     * configured like the proxy handler of the client configuration.
+     */
+    private HttpProxyHandler newHttpProxyHandler() {
+        HttpProxyHandler proxyHandler = httpProxyHandler.username() != null ?
+                new HttpProxyHandler(httpProxyHandler.proxyAddress(),
+                        httpProxyHandler.username(), httpProxyHandler.password()) :
+                new HttpProxyHandler(httpProxyHandler.proxyAddress());
+        proxyHandler.setConnectTimeoutMillis(httpProxyHandler.connectTimeoutMillis());
+        return proxyHandler;
+    }
+
+    private ChannelFutureListener writeListener(Exchange exchange) {
+        return future -> {
+            if (!future.isSuccess()) {
+                fail(exchange, future.cause());
+            }
+        };
+    }
+
+    private static void encodeCookies(Request request) {
+        if (request.cookies().isEmpty()) {
+            return;
+        }
+        List<Cookie> cookies = request.cookies().stream()
+                .filter(cookie -> BaseTransport.matchCookie(request.url(), cookie))
+                .collect(Collectors.toList());
+        if (!cookies.isEmpty()) {
+            request.headers().set(HttpHeaderNames.COOKIE, ClientCookieEncoder.STRICT.encode(cookies));
+        }
+    }
+
+    private static CookieBox decodeCookies(FullHttpResponse fullHttpResponse) {
+        List<String> cookieStrings = fullHttpResponse.headers().getAll(HttpHeaderNames.SET_COOKIE);
+        if (cookieStrings.isEmpty()) {
+            return null;
+        }
+        CookieBox cookieBox = new CookieBox(32);
+        for (String cookieString : cookieStrings) {
+            Cookie cookie = ClientCookieDecoder.STRICT.decode(cookieString);
+            if (cookie != null) {
+                cookieBox.put(cookie, true);
+            }
+        }
+        return cookieBox;
+    }
+
+    private class SharedChannelPoolHandler extends AbstractChannelPoolHandler {
+
+        private final HttpAddress httpAddress;
+
+        SharedChannelPoolHandler(HttpAddress httpAddress) {
+            this.httpAddress = httpAddress;
+        }
+
+        @Override
+        public void channelCreated(Channel channel) throws Exception {
+            initChannel(channel, httpAddress);
+            if (isTunneled(httpAddress)) {
+                channel.closeFuture().addListener(future -> idleTunnels.remove(channel));
+            }
+        }
+
+        @Override
+        public void channelAcquired(Channel channel) {
+            idleTunnels.remove(channel);
+        }
+
+        @Override
+        public void channelReleased(Channel channel) {
+            if (isTunneled(httpAddress) && channel.isActive()) {
+                idleTunnels.add(channel);
+                // a connection may have started to wait while this tunnel was in use
+                if (tunnelLimiter.hasWaiters()) {
+                    evictIdleTunnel();
+                }
+            }
+        }
+    }
+
+    /**
+     * The HTTP/1 connection pool of an address. Behind a proxy, the pool has no more connections
+     * than tunnels, and a new connection reserves a tunnel before it connects. So acquires wait for
+     * a pooled connection instead of for a tunnel.
+     */
+    private class SharedChannelPool extends FixedChannelPool {
+
+        private final HttpAddress httpAddress;
+
+        SharedChannelPool(HttpAddress httpAddress) {
+            super(client.newBootstrap(SharedTransport.this.bootstrap, httpAddress)
+                            .remoteAddress(remoteAddress(httpAddress)),
+                    new SharedChannelPoolHandler(httpAddress),
+                    isTunneled(httpAddress) ?
+                            Math.min(client.getClientConfig().getMaxConnectionsPerAddress(),
+                                    client.getClientConfig().getMaxTunnelsPerProxy()) :
+                            client.getClientConfig().getMaxConnectionsPerAddress());
+            this.httpAddress = httpAddress;
+        }
+
+        @Override
+        protected ChannelFuture connectChannel(Bootstrap bs) {
+            if (!isTunneled(httpAddress)) {
+                return super.connectChannel(bs);
+            }
+            ChannelFuture registerFuture = bs.register();
+            if (registerFuture.isDone() && !registerFuture.isSuccess()) {
+                return registerFuture;
+            }
+            Channel channel = registerFuture.channel();
+            ChannelPromise connectPromise = channel.newPromise();
+            tunnelLimiter.reserve(channel.eventLoop()).addListener(future -> {
+                if (!future.isSuccess()) {
+                    channel.close();
+                    connectPromise.tryFailure(future.cause());
+                    return;
+                }
+                channel.closeFuture().addListener(closeFuture -> tunnelLimiter.release());
+                registerFuture.addListener((ChannelFutureListener) f -> {
+                    if (f.isSuccess()) {
+                        channel.connect(bs.config().remoteAddress(), connectPromise);
+                    } else {
+                        connectPromise.tryFailure(f.cause());
+                    }
+                });
+            });
+            return connectPromise;
+        }
+    }
+
+    /**
+     * Measures the setup of a tunnel, and of the TLS handshake inside the tunnel.
+     */
+    private class TunnelHandler extends ChannelInboundHandlerAdapter {
+
+        private final long createdNanos = System.nanoTime();
+
+        private volatile long establishedNanos;
+
+        void watch(SslHandler sslHandler) {
+            sslHandler.handshakeFuture().addListener(future -> {
+                if (future.isSuccess() && establishedNanos > 0L) {
+                    tunnelStatistics.tlsHandshakeCompleted(System.nanoTime() - establishedNanos);
+                }
+            });
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof ProxyConnectionEvent) {
+                establishedNanos = System.nanoTime();
+                tunnelStatistics.tunnelEstablished(establishedNanos - createdNanos);
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            if (cause instanceof ProxyConnectException) {
+                tunnelStatistics.tunnelFailed();
+            }
+            super.exceptionCaught(ctx, cause);
+        }
+    }
+}
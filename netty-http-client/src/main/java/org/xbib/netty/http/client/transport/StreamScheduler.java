@@ -0,0 +1,119 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.util.AttributeKey;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Schedules the streams of an HTTP/2 connection by the urgency of their requests (RFC 9218).
+ *
+ * As long as the connection has fewer active streams than the server allows with
+ * {@code SETTINGS_MAX_CONCURRENT_STREAMS}, a stream is opened at once. Beyond the limit, requests wait,
+ * and when a stream is closed, the waiting request with the lowest urgency value is opened next, requests
+ * of the same urgency in the order of their arrival. So bulk requests do not delay interactive requests
+ * on a shared connection. All methods must be called from the event loop of the connection.
+ */
+final class StreamScheduler {
+
+    private static final AttributeKey<StreamScheduler> ATTRIBUTE_KEY = AttributeKey.valueOf("stream-scheduler");
+
+    private final Channel channel;
+
+    private final PriorityQueue<Task> pending;
+
+    private int active;
+
+    private long sequence;
+
+    private StreamScheduler(Channel channel) {
+        this.channel = channel;
+        this.pending = new PriorityQueue<>(Comparator.comparingInt((Task task) -> task.urgency)
+                .thenComparingLong(task -> task.sequence));
+    }
+
+    /**
+     * Return the scheduler of an HTTP/2 connection.
+     *
+     * @param channel the parent channel of the connection
+     * @return the scheduler
+     */
+    static StreamScheduler of(Channel channel) {
+        StreamScheduler scheduler = channel.attr(ATTRIBUTE_KEY).get();
+        if (scheduler == null) {
+            scheduler = new StreamScheduler(channel);
+            StreamScheduler previous = channel.attr(ATTRIBUTE_KEY).setIfAbsent(scheduler);
+            if (previous != null) {
+                scheduler = previous;
+            } else {
+                // the waiting tasks fail to open their streams and fail their requests
+                StreamScheduler closing = scheduler;
+                channel.closeFuture().addListener(future -> closing.drain());
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Run a task that opens a stream, now or when a stream is available. The task must call
+     * {@link #release()} once when its stream is closed, or at once if it does not open a stream.
+     *
+     * @param urgency the urgency of the request
+     * @param task the task
+     */
+    void submit(int urgency, Runnable task) {
+        if (active < maxActiveStreams()) {
+            active++;
+            task.run();
+        } else {
+            pending.add(new Task(urgency, sequence++, task));
+        }
+    }
+
+    /**
+     * A stream is closed, open the next one.
+     */
+    void release() {
+        active--;
+        while (active < maxActiveStreams() && !pending.isEmpty()) {
+            active++;
+            pending.poll().runnable.run();
+        }
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            active++;
+            pending.poll().runnable.run();
+        }
+    }
+
+    int getActive() {
+        return active;
+    }
+
+    int getPending() {
+        return pending.size();
+    }
+
+    private int maxActiveStreams() {
+        Http2FrameCodec codec = channel.pipeline().get(Http2FrameCodec.class);
+        return codec != null ? codec.connection().local().maxActiveStreams() : Integer.MAX_VALUE;
+    }
+
+    private static class Task {
+
+        private final int urgency;
+
+        private final long sequence;
+
+        private final Runnable runnable;
+
+        Task(int urgency, long sequence, Runnable runnable) {
+            this.urgency = urgency;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+    }
+}
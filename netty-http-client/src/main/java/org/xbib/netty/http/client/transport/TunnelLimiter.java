@@ -0,0 +1,102 @@
+package org.xbib.netty.http.client.transport;
+
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of CONNECT tunnels through a proxy.
+ *
+ * A tunnel is reserved before the connection to the proxy is opened, and released when the connection
+ * is closed. If all tunnels are in use, a new connection asks to evict an idle tunnel, and waits until
+ * a tunnel is released, or fails after the connect timeout. So tunnels that sit idle in the pool of one
+ * target address do not starve the other addresses.
+ */
+final class TunnelLimiter {
+
+    private final SocketAddress proxyAddress;
+
+    private final int maxTunnels;
+
+    private final long timeoutMillis;
+
+    private final AtomicInteger openTunnels;
+
+    private final Deque<Promise<Void>> waiters;
+
+    private final Runnable evictor;
+
+    TunnelLimiter(SocketAddress proxyAddress, int maxTunnels, long timeoutMillis, AtomicInteger openTunnels,
+                  Runnable evictor) {
+        this.proxyAddress = proxyAddress;
+        this.maxTunnels = maxTunnels;
+        this.timeoutMillis = timeoutMillis;
+        this.openTunnels = openTunnels;
+        this.waiters = new ArrayDeque<>();
+        this.evictor = evictor;
+    }
+
+    /**
+     * Reserve a tunnel.
+     *
+     * @param eventLoop the event loop that is notified
+     * @return a future that succeeds when the tunnel is reserved
+     */
+    Future<Void> reserve(EventLoop eventLoop) {
+        Promise<Void> promise = eventLoop.newPromise();
+        synchronized (this) {
+            if (openTunnels.get() < maxTunnels) {
+                openTunnels.incrementAndGet();
+                return promise.setSuccess(null);
+            }
+            waiters.add(promise);
+        }
+        // closing an idle tunnel releases it to the longest waiting connection
+        evictor.run();
+        ScheduledFuture<?> timeout = eventLoop.schedule(() -> {
+            boolean removed;
+            synchronized (this) {
+                removed = waiters.remove(promise);
+            }
+            if (removed) {
+                promise.tryFailure(new ConnectException("no tunnel through proxy " + proxyAddress +
+                        " was released within " + timeoutMillis + " ms, limit is " + maxTunnels));
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        promise.addListener(future -> timeout.cancel(false));
+        return promise;
+    }
+
+    /**
+     * Whether connections are waiting for a tunnel.
+     *
+     * @return true if a connection waits
+     */
+    synchronized boolean hasWaiters() {
+        return !waiters.isEmpty();
+    }
+
+    /**
+     * Release a tunnel, and pass it to the longest waiting connection, if any.
+     */
+    void release() {
+        Promise<Void> next;
+        synchronized (this) {
+            next = waiters.poll();
+            if (next == null) {
+                openTunnels.decrementAndGet();
+                return;
+            }
+        }
+        if (!next.trySuccess(null)) {
+            release();
+        }
+    }
+}
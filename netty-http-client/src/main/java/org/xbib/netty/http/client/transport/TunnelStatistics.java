@@ -0,0 +1,93 @@
+package org.xbib.netty.http.client.transport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the CONNECT tunnels through an HTTP proxy.
+ *
+ * The tunnel setup latency, from the creation of a channel until the proxy confirmed the tunnel,
+ * is reported separately from the latency of the TLS handshake inside the tunnel.
+ */
+public class TunnelStatistics {
+
+    private final AtomicInteger openTunnels;
+
+    private final LongAdder tunnels;
+
+    private final LongAdder tunnelFailures;
+
+    private final LongAdder tunnelSetupNanos;
+
+    private final LongAdder tlsHandshakes;
+
+    private final LongAdder tlsHandshakeNanos;
+
+    TunnelStatistics() {
+        this.openTunnels = new AtomicInteger();
+        this.tunnels = new LongAdder();
+        this.tunnelFailures = new LongAdder();
+        this.tunnelSetupNanos = new LongAdder();
+        this.tlsHandshakes = new LongAdder();
+        this.tlsHandshakeNanos = new LongAdder();
+    }
+
+    /**
+     * The number of channels to the proxy that are open, established or not.
+     *
+     * @return the number of open tunnels
+     */
+    public int getOpenTunnels() {
+        return openTunnels.get();
+    }
+
+    public long getTunnels() {
+        return tunnels.sum();
+    }
+
+    public long getTunnelFailures() {
+        return tunnelFailures.sum();
+    }
+
+    public double getAverageTunnelSetupMillis() {
+        long n = tunnels.sum();
+        return n > 0L ? tunnelSetupNanos.sum() / 1.0e6 / n : 0.0d;
+    }
+
+    public long getTlsHandshakes() {
+        return tlsHandshakes.sum();
+    }
+
+    public double getAverageTlsHandshakeMillis() {
+        long n = tlsHandshakes.sum();
+        return n > 0L ? tlsHandshakeNanos.sum() / 1.0e6 / n : 0.0d;
+    }
+
+    AtomicInteger openTunnels() {
+        return openTunnels;
+    }
+
+    void tunnelEstablished(long nanos) {
+        tunnels.increment();
+        tunnelSetupNanos.add(nanos);
+    }
+
+    void tunnelFailed() {
+        tunnelFailures.increment();
+    }
+
+    void tlsHandshakeCompleted(long nanos) {
+        tlsHandshakes.increment();
+        tlsHandshakeNanos.add(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return "TunnelStatistics[open=" + getOpenTunnels() +
+                ",tunnels=" + getTunnels() +
+                ",failures=" + getTunnelFailures() +
+                ",avgTunnelSetupMillis=" + getAverageTunnelSetupMillis() +
+                ",tlsHandshakes=" + getTlsHandshakes() +
+                ",avgTlsHandshakeMillis=" + getAverageTlsHandshakeMillis() + "]";
+    }
+}
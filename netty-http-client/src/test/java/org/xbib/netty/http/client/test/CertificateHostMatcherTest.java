@@ -0,0 +1,44 @@
+package org.xbib.netty.http.client.test;
+
+import org.junit.jupiter.api.Test;
+import org.xbib.netty.http.client.transport.CertificateHostMatcher;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CertificateHostMatcherTest {
+
+    @Test
+    void testDnsNames() {
+        List<List<?>> names = List.of(List.of(2, "api.example.com"), List.of(2, "*.cdn.example.com"));
+        assertTrue(CertificateHostMatcher.matches("api.example.com", names, null));
+        assertTrue(CertificateHostMatcher.matches("API.Example.com.", names, null));
+        assertTrue(CertificateHostMatcher.matches("img.cdn.example.com", names, null));
+        assertFalse(CertificateHostMatcher.matches("cdn.example.com", names, null));
+        assertFalse(CertificateHostMatcher.matches("a.img.cdn.example.com", names, null));
+        assertFalse(CertificateHostMatcher.matches("www.example.com", names, null));
+        // the common name is ignored if there are DNS names
+        assertFalse(CertificateHostMatcher.matches("www.example.com", names, "www.example.com"));
+    }
+
+    @Test
+    void testWildcardTopLevelDomain() {
+        assertFalse(CertificateHostMatcher.matches("example.com", List.of(List.of(2, "*.com")), null));
+    }
+
+    @Test
+    void testIpAddresses() {
+        List<List<?>> names = List.of(List.of(2, "localhost"), List.of(7, "127.0.0.1"), List.of(7, "0:0:0:0:0:0:0:1"));
+        assertTrue(CertificateHostMatcher.matches("127.0.0.1", names, null));
+        assertTrue(CertificateHostMatcher.matches("[::1]", names, null));
+        assertFalse(CertificateHostMatcher.matches("127.0.0.2", names, null));
+        assertFalse(CertificateHostMatcher.matches("127.0.0.1", List.of(List.of(2, "127.0.0.1")), "127.0.0.1"));
+    }
+
+    @Test
+    void testCommonName() {
+        assertTrue(CertificateHostMatcher.matches("localhost", null, "localhost"));
+        assertFalse(CertificateHostMatcher.matches("example.com", null, "localhost"));
+    }
+}
@@ -0,0 +1,80 @@
+package org.xbib.netty.http.client.test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.Test;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.client.api.RequestTemplate;
+import org.xbib.netty.http.common.HttpAddress;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestTemplateTest {
+
+    @Test
+    void testTemplate() {
+        RequestTemplate template = Request.get()
+                .url("https://localhost:8143")
+                .setVersion("HTTP/2.0")
+                .addHeader("authorization", "Bearer {token}")
+                .setUserAgent("test")
+                .template("/v1/items/{id}?view={view}");
+        assertEquals(List.of("id", "view", "token"), template.getVariables());
+        assertEquals(HttpAddress.secureHttp2("localhost", 8143), template.getHttpAddress());
+        Request request = template.newRequest("a b/c", "full&more", "secret");
+        assertEquals("/v1/items/a%20b%2Fc?view=full%26more", request.relative());
+        assertEquals("https://localhost:8143/v1/items/a%20b%2Fc?view=full%26more", request.absolute());
+        assertEquals("localhost:8143", request.authority());
+        assertEquals(template.getHttpAddress(), request.httpAddress());
+        assertEquals("Bearer secret", request.headers().get("authorization"));
+        assertEquals("test", request.headers().get(HttpHeaderNames.USER_AGENT));
+        assertNull(request.headers().get(HttpHeaderNames.DATE));
+        // the URL is parsed on demand
+        assertEquals("localhost", request.url().getHost());
+    }
+
+    @Test
+    void testContent() {
+        RequestTemplate template = Request.post()
+                .url("http://localhost:8008")
+                .template("items/{id}");
+        Request request = template.newRequest(Map.of("id", "\u00e4"),
+                Unpooled.copiedBuffer("Hello World", StandardCharsets.UTF_8));
+        assertEquals("/items/%C3%A4", request.relative());
+        assertEquals("11", request.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+        request.release();
+    }
+
+    @Test
+    void testMissingValue() {
+        RequestTemplate template = Request.get()
+                .url("http://localhost:8008")
+                .template("/items/{id}");
+        assertThrows(IllegalArgumentException.class, () -> template.newRequest(Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> template.newRequest("1", "2"));
+    }
+
+    @Test
+    void testHeaderInjection() {
+        RequestTemplate template = Request.get()
+                .url("http://localhost:8008")
+                .addHeader("authorization", "Bearer {token}")
+                .template("/items/{id}");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                template.newRequest(Map.of("id", "1", "token", "secret\r\nx-injected: true")));
+        assertTrue(e.getMessage().contains("token"));
+        assertThrows(IllegalArgumentException.class, () ->
+                template.newRequest(Map.of("id", "1", "token", "secret\u0000")));
+        // a path value with CR and LF is percent-encoded
+        Request request = template.newRequest(Map.of("id", "a\r\nb", "token", "secret"));
+        assertEquals("/items/a%0D%0Ab", request.relative());
+        assertEquals("Bearer secret", request.headers().get("authorization"));
+    }
+}
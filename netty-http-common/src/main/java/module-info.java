@@ -1,6 +1,7 @@
 module org.xbib.netty.http.common {
     exports org.xbib.netty.http.common;
     exports org.xbib.netty.http.common.cookie;
+    exports org.xbib.netty.http.common.http2;
     exports org.xbib.netty.http.common.mime;
     exports org.xbib.netty.http.common.security;
     exports org.xbib.netty.http.common.util;
@@ -13,4 +14,6 @@ module org.xbib.netty.http.common {
     requires io.netty.codec.http;
     requires io.netty.codec.http2;
     requires java.logging;
+    provides org.xbib.netty.http.common.TransportProvider with
+            org.xbib.netty.http.common.LocalTransportProvider;
 }
@@ -0,0 +1,209 @@
+package org.xbib.netty.http.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * An alternative service (RFC 7838), as advertised in the {@code Alt-Svc} response header.
+ *
+ * An alternative service names a protocol, for example {@code h2} or {@code h3}, and an authority
+ * where the origin can be reached with that protocol. An empty host means the host of the origin.
+ */
+public final class AltSvc {
+
+    /**
+     * The name of the response header.
+     */
+    public static final String HEADER_NAME = "alt-svc";
+
+    /**
+     * The header value that invalidates all alternative services of an origin.
+     */
+    public static final String CLEAR = "clear";
+
+    /**
+     * The default freshness of an alternative service, 24 hours.
+     */
+    public static final long DEFAULT_MAX_AGE_SECONDS = 86400L;
+
+    private final String protocolId;
+
+    private final String host;
+
+    private final int port;
+
+    private final long maxAgeSeconds;
+
+    private final boolean persist;
+
+    public AltSvc(String protocolId, int port) {
+        this(protocolId, "", port, DEFAULT_MAX_AGE_SECONDS, false);
+    }
+
+    public AltSvc(String protocolId, String host, int port, long maxAgeSeconds, boolean persist) {
+        this.protocolId = Objects.requireNonNull(protocolId);
+        this.host = host != null ? host : "";
+        this.port = port;
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.persist = persist;
+    }
+
+    /**
+     * The ALPN protocol identifier, e.g. {@code h2} or {@code h3}.
+     *
+     * @return the protocol identifier
+     */
+    public String getProtocolId() {
+        return protocolId;
+    }
+
+    /**
+     * The host of the alternative service, or the empty string for the host of the origin.
+     *
+     * @return the host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public boolean isPersist() {
+        return persist;
+    }
+
+    /**
+     * Parse the value of an {@code Alt-Svc} header. Malformed entries are skipped.
+     *
+     * @param value the header value
+     * @return the alternative services, or an empty list if the value is {@code clear}
+     */
+    public static List<AltSvc> parse(String value) {
+        if (value == null || value.trim().equalsIgnoreCase(CLEAR)) {
+            return Collections.emptyList();
+        }
+        List<AltSvc> list = new ArrayList<>();
+        for (String entry : split(value, ',')) {
+            AltSvc altSvc = parseEntry(entry);
+            if (altSvc != null) {
+                list.add(altSvc);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Format alternative services as a header value.
+     *
+     * @param altSvcs the alternative services
+     * @return the header value, {@code clear} if there are no alternative services
+     */
+    public static String format(Collection<AltSvc> altSvcs) {
+        return altSvcs.isEmpty() ? CLEAR : altSvcs.stream().map(AltSvc::toString).collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof AltSvc &&
+                protocolId.equals(((AltSvc) object).protocolId) &&
+                host.equals(((AltSvc) object).host) &&
+                port == ((AltSvc) object).port &&
+                maxAgeSeconds == ((AltSvc) object).maxAgeSeconds &&
+                persist == ((AltSvc) object).persist;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(protocolId, host, port, maxAgeSeconds, persist);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder()
+                .append(protocolId).append("=\"").append(host).append(':').append(port).append('"');
+        if (maxAgeSeconds != DEFAULT_MAX_AGE_SECONDS) {
+            sb.append("; ma=").append(maxAgeSeconds);
+        }
+        if (persist) {
+            sb.append("; persist=1");
+        }
+        return sb.toString();
+    }
+
+    private static AltSvc parseEntry(String entry) {
+        List<String> parts = split(entry, ';');
+        if (parts.isEmpty()) {
+            return null;
+        }
+        String alternative = parts.get(0);
+        int eq = alternative.indexOf('=');
+        if (eq <= 0) {
+            return null;
+        }
+        String protocolId = alternative.substring(0, eq).trim();
+        String authority = unquote(alternative.substring(eq + 1).trim());
+        int colon = authority.lastIndexOf(':');
+        if (protocolId.isEmpty() || colon < 0) {
+            return null;
+        }
+        long maxAgeSeconds = DEFAULT_MAX_AGE_SECONDS;
+        boolean persist = false;
+        try {
+            int port = Integer.parseInt(authority.substring(colon + 1));
+            for (int i = 1; i < parts.size(); i++) {
+                String parameter = parts.get(i);
+                int k = parameter.indexOf('=');
+                if (k > 0) {
+                    String name = parameter.substring(0, k).trim();
+                    String value = unquote(parameter.substring(k + 1).trim());
+                    if ("ma".equalsIgnoreCase(name)) {
+                        maxAgeSeconds = Long.parseLong(value);
+                    } else if ("persist".equalsIgnoreCase(name)) {
+                        persist = "1".equals(value);
+                    }
+                }
+            }
+            return new AltSvc(protocolId, authority.substring(0, colon), port, maxAgeSeconds, persist);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<String> split(String s, char separator) {
+        List<String> list = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == separator && !quoted) {
+                add(list, s.substring(start, i));
+                start = i + 1;
+            }
+        }
+        add(list, s.substring(start));
+        return list;
+    }
+
+    private static void add(List<String> list, String s) {
+        String trimmed = s.trim();
+        if (!trimmed.isEmpty()) {
+            list.add(trimmed);
+        }
+    }
+
+    private static String unquote(String s) {
+        return s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"") ? s.substring(1, s.length() - 1) : s;
+    }
+}
@@ -4,6 +4,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * A read-only view of Netty HTTP headers.
+ */
 public class DefaultHttpHeaders implements HttpHeaders {
 
     private final io.netty.handler.codec.http.HttpHeaders httpHeaders;
@@ -8,25 +8,25 @@ import org.xbib.netty.http.common.cookie.CookieBox;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 
+/**
+ * A response that is a read-only view of a Netty response. Status and headers are not copied,
+ * the header view is created when it is first asked for.
+ */
 public class DefaultHttpResponse implements HttpResponse {
 
     private final HttpAddress httpAddress;
 
     private final FullHttpResponse fullHttpResponse;
 
-    private final HttpStatus httpStatus;
-
-    private final HttpHeaders httpHeaders;
-
     private final CookieBox cookieBox;
 
+    private HttpHeaders httpHeaders;
+
     public DefaultHttpResponse(HttpAddress httpAddress,
                                FullHttpResponse fullHttpResponse,
                                CookieBox cookieBox) {
         this.httpAddress = httpAddress;
         this.fullHttpResponse = fullHttpResponse.retain();
-        this.httpStatus = new HttpStatus(this.fullHttpResponse.status());
-        this.httpHeaders = new DefaultHttpHeaders(this.fullHttpResponse.headers());
         this.cookieBox = cookieBox;
     }
 
@@ -37,11 +37,14 @@ public class DefaultHttpResponse implements HttpResponse {
 
     @Override
     public HttpStatus getStatus() {
-        return httpStatus;
+        return HttpStatus.valueOf(fullHttpResponse.status());
     }
 
     @Override
     public HttpHeaders getHeaders() {
+        if (httpHeaders == null) {
+            httpHeaders = new DefaultHttpHeaders(fullHttpResponse.headers());
+        }
         return httpHeaders;
     }
 
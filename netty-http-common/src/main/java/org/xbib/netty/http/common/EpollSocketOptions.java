@@ -0,0 +1,129 @@
+package org.xbib.netty.http.common;
+
+/**
+ * Socket options of the Linux epoll transport. The options are applied by the epoll transport provider
+ * only if the epoll transport is active, otherwise they are ignored.
+ */
+public class EpollSocketOptions {
+
+    private boolean reusePort;
+
+    private int tcpFastOpen;
+
+    private boolean tcpFastOpenConnect;
+
+    private long tcpNotSentLowAt;
+
+    private int tcpUserTimeout;
+
+    private boolean tcpQuickAck;
+
+    private boolean edgeTriggered = true;
+
+    /**
+     * Set SO_REUSEPORT on server sockets, so several sockets can be bound to the same address.
+     *
+     * @param reusePort true for SO_REUSEPORT
+     * @return these options
+     */
+    public EpollSocketOptions setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+        return this;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    /**
+     * Set the TCP_FASTOPEN queue length for accepted connections. Zero disables TCP fast open on accept.
+     *
+     * @param tcpFastOpen the queue length of pending fast open requests
+     * @return these options
+     */
+    public EpollSocketOptions setTcpFastOpen(int tcpFastOpen) {
+        this.tcpFastOpen = tcpFastOpen;
+        return this;
+    }
+
+    public int getTcpFastOpen() {
+        return tcpFastOpen;
+    }
+
+    /**
+     * Set TCP_FASTOPEN_CONNECT, to send data in the SYN of client connections.
+     *
+     * @param tcpFastOpenConnect true for TCP fast open on connect
+     * @return these options
+     */
+    public EpollSocketOptions setTcpFastOpenConnect(boolean tcpFastOpenConnect) {
+        this.tcpFastOpenConnect = tcpFastOpenConnect;
+        return this;
+    }
+
+    public boolean isTcpFastOpenConnect() {
+        return tcpFastOpenConnect;
+    }
+
+    /**
+     * Set TCP_NOTSENT_LOWAT, the number of unsent bytes in the socket buffer above which the socket
+     * is not writable. Zero keeps the system default.
+     *
+     * @param tcpNotSentLowAt the number of bytes
+     * @return these options
+     */
+    public EpollSocketOptions setTcpNotSentLowAt(long tcpNotSentLowAt) {
+        this.tcpNotSentLowAt = tcpNotSentLowAt;
+        return this;
+    }
+
+    public long getTcpNotSentLowAt() {
+        return tcpNotSentLowAt;
+    }
+
+    /**
+     * Set TCP_USER_TIMEOUT, the time in milliseconds that sent data may stay unacknowledged before
+     * the connection is closed. Zero keeps the system default.
+     *
+     * @param tcpUserTimeout the timeout in milliseconds
+     * @return these options
+     */
+    public EpollSocketOptions setTcpUserTimeout(int tcpUserTimeout) {
+        this.tcpUserTimeout = tcpUserTimeout;
+        return this;
+    }
+
+    public int getTcpUserTimeout() {
+        return tcpUserTimeout;
+    }
+
+    /**
+     * Set TCP_QUICKACK, to send acknowledgements immediately instead of delaying them.
+     *
+     * @param tcpQuickAck true for quick acknowledgements
+     * @return these options
+     */
+    public EpollSocketOptions setTcpQuickAck(boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+        return this;
+    }
+
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    /**
+     * Set edge-triggered or level-triggered epoll mode. Default is edge-triggered.
+     *
+     * @param edgeTriggered true for edge-triggered, false for level-triggered mode
+     * @return these options
+     */
+    public EpollSocketOptions setEdgeTriggered(boolean edgeTriggered) {
+        this.edgeTriggered = edgeTriggered;
+        return this;
+    }
+
+    public boolean isEdgeTriggered() {
+        return edgeTriggered;
+    }
+}
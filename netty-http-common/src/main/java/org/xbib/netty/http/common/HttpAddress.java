@@ -4,9 +4,13 @@ import io.netty.handler.codec.http.HttpVersion;
 import org.xbib.net.URL;
 
 import java.net.InetSocketAddress;
+import java.util.Objects;
 
 /**
  * A handle for host, port, HTTP version, secure transport flag of a channel for HTTP.
+ *
+ * An address may also name the path of a unix domain socket. Then the channel is connected to,
+ * or bound to, the socket, and host and port are used for the HTTP messages only.
  */
 public class HttpAddress implements PoolKey {
 
@@ -14,6 +18,8 @@ public class HttpAddress implements PoolKey {
 
     public static final HttpVersion HTTP_2_0 = HttpVersion.valueOf("HTTP/2.0");
 
+    public static final HttpVersion HTTP_3_0 = HttpVersion.valueOf("HTTP/3.0");
+
     private final String host;
 
     private final Integer port;
@@ -22,6 +28,8 @@ public class HttpAddress implements PoolKey {
 
     private final Boolean secure;
 
+    private final String socketPath;
+
     private InetSocketAddress inetSocketAddress;
 
     public static HttpAddress http1(String host) {
@@ -56,6 +64,48 @@ public class HttpAddress implements PoolKey {
         return new HttpAddress(host, port, HTTP_2_0, true);
     }
 
+    /**
+     * Create an HTTP/3 address. HTTP/3 runs over QUIC, so the address is always secure.
+     *
+     * @param host the host
+     * @return the address
+     */
+    public static HttpAddress http3(String host) {
+        return new HttpAddress(host, 443, HTTP_3_0, true);
+    }
+
+    /**
+     * Create an HTTP/3 address. HTTP/3 runs over QUIC, so the address is always secure.
+     *
+     * @param host the host
+     * @param port the UDP port
+     * @return the address
+     */
+    public static HttpAddress http3(String host, int port) {
+        return new HttpAddress(host, port, HTTP_3_0, true);
+    }
+
+    /**
+     * Create an HTTP/1.1 address of a unix domain socket.
+     *
+     * @param socketPath the path of the socket
+     * @return the address
+     */
+    public static HttpAddress unix(String socketPath) {
+        return unix(socketPath, HTTP_1_1);
+    }
+
+    /**
+     * Create an address of a unix domain socket.
+     *
+     * @param socketPath the path of the socket
+     * @param version the HTTP version
+     * @return the address
+     */
+    public static HttpAddress unix(String socketPath, HttpVersion version) {
+        return new HttpAddress("localhost", 80, version, false, socketPath);
+    }
+
     public static HttpAddress http1(URL url) {
         return new HttpAddress(url, HTTP_1_1);
     }
@@ -64,6 +114,10 @@ public class HttpAddress implements PoolKey {
         return new HttpAddress(url, HTTP_2_0);
     }
 
+    public static HttpAddress http3(URL url) {
+        return new HttpAddress(url.getHost(), url.getPort(), HTTP_3_0, true);
+    }
+
     public static HttpAddress of(URL url) {
         return new HttpAddress(url, HTTP_1_1);
     }
@@ -76,15 +130,33 @@ public class HttpAddress implements PoolKey {
         return new HttpAddress(host, port, version, secure);
     }
 
+    /**
+     * Create an address for a URL, on a unix domain socket if a socket path is given.
+     *
+     * @param url the URL
+     * @param httpVersion the HTTP version
+     * @param socketPath the path of the unix domain socket, or null
+     * @return the address
+     */
+    public static HttpAddress of(URL url, HttpVersion httpVersion, String socketPath) {
+        return socketPath == null ? new HttpAddress(url, httpVersion) :
+                new HttpAddress(url.getHost(), url.getPort(), httpVersion, "https".equals(url.getScheme()), socketPath);
+    }
+
     public HttpAddress(URL url, HttpVersion version) {
         this(url.getHost(), url.getPort(), version, "https".equals(url.getScheme()));
     }
 
     public HttpAddress(String host, Integer port, HttpVersion version, boolean secure) {
+        this(host, port, version, secure, null);
+    }
+
+    public HttpAddress(String host, Integer port, HttpVersion version, boolean secure, String socketPath) {
         this.host = host;
         this.port = (port == null || port == -1) ? secure ? 443 : 80 : port;
         this.version = version;
         this.secure = secure;
+        this.socketPath = socketPath;
     }
 
     @Override
@@ -96,6 +168,27 @@ public class HttpAddress implements PoolKey {
         return inetSocketAddress;
     }
 
+    public String getHost() {
+        return host;
+    }
+
+    public Integer getPort() {
+        return port;
+    }
+
+    /**
+     * Return the path of the unix domain socket of this address.
+     *
+     * @return the socket path, or null if this is not a unix domain socket address
+     */
+    public String getSocketPath() {
+        return socketPath;
+    }
+
+    public boolean isUnixDomainSocket() {
+        return socketPath != null;
+    }
+
     public URL base() {
         return isSecure() ?
                 URL.https().host(host).port(port).build() :
@@ -112,7 +205,8 @@ public class HttpAddress implements PoolKey {
 
     @Override
     public String toString() {
-        return host + ":" + port + " (version:" + version + ",secure:" + secure + ")";
+        return (socketPath != null ? "unix:" + socketPath + " " : "") +
+                host + ":" + port + " (version:" + version + ",secure:" + secure + ")";
     }
 
     @Override
@@ -121,11 +215,12 @@ public class HttpAddress implements PoolKey {
                 host.equals(((HttpAddress) object).host) &&
                 (port != null && port.equals(((HttpAddress) object).port)) &&
                 version.equals(((HttpAddress) object).version) &&
-                secure.equals(((HttpAddress) object).secure);
+                secure.equals(((HttpAddress) object).secure) &&
+                Objects.equals(socketPath, ((HttpAddress) object).socketPath);
     }
 
     @Override
     public int hashCode() {
-        return host.hashCode() ^ port ^ version.hashCode() ^ secure.hashCode();
+        return host.hashCode() ^ port ^ version.hashCode() ^ secure.hashCode() ^ Objects.hashCode(socketPath);
     }
 }
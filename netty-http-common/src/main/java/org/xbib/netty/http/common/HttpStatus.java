@@ -4,12 +4,41 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 
 public class HttpStatus {
 
+    /**
+     * Wrappers of the status constants of Netty, indexed by code.
+     */
+    private static final HttpStatus[] STATUS_CACHE = new HttpStatus[600];
+
+    static {
+        for (int code = 100; code < STATUS_CACHE.length; code++) {
+            STATUS_CACHE[code] = new HttpStatus(HttpResponseStatus.valueOf(code));
+        }
+    }
+
     private final HttpResponseStatus httpResponseStatus;
 
     public HttpStatus(HttpResponseStatus httpResponseStatus) {
         this.httpResponseStatus = httpResponseStatus;
     }
 
+    /**
+     * Return the status wrapper for a Netty status. The Netty status constants, which decoders
+     * return for standard reason phrases, are wrapped only once.
+     *
+     * @param httpResponseStatus the Netty status
+     * @return the status
+     */
+    public static HttpStatus valueOf(HttpResponseStatus httpResponseStatus) {
+        int code = httpResponseStatus.code();
+        if (code >= 0 && code < STATUS_CACHE.length) {
+            HttpStatus httpStatus = STATUS_CACHE[code];
+            if (httpStatus != null && httpStatus.httpResponseStatus == httpResponseStatus) {
+                return httpStatus;
+            }
+        }
+        return new HttpStatus(httpResponseStatus);
+    }
+
     public int getCode() {
         return httpResponseStatus.code();
     }
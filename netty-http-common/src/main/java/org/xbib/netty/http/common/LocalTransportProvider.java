@@ -0,0 +1,73 @@
+package org.xbib.netty.http.common;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import java.net.SocketAddress;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A transport provider for client and server in the same JVM. Messages are passed in memory
+ * through the pipelines of local channels, there is no socket and no system call in between.
+ *
+ * The provider is used only if it is selected by name, on both the client and the server.
+ * An HTTP address is mapped to a local address of the same host and port, so the URLs of requests
+ * do not change.
+ */
+public class LocalTransportProvider implements TransportProvider {
+
+    @Override
+    public EventLoopGroup createEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        return new DefaultEventLoopGroup(nThreads, threadFactory);
+    }
+
+    @Override
+    public Class<? extends Channel> createSocketChannelClass() {
+        return LocalChannel.class;
+    }
+
+    @Override
+    public Class<? extends ServerChannel> createServerSocketChannelClass() {
+        return LocalServerChannel.class;
+    }
+
+    @Override
+    public boolean isAutoSelectable() {
+        return false;
+    }
+
+    @Override
+    public SocketAddress createSocketAddress(HttpAddress httpAddress) {
+        return new LocalAddress(httpAddress.getHost() + ":" + httpAddress.getPort());
+    }
+
+    /**
+     * Remove the TCP socket options, local channels do not know them.
+     */
+    @Override
+    public void configure(Bootstrap bootstrap, EpollSocketOptions epollSocketOptions) {
+        bootstrap.option(ChannelOption.TCP_NODELAY, null)
+                .option(ChannelOption.SO_KEEPALIVE, null)
+                .option(ChannelOption.SO_REUSEADDR, null)
+                .option(ChannelOption.SO_SNDBUF, null)
+                .option(ChannelOption.SO_RCVBUF, null);
+    }
+
+    @Override
+    public void configure(ServerBootstrap serverBootstrap, EpollSocketOptions epollSocketOptions) {
+        serverBootstrap.option(ChannelOption.SO_REUSEADDR, null)
+                .option(ChannelOption.SO_RCVBUF, null)
+                .option(ChannelOption.SO_BACKLOG, null)
+                .childOption(ChannelOption.SO_REUSEADDR, null)
+                .childOption(ChannelOption.TCP_NODELAY, null)
+                .childOption(ChannelOption.SO_SNDBUF, null)
+                .childOption(ChannelOption.SO_RCVBUF, null);
+    }
+}
@@ -1,16 +1,101 @@
 package org.xbib.netty.http.common;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.socket.ServerSocketChannel;
-import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.socket.DatagramChannel;
+import java.net.SocketAddress;
 import java.util.concurrent.ThreadFactory;
 
 public interface TransportProvider {
 
     EventLoopGroup createEventLoopGroup(int nThreads, ThreadFactory threadFactory);
 
-    Class<? extends SocketChannel> createSocketChannelClass();
+    Class<? extends Channel> createSocketChannelClass();
 
-    Class<? extends ServerSocketChannel> createServerSocketChannelClass();
+    Class<? extends ServerChannel> createServerSocketChannelClass();
 
+    /**
+     * Return the class of unix domain socket channels of this transport.
+     *
+     * @return the channel class, or null if the transport does not support unix domain sockets
+     */
+    default Class<? extends Channel> createDomainSocketChannelClass() {
+        return null;
+    }
+
+    /**
+     * Return the class of unix domain server socket channels of this transport.
+     *
+     * @return the channel class, or null if the transport does not support unix domain sockets
+     */
+    default Class<? extends ServerChannel> createServerDomainSocketChannelClass() {
+        return null;
+    }
+
+    /**
+     * Return the class of UDP datagram channels of this transport, used by protocols over QUIC.
+     *
+     * @return the channel class, or null if the NIO datagram channel should be used
+     */
+    default Class<? extends DatagramChannel> createDatagramChannelClass() {
+        return null;
+    }
+
+    /**
+     * Return true if this provider may be chosen when no transport provider name is configured.
+     * Providers of special purpose transports return false, they are used only if selected by name.
+     *
+     * @return true if this provider may be chosen automatically
+     */
+    default boolean isAutoSelectable() {
+        return true;
+    }
+
+    /**
+     * Create the socket address for connecting to, or binding to, an HTTP address.
+     *
+     * @param httpAddress the HTTP address
+     * @return the socket address
+     */
+    default SocketAddress createSocketAddress(HttpAddress httpAddress) {
+        if (httpAddress.isUnixDomainSocket()) {
+            throw new UnsupportedOperationException("unix domain sockets are not supported by " + getClass().getName());
+        }
+        return httpAddress.getInetSocketAddress();
+    }
+
+    /**
+     * Apply transport specific options to a client bootstrap, if the bootstrap uses the transport
+     * of this provider.
+     *
+     * @param bootstrap the bootstrap
+     * @param epollSocketOptions the epoll socket options
+     */
+    default void configure(Bootstrap bootstrap, EpollSocketOptions epollSocketOptions) {
+    }
+
+    /**
+     * Apply transport specific options to a server bootstrap, if the bootstrap uses the transport
+     * of this provider.
+     *
+     * @param serverBootstrap the server bootstrap
+     * @param epollSocketOptions the epoll socket options
+     */
+    default void configure(ServerBootstrap serverBootstrap, EpollSocketOptions epollSocketOptions) {
+    }
+
+    /**
+     * Tell if {@link #configure(ServerBootstrap, EpollSocketOptions)} binds the server sockets of a bootstrap
+     * with SO_REUSEPORT, so several server channels can be bound to the same address.
+     *
+     * @param serverBootstrap the server bootstrap
+     * @param epollSocketOptions the epoll socket options
+     * @return true if SO_REUSEPORT is applied
+     */
+    default boolean isReusePort(ServerBootstrap serverBootstrap, EpollSocketOptions epollSocketOptions) {
+        return false;
+    }
 }
@@ -0,0 +1,179 @@
+package org.xbib.netty.http.common.http2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.DefaultHttp2SettingsFrame;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import io.netty.handler.codec.http2.Http2Settings;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Adaptive HTTP/2 flow control window sizing by estimation of the bandwidth-delay product (BDP).
+ *
+ * While a PING is outstanding, the bytes received on the connection are counted. When the PING is acknowledged,
+ * the count is a sample of the bytes in flight during one round trip, and the sample divided by the round trip
+ * time is the bandwidth. The BDP is the highest bandwidth seen so far times the smoothed round trip time.
+ * If the sample reaches two thirds of the current window, and the bandwidth has grown, the window is too small
+ * to keep the link busy, so the connection window is grown by a WINDOW_UPDATE and the initial stream window
+ * by a SETTINGS frame, to twice the BDP, up to a maximum.
+ *
+ * A PING is only sent when data is received, and at most once per smoothed round trip time, so a busy
+ * connection is not flooded with PINGs.
+ *
+ * The estimator consists of two handlers on the HTTP/2 connection channel: a byte counter in front of the
+ * HTTP/2 frame codec, and a PING handler behind the codec.
+ * Use {@link #install(ChannelPipeline, String)} to add both.
+ * An estimator keeps the state of one connection and must not be shared.
+ */
+public class Http2BdpEstimator {
+
+    private static final Logger logger = Logger.getLogger(Http2BdpEstimator.class.getName());
+
+    /**
+     * The PING payload to tell our PINGs from others.
+     */
+    private static final long BDP_PING_PAYLOAD = 0x6264705069676e67L;
+
+    private final int maxWindowSize;
+
+    private int connectionWindowSize;
+
+    private int streamWindowSize;
+
+    private boolean pingOutstanding;
+
+    private long pingStartNanos;
+
+    private long pingAckNanos;
+
+    private long sample;
+
+    private long rttNanos;
+
+    private double maxBandwidth;
+
+    private final ChannelHandler byteCounter;
+
+    private final ChannelHandler pingHandler;
+
+    /**
+     * Create an estimator.
+     *
+     * @param http2Settings the initial settings of the connection, or null for the default settings
+     * @param maxWindowSize the maximum window size the estimator grows the windows to
+     */
+    public Http2BdpEstimator(Http2Settings http2Settings, int maxWindowSize) {
+        // the connection window always starts with the default size, SETTINGS only apply to streams
+        this.connectionWindowSize = Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+        this.streamWindowSize = http2Settings != null && http2Settings.initialWindowSize() != null ?
+                http2Settings.initialWindowSize() : Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+        this.maxWindowSize = Math.min(maxWindowSize, Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE);
+        this.byteCounter = new ByteCounter();
+        this.pingHandler = new PingHandler();
+    }
+
+    /**
+     * Add the byte counter before, and the PING handler after, the HTTP/2 codec in a pipeline.
+     *
+     * @param pipeline the pipeline of the connection channel
+     * @param codecName the name of the HTTP/2 frame codec in the pipeline
+     */
+    public void install(ChannelPipeline pipeline, String codecName) {
+        pipeline.addBefore(codecName, "http2-bdp-counter", byteCounter);
+        pipeline.addAfter(codecName, "http2-bdp-ping", pingHandler);
+    }
+
+    public int getConnectionWindowSize() {
+        return connectionWindowSize;
+    }
+
+    public int getStreamWindowSize() {
+        return streamWindowSize;
+    }
+
+    /**
+     * The smoothed round trip time of the connection, measured by the PINGs of the estimator.
+     *
+     * @return the round trip time in nanoseconds, or 0 if not measured yet
+     */
+    public long getRttNanos() {
+        return rttNanos;
+    }
+
+    private void bytesReceived(ChannelHandlerContext ctx, int bytes) {
+        if (pingOutstanding) {
+            sample += bytes;
+        } else if (Math.min(connectionWindowSize, streamWindowSize) < maxWindowSize) {
+            long now = System.nanoTime();
+            if (rttNanos > 0L && now - pingAckNanos < rttNanos) {
+                return;
+            }
+            pingOutstanding = true;
+            sample = bytes;
+            pingStartNanos = now;
+            ctx.channel().writeAndFlush(new DefaultHttp2PingFrame(BDP_PING_PAYLOAD, false));
+        }
+    }
+
+    private void pingAcknowledged(ChannelHandlerContext ctx) {
+        pingOutstanding = false;
+        pingAckNanos = System.nanoTime();
+        long sampleRttNanos = Math.max(pingAckNanos - pingStartNanos, 1L);
+        // exponentially weighted moving average, like TCP's SRTT
+        rttNanos = rttNanos == 0L ? sampleRttNanos : rttNanos + (sampleRttNanos - rttNanos) / 8L;
+        double bandwidth = (double) sample / sampleRttNanos;
+        if (sample < Math.min(connectionWindowSize, streamWindowSize) * 2L / 3L || bandwidth <= maxBandwidth) {
+            return;
+        }
+        maxBandwidth = bandwidth;
+        long bdp = Math.max((long) (maxBandwidth * rttNanos), sample);
+        int newWindowSize = (int) Math.min(bdp * 2L, maxWindowSize);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "BDP sample " + sample + " bytes, RTT " + rttNanos / 1000L +
+                    " us, BDP " + bdp + " bytes, growing windows to " + newWindowSize + " on " + ctx.channel());
+        }
+        if (newWindowSize > connectionWindowSize) {
+            // a window update without a stream is for the connection
+            ctx.channel().write(new DefaultHttp2WindowUpdateFrame(newWindowSize - connectionWindowSize));
+            connectionWindowSize = newWindowSize;
+        }
+        if (newWindowSize > streamWindowSize) {
+            ctx.channel().write(new DefaultHttp2SettingsFrame(new Http2Settings().initialWindowSize(newWindowSize)));
+            streamWindowSize = newWindowSize;
+        }
+        ctx.channel().flush();
+    }
+
+    private class ByteCounter extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf) {
+                bytesReceived(ctx, ((ByteBuf) msg).readableBytes());
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private class PingHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof Http2PingFrame) {
+                Http2PingFrame pingFrame = (Http2PingFrame) msg;
+                if (pingFrame.ack() && pingFrame.content() == BDP_PING_PAYLOAD && pingOutstanding) {
+                    pingAcknowledged(ctx);
+                    return;
+                }
+            }
+            ctx.fireChannelRead(msg);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * HTTP/2 utilities shared by client and server.
+ */
+package org.xbib.netty.http.common.http2;
@@ -3,6 +3,7 @@ module org.xbib.netty.http.epoll {
     requires org.xbib.netty.http.common;
     requires io.netty.transport;
     requires io.netty.transport.epoll;
+    requires io.netty.transport.unix.common;
     provides org.xbib.netty.http.common.TransportProvider with
             org.xbib.netty.http.epoll.EpollTransportProvider;
 }
@@ -1,13 +1,28 @@
 package org.xbib.netty.http.epoll;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
 import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import org.xbib.netty.http.common.EpollSocketOptions;
+import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.TransportProvider;
+import java.net.SocketAddress;
 import java.util.concurrent.ThreadFactory;
 
 public class EpollTransportProvider implements TransportProvider {
@@ -26,4 +41,84 @@ public class EpollTransportProvider implements TransportProvider {
     public Class<? extends ServerSocketChannel> createServerSocketChannelClass() {
         return Epoll.isAvailable() ? EpollServerSocketChannel.class : null;
     }
+
+    @Override
+    public Class<? extends Channel> createDomainSocketChannelClass() {
+        return Epoll.isAvailable() ? EpollDomainSocketChannel.class : null;
+    }
+
+    @Override
+    public Class<? extends ServerChannel> createServerDomainSocketChannelClass() {
+        return Epoll.isAvailable() ? EpollServerDomainSocketChannel.class : null;
+    }
+
+    @Override
+    public Class<? extends DatagramChannel> createDatagramChannelClass() {
+        return Epoll.isAvailable() ? EpollDatagramChannel.class : null;
+    }
+
+    @Override
+    public SocketAddress createSocketAddress(HttpAddress httpAddress) {
+        return httpAddress.isUnixDomainSocket() ?
+                new DomainSocketAddress(httpAddress.getSocketPath()) : httpAddress.getInetSocketAddress();
+    }
+
+    @Override
+    public void configure(Bootstrap bootstrap, EpollSocketOptions epollSocketOptions) {
+        // epoll channels can only be registered with an epoll event loop
+        if (!(bootstrap.config().group() instanceof EpollEventLoopGroup)) {
+            return;
+        }
+        bootstrap.option(EpollChannelOption.EPOLL_MODE, epollMode(epollSocketOptions));
+        if (epollSocketOptions.isTcpFastOpenConnect()) {
+            bootstrap.option(ChannelOption.TCP_FASTOPEN_CONNECT, true);
+        }
+        if (epollSocketOptions.getTcpNotSentLowAt() > 0L) {
+            bootstrap.option(EpollChannelOption.TCP_NOTSENT_LOWAT, epollSocketOptions.getTcpNotSentLowAt());
+        }
+        if (epollSocketOptions.getTcpUserTimeout() > 0) {
+            bootstrap.option(EpollChannelOption.TCP_USER_TIMEOUT, epollSocketOptions.getTcpUserTimeout());
+        }
+        if (epollSocketOptions.isTcpQuickAck()) {
+            bootstrap.option(EpollChannelOption.TCP_QUICKACK, true);
+        }
+    }
+
+    @Override
+    public void configure(ServerBootstrap serverBootstrap, EpollSocketOptions epollSocketOptions) {
+        if (!isEpoll(serverBootstrap)) {
+            return;
+        }
+        serverBootstrap.option(EpollChannelOption.EPOLL_MODE, epollMode(epollSocketOptions));
+        serverBootstrap.childOption(EpollChannelOption.EPOLL_MODE, epollMode(epollSocketOptions));
+        if (epollSocketOptions.isReusePort()) {
+            serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+        }
+        if (epollSocketOptions.getTcpFastOpen() > 0) {
+            serverBootstrap.option(ChannelOption.TCP_FASTOPEN, epollSocketOptions.getTcpFastOpen());
+        }
+        if (epollSocketOptions.getTcpNotSentLowAt() > 0L) {
+            serverBootstrap.childOption(EpollChannelOption.TCP_NOTSENT_LOWAT, epollSocketOptions.getTcpNotSentLowAt());
+        }
+        if (epollSocketOptions.getTcpUserTimeout() > 0) {
+            serverBootstrap.childOption(EpollChannelOption.TCP_USER_TIMEOUT, epollSocketOptions.getTcpUserTimeout());
+        }
+        if (epollSocketOptions.isTcpQuickAck()) {
+            serverBootstrap.childOption(EpollChannelOption.TCP_QUICKACK, true);
+        }
+    }
+
+    @Override
+    public boolean isReusePort(ServerBootstrap serverBootstrap, EpollSocketOptions epollSocketOptions) {
+        return epollSocketOptions.isReusePort() && isEpoll(serverBootstrap);
+    }
+
+    private static boolean isEpoll(ServerBootstrap serverBootstrap) {
+        return serverBootstrap.config().group() instanceof EpollEventLoopGroup &&
+                serverBootstrap.config().childGroup() instanceof EpollEventLoopGroup;
+    }
+
+    private static EpollMode epollMode(EpollSocketOptions epollSocketOptions) {
+        return epollSocketOptions.isEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+    }
 }
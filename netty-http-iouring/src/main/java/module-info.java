@@ -0,0 +1,8 @@
+module org.xbib.netty.http.iouring {
+    exports org.xbib.netty.http.iouring;
+    requires org.xbib.netty.http.common;
+    requires io.netty.transport;
+    requires io.netty.incubator.transport.uring;
+    provides org.xbib.netty.http.common.TransportProvider with
+            org.xbib.netty.http.iouring.IOUringTransportProvider;
+}
@@ -0,0 +1,40 @@
+package org.xbib.netty.http.iouring;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import org.xbib.netty.http.common.TransportProvider;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A transport provider for io_uring on Linux. If the kernel does not support io_uring,
+ * the provider returns null, and the next available transport is used.
+ */
+public class IOUringTransportProvider implements TransportProvider {
+
+    @Override
+    public EventLoopGroup createEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        return IOUring.isAvailable() ? new IOUringEventLoopGroup(nThreads, threadFactory) : null;
+    }
+
+    @Override
+    public Class<? extends SocketChannel> createSocketChannelClass() {
+        return IOUring.isAvailable() ? IOUringSocketChannel.class : null;
+    }
+
+    @Override
+    public Class<? extends ServerSocketChannel> createServerSocketChannelClass() {
+        return IOUring.isAvailable() ? IOUringServerSocketChannel.class : null;
+    }
+
+    @Override
+    public Class<? extends DatagramChannel> createDatagramChannelClass() {
+        return IOUring.isAvailable() ? IOUringDatagramChannel.class : null;
+    }
+}
@@ -0,0 +1,70 @@
+package org.xbib.netty.http.iouring;
+
+import io.netty.channel.epoll.Epoll;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.incubator.channel.uring.IOUring;
+import org.junit.jupiter.api.Test;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.epoll.EpollTransportProvider;
+import org.xbib.netty.http.loadgen.LoadGenerator;
+import org.xbib.netty.http.loadgen.LoadMode;
+import org.xbib.netty.http.loadgen.LoadReport;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import java.time.Duration;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Loopback benchmark of io_uring against epoll, on client and server. Skipped if the kernel
+ * does not support both transports.
+ */
+class IOUringBenchmarkTest {
+
+    private static final Logger logger = Logger.getLogger(IOUringBenchmarkTest.class.getName());
+
+    @Test
+    void testIOUringAgainstEpoll() throws Exception {
+        assumeTrue(Epoll.isAvailable(), "epoll not available");
+        assumeTrue(IOUring.isAvailable(), "io_uring not available");
+        LoadReport epoll = run(EpollTransportProvider.class.getName());
+        LoadReport iouring = run(IOUringTransportProvider.class.getName());
+        logger.log(Level.INFO, "epoll: " + epoll);
+        logger.log(Level.INFO, "io_uring: " + iouring);
+        logger.log(Level.INFO, String.format("io_uring/epoll throughput ratio = %.2f",
+                iouring.getThroughput() / epoll.getThroughput()));
+        assertTrue(epoll.getCount() > 0L);
+        assertTrue(iouring.getCount() > 0L);
+        assertEquals(0L, epoll.getErrors());
+        assertEquals(0L, iouring.getErrors());
+    }
+
+    private static LoadReport run(String transportProviderName) throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write("Hello World"))
+                .build();
+        Server server = Server.builder(domain)
+                .setTransportProviderName(transportProviderName)
+                .build();
+        server.accept();
+        try {
+            return LoadGenerator.builder(httpAddress.base().toString())
+                    .setMode(LoadMode.CLOSED_LOOP)
+                    .setConcurrency(64)
+                    .setDuration(Duration.ofSeconds(5L))
+                    .setClientCustomizer(builder -> builder.setTransportProviderName(transportProviderName))
+                    .build()
+                    .run();
+        } finally {
+            server.shutdownGracefully();
+        }
+    }
+}
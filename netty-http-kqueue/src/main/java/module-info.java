@@ -3,6 +3,7 @@ module org.xbib.netty.http.kqueue {
     requires org.xbib.netty.http.common;
     requires io.netty.transport;
     requires io.netty.transport.kqueue;
+    requires io.netty.transport.unix.common;
     provides org.xbib.netty.http.common.TransportProvider with
             org.xbib.netty.http.kqueue.KqueueTransportProvider;
 }
@@ -1,13 +1,22 @@
 package org.xbib.netty.http.kqueue;
 
+import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.kqueue.KQueue;
+import io.netty.channel.kqueue.KQueueDatagramChannel;
+import io.netty.channel.kqueue.KQueueDomainSocketChannel;
 import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.kqueue.KQueueServerDomainSocketChannel;
 import io.netty.channel.kqueue.KQueueServerSocketChannel;
 import io.netty.channel.kqueue.KQueueSocketChannel;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.TransportProvider;
+import java.net.SocketAddress;
 import java.util.concurrent.ThreadFactory;
 
 public class KqueueTransportProvider implements TransportProvider {
@@ -26,4 +35,25 @@ public class KqueueTransportProvider implements TransportProvider {
     public Class<? extends ServerSocketChannel> createServerSocketChannelClass() {
         return KQueue.isAvailable() ? KQueueServerSocketChannel.class : null;
     }
+
+    @Override
+    public Class<? extends Channel> createDomainSocketChannelClass() {
+        return KQueue.isAvailable() ? KQueueDomainSocketChannel.class : null;
+    }
+
+    @Override
+    public Class<? extends ServerChannel> createServerDomainSocketChannelClass() {
+        return KQueue.isAvailable() ? KQueueServerDomainSocketChannel.class : null;
+    }
+
+    @Override
+    public Class<? extends DatagramChannel> createDatagramChannelClass() {
+        return KQueue.isAvailable() ? KQueueDatagramChannel.class : null;
+    }
+
+    @Override
+    public SocketAddress createSocketAddress(HttpAddress httpAddress) {
+        return httpAddress.isUnixDomainSocket() ?
+                new DomainSocketAddress(httpAddress.getSocketPath()) : httpAddress.getInetSocketAddress();
+    }
 }
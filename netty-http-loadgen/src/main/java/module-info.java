@@ -0,0 +1,8 @@
+module org.xbib.netty.http.loadgen {
+    exports org.xbib.netty.http.loadgen;
+    requires transitive org.xbib.netty.http.client;
+    requires transitive org.HdrHistogram;
+    requires org.xbib.net.url;
+    requires java.logging;
+    requires io.netty.codec.http;
+}
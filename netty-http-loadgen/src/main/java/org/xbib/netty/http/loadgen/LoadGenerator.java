@@ -0,0 +1,486 @@
+package org.xbib.netty.http.loadgen;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.xbib.net.URL;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A load generator for HTTP servers, built on {@link Client}.
+ *
+ * In {@link LoadMode#CLOSED_LOOP} mode, a fixed number of requests is in flight, and each response
+ * triggers the next request. If a rate is set, the requests are paced to the rate. In {@link LoadMode#OPEN_LOOP}
+ * mode, requests are sent at a constant arrival rate, no matter how many responses are outstanding.
+ *
+ * Latencies are recorded in HDR histograms. Whenever requests are sent on a schedule, that is, in open loop mode
+ * or in paced closed loop mode, the latency of a request is measured from the time it should have been sent,
+ * not from the time it was actually sent. So a stalled server is charged with the requests it delayed,
+ * and the latencies are free of coordinated omission. Unpaced closed loop mode measures service times only.
+ *
+ * A summary of each report interval is passed to a report consumer, and a summary of the whole run is returned.
+ *
+ * HTTP/1 requests are sent over a pool of connections of one client, HTTP/2 requests are multiplexed over
+ * one connection per client, so the connection count is the number of clients for HTTP/2.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = Logger.getLogger(LoadGenerator.class.getName());
+
+    private final URL url;
+
+    private final HttpMethod httpMethod;
+
+    private final HttpVersion httpVersion;
+
+    private final String content;
+
+    private final String contentType;
+
+    private final LoadMode loadMode;
+
+    private final int concurrency;
+
+    private final double rate;
+
+    private final Duration duration;
+
+    private final Duration reportInterval;
+
+    private final Duration drainTimeout;
+
+    private final int connections;
+
+    private final Consumer<Client.Builder> clientCustomizer;
+
+    private final Consumer<LoadReport> reportConsumer;
+
+    private final Recorder recorder;
+
+    private final LongAdder errors;
+
+    private final AtomicLong inFlight;
+
+    private final AtomicInteger requestCounter;
+
+    private final CompletableFuture<Void> drained;
+
+    private final List<Client> clients;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean stopped;
+
+    private long startNanos;
+
+    private long endNanos;
+
+    private Histogram totalHistogram;
+
+    private long totalErrors;
+
+    private long lastReportNanos;
+
+    private LoadGenerator(Builder builder) {
+        this.url = builder.url;
+        this.httpMethod = builder.httpMethod;
+        this.httpVersion = builder.httpVersion;
+        this.content = builder.content;
+        this.contentType = builder.contentType;
+        this.loadMode = builder.loadMode;
+        this.concurrency = builder.concurrency;
+        this.rate = builder.rate;
+        this.duration = builder.duration;
+        this.reportInterval = builder.reportInterval;
+        this.drainTimeout = builder.drainTimeout;
+        this.connections = builder.connections;
+        this.clientCustomizer = builder.clientCustomizer;
+        this.reportConsumer = builder.reportConsumer;
+        this.recorder = new Recorder(3);
+        this.errors = new LongAdder();
+        this.inFlight = new AtomicLong();
+        this.requestCounter = new AtomicInteger();
+        this.drained = new CompletableFuture<>();
+        this.clients = new ArrayList<>();
+    }
+
+    public static Builder builder(String url) {
+        return new Builder(URL.create(url));
+    }
+
+    /**
+     * Run the load for the configured duration, wait for the outstanding responses, and return
+     * the summary of the run. A load generator can run only once.
+     *
+     * @return the summary of the run
+     * @throws IOException if the clients can not be shut down
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public LoadReport run() throws IOException, InterruptedException {
+        if (scheduler != null) {
+            throw new IllegalStateException("load generator has already run");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadgen-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        createClients();
+        totalHistogram = new Histogram(3);
+        startNanos = System.nanoTime();
+        endNanos = startNanos + duration.toNanos();
+        lastReportNanos = startNanos;
+        long intervalNanos = reportInterval.toNanos();
+        ScheduledFuture<?> reporting = scheduler.scheduleAtFixedRate(this::report,
+                intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        try {
+            if (loadMode == LoadMode.OPEN_LOOP) {
+                runOpenLoop();
+            } else {
+                runClosedLoop();
+            }
+            stopped = true;
+            if (inFlight.get() == 0L) {
+                drained.complete(null);
+            }
+            try {
+                drained.get(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                logger.log(Level.WARNING, inFlight.get() + " requests still in flight after " + drainTimeout);
+            } catch (ExecutionException e) {
+                // never completed exceptionally
+            }
+        } finally {
+            stopped = true;
+            reporting.cancel(false);
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(10L, TimeUnit.SECONDS);
+            for (Client client : clients) {
+                client.shutdownGracefully();
+            }
+        }
+        report();
+        return new LoadReport(System.nanoTime() - startNanos, totalErrors, totalHistogram);
+    }
+
+    private void createClients() {
+        boolean http2 = httpVersion.majorVersion() == 2;
+        int count = http2 ? Math.max(connections, 1) : 1;
+        for (int i = 0; i < count; i++) {
+            Client.Builder clientBuilder = Client.builder();
+            if (!http2) {
+                clientBuilder.setMaxConnectionsPerAddress(connections > 0 ? connections : concurrency);
+            }
+            if (clientCustomizer != null) {
+                clientCustomizer.accept(clientBuilder);
+            }
+            clients.add(clientBuilder.build());
+        }
+    }
+
+    private void runClosedLoop() throws InterruptedException {
+        for (int i = 0; i < concurrency; i++) {
+            next(i, 0L);
+        }
+        long remaining = endNanos - System.nanoTime();
+        if (remaining > 0L) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    /**
+     * Send the next request of a closed loop worker, at its scheduled time if the loop is paced,
+     * otherwise immediately.
+     */
+    private void next(int worker, long iteration) {
+        if (stopped) {
+            return;
+        }
+        long now = System.nanoTime();
+        long intendedNanos;
+        if (rate > 0d) {
+            // spread the workers evenly over the interval of one worker
+            double workerIntervalNanos = concurrency * 1e9d / rate;
+            intendedNanos = startNanos + (long) ((iteration + (double) worker / concurrency) * workerIntervalNanos);
+        } else {
+            intendedNanos = now;
+        }
+        if (intendedNanos - endNanos >= 0L) {
+            return;
+        }
+        Runnable sendTask = () -> send(intendedNanos, () -> next(worker, iteration + 1L));
+        long delay = intendedNanos - now;
+        if (delay > 0L) {
+            try {
+                scheduler.schedule(sendTask, delay, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // run is over
+            }
+        } else {
+            sendTask.run();
+        }
+    }
+
+    private void runOpenLoop() throws InterruptedException {
+        double intervalNanos = 1e9d / rate;
+        for (long i = 0L; ; i++) {
+            long intendedNanos = startNanos + (long) (i * intervalNanos);
+            if (intendedNanos - endNanos >= 0L) {
+                break;
+            }
+            long delay;
+            while ((delay = intendedNanos - System.nanoTime()) > 0L) {
+                LockSupport.parkNanos(delay);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            send(intendedNanos, null);
+        }
+    }
+
+    private void send(long intendedNanos, Runnable next) {
+        if (stopped) {
+            return;
+        }
+        Client client = clients.get(Math.floorMod(requestCounter.getAndIncrement(), clients.size()));
+        inFlight.incrementAndGet();
+        client.send(newRequest(), httpResponse -> httpResponse.getStatus().getCode())
+                .whenComplete((status, throwable) -> {
+                    long latency = System.nanoTime() - intendedNanos;
+                    if (throwable != null) {
+                        errors.increment();
+                        logger.log(Level.FINE, throwable.getMessage(), throwable);
+                    } else {
+                        recorder.recordValue(latency);
+                        if (status >= 400) {
+                            errors.increment();
+                        }
+                    }
+                    if (next != null) {
+                        next.run();
+                    }
+                    if (inFlight.decrementAndGet() == 0L && stopped) {
+                        drained.complete(null);
+                    }
+                });
+    }
+
+    private Request newRequest() {
+        Request.Builder requestBuilder = Request.builder(httpMethod)
+                .setVersion(httpVersion)
+                .url(url)
+                .keepAlive(true);
+        if (content != null) {
+            requestBuilder.content(content, contentType, StandardCharsets.UTF_8);
+        }
+        return requestBuilder.build();
+    }
+
+    /**
+     * Pass the summary of the interval since the last report to the report consumer,
+     * and add the interval to the summary of the run.
+     */
+    private synchronized void report() {
+        long now = System.nanoTime();
+        Histogram intervalHistogram = recorder.getIntervalHistogram();
+        long intervalErrors = errors.sumThenReset();
+        totalHistogram.add(intervalHistogram);
+        totalErrors += intervalErrors;
+        LoadReport loadReport = new LoadReport(now - lastReportNanos, intervalErrors, intervalHistogram);
+        lastReportNanos = now;
+        try {
+            reportConsumer.accept(loadReport);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The builder for a load generator.
+     */
+    public static class Builder {
+
+        private final URL url;
+
+        private HttpMethod httpMethod;
+
+        private HttpVersion httpVersion;
+
+        private String content;
+
+        private String contentType;
+
+        private LoadMode loadMode;
+
+        private int concurrency;
+
+        private double rate;
+
+        private Duration duration;
+
+        private Duration reportInterval;
+
+        private Duration drainTimeout;
+
+        private int connections;
+
+        private Consumer<Client.Builder> clientCustomizer;
+
+        private Consumer<LoadReport> reportConsumer;
+
+        private Builder(URL url) {
+            this.url = url;
+            this.httpMethod = HttpMethod.GET;
+            this.httpVersion = HttpVersion.HTTP_1_1;
+            this.loadMode = LoadMode.CLOSED_LOOP;
+            this.concurrency = 16;
+            this.duration = Duration.ofSeconds(10L);
+            this.reportInterval = Duration.ofSeconds(1L);
+            this.drainTimeout = Duration.ofSeconds(30L);
+            this.reportConsumer = loadReport -> logger.log(Level.INFO, loadReport.toString());
+        }
+
+        public Builder setMethod(HttpMethod httpMethod) {
+            this.httpMethod = httpMethod;
+            return this;
+        }
+
+        public Builder setVersion(HttpVersion httpVersion) {
+            this.httpVersion = httpVersion;
+            return this;
+        }
+
+        public Builder setVersion(String httpVersion) {
+            this.httpVersion = HttpVersion.valueOf(httpVersion);
+            return this;
+        }
+
+        public Builder setContent(String content, String contentType) {
+            this.content = content;
+            this.contentType = contentType;
+            return this;
+        }
+
+        public Builder setMode(LoadMode loadMode) {
+            this.loadMode = loadMode;
+            return this;
+        }
+
+        /**
+         * Set the number of requests in flight in closed loop mode. Default is 16.
+         *
+         * @param concurrency the number of requests in flight
+         * @return this builder
+         */
+        public Builder setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Set the rate of requests per second. Required in open loop mode, optional in closed loop mode.
+         *
+         * @param rate the requests per second
+         * @return this builder
+         */
+        public Builder setRate(double rate) {
+            this.rate = rate;
+            return this;
+        }
+
+        public Builder setDuration(Duration duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        public Builder setReportInterval(Duration reportInterval) {
+            this.reportInterval = reportInterval;
+            return this;
+        }
+
+        /**
+         * Set the time to wait for outstanding responses after the run. Default is 30 seconds.
+         *
+         * @param drainTimeout the time to wait
+         * @return this builder
+         */
+        public Builder setDrainTimeout(Duration drainTimeout) {
+            this.drainTimeout = drainTimeout;
+            return this;
+        }
+
+        /**
+         * Set the number of connections. For HTTP/1, the default is the concurrency, for HTTP/2 it is one.
+         *
+         * @param connections the number of connections
+         * @return this builder
+         */
+        public Builder setConnections(int connections) {
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * Set a customizer for the builders of the clients, e.g. for TLS settings.
+         *
+         * @param clientCustomizer the customizer
+         * @return this builder
+         */
+        public Builder setClientCustomizer(Consumer<Client.Builder> clientCustomizer) {
+            this.clientCustomizer = clientCustomizer;
+            return this;
+        }
+
+        /**
+         * Set the consumer for interval reports. The default consumer logs the reports.
+         *
+         * @param reportConsumer the consumer
+         * @return this builder
+         */
+        public Builder setReportConsumer(Consumer<LoadReport> reportConsumer) {
+            this.reportConsumer = reportConsumer;
+            return this;
+        }
+
+        public LoadGenerator build() {
+            Objects.requireNonNull(httpMethod);
+            Objects.requireNonNull(httpVersion);
+            Objects.requireNonNull(loadMode);
+            Objects.requireNonNull(reportConsumer);
+            if (loadMode == LoadMode.OPEN_LOOP && rate <= 0d) {
+                throw new IllegalArgumentException("open loop mode requires a rate");
+            }
+            if (loadMode == LoadMode.CLOSED_LOOP && concurrency <= 0) {
+                throw new IllegalArgumentException("closed loop mode requires a concurrency");
+            }
+            if (duration.isNegative() || duration.isZero() || reportInterval.isNegative() || reportInterval.isZero()) {
+                throw new IllegalArgumentException("duration and report interval must be positive");
+            }
+            return new LoadGenerator(this);
+        }
+    }
+}
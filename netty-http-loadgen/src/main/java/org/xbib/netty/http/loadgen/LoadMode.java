@@ -0,0 +1,18 @@
+package org.xbib.netty.http.loadgen;
+
+/**
+ * The modes of a load generator.
+ */
+public enum LoadMode {
+
+    /**
+     * A fixed number of requests is in flight. A new request is sent when a response has been received,
+     * optionally paced to a target rate.
+     */
+    CLOSED_LOOP,
+
+    /**
+     * Requests are sent at a constant arrival rate, regardless of the responses.
+     */
+    OPEN_LOOP
+}
@@ -0,0 +1,83 @@
+package org.xbib.netty.http.loadgen;
+
+import org.HdrHistogram.Histogram;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A summary of the responses received in an interval, or in a whole run, of a load generator.
+ * Latencies are in nanoseconds.
+ */
+public class LoadReport {
+
+    private final long elapsedNanos;
+
+    private final long errors;
+
+    private final Histogram histogram;
+
+    LoadReport(long elapsedNanos, long errors, Histogram histogram) {
+        this.elapsedNanos = elapsedNanos;
+        this.errors = errors;
+        this.histogram = histogram;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Return the number of responses. Responses with an error status are included, failed requests are not.
+     *
+     * @return the number of responses
+     */
+    public long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    /**
+     * Return the number of responses with a status of 400 or above, plus the number of failed requests.
+     *
+     * @return the number of errors
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos > 0L ? getCount() * 1e9d / elapsedNanos : 0d;
+    }
+
+    public long getLatencyAtPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+
+    public double getMeanLatency() {
+        return histogram.getMean();
+    }
+
+    public long getMaxLatency() {
+        return histogram.getMaxValue();
+    }
+
+    /**
+     * Return the latency histogram.
+     *
+     * @return the histogram
+     */
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("elapsed=%dms count=%d errors=%d throughput=%.1f/s " +
+                        "latency mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getCount(), errors, getThroughput(),
+                getMeanLatency() / 1e6d, millis(getLatencyAtPercentile(50d)), millis(getLatencyAtPercentile(90d)),
+                millis(getLatencyAtPercentile(99d)), millis(getLatencyAtPercentile(99.9d)), millis(getMaxLatency()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6d;
+    }
+}
@@ -0,0 +1,129 @@
+package org.xbib.netty.http.loadgen;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class LoadGeneratorTest {
+
+    private static final Logger logger = Logger.getLogger(LoadGeneratorTest.class.getName());
+
+    @Test
+    void testClosedLoopHttp1() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        Server server = Server.builder(createDomain(httpAddress)).build();
+        server.accept();
+        List<LoadReport> reports = new ArrayList<>();
+        LoadReport loadReport;
+        try {
+            loadReport = LoadGenerator.builder(httpAddress.base().toString())
+                    .setMode(LoadMode.CLOSED_LOOP)
+                    .setConcurrency(8)
+                    .setDuration(Duration.ofSeconds(2L))
+                    .setReportInterval(Duration.ofMillis(500L))
+                    .setReportConsumer(reports::add)
+                    .build()
+                    .run();
+        } finally {
+            server.shutdownGracefully();
+        }
+        logger.log(Level.INFO, loadReport.toString());
+        assertTrue(loadReport.getCount() > 0L);
+        assertEquals(0L, loadReport.getErrors());
+        assertFalse(reports.isEmpty());
+        assertEquals(loadReport.getCount(), reports.stream().mapToLong(LoadReport::getCount).sum());
+    }
+
+    @Test
+    void testOpenLoopHttp2() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http2("localhost", 8008);
+        Server server = Server.builder(createDomain(httpAddress)).build();
+        server.accept();
+        LoadReport loadReport;
+        try {
+            loadReport = LoadGenerator.builder(httpAddress.base().toString())
+                    .setVersion("HTTP/2.0")
+                    .setMode(LoadMode.OPEN_LOOP)
+                    .setRate(500d)
+                    .setConnections(2)
+                    .setDuration(Duration.ofSeconds(2L))
+                    .build()
+                    .run();
+        } finally {
+            server.shutdownGracefully();
+        }
+        logger.log(Level.INFO, loadReport.toString());
+        // every scheduled request is sent and answered, a slow response is not skipped
+        assertEquals(1000L, loadReport.getCount());
+        assertEquals(0L, loadReport.getErrors());
+        assertTrue(loadReport.getLatencyAtPercentile(99d) <= loadReport.getMaxLatency());
+    }
+
+    @Test
+    void testCoordinatedOmissionCorrection() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        AtomicInteger requests = new AtomicInteger();
+        // the 50th request stalls the only connection for one second
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) -> {
+                    if (requests.incrementAndGet() == 50) {
+                        try {
+                            Thread.sleep(1000L);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build()
+                            .write("Hello World");
+                })
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        LoadReport loadReport;
+        try {
+            loadReport = LoadGenerator.builder(httpAddress.base().toString())
+                    .setMode(LoadMode.CLOSED_LOOP)
+                    .setConcurrency(1)
+                    .setRate(100d)
+                    .setDuration(Duration.ofSeconds(2L))
+                    .build()
+                    .run();
+        } finally {
+            server.shutdownGracefully();
+        }
+        logger.log(Level.INFO, loadReport.toString());
+        assertEquals(200L, loadReport.getCount());
+        assertEquals(0L, loadReport.getErrors());
+        // the stalled request took one second
+        assertTrue(loadReport.getMaxLatency() >= TimeUnit.MILLISECONDS.toNanos(1000L));
+        // the about 100 requests that were due during the stall are charged with their wait for the
+        // connection, measured from their intended send times. Measured from the actual send times,
+        // only the stalled request would be slow, and the 90th percentile would be about a millisecond.
+        assertTrue(loadReport.getLatencyAtPercentile(90d) >= TimeUnit.MILLISECONDS.toNanos(500L));
+    }
+
+    private static HttpServerDomain createDomain(HttpAddress httpAddress) {
+        return HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write("Hello World"))
+                .build();
+    }
+}
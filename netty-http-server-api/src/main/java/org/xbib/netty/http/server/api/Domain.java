@@ -3,6 +3,7 @@ package org.xbib.netty.http.server.api;
 import io.netty.handler.ssl.SslContext;
 import org.xbib.netty.http.common.HttpAddress;
 import java.io.IOException;
+import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
 
@@ -18,6 +19,8 @@ public interface Domain<R extends EndpointResolver<?>> {
 
     Collection<? extends X509Certificate> getCertificateChain();
 
+    PrivateKey getPrivateKey();
+
     void handle(ServerRequest.Builder serverRequestBuilder, ServerResponse.Builder serverResponseBuilder) throws IOException;
 
     void handleAfterError(ServerRequest.Builder serverRequestBuilder, ServerResponse.Builder serverResponseBuilder, Throwable throwable);
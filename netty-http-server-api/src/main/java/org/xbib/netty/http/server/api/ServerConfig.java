@@ -5,6 +5,8 @@ import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.CipherSuiteFilter;
 import io.netty.handler.ssl.SslProvider;
+import org.xbib.netty.http.common.AltSvc;
+import org.xbib.netty.http.common.EpollSocketOptions;
 import org.xbib.netty.http.common.HttpAddress;
 import java.security.KeyStore;
 import java.security.Provider;
@@ -69,6 +71,16 @@ public interface ServerConfig {
 
     Http2Settings getHttp2Settings();
 
+    boolean isHttp2BdpEnabled();
+
+    int getHttp2MaxWindowSize();
+
+    Collection<AltSvc> getAlternativeServices();
+
+    int getFlushConsolidation();
+
+    EpollSocketOptions getEpollSocketOptions();
+
     TrustManagerFactory getTrustManagerFactory();
 
     KeyStore getTrustManagerKeyStore();
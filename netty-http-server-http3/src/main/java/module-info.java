@@ -0,0 +1,15 @@
+import org.xbib.netty.http.server.protocol.http3.Http3;
+
+module org.xbib.netty.http.server.http3 {
+    exports org.xbib.netty.http.server.protocol.http3;
+    requires org.xbib.netty.http.server;
+    requires java.logging;
+    requires io.netty.buffer;
+    requires io.netty.common;
+    requires io.netty.handler;
+    requires io.netty.transport;
+    requires io.netty.codec.http;
+    requires io.netty.incubator.codec.quic;
+    requires io.netty.incubator.codec.http3;
+    provides org.xbib.netty.http.server.api.ServerProtocolProvider with Http3;
+}
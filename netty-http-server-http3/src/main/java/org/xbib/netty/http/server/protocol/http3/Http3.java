@@ -0,0 +1,21 @@
+package org.xbib.netty.http.server.protocol.http3;
+
+import org.xbib.netty.http.server.api.ServerProtocolProvider;
+
+public class Http3 implements ServerProtocolProvider<Http3ChannelInitializer, Http3Transport> {
+
+    @Override
+    public boolean supportsMajorVersion(int majorVersion) {
+        return majorVersion == 3;
+    }
+
+    @Override
+    public Class<Http3ChannelInitializer> initializerClass() {
+        return Http3ChannelInitializer.class;
+    }
+
+    @Override
+    public Class<Http3Transport> transportClass() {
+        return Http3Transport.class;
+    }
+}
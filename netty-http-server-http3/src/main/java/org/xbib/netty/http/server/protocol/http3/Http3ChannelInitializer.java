@@ -0,0 +1,256 @@
+package org.xbib.netty.http.server.protocol.http3;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.ChannelInputShutdownEvent;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.logging.LogLevel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.incubator.codec.http3.Http3DataFrame;
+import io.netty.incubator.codec.http3.Http3Headers;
+import io.netty.incubator.codec.http3.Http3HeadersFrame;
+import io.netty.incubator.codec.http3.Http3ServerConnectionHandler;
+import io.netty.incubator.codec.quic.InsecureQuicTokenHandler;
+import io.netty.incubator.codec.quic.QuicChannel;
+import io.netty.incubator.codec.quic.QuicSslContext;
+import io.netty.incubator.codec.quic.QuicSslContextBuilder;
+import io.netty.incubator.codec.quic.QuicStreamChannel;
+import io.netty.util.AsciiString;
+import io.netty.util.Mapping;
+import io.netty.util.ReferenceCountUtil;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpChannelInitializer;
+import org.xbib.netty.http.server.DefaultServerConfig;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.api.Domain;
+import org.xbib.netty.http.server.api.EndpointResolver;
+import org.xbib.netty.http.server.api.ServerTransport;
+import org.xbib.netty.http.server.handler.IdleTimeoutHandler;
+import org.xbib.netty.http.server.handler.TrafficLoggingHandler;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Installs the QUIC codec with HTTP/3 on the bound UDP channel of the server. Each QUIC connection
+ * gets an HTTP/3 connection handler, and each request stream a transport, which receives the request
+ * aggregated from the HTTP/3 frames of the stream.
+ *
+ * QUIC brings its own TLS stack, so the SSL contexts of the domain name mapping are not used. The SSL context
+ * is built from the private key and the certificate chain of the default domain. Early data is accepted,
+ * so clients can send requests in 0-RTT on resumed connections.
+ */
+public class Http3ChannelInitializer extends ChannelInitializer<Channel>
+        implements HttpChannelInitializer {
+
+    private static final Logger logger = Logger.getLogger(Http3ChannelInitializer.class.getName());
+
+    private static final long DEFAULT_MAX_STREAMS = 100L;
+
+    private final Server server;
+
+    private final DefaultServerConfig serverConfig;
+
+    private final HttpAddress httpAddress;
+
+    private final QuicSslContext sslContext;
+
+    public Http3ChannelInitializer(Server server,
+                                   HttpAddress httpAddress,
+                                   Mapping<String, SslContext> domainNameMapping) {
+        this.server = server;
+        this.serverConfig = server.getServerConfig();
+        this.httpAddress = httpAddress;
+        this.sslContext = newSslContext(serverConfig.getDefaultDomain());
+    }
+
+    @Override
+    public void initChannel(Channel channel) {
+        if (serverConfig.isDebug()) {
+            channel.pipeline().addLast(new TrafficLoggingHandler(LogLevel.DEBUG));
+        }
+        int maxContentLength = serverConfig.getMaxContentLength();
+        Long maxStreams = serverConfig.getHttp2Settings().maxConcurrentStreams();
+        ChannelHandler codec = io.netty.incubator.codec.http3.Http3.newQuicServerCodecBuilder()
+                .sslContext(sslContext)
+                .maxIdleTimeout(serverConfig.getIdleTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .initialMaxData(maxContentLength)
+                .initialMaxStreamDataBidirectionalLocal(maxContentLength)
+                .initialMaxStreamDataBidirectionalRemote(maxContentLength)
+                .initialMaxStreamsBidirectional(maxStreams != null ? maxStreams : DEFAULT_MAX_STREAMS)
+                // no address validation with retry tokens
+                .tokenHandler(InsecureQuicTokenHandler.INSTANCE)
+                .handler(new ChannelInitializer<QuicChannel>() {
+                    @Override
+                    protected void initChannel(QuicChannel quicChannel) {
+                        quicChannel.pipeline().addLast("server-http3-connection",
+                                new Http3ServerConnectionHandler(new RequestStreamInitializer()));
+                    }
+                })
+                .build();
+        channel.pipeline().addLast("server-quic-codec", codec);
+        if (serverConfig.isDebug()) {
+            logger.log(Level.FINE, "HTTP/3 server channel initialized: " +
+                    " address=" + httpAddress + " pipeline=" + channel.pipeline().names());
+        }
+    }
+
+    private static QuicSslContext newSslContext(Domain<? extends EndpointResolver<?>> domain) {
+        if (domain.getPrivateKey() == null || domain.getCertificateChain() == null) {
+            throw new IllegalStateException("HTTP/3 requires the private key and the certificate chain of domain " +
+                    domain.getName());
+        }
+        return QuicSslContextBuilder.forServer(domain.getPrivateKey(), null,
+                domain.getCertificateChain().toArray(new X509Certificate[0]))
+                .applicationProtocols(io.netty.incubator.codec.http3.Http3.supportedApplicationProtocols())
+                .earlyData(true)
+                .build();
+    }
+
+    private class RequestStreamInitializer extends ChannelInitializer<QuicStreamChannel> {
+
+        @Override
+        protected void initChannel(QuicStreamChannel channel) {
+            ServerTransport transport = server.newTransport(httpAddress.getVersion());
+            channel.attr(ServerTransport.TRANSPORT_ATTRIBUTE_KEY).set(transport);
+            // the end of the request is the shutdown of the input, the response is written after it
+            channel.config().setOption(ChannelOption.ALLOW_HALF_CLOSURE, true);
+            ChannelPipeline pipeline = channel.pipeline();
+            pipeline.addLast("server-read-timeout",
+                    new ReadTimeoutHandler(serverConfig.getReadTimeoutMillis(), TimeUnit.MILLISECONDS));
+            pipeline.addLast("server-chunked-write", new ChunkedWriteHandler());
+            pipeline.addLast("server-request-handler", new ServerRequestHandler(serverConfig.getMaxContentLength()));
+            pipeline.addLast("server-idle-timeout-handler", new IdleTimeoutHandler(serverConfig.getIdleTimeoutMillis()));
+        }
+    }
+
+    /**
+     * Aggregates the headers frame and the data frames of a request stream into a full HTTP request.
+     * The request is complete when the client shuts down its output of the stream.
+     */
+    static class ServerRequestHandler extends ChannelInboundHandlerAdapter {
+
+        private final int maxContentLength;
+
+        private Http3Headers headers;
+
+        private CompositeByteBuf content;
+
+        private boolean tooLarge;
+
+        ServerRequestHandler(int maxContentLength) {
+            this.maxContentLength = maxContentLength;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            try {
+                if (msg instanceof Http3HeadersFrame) {
+                    // a second headers frame carries trailers, which are dropped
+                    if (headers == null) {
+                        headers = ((Http3HeadersFrame) msg).headers();
+                    }
+                } else if (msg instanceof Http3DataFrame && !tooLarge) {
+                    ByteBuf byteBuf = ((Http3DataFrame) msg).content();
+                    if (content == null) {
+                        content = ctx.alloc().compositeBuffer();
+                    }
+                    if (content.readableBytes() + byteBuf.readableBytes() > maxContentLength) {
+                        tooLarge = true;
+                        content.release();
+                        content = null;
+                    } else {
+                        content.addComponent(true, byteBuf.retain());
+                    }
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt instanceof ChannelInputShutdownEvent) {
+                requestReceived(ctx);
+            }
+            ctx.fireUserEventTriggered(evt);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (content != null) {
+                content.release();
+                content = null;
+            }
+            ctx.fireChannelInactive();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws IOException {
+            ServerTransport transport = ctx.channel().attr(ServerTransport.TRANSPORT_ATTRIBUTE_KEY).get();
+            transport.exceptionReceived(ctx, cause);
+        }
+
+        private void requestReceived(ChannelHandlerContext ctx) throws IOException {
+            if (headers == null) {
+                ctx.close();
+                return;
+            }
+            if (tooLarge) {
+                Http3ServerResponse.builder(ctx)
+                        .setStatus(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code())
+                        .build()
+                        .flush();
+                return;
+            }
+            FullHttpRequest fullHttpRequest = new DefaultFullHttpRequest(HttpAddress.HTTP_3_0,
+                    HttpMethod.valueOf(headers.method().toString()), headers.path().toString(),
+                    content != null ? content : Unpooled.EMPTY_BUFFER);
+            content = null;
+            List<CharSequence> cookies = new ArrayList<>();
+            for (Map.Entry<CharSequence, CharSequence> entry : headers) {
+                CharSequence name = entry.getKey();
+                if (name.length() > 0 && name.charAt(0) == ':') {
+                    continue;
+                }
+                if (AsciiString.contentEqualsIgnoreCase(HttpHeaderNames.COOKIE, name)) {
+                    cookies.add(entry.getValue());
+                } else {
+                    fullHttpRequest.headers().add(name, entry.getValue());
+                }
+            }
+            // the cookie header may be split into several fields, see RFC 9114 section 4.2.1
+            if (!cookies.isEmpty()) {
+                fullHttpRequest.headers().set(HttpHeaderNames.COOKIE, String.join("; ", cookies));
+            }
+            if (headers.authority() != null && !fullHttpRequest.headers().contains(HttpHeaderNames.HOST)) {
+                fullHttpRequest.headers().set(HttpHeaderNames.HOST, headers.authority());
+            }
+            try {
+                ServerTransport transport = ctx.channel().attr(ServerTransport.TRANSPORT_ATTRIBUTE_KEY).get();
+                transport.requestReceived(ctx, fullHttpRequest, null);
+            } finally {
+                fullHttpRequest.release();
+            }
+        }
+    }
+}
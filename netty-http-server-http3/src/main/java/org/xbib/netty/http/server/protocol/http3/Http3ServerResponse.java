@@ -0,0 +1,342 @@
+package org.xbib.netty.http.server.protocol.http3;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.incubator.codec.http3.DefaultHttp3DataFrame;
+import io.netty.incubator.codec.http3.DefaultHttp3Headers;
+import io.netty.incubator.codec.http3.DefaultHttp3HeadersFrame;
+import io.netty.incubator.codec.http3.Http3DataFrame;
+import io.netty.incubator.codec.http3.Http3Headers;
+import io.netty.incubator.codec.quic.QuicStreamChannel;
+import io.netty.util.AsciiString;
+import org.xbib.netty.http.common.cookie.Cookie;
+import org.xbib.netty.http.server.ServerName;
+import org.xbib.netty.http.server.api.ServerResponse;
+import org.xbib.netty.http.server.cookie.ServerCookieEncoder;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A response on an HTTP/3 request stream. The response is written as a headers frame and data frames,
+ * then the output of the stream is shut down, which ends the response.
+ *
+ * HTTP/3 has no connection specific header fields, so there are no "connection" or "transfer-encoding"
+ * headers, and header names are sent in lower case.
+ */
+public class Http3ServerResponse implements ServerResponse {
+
+    private static final Logger logger = Logger.getLogger(Http3ServerResponse.class.getName());
+
+    private final Builder builder;
+
+    private final ChannelHandlerContext ctx;
+
+    private final Http3Headers headers;
+
+    private final HttpResponseStatus httpResponseStatus;
+
+    private final boolean shouldAddServerName;
+
+    private final Integer sequenceId;
+
+    private final Integer streamId;
+
+    private final Long responseId;
+
+    private final CharSequence contentType;
+
+    private Http3ServerResponse(Builder builder) {
+        this.builder = builder;
+        this.ctx = builder.ctx;
+        this.headers = builder.headers;
+        this.httpResponseStatus = HttpResponseStatus.valueOf(builder.statusCode);
+        this.shouldAddServerName = builder.shouldAddServerName;
+        this.sequenceId = builder.sequenceId;
+        this.streamId = builder.streamId;
+        this.responseId = builder.responseId;
+        this.contentType = builder.contentType;
+    }
+
+    @Override
+    public Builder getBuilder() {
+        return builder;
+    }
+
+    @Override
+    public Integer getStreamId() {
+        return streamId;
+    }
+
+    @Override
+    public Integer getSequenceId() {
+        return sequenceId;
+    }
+
+    @Override
+    public Long getResponseId() {
+        return responseId;
+    }
+
+    public static Builder builder(ChannelHandlerContext ctx) {
+        return new Builder(ctx);
+    }
+
+    @Override
+    public ByteBufOutputStream getOutputStream() {
+        return new ByteBufOutputStream(ctx.alloc().buffer());
+    }
+
+    @Override
+    public void flush() {
+        write((ByteBuf) null);
+    }
+
+    @Override
+    public void write(String string) {
+        write(ByteBufUtil.writeUtf8(ctx.alloc(), string));
+    }
+
+    @Override
+    public void write(CharBuffer charBuffer, Charset charset) {
+        write(ByteBufUtil.encodeString(ctx.alloc(), charBuffer, charset));
+    }
+
+    @Override
+    public void write(byte[] bytes) {
+        ByteBuf byteBuf = ctx.alloc().buffer(bytes.length);
+        byteBuf.writeBytes(bytes);
+        write(byteBuf);
+    }
+
+    @Override
+    public void write(ByteBufOutputStream byteBufOutputStream) {
+        write(byteBufOutputStream.buffer());
+    }
+
+    @Override
+    public void write(ByteBuf byteBuf) {
+        if (!headers.contains(HttpHeaderNames.CONTENT_TYPE)) {
+            headers.set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        }
+        if (byteBuf != null && !headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, Long.toString(byteBuf.readableBytes()));
+        }
+        addCommonHeaders();
+        if (ctx.channel().isWritable()) {
+            ChannelFuture channelFuture = ctx.channel().write(newHeadersFrame());
+            if (byteBuf != null) {
+                channelFuture = ctx.channel().write(new DefaultHttp3DataFrame(byteBuf));
+            }
+            ctx.channel().flush();
+            channelFuture.addListener(QuicStreamChannel.SHUTDOWN_OUTPUT);
+        } else {
+            logger.log(Level.WARNING, "channel is not writeable: " + ctx.channel());
+            if (byteBuf != null) {
+                byteBuf.release();
+            }
+        }
+    }
+
+    /**
+     * Chunked response from a readable byte channel. The chunks are sent as data frames,
+     * the end of the response is the end of the stream.
+     *
+     * @param chunkedInput chunked input
+     */
+    @Override
+    public void write(ChunkedInput<ByteBuf> chunkedInput) {
+        Objects.requireNonNull(chunkedInput);
+        if (!headers.contains(HttpHeaderNames.CONTENT_TYPE)) {
+            headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_OCTET_STREAM);
+        }
+        if (chunkedInput.length() >= 0 && !headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, Long.toString(chunkedInput.length()));
+        }
+        addCommonHeaders();
+        if (ctx.channel().isWritable()) {
+            ctx.channel().write(newHeadersFrame());
+            ctx.channel().writeAndFlush(new Http3DataChunkedInput(chunkedInput))
+                    .addListener(QuicStreamChannel.SHUTDOWN_OUTPUT);
+        } else {
+            logger.log(Level.WARNING, "channel is not writeable: " + ctx.channel());
+        }
+    }
+
+    private void addCommonHeaders() {
+        if (!headers.contains(HttpHeaderNames.DATE)) {
+            headers.set(HttpHeaderNames.DATE, DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+        }
+        if (shouldAddServerName) {
+            headers.set(HttpHeaderNames.SERVER, ServerName.getServerName());
+        }
+    }
+
+    private DefaultHttp3HeadersFrame newHeadersFrame() {
+        Http3Headers http3Headers = new DefaultHttp3Headers().status(httpResponseStatus.codeAsText());
+        http3Headers.add(headers);
+        return new DefaultHttp3HeadersFrame(http3Headers);
+    }
+
+    /**
+     * Adapts a chunked input of byte buffers to the data frames of HTTP/3.
+     */
+    private static class Http3DataChunkedInput implements ChunkedInput<Http3DataFrame> {
+
+        private final ChunkedInput<ByteBuf> input;
+
+        Http3DataChunkedInput(ChunkedInput<ByteBuf> input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean isEndOfInput() throws Exception {
+            return input.isEndOfInput();
+        }
+
+        @Override
+        public void close() throws Exception {
+            input.close();
+        }
+
+        @Deprecated
+        @Override
+        public Http3DataFrame readChunk(ChannelHandlerContext ctx) throws Exception {
+            return readChunk(ctx.alloc());
+        }
+
+        @Override
+        public Http3DataFrame readChunk(ByteBufAllocator allocator) throws Exception {
+            ByteBuf byteBuf = input.readChunk(allocator);
+            return byteBuf != null ? new DefaultHttp3DataFrame(byteBuf) : null;
+        }
+
+        @Override
+        public long length() {
+            return input.length();
+        }
+
+        @Override
+        public long progress() {
+            return input.progress();
+        }
+    }
+
+    public static class Builder implements ServerResponse.Builder {
+
+        private final ChannelHandlerContext ctx;
+
+        private final Http3Headers headers;
+
+        private int statusCode;
+
+        private boolean shouldAddServerName;
+
+        private Integer sequenceId;
+
+        private Integer streamId;
+
+        private Long responseId;
+
+        private CharSequence contentType;
+
+        private Builder(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+            this.statusCode = HttpResponseStatus.OK.code();
+            this.headers = new DefaultHttp3Headers();
+            this.contentType = HttpHeaderValues.APPLICATION_OCTET_STREAM;
+        }
+
+        @Override
+        public Builder setStatus(int statusCode) {
+            this.statusCode = statusCode;
+            return this;
+        }
+
+        @Override
+        public Builder setContentType(CharSequence contentType) {
+            this.contentType = contentType;
+            return this;
+        }
+
+        @Override
+        public Builder setHeader(CharSequence name, String value) {
+            headers.set(AsciiString.of(name).toLowerCase(), value);
+            return this;
+        }
+
+        /**
+         * Trailing headers are not sent on HTTP/3 request streams.
+         */
+        @Override
+        public Builder setTrailingHeader(CharSequence name, String value) {
+            logger.log(Level.FINE, "trailing header not supported, ignoring: " + name);
+            return this;
+        }
+
+        @Override
+        public Builder setCharset(Charset charset) {
+            if (contentType != null) {
+                this.contentType = contentType + "; charset=" + charset.name();
+            }
+            return this;
+        }
+
+        @Override
+        public Builder addCookie(Cookie cookie) {
+            Objects.requireNonNull(cookie);
+            headers.add(HttpHeaderNames.SET_COOKIE, ServerCookieEncoder.STRICT.encode(cookie));
+            return this;
+        }
+
+        /**
+         * The connection is not closed by a response, HTTP/3 has no "connection" header.
+         */
+        @Override
+        public Builder shouldClose(boolean shouldClose) {
+            return this;
+        }
+
+        @Override
+        public Builder shouldAddServerName(boolean shouldAddServerName) {
+            this.shouldAddServerName = shouldAddServerName;
+            return this;
+        }
+
+        @Override
+        public Builder setSequenceId(Integer sequenceId) {
+            this.sequenceId = sequenceId;
+            return this;
+        }
+
+        @Override
+        public Builder setStreamId(Integer streamId) {
+            this.streamId = streamId;
+            return this;
+        }
+
+        @Override
+        public Builder setResponseId(Long responseId) {
+            this.responseId = responseId;
+            return this;
+        }
+
+        @Override
+        public ServerResponse build() {
+            return new Http3ServerResponse(this);
+        }
+    }
+}
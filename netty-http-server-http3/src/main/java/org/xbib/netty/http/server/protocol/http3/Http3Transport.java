@@ -0,0 +1,89 @@
+package org.xbib.netty.http.server.protocol.http3;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.incubator.codec.quic.QuicChannel;
+import io.netty.incubator.codec.quic.QuicStreamChannel;
+import org.xbib.netty.http.server.AcceptState;
+import org.xbib.netty.http.server.BaseTransport;
+import org.xbib.netty.http.server.HttpServerRequest;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.api.ServerResponse;
+import javax.net.ssl.SSLEngine;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The transport of a request stream of an HTTP/3 connection. The request has been aggregated
+ * from the HTTP/3 frames of the stream, and the response is written as HTTP/3 frames on the same stream.
+ */
+public class Http3Transport extends BaseTransport {
+
+    private static final Logger logger = Logger.getLogger(Http3Transport.class.getName());
+
+    public Http3Transport(Server server) {
+        super(server);
+    }
+
+    @Override
+    public void requestReceived(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest, Integer sequenceId) throws IOException {
+        AcceptState acceptState = acceptRequest(server.getServerConfig().getAddress().getVersion(),
+                fullHttpRequest.headers());
+        QuicStreamChannel streamChannel = (QuicStreamChannel) ctx.channel();
+        Integer streamId = (int) streamChannel.streamId();
+        ServerResponse.Builder serverResponseBuilder = Http3ServerResponse.builder(ctx)
+                .setResponseId(server.getResponseCounter().incrementAndGet())
+                .setStreamId(streamId)
+                .setSequenceId(sequenceId);
+        switch (acceptState) {
+            case OK: {
+                // the stream is a child of the QUIC connection, which is a child of the bound UDP channel
+                QuicChannel quicChannel = streamChannel.parent();
+                HttpServerRequest.Builder serverRequestBuilder = HttpServerRequest.builder()
+                        .setHttpRequest(fullHttpRequest.retainedDuplicate())
+                        .setLocalAddress(inetSocketAddress(quicChannel.parent().localAddress()))
+                        .setRemoteAddress(inetSocketAddress(quicChannel.remoteSocketAddress()))
+                        .setStreamId(streamId)
+                        .setSequenceId(sequenceId)
+                        .setRequestId(server.getRequestCounter().incrementAndGet());
+                SSLEngine sslEngine = quicChannel.sslEngine();
+                if (sslEngine != null) {
+                    serverRequestBuilder.setSession(sslEngine.getSession());
+                }
+                server.handle(serverRequestBuilder, serverResponseBuilder);
+                break;
+            }
+            case MISSING_HOST_HEADER: {
+                serverResponseBuilder
+                        .setStatus(HttpResponseStatus.BAD_REQUEST.code())
+                        .setContentType("text/plain")
+                        .build()
+                        .write("missing ':authority' pseudo header");
+                break;
+            }
+            case EXPECTATION_FAILED: {
+                serverResponseBuilder
+                        .setStatus(HttpResponseStatus.EXPECTATION_FAILED.code())
+                        .build()
+                        .flush();
+                break;
+            }
+            case UNSUPPORTED_HTTP_VERSION: {
+                serverResponseBuilder
+                        .setStatus(HttpResponseStatus.BAD_REQUEST.code())
+                        .setContentType("text/plain")
+                        .build()
+                        .write("unsupported HTTP version");
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void settingsReceived(ChannelHandlerContext ctx, Http2Settings http2Settings) {
+        logger.log(Level.FINER, "settings received, ignoring");
+    }
+}
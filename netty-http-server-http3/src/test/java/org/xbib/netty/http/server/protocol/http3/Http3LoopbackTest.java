@@ -0,0 +1,96 @@
+package org.xbib.netty.http.server.protocol.http3;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.incubator.codec.quic.Quic;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Test;
+import org.xbib.netty.http.bouncycastle.SelfSignedCertificate;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.ClientProtocolProvider;
+import org.xbib.netty.http.client.api.ClientTransport;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Loopback test of HTTP/3 on client and server. The second request is sent on a new QUIC connection,
+ * which resumes the TLS session of the first connection and is ready for early data. Skipped if the
+ * native QUIC library is not available.
+ */
+class Http3LoopbackTest {
+
+    private static final Logger logger = Logger.getLogger(Http3LoopbackTest.class.getName());
+
+    @Test
+    void testHttp3WithResumption() throws Exception {
+        assumeTrue(Quic.isAvailable(), "QUIC not available");
+        if (Security.getProvider("BC") == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate();
+        selfSignedCertificate.generate("localhost", List.of("localhost"), new SecureRandom(), 2048);
+        HttpAddress httpAddress = HttpAddress.http3("localhost", 8143);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .setKeyCertChain(selfSignedCertificate.certificate())
+                .setKey(selfSignedCertificate.privateKey(), null)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write("Hello " + request.getRequestURI()))
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        Client client = Client.builder()
+                .trustInsecure()
+                .build();
+        try {
+            assertEquals("Hello /first", get(client, httpAddress, "/first"));
+            assertEquals("Hello /second", get(client, httpAddress, "/second"));
+            // one registration per transport, connecting does not register again
+            assertEquals(2L, client.getTransportCounter().get());
+            long earlyData = findHttp3(client).getEarlyDataCounter().get();
+            logger.log(Level.INFO, "connections ready for early data = " + earlyData);
+            assertTrue(earlyData >= 1L);
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    private static String get(Client client, HttpAddress httpAddress, String path) throws Exception {
+        Request request = Request.get()
+                .setVersion(HttpAddress.HTTP_3_0)
+                .url(httpAddress.base().resolve(path))
+                .build();
+        ClientTransport transport = client.newTransport(httpAddress);
+        try {
+            return transport.execute(request, response -> {
+                assertEquals(HttpResponseStatus.OK.code(), response.getStatus().getCode());
+                return response.getBodyAsString(StandardCharsets.UTF_8);
+            }).get(30L, TimeUnit.SECONDS);
+        } finally {
+            transport.close();
+        }
+    }
+
+    private static org.xbib.netty.http.client.http3.Http3 findHttp3(Client client) {
+        for (ClientProtocolProvider<?, ?> protocolProvider : client.getProtocolProviders()) {
+            if (protocolProvider instanceof org.xbib.netty.http.client.http3.Http3) {
+                return (org.xbib.netty.http.client.http3.Http3) protocolProvider;
+            }
+        }
+        throw new IllegalStateException("no HTTP/3 protocol provider");
+    }
+}
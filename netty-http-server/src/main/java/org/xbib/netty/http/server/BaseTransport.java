@@ -4,8 +4,12 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpVersion;
+import org.xbib.netty.http.common.AltSvc;
+import org.xbib.netty.http.server.api.ServerResponse;
 import org.xbib.netty.http.server.api.ServerTransport;
 
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,8 +20,12 @@ public abstract class BaseTransport implements ServerTransport {
 
     protected final Server server;
 
+    private final String alternativeServices;
+
     protected BaseTransport(Server server) {
         this.server = server;
+        this.alternativeServices = server.getServerConfig().getAlternativeServices().isEmpty() ? null :
+                AltSvc.format(server.getServerConfig().getAlternativeServices());
     }
 
     @Override
@@ -25,6 +33,28 @@ public abstract class BaseTransport implements ServerTransport {
         logger.log(Level.WARNING, throwable.getMessage(), throwable);
     }
 
+    /**
+     * Return a socket address as internet socket address, or null if the channel is not an internet
+     * socket, e.g. a local channel.
+     *
+     * @param socketAddress the socket address
+     * @return the internet socket address or null
+     */
+    protected static InetSocketAddress inetSocketAddress(SocketAddress socketAddress) {
+        return socketAddress instanceof InetSocketAddress ? (InetSocketAddress) socketAddress : null;
+    }
+
+    /**
+     * Advertise the configured alternative services in a response. Handlers may override the header.
+     *
+     * @param serverResponseBuilder the response builder
+     */
+    protected void setAlternativeServices(ServerResponse.Builder serverResponseBuilder) {
+        if (alternativeServices != null) {
+            serverResponseBuilder.setHeader(AltSvc.HEADER_NAME, alternativeServices);
+        }
+    }
+
     /**
      * Accepts a request, performing various validation checks
      * and required special header handling, possibly returning an
@@ -36,7 +66,8 @@ public abstract class BaseTransport implements ServerTransport {
      */
     protected static AcceptState acceptRequest(HttpVersion httpVersion,
                                      HttpHeaders reqHeaders) {
-        if (httpVersion.majorVersion() == 1 || httpVersion.majorVersion() == 2) {
+        int majorVersion = httpVersion.majorVersion();
+        if (majorVersion == 1 || majorVersion == 2 || majorVersion == 3) {
             if (!reqHeaders.contains(HttpHeaderNames.HOST)) {
                 // RFC2616#14.23: missing Host header gets 400
                 return AcceptState.MISSING_HOST_HEADER;
@@ -5,6 +5,8 @@ import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.CipherSuiteFilter;
 import io.netty.handler.ssl.SslProvider;
+import org.xbib.netty.http.common.AltSvc;
+import org.xbib.netty.http.common.EpollSocketOptions;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.security.SecurityUtil;
 import org.xbib.netty.http.server.api.Domain;
@@ -160,6 +162,22 @@ public class DefaultServerConfig implements ServerConfig {
          */
         Http2Settings HTTP_2_SETTINGS = Http2Settings.defaultSettings();
 
+        /**
+         * Default for adaptive HTTP/2 flow control windows by bandwidth-delay product estimation.
+         */
+        boolean HTTP_2_BDP_ENABLED = false;
+
+        /**
+         * Default maximum HTTP/2 flow control window size for BDP estimation, 16 MB.
+         */
+        int HTTP_2_MAX_WINDOW_SIZE = 16 * 1024 * 1024;
+
+        /**
+         * Default number of flushes after which a consolidated flush is written to the socket,
+         * 0 disables flush consolidation.
+         */
+        int FLUSH_CONSOLIDATION = 0;
+
         /**
          * Default for HTTP/2 upgrade under HTTP 1.
          */
@@ -247,6 +265,16 @@ public class DefaultServerConfig implements ServerConfig {
 
     private Http2Settings http2Settings = Defaults.HTTP_2_SETTINGS;
 
+    private boolean http2BdpEnabled = Defaults.HTTP_2_BDP_ENABLED;
+
+    private int http2MaxWindowSize = Defaults.HTTP_2_MAX_WINDOW_SIZE;
+
+    private EpollSocketOptions epollSocketOptions = new EpollSocketOptions();
+
+    private final Collection<AltSvc> alternativeServices;
+
+    private int flushConsolidation = Defaults.FLUSH_CONSOLIDATION;
+
     private boolean installHttp2Upgrade = Defaults.INSTALL_HTTP_UPGRADE2;
 
     private final Deque<Domain<? extends EndpointResolver<?>>> domains;
@@ -271,6 +299,7 @@ public class DefaultServerConfig implements ServerConfig {
 
     public DefaultServerConfig() {
         this.domains = new LinkedList<>();
+        this.alternativeServices = new LinkedList<>();
     }
 
     public ServerConfig setDebug(boolean debug) {
@@ -526,6 +555,53 @@ public class DefaultServerConfig implements ServerConfig {
         return http2Settings;
     }
 
+    public ServerConfig setHttp2BdpEnabled(boolean http2BdpEnabled) {
+        this.http2BdpEnabled = http2BdpEnabled;
+        return this;
+    }
+
+    public boolean isHttp2BdpEnabled() {
+        return http2BdpEnabled;
+    }
+
+    public ServerConfig setHttp2MaxWindowSize(int http2MaxWindowSize) {
+        this.http2MaxWindowSize = http2MaxWindowSize;
+        return this;
+    }
+
+    public int getHttp2MaxWindowSize() {
+        return http2MaxWindowSize;
+    }
+
+    public ServerConfig addAlternativeService(AltSvc altSvc) {
+        alternativeServices.add(altSvc);
+        return this;
+    }
+
+    @Override
+    public Collection<AltSvc> getAlternativeServices() {
+        return alternativeServices;
+    }
+
+    public ServerConfig setFlushConsolidation(int flushConsolidation) {
+        this.flushConsolidation = flushConsolidation;
+        return this;
+    }
+
+    @Override
+    public int getFlushConsolidation() {
+        return flushConsolidation;
+    }
+
+    public ServerConfig setEpollSocketOptions(EpollSocketOptions epollSocketOptions) {
+        this.epollSocketOptions = epollSocketOptions;
+        return this;
+    }
+
+    public EpollSocketOptions getEpollSocketOptions() {
+        return epollSocketOptions;
+    }
+
     public ServerConfig setTrustManagerFactory(TrustManagerFactory trustManagerFactory) {
         this.trustManagerFactory = trustManagerFactory;
         return this;
@@ -61,6 +61,8 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
 
     private final Collection<? extends X509Certificate> certificates;
 
+    private final PrivateKey privateKey;
+
     /**
      * Constructs a {@code NamedServer} with the given name.
      *
@@ -68,17 +70,21 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
      * @param httpAddress HTTP address, used for determining if named server is secure or not
      * @param httpEndpointResolvers the endpoint resolvers
      * @param sslContext SSL context or null
+     * @param certificates the certificate chain or null
+     * @param privateKey the private key or null
      */
     private HttpServerDomain(String name,
                              HttpAddress httpAddress,
                              Collection<HttpEndpointResolver> httpEndpointResolvers,
                              SslContext sslContext,
-                             Collection<? extends X509Certificate> certificates) {
+                             Collection<? extends X509Certificate> certificates,
+                             PrivateKey privateKey) {
         this.name = name;
         this.httpAddress = httpAddress;
         this.httpEndpointResolvers = httpEndpointResolvers;
         this.sslContext = sslContext;
         this.certificates = certificates;
+        this.privateKey = privateKey;
     }
 
     public static Builder builder(HttpAddress httpAddress) {
@@ -136,6 +142,15 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
         return certificates;
     }
 
+    /**
+     * Get private key. Protocols with their own TLS stack, like QUIC, build their SSL context from it.
+     * @return the private key or null if not secure, or if only an SSL context was given
+     */
+    @Override
+    public PrivateKey getPrivateKey() {
+        return privateKey;
+    }
+
     /**
      * Handle server requests by resolving and handling.
      * @param serverRequestBuilder the server request
@@ -239,6 +254,7 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
             this.httpEndpointResolvers = new ArrayList<>((List<HttpEndpointResolver>) domain.getHttpEndpointResolvers());
             this.sslContext = domain.getSslContext();
             this.keyCertChain = domain.getCertificateChain();
+            this.privateKey = domain.getPrivateKey();
         }
 
         public Builder setServerName(String serverName) {
@@ -406,14 +422,14 @@ public class HttpServerDomain implements Domain<HttpEndpointResolver> {
                     }
                     return new HttpServerDomain(serverName,
                             httpAddress, httpEndpointResolvers,
-                            sslContext, keyCertChain);
+                            sslContext, keyCertChain, privateKey);
                 } catch (Exception e) {
                     throw new RuntimeException(e);
                 }
             } else {
                 return new HttpServerDomain(serverName,
                         httpAddress, httpEndpointResolvers,
-                        null, null);
+                        null, null, null);
             }
         }
 
@@ -1,21 +1,30 @@
 package org.xbib.netty.http.server;
 
+import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.DomainWildcardMappingBuilder;
 import io.netty.util.Mapping;
+import io.netty.util.concurrent.EventExecutor;
 import org.xbib.net.URL;
+import org.xbib.netty.http.common.AltSvc;
+import org.xbib.netty.http.common.EpollSocketOptions;
 import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.common.HttpChannelInitializer;
 import org.xbib.netty.http.common.TransportProvider;
@@ -30,6 +39,7 @@ import org.xbib.netty.http.server.security.CertificateUtils;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.BindException;
+import java.net.SocketAddress;
 import java.security.cert.CertificateExpiredException;
 import java.security.cert.CertificateNotYetValidException;
 import java.security.cert.CertificateParsingException;
@@ -80,8 +90,20 @@ public final class Server implements AutoCloseable {
 
     private final ServerBootstrap bootstrap;
 
+    /**
+     * The bootstrap of the UDP channel for protocols over QUIC, or null if the server accepts TCP connections.
+     */
+    private final Bootstrap datagramBootstrap;
+
+    private final TransportProvider transportProvider;
+
     private ChannelFuture channelFuture;
 
+    /**
+     * The futures of all bound server channels, more than one if the channels are bound with SO_REUSEPORT.
+     */
+    private final List<ChannelFuture> channelFutures;
+
     private final List<ServerProtocolProvider<HttpChannelInitializer, ServerTransport>> protocolProviders;
 
     private static final AtomicLong requestCounter = new AtomicLong();
@@ -108,10 +130,12 @@ public final class Server implements AutoCloseable {
         Objects.requireNonNull(serverConfig);
         this.serverConfig = serverConfig;
         ByteBufAllocator byteBufAllocator1 = byteBufAllocator != null ? byteBufAllocator : ByteBufAllocator.DEFAULT;
-        this.parentEventLoopGroup = createParentEventLoopGroup(serverConfig, parentEventLoopGroup);
-        this.childEventLoopGroup = createChildEventLoopGroup(serverConfig, childEventLoopGroup);
-        Class<? extends ServerSocketChannel> socketChannelClass1 = createSocketChannelClass(serverConfig, socketChannelClass);
+        this.transportProvider = findTransportProvider(serverConfig);
+        this.parentEventLoopGroup = createParentEventLoopGroup(serverConfig, transportProvider, parentEventLoopGroup);
+        this.childEventLoopGroup = createChildEventLoopGroup(serverConfig, transportProvider, childEventLoopGroup);
+        Class<? extends ServerChannel> socketChannelClass1 = createSocketChannelClass(transportProvider, socketChannelClass);
         this.executor = executor;
+        this.channelFutures = new ArrayList<>();
         this.protocolProviders =new ArrayList<>();
         for (ServerProtocolProvider<HttpChannelInitializer, ServerTransport> provider : ServiceLoader.load(ServerProtocolProvider.class)) {
             protocolProviders.add(provider);
@@ -134,6 +158,21 @@ public final class Server implements AutoCloseable {
                 .childOption(ChannelOption.SO_RCVBUF, serverConfig.getTcpReceiveBufferSize())
                 .childOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, serverConfig.getConnectTimeoutMillis())
                 .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, serverConfig.getWriteBufferWaterMark());
+        if (serverConfig.getAddress().isUnixDomainSocket()) {
+            Class<? extends ServerChannel> domainChannelClass = transportProvider != null ?
+                    transportProvider.createServerDomainSocketChannelClass() : null;
+            if (domainChannelClass == null) {
+                throw new UnsupportedOperationException("no unix domain socket support in transport for " +
+                        serverConfig.getAddress());
+            }
+            // no TCP options, and no socket options of the transport, on unix domain sockets
+            bootstrap.channel(domainChannelClass)
+                    .option(ChannelOption.SO_REUSEADDR, null)
+                    .childOption(ChannelOption.SO_REUSEADDR, null)
+                    .childOption(ChannelOption.TCP_NODELAY, null);
+        } else if (transportProvider != null) {
+            transportProvider.configure(bootstrap, serverConfig.getEpollSocketOptions());
+        }
         if (serverConfig.isDebug()) {
             bootstrap.handler(new LoggingHandler("bootstrap-server", serverConfig.getTrafficDebugLogLevel()));
         }
@@ -156,8 +195,26 @@ public final class Server implements AutoCloseable {
             domainNameMapping = mappingBuilder.build();
             logger.log(Level.INFO, "domain name mapping: " + domainNameMapping);
         }
-        bootstrap.childHandler(findChannelInitializer(serverConfig.getAddress().getVersion().majorVersion(),
-                serverConfig.getAddress(), domainNameMapping));
+        int majorVersion = serverConfig.getAddress().getVersion().majorVersion();
+        HttpChannelInitializer channelInitializer =
+                findChannelInitializer(majorVersion, serverConfig.getAddress(), domainNameMapping);
+        if (majorVersion == 3) {
+            // QUIC has no accepted child channels, the initializer installs the codec on the bound UDP channel
+            if (serverConfig.getAddress().isUnixDomainSocket()) {
+                throw new UnsupportedOperationException("no unix domain socket support for " + serverConfig.getAddress());
+            }
+            this.datagramBootstrap = new Bootstrap()
+                    .group(this.childEventLoopGroup)
+                    .channel(createDatagramChannelClass(transportProvider))
+                    .option(ChannelOption.ALLOCATOR, byteBufAllocator1)
+                    .option(ChannelOption.SO_REUSEADDR, serverConfig.isReuseAddr())
+                    .option(ChannelOption.SO_SNDBUF, serverConfig.getTcpSendBufferSize())
+                    .option(ChannelOption.SO_RCVBUF, serverConfig.getTcpReceiveBufferSize())
+                    .handler(channelInitializer);
+        } else {
+            this.datagramBootstrap = null;
+            bootstrap.childHandler(channelInitializer);
+        }
     }
 
     public void loop() throws IOException, InterruptedException {
@@ -183,18 +240,32 @@ public final class Server implements AutoCloseable {
 
     /**
      * Start accepting incoming connections.
-     * @return the channel future
+     *
+     * If SO_REUSEPORT is active, one server channel is bound for each parent event loop, and the kernel
+     * distributes the incoming connections over the channels, so accepting scales with the parent thread count.
+     * For HTTP/3, a single UDP channel is bound, and the QUIC connections are demultiplexed on it.
+     *
+     * @return the channel future of the first server channel
      * @throws BindException if socket bind did not succeed
      */
     public ChannelFuture accept() throws BindException {
         try {
             HttpAddress httpAddress = serverConfig.getAddress();
-            logger.log(Level.INFO, () -> "trying to bind to " + httpAddress);
+            int acceptors = datagramBootstrap == null && isReusePort() ? countEventLoops(parentEventLoopGroup) : 1;
+            logger.log(Level.INFO, () -> "trying to bind to " + httpAddress + " with " + acceptors + " acceptors");
             try {
-                this.channelFuture = bootstrap.bind(httpAddress.getInetSocketAddress()).await().sync();
+                if (datagramBootstrap != null) {
+                    channelFutures.add(datagramBootstrap.bind(createSocketAddress(httpAddress)).await().sync());
+                } else {
+                    // each bind registers the server channel with the next parent event loop
+                    for (int i = 0; i < acceptors; i++) {
+                        channelFutures.add(bootstrap.bind(createSocketAddress(httpAddress)).await().sync());
+                    }
+                }
             } catch (InterruptedException e) {
                 throw new BindException(e.getMessage());
             }
+            this.channelFuture = channelFutures.get(0);
             logger.log(Level.INFO, () -> ServerName.getServerName() + " ready, listening on " + httpAddress);
             return channelFuture;
         } catch (Exception e) {
@@ -327,15 +398,57 @@ public final class Server implements AutoCloseable {
             throw new IOException(e);
         }
         try {
-            if (channelFuture != null) {
-                // close channel and wait for unbind
-                channelFuture.channel().closeFuture().sync();
+            // wait for unbind of all server channels
+            for (ChannelFuture future : channelFutures) {
+                future.channel().closeFuture().sync();
             }
         } catch (InterruptedException e) {
             throw new IOException(e);
         }
     }
 
+    /**
+     * The transport provider maps the address to the socket address it binds: an IP socket address
+     * for TCP, or a domain socket address for a unix domain socket. Without a provider, the address
+     * is always an IP socket address.
+     */
+    private SocketAddress createSocketAddress(HttpAddress httpAddress) {
+        return transportProvider != null ?
+                transportProvider.createSocketAddress(httpAddress) : httpAddress.getInetSocketAddress();
+    }
+
+    /**
+     * SO_REUSEPORT is requested by the epoll socket options, and the transport provider tells if it applied it.
+     * Unix domain sockets get no socket options of the transport.
+     */
+    private boolean isReusePort() {
+        EpollSocketOptions epollSocketOptions = serverConfig.getEpollSocketOptions();
+        return epollSocketOptions != null && epollSocketOptions.isReusePort() && transportProvider != null &&
+                !serverConfig.getAddress().isUnixDomainSocket() &&
+                transportProvider.isReusePort(bootstrap, epollSocketOptions);
+    }
+
+    /**
+     * The bound server channels, more than one if the channels are bound with SO_REUSEPORT.
+     *
+     * @return the server channels
+     */
+    public List<Channel> getServerChannels() {
+        List<Channel> channels = new ArrayList<>();
+        for (ChannelFuture future : channelFutures) {
+            channels.add(future.channel());
+        }
+        return channels;
+    }
+
+    private static int countEventLoops(EventLoopGroup eventLoopGroup) {
+        int count = 0;
+        for (EventExecutor ignored : eventLoopGroup) {
+            count++;
+        }
+        return Math.max(count, 1);
+    }
+
     private static String stripPort(String hostMaybePort) {
         if (hostMaybePort == null) {
             return null;
@@ -373,16 +486,28 @@ public final class Server implements AutoCloseable {
         throw new IllegalStateException("no channel initializer found for major version " + majorVersion);
     }
 
+    /**
+     * Find the transport provider of the configured name, or the first provider that can be chosen
+     * automatically and is available, or null for the NIO transport.
+     */
+    private static TransportProvider findTransportProvider(DefaultServerConfig serverConfig) {
+        String name = serverConfig.getTransportProviderName();
+        for (TransportProvider transportProvider : ServiceLoader.load(TransportProvider.class)) {
+            if (name == null ? transportProvider.isAutoSelectable() : name.equals(transportProvider.getClass().getName())) {
+                if (transportProvider.createServerSocketChannelClass() != null) {
+                    return transportProvider;
+                }
+            }
+        }
+        return null;
+    }
+
     private static EventLoopGroup createParentEventLoopGroup(DefaultServerConfig serverConfig,
+                                                             TransportProvider transportProvider,
                                                              EventLoopGroup parentEventLoopGroup ) {
         EventLoopGroup eventLoopGroup = parentEventLoopGroup;
-        if (eventLoopGroup == null) {
-            ServiceLoader<TransportProvider> transportProviders = ServiceLoader.load(TransportProvider.class);
-            for (TransportProvider transportProvider : transportProviders) {
-                if (serverConfig.getTransportProviderName() == null || serverConfig.getTransportProviderName().equals(transportProvider.getClass().getName())) {
-                    eventLoopGroup = transportProvider.createEventLoopGroup(serverConfig.getParentThreadCount(), new HttpServerParentThreadFactory());
-                }
-            }
+        if (eventLoopGroup == null && transportProvider != null) {
+            eventLoopGroup = transportProvider.createEventLoopGroup(serverConfig.getParentThreadCount(), new HttpServerParentThreadFactory());
         }
         if (eventLoopGroup == null) {
             eventLoopGroup = new NioEventLoopGroup(serverConfig.getParentThreadCount(), new HttpServerParentThreadFactory());
@@ -392,15 +517,11 @@ public final class Server implements AutoCloseable {
     }
 
     private static EventLoopGroup createChildEventLoopGroup(DefaultServerConfig serverConfig,
+                                                            TransportProvider transportProvider,
                                                             EventLoopGroup childEventLoopGroup ) {
         EventLoopGroup eventLoopGroup = childEventLoopGroup;
-        if (eventLoopGroup == null) {
-            ServiceLoader<TransportProvider> transportProviders = ServiceLoader.load(TransportProvider.class);
-            for (TransportProvider transportProvider : transportProviders) {
-                if (serverConfig.getTransportProviderName() == null || serverConfig.getTransportProviderName().equals(transportProvider.getClass().getName())) {
-                    eventLoopGroup = transportProvider.createEventLoopGroup(serverConfig.getChildThreadCount(), new HttpServerChildThreadFactory());
-                }
-            }
+        if (eventLoopGroup == null && transportProvider != null) {
+            eventLoopGroup = transportProvider.createEventLoopGroup(serverConfig.getChildThreadCount(), new HttpServerChildThreadFactory());
         }
         if (eventLoopGroup == null) {
             eventLoopGroup = new NioEventLoopGroup(serverConfig.getChildThreadCount(), new HttpServerChildThreadFactory());
@@ -409,16 +530,11 @@ public final class Server implements AutoCloseable {
         return eventLoopGroup;
     }
 
-    private static Class<? extends ServerSocketChannel> createSocketChannelClass(DefaultServerConfig serverConfig,
-                                                                                 Class<? extends ServerSocketChannel> socketChannelClass) {
-        Class<? extends ServerSocketChannel> channelClass = socketChannelClass;
-        if (channelClass == null) {
-            ServiceLoader<TransportProvider> transportProviders = ServiceLoader.load(TransportProvider.class);
-            for (TransportProvider transportProvider : transportProviders) {
-                if (serverConfig.getTransportProviderName() == null || serverConfig.getTransportProviderName().equals(transportProvider.getClass().getName())) {
-                    channelClass = transportProvider.createServerSocketChannelClass();
-                }
-            }
+    private static Class<? extends ServerChannel> createSocketChannelClass(TransportProvider transportProvider,
+                                                                          Class<? extends ServerSocketChannel> socketChannelClass) {
+        Class<? extends ServerChannel> channelClass = socketChannelClass;
+        if (channelClass == null && transportProvider != null) {
+            channelClass = transportProvider.createServerSocketChannelClass();
         }
         if (channelClass == null) {
             channelClass = NioServerSocketChannel.class;
@@ -427,6 +543,16 @@ public final class Server implements AutoCloseable {
         return channelClass;
     }
 
+    private static Class<? extends DatagramChannel> createDatagramChannelClass(TransportProvider transportProvider) {
+        Class<? extends DatagramChannel> channelClass = transportProvider != null ?
+                transportProvider.createDatagramChannelClass() : null;
+        if (channelClass == null) {
+            channelClass = NioDatagramChannel.class;
+        }
+        logger.log(Level.INFO, "datagram channel class = " + channelClass);
+        return channelClass;
+    }
+
     static class HttpServerParentThreadFactory implements ThreadFactory {
 
         private long number = 0;
@@ -664,6 +790,56 @@ public final class Server implements AutoCloseable {
             return this;
         }
 
+        public Builder setHttp2Settings(Http2Settings http2Settings) {
+            this.serverConfig.setHttp2Settings(http2Settings);
+            return this;
+        }
+
+        public Builder enableHttp2Bdp(boolean http2BdpEnabled) {
+            this.serverConfig.setHttp2BdpEnabled(http2BdpEnabled);
+            return this;
+        }
+
+        public Builder setHttp2MaxWindowSize(int http2MaxWindowSize) {
+            this.serverConfig.setHttp2MaxWindowSize(http2MaxWindowSize);
+            return this;
+        }
+
+        /**
+         * Advertise an alternative service in the {@code Alt-Svc} header of HTTP/1.1 and HTTP/2 responses,
+         * for example an HTTP/3 endpoint with {@code new AltSvc("h3", 443)}.
+         *
+         * @param altSvc the alternative service
+         * @return this builder
+         */
+        public Builder addAlternativeService(AltSvc altSvc) {
+            this.serverConfig.addAlternativeService(altSvc);
+            return this;
+        }
+
+        /**
+         * Consolidate the flushes of responses on a connection, so that many small writes reach the socket
+         * with one system call per read or event loop turn, or after the given number of flushes.
+         *
+         * @param explicitFlushAfterFlushes the number of flushes after which a flush is written, 0 to disable
+         * @return this builder
+         */
+        public Builder setFlushConsolidation(int explicitFlushAfterFlushes) {
+            this.serverConfig.setFlushConsolidation(explicitFlushAfterFlushes);
+            return this;
+        }
+
+        /**
+         * Set socket options that are applied if the epoll transport is active.
+         *
+         * @param epollSocketOptions the epoll socket options
+         * @return this builder
+         */
+        public Builder setEpollSocketOptions(EpollSocketOptions epollSocketOptions) {
+            this.serverConfig.setEpollSocketOptions(epollSocketOptions);
+            return this;
+        }
+
         public Builder setTransportLayerSecurityProtocols(String... protocols) {
             this.serverConfig.setProtocols(protocols);
             return this;
@@ -170,8 +170,9 @@ public abstract class ResourceService implements Filter {
             String ifRange = headers.get(HttpHeaderNames.IF_RANGE);
             if (ifRange != null && !ifRange.equals(eTag)) {
                 try {
+                    // an entity tag that does not match is not a date, and asks for the full resource
                     Instant ifRangeTime = DateTimeUtil.parseDate(ifRange);
-                    if (ifRangeTime != null && ifRangeTime.plusMillis(1000).isBefore(resource.getLastModified())) {
+                    if (ifRangeTime == null || ifRangeTime.plusMillis(1000).isBefore(resource.getLastModified())) {
                         ranges.add(full);
                     }
                 } catch (IllegalArgumentException ignore) {
@@ -15,6 +15,7 @@ import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
@@ -80,6 +81,10 @@ public class Http1ChannelInitializer extends ChannelInitializer<Channel>
 
     private void configureCleartext(Channel channel) {
         ChannelPipeline pipeline = channel.pipeline();
+        if (serverConfig.getFlushConsolidation() > 0) {
+            pipeline.addLast("http-server-flush-consolidation",
+                    new FlushConsolidationHandler(serverConfig.getFlushConsolidation(), true));
+        }
         pipeline.addLast("http-server-read-timeout",
                 new ReadTimeoutHandler(serverConfig.getReadTimeoutMillis()));
         pipeline.addLast("http-server-chunked-write",
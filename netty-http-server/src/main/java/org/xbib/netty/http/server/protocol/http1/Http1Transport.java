@@ -12,7 +12,6 @@ import org.xbib.netty.http.server.AcceptState;
 import org.xbib.netty.http.server.BaseTransport;
 import org.xbib.netty.http.server.HttpServerRequest;
 import java.io.IOException;
-import java.net.InetSocketAddress;
 
 public class Http1Transport extends BaseTransport {
 
@@ -29,8 +28,8 @@ public class Http1Transport extends BaseTransport {
         switch (acceptState) {
             case OK: {
                 HttpServerRequest.Builder serverRequestBuilder = HttpServerRequest.builder()
-                        .setLocalAddress((InetSocketAddress) ctx.channel().localAddress())
-                        .setRemoteAddress((InetSocketAddress) ctx.channel().remoteAddress())
+                        .setLocalAddress(inetSocketAddress(ctx.channel().localAddress()))
+                        .setRemoteAddress(inetSocketAddress(ctx.channel().remoteAddress()))
                         .setHttpRequest(fullHttpRequest.retainedDuplicate())
                         .setSequenceId(sequenceId)
                         .setRequestId(server.getRequestCounter().incrementAndGet());
@@ -40,6 +39,7 @@ public class Http1Transport extends BaseTransport {
                 }
                 boolean shouldClose = "close".equalsIgnoreCase(fullHttpRequest.headers().get(HttpHeaderNames.CONNECTION));
                 serverResponseBuilder.shouldClose(shouldClose);
+                setAlternativeServices(serverResponseBuilder);
                 server.handle(serverRequestBuilder, serverResponseBuilder);
                 break;
             }
@@ -93,6 +93,10 @@ public class HttpServerResponse implements ServerResponse {
         return responseId;
     }
 
+    public ChannelHandlerContext getChannelHandlerContext() {
+        return ctx;
+    }
+
     public static Builder builder(ChannelHandlerContext ctx) {
         return new Builder(ctx);
     }
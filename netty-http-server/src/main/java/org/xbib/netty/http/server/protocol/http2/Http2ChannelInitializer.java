@@ -24,8 +24,8 @@ import io.netty.handler.codec.http2.Http2FrameLogger;
 import io.netty.handler.codec.http2.Http2MultiplexCodec;
 import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
 import io.netty.handler.codec.http2.Http2ServerUpgradeCodec;
-import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
@@ -36,6 +36,7 @@ import org.xbib.netty.http.common.HttpAddress;
 import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.server.DefaultServerConfig;
 import org.xbib.netty.http.common.HttpChannelInitializer;
+import org.xbib.netty.http.common.http2.Http2BdpEstimator;
 import org.xbib.netty.http.server.handler.ExtendedSNIHandler;
 import org.xbib.netty.http.server.handler.IdleTimeoutHandler;
 import org.xbib.netty.http.server.handler.TrafficLoggingHandler;
@@ -116,7 +117,7 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel>
             }
         };
         Http2MultiplexCodecBuilder multiplexCodecBuilder = Http2MultiplexCodecBuilder.forServer(channelHandler)
-            .initialSettings(Http2Settings.defaultSettings());
+            .initialSettings(serverConfig.getHttp2Settings());
         if (serverConfig.isDebug()) {
             multiplexCodecBuilder.frameLogger(new Http2FrameLogger(LogLevel.DEBUG, "server"));
         }
@@ -132,8 +133,14 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel>
         CleartextHttp2ServerUpgradeHandler cleartextHttp2ServerUpgradeHandler =
                 new CleartextHttp2ServerUpgradeHandler(serverCodec, upgradeHandler, multiplexCodec);
         ChannelPipeline pipeline = ch.pipeline();
+        if (serverConfig.getFlushConsolidation() > 0) {
+            pipeline.addLast("server-flush-consolidation",
+                    new FlushConsolidationHandler(serverConfig.getFlushConsolidation(), true));
+        }
         pipeline.addLast("server-upgrade", cleartextHttp2ServerUpgradeHandler);
-        pipeline.addLast("server-messages", new ServerMessages());
+        Http2BdpEstimator bdpEstimator = serverConfig.isHttp2BdpEnabled() ?
+                new Http2BdpEstimator(serverConfig.getHttp2Settings(), serverConfig.getHttp2MaxWindowSize()) : null;
+        pipeline.addLast("server-messages", new ServerMessages(multiplexCodec, bdpEstimator));
     }
 
     static class ServerRequestHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
@@ -147,6 +154,15 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel>
 
     static class ServerMessages extends ChannelInboundHandlerAdapter {
 
+        private final Http2MultiplexCodec multiplexCodec;
+
+        private final Http2BdpEstimator bdpEstimator;
+
+        ServerMessages(Http2MultiplexCodec multiplexCodec, Http2BdpEstimator bdpEstimator) {
+            this.multiplexCodec = multiplexCodec;
+            this.bdpEstimator = bdpEstimator;
+        }
+
         @Override
         public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
             if (msg instanceof DefaultHttp2SettingsFrame) {
@@ -162,6 +178,15 @@ public class Http2ChannelInitializer extends ChannelInitializer<Channel>
 
         @Override
         public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+            // the HTTP/2 codec is in the pipeline only after prior knowledge or upgrade
+            if (bdpEstimator != null &&
+                    (evt instanceof CleartextHttp2ServerUpgradeHandler.PriorKnowledgeUpgradeEvent ||
+                    evt instanceof HttpServerUpgradeHandler.UpgradeEvent)) {
+                ChannelHandlerContext codecContext = ctx.pipeline().context(multiplexCodec);
+                if (codecContext != null) {
+                    bdpEstimator.install(ctx.pipeline(), codecContext.name());
+                }
+            }
             ctx.fireUserEventTriggered(evt);
         }
 
@@ -13,7 +13,6 @@ import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.server.api.ServerResponse;
 import org.xbib.netty.http.server.HttpServerRequest;
 import java.io.IOException;
-import java.net.InetSocketAddress;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,8 +37,8 @@ public class Http2Transport extends BaseTransport {
             case OK: {
                 HttpServerRequest.Builder serverRequestBuilder = HttpServerRequest.builder()
                         .setHttpRequest(fullHttpRequest.retainedDuplicate())
-                        .setLocalAddress((InetSocketAddress) ctx.channel().localAddress())
-                        .setRemoteAddress((InetSocketAddress) ctx.channel().remoteAddress())
+                        .setLocalAddress(inetSocketAddress(ctx.channel().localAddress()))
+                        .setRemoteAddress(inetSocketAddress(ctx.channel().remoteAddress()))
                         .setStreamId(streamId)
                         .setSequenceId(sequenceId)
                         .setRequestId(server.getRequestCounter().incrementAndGet());
@@ -49,6 +48,7 @@ public class Http2Transport extends BaseTransport {
                 }
                 boolean shouldClose = "close".equalsIgnoreCase(fullHttpRequest.headers().get(HttpHeaderNames.CONNECTION));
                 serverResponseBuilder.shouldClose(shouldClose);
+                setAlternativeServices(serverResponseBuilder);
                 server.handle(serverRequestBuilder, serverResponseBuilder);
                 break;
             }
@@ -0,0 +1,236 @@
+package org.xbib.netty.http.server.test.endpoint;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.Download;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpResponse;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.endpoint.service.FileService;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class DownloadTest {
+
+    private static final Logger logger = Logger.getLogger(DownloadTest.class.getName());
+
+    private static final int LENGTH = 1024 * 1024 + 17;
+
+    @Test
+    void testSegmentedDownloadHttp1() throws Exception {
+        testSegmentedDownload(HttpAddress.http1("localhost", 8008), HttpVersion.HTTP_1_1);
+    }
+
+    @Test
+    void testSegmentedDownloadHttp2() throws Exception {
+        testSegmentedDownload(HttpAddress.http2("localhost", 8008), HttpVersion.valueOf("HTTP/2.0"));
+    }
+
+    @Test
+    void testResume() throws Exception {
+        Path dir = Files.createTempDirectory("download");
+        byte[] data = data();
+        Files.write(dir.resolve("data.bin"), data);
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/static", "/**", new FileService(dir))
+                .build();
+        Server server = Server.builder(domain).build();
+        Client client = Client.builder().build();
+        try {
+            server.accept();
+            String url = server.getServerConfig().getAddress().base().resolve("/static/data.bin").toString();
+            HttpResponse response = client.send(Request.get().url(url).build()).get(10L, TimeUnit.SECONDS);
+            String etag = response.getHeaders().getHeader(HttpHeaderNames.ETAG);
+            response.release();
+            // the first half was downloaded before, the second half is garbage
+            int half = LENGTH / 2;
+            Path path = dir.resolve("copy.bin");
+            byte[] partial = Arrays.copyOf(data, LENGTH);
+            Arrays.fill(partial, half, LENGTH, (byte) 0);
+            Files.write(path, partial);
+            Properties properties = new Properties();
+            properties.setProperty("url", url);
+            properties.setProperty("validator", etag);
+            properties.setProperty("length", Integer.toString(LENGTH));
+            properties.setProperty("done", "0-" + half);
+            Download download = Download.builder(client, path)
+                    .url(url)
+                    .setSegments(2)
+                    .setMinSegmentSize(64 * 1024)
+                    .build();
+            try (OutputStream outputStream = Files.newOutputStream(download.getStatePath())) {
+                properties.store(outputStream, null);
+            }
+            download.start().get(30L, TimeUnit.SECONDS);
+            assertArrayEquals(data, Files.readAllBytes(path));
+            assertEquals(LENGTH - half, download.getTransferred());
+            assertFalse(Files.exists(download.getStatePath()));
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+            delete(dir);
+            logger.log(Level.INFO, "server and client shut down");
+        }
+    }
+
+    @Test
+    void testResumeWithStaleValidator() throws Exception {
+        Path dir = Files.createTempDirectory("download");
+        byte[] data = data();
+        Files.write(dir.resolve("data.bin"), data);
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/static", "/**", new FileService(dir))
+                .build();
+        Server server = Server.builder(domain).build();
+        Client client = Client.builder().build();
+        try {
+            server.accept();
+            String url = server.getServerConfig().getAddress().base().resolve("/static/data.bin").toString();
+            // the first half was downloaded from a resource that has changed since
+            int half = LENGTH / 2;
+            Path path = dir.resolve("copy.bin");
+            byte[] partial = new byte[LENGTH];
+            Arrays.fill(partial, (byte) 1);
+            Files.write(path, partial);
+            Properties properties = new Properties();
+            properties.setProperty("url", url);
+            properties.setProperty("validator", "\"stale\"");
+            properties.setProperty("length", Integer.toString(LENGTH));
+            properties.setProperty("done", "0-" + half);
+            Download download = Download.builder(client, path)
+                    .url(url)
+                    .setSegments(1)
+                    .build();
+            try (OutputStream outputStream = Files.newOutputStream(download.getStatePath())) {
+                properties.store(outputStream, null);
+            }
+            // the server answers the range with the whole resource, and the download starts over
+            download.start().get(30L, TimeUnit.SECONDS);
+            assertArrayEquals(data, Files.readAllBytes(path));
+            assertEquals(LENGTH, download.getLength());
+            assertEquals(LENGTH, download.getTransferred());
+            assertFalse(Files.exists(download.getStatePath()));
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+            delete(dir);
+            logger.log(Level.INFO, "server and client shut down");
+        }
+    }
+
+    @Test
+    void testSegmentedResumeWithStaleValidator() throws Exception {
+        Path dir = Files.createTempDirectory("download");
+        byte[] data = data();
+        Files.write(dir.resolve("data.bin"), data);
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/static", "/**", new FileService(dir))
+                .build();
+        Server server = Server.builder(domain).build();
+        Client client = Client.builder().build();
+        try {
+            server.accept();
+            String url = server.getServerConfig().getAddress().base().resolve("/static/data.bin").toString();
+            // two ranges were downloaded from a resource that has changed since, three ranges are missing
+            int quarter = LENGTH / 4;
+            Path path = dir.resolve("copy.bin");
+            byte[] partial = new byte[LENGTH];
+            Arrays.fill(partial, (byte) 1);
+            Files.write(path, partial);
+            Properties properties = new Properties();
+            properties.setProperty("url", url);
+            properties.setProperty("validator", "\"stale\"");
+            properties.setProperty("length", Integer.toString(LENGTH));
+            properties.setProperty("done", quarter + "-" + (2 * quarter) + "," +
+                    (3 * quarter) + "-" + (3 * quarter + 1024));
+            Download download = Download.builder(client, path)
+                    .url(url)
+                    .setSegments(4)
+                    .setMinSegmentSize(64 * 1024)
+                    .build();
+            try (OutputStream outputStream = Files.newOutputStream(download.getStatePath())) {
+                properties.store(outputStream, null);
+            }
+            // every range is answered with the whole resource, one of them continues, the others are abandoned
+            download.start().get(30L, TimeUnit.SECONDS);
+            assertArrayEquals(data, Files.readAllBytes(path));
+            assertEquals(LENGTH, download.getLength());
+            assertEquals(LENGTH, download.getTransferred());
+            assertFalse(Files.exists(download.getStatePath()));
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+            delete(dir);
+            logger.log(Level.INFO, "server and client shut down");
+        }
+    }
+
+    private void testSegmentedDownload(HttpAddress httpAddress, HttpVersion httpVersion) throws Exception {
+        Path dir = Files.createTempDirectory("download");
+        byte[] data = data();
+        Files.write(dir.resolve("data.bin"), data);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/static", "/**", new FileService(dir))
+                .build();
+        Server server = Server.builder(domain).build();
+        Client client = Client.builder().build();
+        try {
+            server.accept();
+            Path path = dir.resolve("copy.bin");
+            Download download = Download.builder(client, path)
+                    .url(server.getServerConfig().getAddress().base().resolve("/static/data.bin").toString())
+                    .setVersion(httpVersion)
+                    .setSegments(4)
+                    .setMinSegmentSize(64 * 1024)
+                    .build();
+            assertEquals(path, download.start().get(30L, TimeUnit.SECONDS));
+            assertEquals(LENGTH, download.getLength());
+            assertEquals(LENGTH, download.getTransferred());
+            assertArrayEquals(data, Files.readAllBytes(path));
+            assertFalse(Files.exists(download.getStatePath()));
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+            delete(dir);
+            logger.log(Level.INFO, "server and client shut down");
+        }
+    }
+
+    private static byte[] data() {
+        byte[] data = new byte[LENGTH];
+        new Random(42L).nextBytes(data);
+        return data;
+    }
+
+    private static void delete(Path dir) throws Exception {
+        try (Stream<Path> paths = Files.list(dir)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+}
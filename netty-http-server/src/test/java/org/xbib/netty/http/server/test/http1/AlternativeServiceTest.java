@@ -0,0 +1,70 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.AltSvc;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class AlternativeServiceTest {
+
+    private static final Logger logger = Logger.getLogger(AlternativeServiceTest.class.getName());
+
+    @Test
+    void testParse() {
+        List<AltSvc> list = AltSvc.parse("h3=\":443\"; ma=3600, h2=\"alt.example.com:8443\"; persist=1, broken");
+        assertEquals(2, list.size());
+        assertEquals(new AltSvc("h3", "", 443, 3600L, false), list.get(0));
+        assertEquals(new AltSvc("h2", "alt.example.com", 8443, AltSvc.DEFAULT_MAX_AGE_SECONDS, true), list.get(1));
+        assertEquals(list, AltSvc.parse(AltSvc.format(list)));
+        assertTrue(AltSvc.parse("clear").isEmpty());
+    }
+
+    @Test
+    void testAdvertisedHttp1() throws Exception {
+        run(HttpAddress.http1("localhost", 8008), HttpVersion.HTTP_1_1);
+    }
+
+    @Test
+    void testAdvertisedHttp2() throws Exception {
+        run(HttpAddress.http2("localhost", 8008), HttpVersion.valueOf("HTTP/2.0"));
+    }
+
+    private static void run(HttpAddress httpAddress, HttpVersion httpVersion) throws Exception {
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write("Hello World"))
+                .build();
+        Server server = Server.builder(domain)
+                .addAlternativeService(new AltSvc("h3", 8443))
+                .build();
+        server.accept();
+        Client client = Client.builder().build();
+        try {
+            Request request = Request.get().setVersion(httpVersion)
+                    .url(server.getServerConfig().getAddress().base())
+                    .build();
+            String header = client.call(request, response -> response.getHeaders().getHeader(AltSvc.HEADER_NAME));
+            logger.log(Level.INFO, httpVersion + " alt-svc = " + header);
+            assertEquals(List.of(new AltSvc("h3", 8443)), AltSvc.parse(header));
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class AsyncSendTest {
+
+    private static final Logger logger = Logger.getLogger(AsyncSendTest.class.getName());
+
+    @Test
+    void testSendHttp1() throws Exception {
+        int loop = 1024;
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        Server server = Server.builder(createDomain(httpAddress)).build();
+        server.accept();
+        Client client = Client.builder()
+                .setMaxConnectionsPerAddress(4)
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < loop; i++) {
+                String payload = Integer.toString(i);
+                Request request = Request.get().setVersion(HttpVersion.HTTP_1_1)
+                        .url(server.getServerConfig().getAddress().base())
+                        .content(payload, "text/plain")
+                        .build();
+                futures.add(client.send(request, response -> response.getBodyAsString(StandardCharsets.UTF_8))
+                        .thenAccept(body -> {
+                            if (payload.equals(body)) {
+                                counter.incrementAndGet();
+                            }
+                        }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+        logger.log(Level.INFO, "expecting=" + loop + " counter=" + counter.get());
+        assertEquals(loop, counter.get());
+    }
+
+    @Test
+    void testPublishHttp1() throws Exception {
+        int loop = 256;
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        Server server = Server.builder(createDomain(httpAddress)).build();
+        server.accept();
+        Client client = Client.builder()
+                .setMaxConnectionsPerAddress(4)
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            List<Request> requests = new ArrayList<>();
+            for (int i = 0; i < loop; i++) {
+                requests.add(Request.get().setVersion(HttpVersion.HTTP_1_1)
+                        .url(server.getServerConfig().getAddress().base())
+                        .content(Integer.toString(i), "text/plain")
+                        .build());
+            }
+            Flow.Publisher<String> publisher = client.publish(requests, response ->
+                    response.getBodyAsString(StandardCharsets.UTF_8));
+            publisher.subscribe(new Flow.Subscriber<>() {
+
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(8);
+                }
+
+                @Override
+                public void onNext(String item) {
+                    counter.incrementAndGet();
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    logger.log(Level.WARNING, throwable.getMessage(), throwable);
+                    errors.incrementAndGet();
+                    latch.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    latch.countDown();
+                }
+            });
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+        logger.log(Level.INFO, "expecting=" + loop + " counter=" + counter.get());
+        assertEquals(0, errors.get());
+        assertEquals(loop, counter.get());
+    }
+
+    private static HttpServerDomain createDomain(HttpAddress httpAddress) {
+        return HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write(request.getContent().toString(StandardCharsets.UTF_8)))
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.EpollSocketOptions;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.protocol.http1.HttpServerResponse;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The options are applied if the epoll transport is active, and ignored otherwise.
+ * The options of the channels are only checked if epoll is available.
+ */
+@ExtendWith(NettyHttpTestExtension.class)
+class EpollSocketOptionsTest {
+
+    private static final Logger logger = Logger.getLogger(EpollSocketOptionsTest.class.getName());
+
+    @Test
+    void testEpollSocketOptions() throws Exception {
+        assumeTrue(Epoll.isAvailable(), "epoll is not available");
+        // the accepted channel may be closed after the response, so its options are read while it is open
+        AtomicReference<Map<ChannelOption<?>, Object>> acceptedOptions = new AtomicReference<>();
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) -> {
+                    acceptedOptions.set(((HttpServerResponse) response).getChannelHandlerContext()
+                            .channel().config().getOptions());
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build()
+                            .write("Hello World");
+                })
+                .build();
+        Server server = Server.builder(domain)
+                .setEpollSocketOptions(new EpollSocketOptions()
+                        .setTcpFastOpen(256)
+                        .setTcpNotSentLowAt(16 * 1024)
+                        .setTcpUserTimeout(10000)
+                        .setTcpQuickAck(true)
+                        .setEdgeTriggered(false))
+                .build();
+        server.accept();
+        Client client = Client.builder()
+                .setEpollSocketOptions(new EpollSocketOptions()
+                        .setTcpFastOpenConnect(true)
+                        .setTcpNotSentLowAt(16 * 1024)
+                        .setTcpUserTimeout(10000))
+                .build();
+        try {
+            Request request = Request.get().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base())
+                    .build();
+            String body = client.call(request, response -> response.getBodyAsString(StandardCharsets.UTF_8));
+            logger.log(Level.INFO, "body = " + body);
+            assertEquals("Hello World", body);
+            ChannelConfig serverConfig = server.getServerChannels().get(0).config();
+            assertEquals(256, serverConfig.getOption(ChannelOption.TCP_FASTOPEN));
+            Map<ChannelOption<?>, Object> options = acceptedOptions.get();
+            assertEquals(EpollMode.LEVEL_TRIGGERED, options.get(EpollChannelOption.EPOLL_MODE));
+            assertEquals(16 * 1024L, options.get(EpollChannelOption.TCP_NOTSENT_LOWAT));
+            assertEquals(10000, options.get(EpollChannelOption.TCP_USER_TIMEOUT));
+            Channel connectedChannel = client.newChannel(server.getServerConfig().getAddress());
+            try {
+                ChannelConfig connectedConfig = connectedChannel.config();
+                assertTrue(connectedConfig.getOption(ChannelOption.TCP_FASTOPEN_CONNECT));
+                assertEquals(16 * 1024L, connectedConfig.getOption(EpollChannelOption.TCP_NOTSENT_LOWAT));
+                assertEquals(10000, connectedConfig.getOption(EpollChannelOption.TCP_USER_TIMEOUT));
+            } finally {
+                connectedChannel.close().sync();
+            }
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void testReusePortAcceptors() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write("Hello World"))
+                .build();
+        int loop = 16;
+        int count = 0;
+        // the second round binds without SO_REUSEPORT, which fails if an acceptor of the first round is still bound
+        for (int round = 0; round < 2; round++) {
+            Server server = Server.builder(domain)
+                    .setParentThreadCount(4)
+                    .setEpollSocketOptions(new EpollSocketOptions().setReusePort(round == 0))
+                    .build();
+            server.accept();
+            // with epoll, the first round binds one acceptor per parent event loop
+            assertEquals(round == 0 && Epoll.isAvailable() ? 4 : 1, server.getServerChannels().size());
+            Client client = Client.builder().build();
+            try {
+                for (int i = 0; i < loop; i++) {
+                    Request request = Request.get().setVersion(HttpVersion.HTTP_1_1)
+                            .url(server.getServerConfig().getAddress().base())
+                            .keepAlive(false)
+                            .build();
+                    if ("Hello World".equals(client.call(request, response ->
+                            response.getBodyAsString(StandardCharsets.UTF_8)))) {
+                        count++;
+                    }
+                }
+            } finally {
+                client.shutdownGracefully();
+                server.shutdownGracefully();
+            }
+        }
+        assertEquals(2 * loop, count);
+    }
+}
@@ -0,0 +1,94 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class ExpectContinueTest {
+
+    private static final Logger logger = Logger.getLogger(ExpectContinueTest.class.getName());
+
+    @Test
+    void testExpectContinueAccepted() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        Server server = createServer(received, 1024 * 1024);
+        server.accept();
+        Client client = Client.builder()
+                .setExpectContinueTimeoutMillis(5000)
+                .build();
+        try {
+            String payload = "Hello World";
+            Request request = Request.put().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base().resolve("/upload"))
+                    .content(payload, "text/plain")
+                    .setExpectContinue(true)
+                    .build();
+            String body = client.call(request, response -> response.getBodyAsString(StandardCharsets.UTF_8));
+            logger.log(Level.INFO, "body = " + body);
+            assertEquals(payload, body);
+            assertEquals(1, received.get());
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void testExpectContinueRejected() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        Server server = createServer(received, 1024);
+        server.accept();
+        Client client = Client.builder()
+                .setExpectContinueTimeoutMillis(5000)
+                .build();
+        try {
+            char[] chars = new char[64 * 1024];
+            Arrays.fill(chars, 'x');
+            Request request = Request.put().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base().resolve("/upload"))
+                    .content(new String(chars), "text/plain")
+                    .setExpectContinue(true)
+                    .build();
+            long t0 = System.nanoTime();
+            int status = client.call(request, response -> response.getStatus().getCode());
+            long millis = (System.nanoTime() - t0) / 1000000L;
+            logger.log(Level.INFO, "status = " + status + " after " + millis + " ms");
+            // the server rejects the request from the head, the body is never sent
+            assertEquals(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE.code(), status);
+            assertEquals(0, received.get());
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    private static Server createServer(AtomicInteger received, int maxContentLength) {
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/upload", "/**", (request, response) -> {
+                    received.incrementAndGet();
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build()
+                            .write(request.getContent().toString(StandardCharsets.UTF_8));
+                }, "PUT")
+                .build();
+        return Server.builder(domain)
+                .setMaxContentLength(maxContentLength)
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.FetchScheduler;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpResponse;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class FetchSchedulerTest {
+
+    private static final Logger logger = Logger.getLogger(FetchSchedulerTest.class.getName());
+
+    @Test
+    void testPoliteFetch() throws Exception {
+        int loop = 64;
+        int maxPerHost = 2;
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> maxActive = new ConcurrentHashMap<>();
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) -> {
+                    String host = request.getHeader("host");
+                    int n = active.computeIfAbsent(host, k -> new AtomicInteger()).incrementAndGet();
+                    maxActive.computeIfAbsent(host, k -> new AtomicInteger()).accumulateAndGet(n, Math::max);
+                    try {
+                        Thread.sleep(5L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    active.get(host).decrementAndGet();
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build()
+                            .write("Hello World");
+                })
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        Client client = Client.builder().build();
+        AtomicInteger responses = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        FetchScheduler fetchScheduler = FetchScheduler.builder(client)
+                .setMaxPerHost(maxPerHost)
+                .setMaxInFlight(3)
+                .setHostDelay(1L, TimeUnit.MILLISECONDS)
+                .setListener(new FetchScheduler.Listener() {
+                    @Override
+                    public void onResponse(Request request, HttpResponse response) {
+                        if (response.getStatus().getCode() == HttpResponseStatus.OK.code()) {
+                            responses.incrementAndGet();
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Request request, Throwable throwable) {
+                        logger.log(Level.WARNING, throwable.getMessage(), throwable);
+                        failures.incrementAndGet();
+                    }
+                })
+                .build();
+        try {
+            // two host names for the same server
+            List<Request> requests = new ArrayList<>();
+            for (int i = 0; i < loop; i++) {
+                String host = i % 2 == 0 ? "localhost" : "127.0.0.1";
+                requests.add(Request.get().url("http://" + host + ":8008/" + i)
+                        .setPriority(i % 8).build());
+            }
+            fetchScheduler.submitAll(requests.iterator());
+            fetchScheduler.whenIdle().get(30L, TimeUnit.SECONDS);
+            logger.log(Level.INFO, "responses = " + responses + " max active = " + maxActive);
+            assertEquals(loop, responses.get());
+            assertEquals(0, failures.get());
+            assertEquals(loop, fetchScheduler.getCompletedCount());
+            // the hosts are dropped when the host delay has passed
+            Thread.sleep(50L);
+            assertEquals(0, fetchScheduler.getHostCount());
+            for (AtomicInteger n : maxActive.values()) {
+                assertTrue(n.get() <= maxPerHost);
+            }
+        } finally {
+            fetchScheduler.close();
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void testHostDelay() throws Exception {
+        long hostDelayMillis = 100L;
+        // the arrival times at the server may be closer than the start times by a little jitter
+        long toleranceMillis = 20L;
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        Map<String, List<Long>> arrivals = new ConcurrentHashMap<>();
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) -> {
+                    arrivals.computeIfAbsent(request.getHeader("host"), k -> new CopyOnWriteArrayList<>())
+                            .add(System.nanoTime());
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build()
+                            .write("Hello World");
+                })
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        Client client = Client.builder().build();
+        AtomicInteger responses = new AtomicInteger();
+        FetchScheduler fetchScheduler = FetchScheduler.builder(client)
+                .setMaxPerHost(4)
+                .setHostDelay(hostDelayMillis, TimeUnit.MILLISECONDS)
+                .setListener(new FetchScheduler.Listener() {
+                    @Override
+                    public void onResponse(Request request, HttpResponse response) {
+                        responses.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onFailure(Request request, Throwable throwable) {
+                        logger.log(Level.WARNING, throwable.getMessage(), throwable);
+                    }
+                })
+                .build();
+        try {
+            for (int i = 0; i < 8; i++) {
+                String host = i % 2 == 0 ? "localhost" : "127.0.0.1";
+                assertTrue(fetchScheduler.submit(Request.get().url("http://" + host + ":8008/" + i).build()));
+            }
+            fetchScheduler.whenIdle().get(30L, TimeUnit.SECONDS);
+            // the hosts have no requests, but must still wait for the delay after their last response
+            assertEquals(2, fetchScheduler.getHostCount());
+            assertTrue(fetchScheduler.submit(Request.get().url("http://localhost:8008/8").build()));
+            assertTrue(fetchScheduler.submit(Request.get().url("http://127.0.0.1:8008/9").build()));
+            fetchScheduler.whenIdle().get(30L, TimeUnit.SECONDS);
+            assertEquals(10, responses.get());
+            assertEquals(2, arrivals.size());
+            for (Map.Entry<String, List<Long>> entry : arrivals.entrySet()) {
+                List<Long> times = entry.getValue();
+                assertEquals(5, times.size());
+                for (int i = 1; i < times.size(); i++) {
+                    long gapMillis = TimeUnit.NANOSECONDS.toMillis(times.get(i) - times.get(i - 1));
+                    logger.log(Level.INFO, entry.getKey() + " gap = " + gapMillis + " ms");
+                    assertTrue(gapMillis >= hostDelayMillis - toleranceMillis,
+                            entry.getKey() + " gap " + gapMillis + " ms is shorter than the host delay");
+                }
+            }
+        } finally {
+            fetchScheduler.close();
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+}
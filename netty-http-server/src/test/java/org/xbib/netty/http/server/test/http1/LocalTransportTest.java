@@ -0,0 +1,69 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.LocalTransportProvider;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class LocalTransportTest {
+
+    private static final Logger logger = Logger.getLogger(LocalTransportTest.class.getName());
+
+    @Test
+    void testLocalTransportHttp1() throws Exception {
+        assertEquals(64, run(HttpAddress.http1("localhost", 8008), HttpVersion.HTTP_1_1, 64));
+    }
+
+    @Test
+    void testLocalTransportHttp2() throws Exception {
+        assertEquals(64, run(HttpAddress.http2("localhost", 8008), HttpVersion.valueOf("HTTP/2.0"), 64));
+    }
+
+    private static int run(HttpAddress httpAddress, HttpVersion httpVersion, int loop) throws Exception {
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write(request.getContent().toString(StandardCharsets.UTF_8)))
+                .build();
+        Server server = Server.builder(domain)
+                .setTransportProviderName(LocalTransportProvider.class.getName())
+                .build();
+        server.accept();
+        Client client = Client.builder()
+                .setTransportProviderName(LocalTransportProvider.class.getName())
+                .build();
+        int count = 0;
+        try {
+            for (int i = 0; i < loop; i++) {
+                String payload = Integer.toString(i);
+                Request request = Request.post().setVersion(httpVersion)
+                        .url(server.getServerConfig().getAddress().base())
+                        .content(payload, "text/plain")
+                        .build();
+                String body = client.call(request, response -> response.getBodyAsString(StandardCharsets.UTF_8));
+                if (payload.equals(body)) {
+                    count++;
+                }
+            }
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+        logger.log(Level.INFO, httpVersion + " over local transport: " + count + " of " + loop);
+        return count;
+    }
+}
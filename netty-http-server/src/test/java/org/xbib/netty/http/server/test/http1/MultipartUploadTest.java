@@ -0,0 +1,67 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class MultipartUploadTest {
+
+    private static final Logger logger = Logger.getLogger(MultipartUploadTest.class.getName());
+
+    @Test
+    void testMultipartUploadHttp1() throws Exception {
+        Path path = Files.createTempFile("upload", ".bin");
+        byte[] bytes = new byte[1024 * 1024];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('a' + i % 26);
+        }
+        Files.write(path, bytes);
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) -> {
+                    String content = request.getContent().toString(StandardCharsets.ISO_8859_1);
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build()
+                            .write(Integer.toString(content.length()));
+                })
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        Client client = Client.builder().build();
+        AtomicReference<String> length = new AtomicReference<>();
+        try {
+            Request request = Request.post().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base())
+                    .addBodyAttribute("name", "value")
+                    .addBodyFile("file", path, "application/octet-stream")
+                    .build();
+            client.call(request, response -> {
+                length.set(response.getBodyAsString(StandardCharsets.UTF_8));
+                return null;
+            });
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+            // fails if the file of the caller was deleted with the request
+            Files.delete(path);
+        }
+        logger.log(Level.INFO, "received multipart body of length " + length.get());
+        assertTrue(Integer.parseInt(length.get()) > bytes.length);
+    }
+}
@@ -0,0 +1,231 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.proxy.HttpProxyHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.client.transport.TunnelStatistics;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpResponse;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class ProxyTunnelTest {
+
+    private static final Logger logger = Logger.getLogger(ProxyTunnelTest.class.getName());
+
+    @Test
+    void testPooledTunnels() throws Exception {
+        int loop = 16;
+        int maxTunnels = 2;
+        Server server = newServer(HttpAddress.http1("localhost", 8008));
+        server.accept();
+        ConnectProxy proxy = new ConnectProxy();
+        Client client = Client.builder()
+                .setHttpProxyHandler(new HttpProxyHandler(new InetSocketAddress("localhost", proxy.getPort())))
+                .setMaxTunnelsPerProxy(maxTunnels)
+                .build();
+        try {
+            List<CompletableFuture<HttpResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < loop; i++) {
+                futures.add(client.send(Request.get().url(server.getServerConfig().getAddress().base()).build()));
+            }
+            for (CompletableFuture<HttpResponse> future : futures) {
+                HttpResponse response = future.get(30L, TimeUnit.SECONDS);
+                assertEquals(HttpResponseStatus.OK.code(), response.getStatus().getCode());
+                assertEquals("Hello World", response.getBodyAsString(StandardCharsets.UTF_8));
+                response.release();
+            }
+            TunnelStatistics tunnelStatistics = client.getTunnelStatistics();
+            logger.log(Level.INFO, "proxy tunnels = " + proxy.getTunnels() + " max open = " + proxy.getMaxOpenTunnels() +
+                    " client tunnels = " + tunnelStatistics.getTunnels() +
+                    " setup = " + tunnelStatistics.getAverageTunnelSetupMillis() + " ms");
+            // the tunnels are pooled and reused, and never more than the limit are open
+            assertTrue(proxy.getTunnels() >= 1 && proxy.getTunnels() <= maxTunnels);
+            assertTrue(proxy.getMaxOpenTunnels() <= maxTunnels);
+            assertEquals(proxy.getTunnels(), tunnelStatistics.getTunnels());
+            assertEquals(proxy.getTunnels(), tunnelStatistics.getOpenTunnels());
+            assertEquals(0L, tunnelStatistics.getTunnelFailures());
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+            proxy.close();
+        }
+    }
+
+    @Test
+    void testTunnelLimitAcrossAddresses() throws Exception {
+        Server server1 = newServer(HttpAddress.http1("localhost", 8008));
+        server1.accept();
+        Server server2 = newServer(HttpAddress.http1("localhost", 8009));
+        server2.accept();
+        ConnectProxy proxy = new ConnectProxy();
+        Client client = Client.builder()
+                .setHttpProxyHandler(new HttpProxyHandler(new InetSocketAddress("localhost", proxy.getPort())))
+                .setMaxTunnelsPerProxy(1)
+                .setConnectTimeoutMillis(500)
+                .build();
+        try {
+            HttpResponse response = client.send(Request.get().url(server1.getServerConfig().getAddress().base())
+                    .build()).get(30L, TimeUnit.SECONDS);
+            assertEquals(HttpResponseStatus.OK.code(), response.getStatus().getCode());
+            response.release();
+            // the only tunnel is idle in the pool of the first address, it is closed for the second address
+            response = client.send(Request.get().url(server2.getServerConfig().getAddress().base())
+                    .build()).get(30L, TimeUnit.SECONDS);
+            assertEquals(HttpResponseStatus.OK.code(), response.getStatus().getCode());
+            response.release();
+            // and the first address gets a tunnel back the same way
+            response = client.send(Request.get().url(server1.getServerConfig().getAddress().base())
+                    .build()).get(30L, TimeUnit.SECONDS);
+            assertEquals(HttpResponseStatus.OK.code(), response.getStatus().getCode());
+            response.release();
+            assertEquals(3, proxy.getTunnels());
+            assertEquals(1, client.getTunnelStatistics().getOpenTunnels());
+        } finally {
+            client.shutdownGracefully();
+            server1.shutdownGracefully();
+            server2.shutdownGracefully();
+            proxy.close();
+        }
+    }
+
+    private static Server newServer(HttpAddress httpAddress) {
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write("Hello World"))
+                .build();
+        return Server.builder(domain).build();
+    }
+
+    /**
+     * A minimal HTTP proxy that only knows CONNECT, and counts its tunnels.
+     */
+    private static class ConnectProxy implements Closeable {
+
+        private final ServerSocket serverSocket;
+
+        private final ExecutorService executorService;
+
+        private final AtomicInteger tunnels;
+
+        private final AtomicInteger openTunnels;
+
+        private final AtomicInteger maxOpenTunnels;
+
+        ConnectProxy() throws IOException {
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            this.executorService = Executors.newCachedThreadPool();
+            this.tunnels = new AtomicInteger();
+            this.openTunnels = new AtomicInteger();
+            this.maxOpenTunnels = new AtomicInteger();
+            executorService.submit(this::accept);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getTunnels() {
+            return tunnels.get();
+        }
+
+        int getMaxOpenTunnels() {
+            return maxOpenTunnels.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            executorService.shutdownNow();
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    executorService.submit(() -> tunnel(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void tunnel(Socket socket) {
+            try (socket) {
+                InputStream inputStream = socket.getInputStream();
+                String[] requestLine = readLine(inputStream).split(" ");
+                while (!readLine(inputStream).isEmpty()) {
+                    // skip the headers
+                }
+                String authority = requestLine[1];
+                int pos = authority.lastIndexOf(':');
+                try (Socket target = new Socket(authority.substring(0, pos),
+                        Integer.parseInt(authority.substring(pos + 1)))) {
+                    tunnels.incrementAndGet();
+                    maxOpenTunnels.accumulateAndGet(openTunnels.incrementAndGet(), Math::max);
+                    try {
+                        OutputStream outputStream = socket.getOutputStream();
+                        outputStream.write("HTTP/1.1 200 Connection established\r\n\r\n"
+                                .getBytes(StandardCharsets.US_ASCII));
+                        outputStream.flush();
+                        executorService.submit(() -> pump(target.getInputStream(), outputStream));
+                        pump(inputStream, target.getOutputStream());
+                    } finally {
+                        openTunnels.decrementAndGet();
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.FINE, e.getMessage(), e);
+            }
+        }
+
+        private static String readLine(InputStream inputStream) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int ch;
+            while ((ch = inputStream.read()) != -1 && ch != '\n') {
+                if (ch != '\r') {
+                    sb.append((char) ch);
+                }
+            }
+            return sb.toString();
+        }
+
+        private static Void pump(InputStream inputStream, OutputStream outputStream) throws IOException {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, n);
+                outputStream.flush();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.api.ServerRequest;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class RequestCompressionTest {
+
+    private static final Logger logger = Logger.getLogger(RequestCompressionTest.class.getName());
+
+    @Test
+    void testGzipRequestHttp1() throws Exception {
+        run(HttpAddress.http1("localhost", 8008), HttpVersion.HTTP_1_1, "gzip");
+    }
+
+    @Test
+    void testDeflateRequestHttp2() throws Exception {
+        run(HttpAddress.http2("localhost", 8008), HttpVersion.valueOf("HTTP/2.0"), "deflate");
+    }
+
+    @Test
+    void testGzipMultipartHttp1() throws Exception {
+        String value = json(2000);
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write(decodeAttribute(request, "json")))
+                .build();
+        Server server = Server.builder(domain)
+                .enableDecompression(true)
+                .build();
+        server.accept();
+        Client client = Client.builder().build();
+        try {
+            Request request = Request.post().setVersion(HttpVersion.HTTP_1_1)
+                    .url(server.getServerConfig().getAddress().base())
+                    .addBodyAttribute("json", value)
+                    .setContentEncoding("gzip")
+                    .setCompressibleContentTypes(List.of("multipart/form-data"))
+                    .build();
+            assertEquals("gzip", request.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            String body = client.call(request, response -> response.getBodyAsString(StandardCharsets.UTF_8));
+            logger.log(Level.INFO, "multipart attribute decoded by server: " + body.length() + " chars");
+            assertEquals(value, body);
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void testNoCompression() {
+        Request small = Request.post().url("http://localhost:8008")
+                .content("{}", "application/json")
+                .setContentEncoding("gzip")
+                .build();
+        assertNull(small.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        Request binary = Request.post().url("http://localhost:8008")
+                .content(json(100), "application/octet-stream")
+                .setContentEncoding("gzip")
+                .build();
+        assertNull(binary.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+        small.release();
+        binary.release();
+    }
+
+    private static void run(HttpAddress httpAddress, HttpVersion httpVersion, String contentEncoding)
+            throws Exception {
+        String payload = json(2000);
+        Server server = createServer(httpAddress);
+        server.accept();
+        Client client = Client.builder().build();
+        try {
+            Request request = Request.post().setVersion(httpVersion)
+                    .url(server.getServerConfig().getAddress().base())
+                    .content(payload, "application/json")
+                    .setContentEncoding(contentEncoding)
+                    .build();
+            int length = request.content().readableBytes();
+            logger.log(Level.INFO, httpVersion + " " + contentEncoding + ": " +
+                    payload.length() + " bytes compressed to " + length);
+            assertEquals(contentEncoding, request.headers().get(HttpHeaderNames.CONTENT_ENCODING));
+            assertTrue(length * 5 < payload.length());
+            String body = client.call(request, response -> response.getBodyAsString(StandardCharsets.UTF_8));
+            assertEquals(payload, body);
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    private static Server createServer(HttpAddress httpAddress) {
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write(request.getContent().toString(StandardCharsets.UTF_8)))
+                .build();
+        return Server.builder(domain)
+                .enableDecompression(true)
+                .build();
+    }
+
+    private static String decodeAttribute(ServerRequest request, String name) throws IOException {
+        DefaultFullHttpRequest fullHttpRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+                request.getMethod(), request.getRequestURI(), request.getContent().retainedDuplicate());
+        fullHttpRequest.headers().set(request.getHeaders());
+        HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(fullHttpRequest);
+        try {
+            Attribute attribute = (Attribute) decoder.getBodyHttpData(name);
+            return attribute != null ? attribute.getValue() : "";
+        } finally {
+            decoder.destroy();
+            fullHttpRequest.release();
+        }
+    }
+
+    private static String json(int n) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item\",\"status\":\"active\"}");
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,77 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class SynchronousCallTest {
+
+    private static final Logger logger = Logger.getLogger(SynchronousCallTest.class.getName());
+
+    @Test
+    void testSynchronousCallHttp1() throws Exception {
+        int threads = 16;
+        int loop = 64;
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write(request.getContent().toString(StandardCharsets.UTF_8)))
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        Client client = Client.builder()
+                .setMaxConnectionsPerAddress(4)
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        try {
+            ExecutorService executorService = Executors.newFixedThreadPool(threads);
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executorService.submit(() -> {
+                    for (int i = 0; i < loop; i++) {
+                        String payload = thread + "/" + i;
+                        Request request = Request.get().setVersion(HttpVersion.HTTP_1_1)
+                                .url(server.getServerConfig().getAddress().base())
+                                .content(payload, "text/plain")
+                                .build();
+                        try {
+                            String body = client.call(request, response ->
+                                    response.getBodyAsString(StandardCharsets.UTF_8));
+                            if (payload.equals(body)) {
+                                counter.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            logger.log(Level.WARNING, e.getMessage(), e);
+                        }
+                    }
+                });
+            }
+            executorService.shutdown();
+            executorService.awaitTermination(30, TimeUnit.SECONDS);
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+        logger.log(Level.INFO, "expecting=" + (threads * loop) + " counter=" + counter.get());
+        assertEquals(threads * loop, counter.get());
+    }
+}
@@ -0,0 +1,72 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class TransportReclaimTest {
+
+    private static final Logger logger = Logger.getLogger(TransportReclaimTest.class.getName());
+
+    @Test
+    void testTransportsAreReclaimed() throws Exception {
+        int loop = 64;
+        HttpAddress httpAddress = HttpAddress.http1("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write("Hello World"))
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        Client client = Client.builder()
+                .build();
+        try {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < loop; i++) {
+                Request request = Request.get().setVersion(HttpVersion.HTTP_1_1)
+                        .url(server.getServerConfig().getAddress().base())
+                        .build();
+                futures.add(client.execute(request, response -> response.getBodyAsString(StandardCharsets.UTF_8)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            for (int i = 0; i < loop; i++) {
+                Request request = Request.get().setVersion(HttpVersion.HTTP_1_1)
+                        .url(server.getServerConfig().getAddress().base())
+                        .build();
+                client.execute(request).get();
+            }
+            // transports are released in a later event loop task after the response listener
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+            while (client.getLiveTransportCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10L);
+            }
+            logger.log(Level.INFO, "transports=" + client.getTransportCounter().get() +
+                    " reclaimed=" + client.getReclaimedTransportCounter().get() +
+                    " live=" + client.getLiveTransportCount());
+            assertEquals(0, client.getLiveTransportCount());
+            assertEquals(2L * loop, client.getReclaimedTransportCounter().get());
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+}
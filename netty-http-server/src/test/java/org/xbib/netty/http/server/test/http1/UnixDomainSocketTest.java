@@ -0,0 +1,90 @@
+package org.xbib.netty.http.server.test.http1;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.EpollSocketOptions;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class UnixDomainSocketTest {
+
+    private static final Logger logger = Logger.getLogger(UnixDomainSocketTest.class.getName());
+
+    @Test
+    void testUnixDomainSocketHttp1() throws Exception {
+        assumeTrue(System.getProperty("os.name").toLowerCase().startsWith("linux"));
+        Path dir = Files.createTempDirectory("netty-http-uds");
+        Path socketPath = dir.resolve("server.sock");
+        HttpAddress httpAddress = HttpAddress.unix(socketPath.toString());
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write(request.getContent().toString(StandardCharsets.UTF_8)))
+                .build();
+        Server server;
+        try {
+            server = Server.builder(domain).build();
+        } catch (UnsupportedOperationException e) {
+            // no native epoll transport
+            assumeTrue(false, e.getMessage());
+            return;
+        }
+        server.accept();
+        // the TCP socket options of the client do not apply to unix domain sockets
+        Client client = Client.builder()
+                .setEpollSocketOptions(new EpollSocketOptions()
+                        .setTcpNotSentLowAt(16 * 1024)
+                        .setTcpUserTimeout(10000))
+                .build();
+        int count = 0;
+        int loop = 16;
+        try {
+            for (int i = 0; i < loop; i++) {
+                String payload = Integer.toString(i);
+                Request request = Request.post().setVersion(HttpVersion.HTTP_1_1)
+                        .url("http://localhost/uds")
+                        .setSocketPath(socketPath.toString())
+                        .content(payload, "text/plain")
+                        .build();
+                String body = client.call(request, response -> response.getBodyAsString(StandardCharsets.UTF_8));
+                if (payload.equals(body)) {
+                    count++;
+                }
+            }
+            Bootstrap bootstrap = client.newBootstrap(new Bootstrap()
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .option(EpollChannelOption.TCP_NOTSENT_LOWAT, 16 * 1024L)
+                    .option(EpollChannelOption.TCP_USER_TIMEOUT, 10000), httpAddress);
+            assertFalse(bootstrap.config().options().containsKey(ChannelOption.TCP_NODELAY));
+            assertFalse(bootstrap.config().options().containsKey(EpollChannelOption.TCP_NOTSENT_LOWAT));
+            assertFalse(bootstrap.config().options().containsKey(EpollChannelOption.TCP_USER_TIMEOUT));
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+            Files.deleteIfExists(socketPath);
+            Files.deleteIfExists(dir);
+        }
+        logger.log(Level.INFO, "HTTP/1.1 over unix domain socket: " + count + " of " + loop);
+        assertEquals(loop, count);
+    }
+}
@@ -13,6 +13,7 @@ import org.xbib.netty.http.server.Server;
 import org.xbib.netty.http.server.HttpServerDomain;
 import org.xbib.netty.http.server.test.NettyHttpTestExtension;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -273,4 +274,39 @@ class CleartextTest {
         logger.log(Level.INFO, "expecting=" + threads * loop + " counter=" + counter.get());
         assertEquals(threads * loop, counter.get());
     }
+
+    @Test
+    void testConcurrentExecuteOnOneTransport() throws Exception {
+        HttpAddress httpAddress = HttpAddress.http2("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/", (request, response) -> {
+                    String content = request.getContent().toString(StandardCharsets.UTF_8);
+                    // a large body for the first request, so the second request is answered first
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                            .write("large".equals(content) ? "x".repeat(4 * 1024 * 1024) : content);
+                })
+                .build();
+        Server server = Server.builder(domain)
+                .build();
+        server.accept();
+        Client client = Client.builder()
+                .build();
+        try {
+            ClientTransport transport = client.newTransport(httpAddress);
+            CompletableFuture<String> large = transport.execute(Request.get().setVersion("HTTP/2.0")
+                    .url(server.getServerConfig().getAddress().base())
+                    .content("large", "text/plain")
+                    .build(), resp -> resp.getBodyAsString(StandardCharsets.UTF_8));
+            CompletableFuture<String> small = transport.execute(Request.get().setVersion("HTTP/2.0")
+                    .url(server.getServerConfig().getAddress().base())
+                    .content("small", "text/plain")
+                    .build(), resp -> resp.getBodyAsString(StandardCharsets.UTF_8));
+            // the first completed execution must not cancel the other stream
+            assertEquals("small", small.get(10L, TimeUnit.SECONDS));
+            assertEquals(4 * 1024 * 1024, large.get(10L, TimeUnit.SECONDS).length());
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+        }
+    }
 }
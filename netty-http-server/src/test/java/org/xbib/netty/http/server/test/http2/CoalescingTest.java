@@ -0,0 +1,126 @@
+package org.xbib.netty.http.server.test.http2;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.bouncycastle.SelfSignedCertificate;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpResponse;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.api.ServerRequest;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Two names of the loopback address, "localhost" and "127.0.0.1", are served by one server
+ * with a certificate that is valid for both names. The client opens one HTTP/2 connection for the first name,
+ * and reuses it for the second name. The bodies of the responses are the remote ports of the connections
+ * as seen by the server.
+ */
+@ExtendWith(NettyHttpTestExtension.class)
+class CoalescingTest {
+
+    private static final Logger logger = Logger.getLogger(CoalescingTest.class.getName());
+
+    private static final String HOST = "localhost";
+
+    private static final String OTHER_HOST = "127.0.0.1";
+
+    @Test
+    void testCoalescedConnection() throws Exception {
+        Server server = newServer(request -> false);
+        server.accept();
+        Client client = Client.builder()
+                .trustInsecure()
+                .build();
+        try {
+            String port = get(client, HOST);
+            String otherPort = get(client, OTHER_HOST);
+            logger.log(Level.INFO, "remote ports = " + port + " " + otherPort);
+            assertEquals(port, otherPort);
+            assertEquals(1L, client.getCoalescedConnectionCounter().get());
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    @Test
+    void testMisdirectedRequest() throws Exception {
+        // the server does not want to serve the other host on the connection of the first host
+        AtomicInteger firstPort = new AtomicInteger();
+        Server server = newServer(request -> {
+            int port = request.getRemoteAddress().getPort();
+            if (HOST.equals(request.getURL().getHost())) {
+                firstPort.compareAndSet(0, port);
+                return false;
+            }
+            return port == firstPort.get();
+        });
+        server.accept();
+        Client client = Client.builder()
+                .trustInsecure()
+                .build();
+        try {
+            String port = get(client, HOST);
+            // the request is sent on the coalesced connection, answered with 421, and sent again on a new connection
+            String otherPort = get(client, OTHER_HOST);
+            logger.log(Level.INFO, "remote ports = " + port + " " + otherPort);
+            assertNotEquals(port, otherPort);
+            assertEquals(1L, client.getCoalescedConnectionCounter().get());
+            // the other host keeps its own connection
+            assertEquals(otherPort, get(client, OTHER_HOST));
+            assertEquals(1L, client.getCoalescedConnectionCounter().get());
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+
+    private static String get(Client client, String host) throws Exception {
+        HttpAddress httpAddress = HttpAddress.secureHttp2(host, 8143);
+        Request request = Request.get()
+                .setVersion("HTTP/2.0")
+                .url(httpAddress.base())
+                .build();
+        HttpResponse response = client.send(request).get(30L, TimeUnit.SECONDS);
+        try {
+            assertEquals(HttpResponseStatus.OK.code(), response.getStatus().getCode());
+            return response.getBodyAsString(StandardCharsets.UTF_8);
+        } finally {
+            response.release();
+        }
+    }
+
+    private static Server newServer(Predicate<ServerRequest> misdirected) throws Exception {
+        SelfSignedCertificate selfSignedCertificate = new SelfSignedCertificate();
+        selfSignedCertificate.generate(HOST, Arrays.asList(HOST, OTHER_HOST), new SecureRandom(), 2048);
+        HttpServerDomain domain = HttpServerDomain.builder(HttpAddress.secureHttp2(HOST, 8143))
+                .setKeyCertChain(selfSignedCertificate.certificate())
+                .setKey(selfSignedCertificate.privateKey(), null)
+                .singleEndpoint("/**", (request, response) -> {
+                    if (misdirected.test(request)) {
+                        response.getBuilder().setStatus(HttpResponseStatus.MISDIRECTED_REQUEST.code()).build().flush();
+                    } else {
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write(Integer.toString(request.getRemoteAddress().getPort()));
+                    }
+                })
+                .build();
+        return Server.builder(domain).build();
+    }
+}
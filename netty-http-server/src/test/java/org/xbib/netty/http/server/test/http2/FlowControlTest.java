@@ -0,0 +1,85 @@
+package org.xbib.netty.http.server.test.http2;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2CodecUtil;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2LocalFlowController;
+import io.netty.handler.codec.http2.Http2Settings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class FlowControlTest {
+
+    private static final Logger logger = Logger.getLogger(FlowControlTest.class.getName());
+
+    @Test
+    void testLargeResponsesWithBdpEstimation() throws Exception {
+        int size = 4 * 1024 * 1024;
+        int loop = 8;
+        String body = "x".repeat(size);
+        HttpAddress httpAddress = HttpAddress.http2("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                                .setContentType("text/plain").build()
+                                .write(body))
+                .build();
+        Server server = Server.builder(domain)
+                .setHttp2Settings(Http2Settings.defaultSettings().initialWindowSize(256 * 1024))
+                .enableHttp2Bdp(true)
+                .build();
+        server.accept();
+        Client client = Client.builder()
+                .enableHttp2Bdp(true)
+                .build();
+        int count = 0;
+        int[] windows;
+        try {
+            for (int i = 0; i < loop; i++) {
+                Request request = Request.get().setVersion("HTTP/2.0")
+                        .url(server.getServerConfig().getAddress().base())
+                        .build();
+                int length = client.call(request, response -> response.getBody().readableBytes());
+                logger.log(Level.INFO, "received " + length + " bytes");
+                if (length == size) {
+                    count++;
+                }
+            }
+            assertEquals(1, client.getHttp2Connections().size());
+            Channel channel = client.getHttp2Connections().iterator().next();
+            // the flow controller is owned by the event loop of the connection
+            windows = channel.eventLoop().submit(() -> {
+                Http2Connection connection = channel.pipeline().get(Http2FrameCodec.class).connection();
+                Http2LocalFlowController flowController = connection.local().flowController();
+                return new int[] {
+                        flowController.initialWindowSize(connection.connectionStream()),
+                        flowController.initialWindowSize()
+                };
+            }).get(5L, TimeUnit.SECONDS);
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+        assertEquals(loop, count);
+        logger.log(Level.INFO, "connection window = " + windows[0] + " stream window = " + windows[1]);
+        // without the estimator, both windows keep the default size
+        assertTrue(windows[0] > Http2CodecUtil.DEFAULT_WINDOW_SIZE);
+        assertTrue(windows[1] > Http2CodecUtil.DEFAULT_WINDOW_SIZE);
+    }
+}
@@ -0,0 +1,95 @@
+package org.xbib.netty.http.server.test.http2;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.ClientTransport;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.client.api.ResponseListener;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.common.HttpResponse;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class FlushConsolidationTest {
+
+    private static final Logger logger = Logger.getLogger(FlushConsolidationTest.class.getName());
+
+    @Test
+    void testConcurrentStreamsWithFlushConsolidation() throws Exception {
+        int threads = 4;
+        int loop = 256;
+        HttpAddress httpAddress = HttpAddress.http2("localhost", 8008);
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) ->
+                        response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                                .write(request.getContent().toString(StandardCharsets.UTF_8)))
+                .build();
+        Server server = Server.builder(domain)
+                .setFlushConsolidation(64)
+                .build();
+        server.accept();
+        Client client = Client.builder()
+                .setFlushConsolidation(64)
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+        try {
+            // the streams of all threads share one connection, and are opened without waiting
+            ClientTransport transport = client.newTransport(httpAddress);
+            ExecutorService executorService = Executors.newFixedThreadPool(threads);
+            for (int n = 0; n < threads; n++) {
+                final int t = n;
+                executorService.submit(() -> {
+                    try {
+                        for (int i = 0; i < loop; i++) {
+                            String payload = t + "/" + i;
+                            // each response must carry the body of its own request
+                            ResponseListener<HttpResponse> responseListener = resp -> {
+                                String body = resp.getBodyAsString(StandardCharsets.UTF_8);
+                                if (resp.getStatus().getCode() == HttpResponseStatus.OK.code() &&
+                                        payload.equals(body)) {
+                                    counter.incrementAndGet();
+                                } else {
+                                    mismatches.add(payload + " -> " + body);
+                                }
+                            };
+                            Request request = Request.get().setVersion("HTTP/2.0")
+                                    .url(server.getServerConfig().getAddress().base())
+                                    .content(payload, "text/plain")
+                                    .setResponseListener(responseListener)
+                                    .build();
+                            transport.execute(request);
+                        }
+                    } catch (Throwable e) {
+                        logger.log(Level.WARNING, e.getMessage(), e);
+                    }
+                });
+            }
+            executorService.shutdown();
+            executorService.awaitTermination(30L, TimeUnit.SECONDS);
+            transport.get(30L, TimeUnit.SECONDS);
+        } finally {
+            server.shutdownGracefully();
+            client.shutdownGracefully();
+        }
+        logger.log(Level.INFO, "expected=" + (threads * loop) + " counter=" + counter.get());
+        assertTrue(mismatches.isEmpty(), "mismatched responses: " + mismatches);
+        assertEquals(threads * loop, counter.get());
+    }
+}
@@ -0,0 +1,86 @@
+package org.xbib.netty.http.server.test.http2;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.Http2Settings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class PriorityTest {
+
+    private static final Logger logger = Logger.getLogger(PriorityTest.class.getName());
+
+    @Test
+    void testPriorityHeader() {
+        Request request = Request.get().url("http://localhost:8008").setPriority(0, true).build();
+        assertEquals("u=0, i", request.headers().get(Request.PRIORITY));
+        assertEquals(0, request.getUrgency());
+        assertTrue(request.isIncremental());
+        request = Request.get().url("http://localhost:8008").setPriority(Request.DEFAULT_URGENCY).build();
+        assertFalse(request.headers().contains(Request.PRIORITY));
+        assertEquals(Request.DEFAULT_URGENCY, request.getUrgency());
+        assertFalse(request.isIncremental());
+    }
+
+    @Test
+    void testUrgentRequestOvertakesBulkRequests() throws Exception {
+        int loop = 32;
+        HttpAddress httpAddress = HttpAddress.http2("localhost", 8008);
+        List<String> arrivals = new CopyOnWriteArrayList<>();
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .singleEndpoint("/**", (request, response) -> {
+                    arrivals.add(request.getRequestURI());
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code()).setContentType("text/plain").build()
+                            .write("Hello World");
+                })
+                .build();
+        // one stream at a time, so requests have to wait for a stream
+        Server server = Server.builder(domain)
+                .setHttp2Settings(Http2Settings.defaultSettings().maxConcurrentStreams(1))
+                .build();
+        server.accept();
+        Client client = Client.builder().build();
+        try {
+            String base = server.getServerConfig().getAddress().base().toString();
+            // establish the connection and receive the server settings
+            assertEquals("Hello World", client.call(Request.get().setVersion("HTTP/2.0").url(base + "/warmup").build(),
+                    response -> response.getBodyAsString(StandardCharsets.UTF_8)));
+            arrivals.clear();
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < loop; i++) {
+                futures.add(client.send(Request.get().setVersion("HTTP/2.0").url(base + "/bulk/" + i)
+                        .setPriority(7).build(), response -> response.getBodyAsString(StandardCharsets.UTF_8)));
+            }
+            futures.add(client.send(Request.get().setVersion("HTTP/2.0").url(base + "/urgent")
+                    .setPriority(0).build(), response -> response.getBodyAsString(StandardCharsets.UTF_8)));
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("Hello World", future.get(30L, TimeUnit.SECONDS));
+            }
+            int position = arrivals.indexOf("/urgent");
+            logger.log(Level.INFO, "urgent request arrived at position " + position + " of " + arrivals.size());
+            assertEquals(loop + 1, arrivals.size());
+            assertTrue(position >= 0 && position < loop / 2);
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.xbib.netty.http.server.test.http2;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xbib.netty.http.client.Client;
+import org.xbib.netty.http.client.api.Request;
+import org.xbib.netty.http.client.transport.ProtocolMemory;
+import org.xbib.netty.http.common.HttpAddress;
+import org.xbib.netty.http.server.HttpServerDomain;
+import org.xbib.netty.http.server.Server;
+import org.xbib.netty.http.server.test.NettyHttpTestExtension;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(NettyHttpTestExtension.class)
+class ProtocolMemoryTest {
+
+    private static final Logger logger = Logger.getLogger(ProtocolMemoryTest.class.getName());
+
+    @Test
+    void testHttp2Origin() throws Exception {
+        HttpAddress httpAddress = HttpAddress.secureHttp2("localhost", 8143);
+        Set<Integer> remotePorts = ConcurrentHashMap.newKeySet();
+        assertEquals(HttpAddress.HTTP_2_0, run(httpAddress, remotePorts));
+        // all requests share one HTTP/2 connection
+        assertEquals(1, remotePorts.size());
+    }
+
+    @Test
+    void testHttp1Origin() throws Exception {
+        // the first request tries HTTP/2, and is sent again over HTTP/1.1 when ALPN does not agree
+        HttpAddress httpAddress = HttpAddress.secureHttp1("localhost", 8143);
+        assertEquals(HttpAddress.HTTP_1_1, run(httpAddress, ConcurrentHashMap.newKeySet()));
+    }
+
+    @Test
+    void testAlternativeServices() {
+        HttpAddress httpAddress = HttpAddress.secureHttp1("localhost", 8143);
+        ProtocolMemory protocolMemory = new ProtocolMemory();
+        assertEquals(HttpAddress.HTTP_2_0, protocolMemory.select(httpAddress));
+        assertEquals(HttpAddress.HTTP_1_1, protocolMemory.select(HttpAddress.http1("localhost", 8008)));
+        protocolMemory.alternativeServices(httpAddress, "h3=\":8143\", h2=\"other.example.com:8143\"");
+        assertNull(protocolMemory.get(httpAddress));
+        protocolMemory.alternativeServices(httpAddress, "h2=\":8143\"; ma=60");
+        assertEquals(HttpAddress.HTTP_2_0, protocolMemory.get(httpAddress));
+        protocolMemory.alternativeServices(httpAddress, "clear");
+        assertNull(protocolMemory.get(httpAddress));
+        // a negotiated protocol is not overridden by alternative services
+        protocolMemory.negotiated(httpAddress, "http/1.1");
+        protocolMemory.alternativeServices(httpAddress, "h2=\":8143\"");
+        assertEquals(HttpAddress.HTTP_1_1, protocolMemory.get(httpAddress));
+    }
+
+    private static HttpVersion run(HttpAddress httpAddress, Set<Integer> remotePorts) throws Exception {
+        int loop = 16;
+        HttpServerDomain domain = HttpServerDomain.builder(httpAddress)
+                .setSelfCert()
+                .singleEndpoint("/**", (request, response) -> {
+                    remotePorts.add(request.getRemoteAddress().getPort());
+                    response.getBuilder().setStatus(HttpResponseStatus.OK.code())
+                            .setContentType("text/plain").build()
+                            .write("Hello World");
+                })
+                .build();
+        Server server = Server.builder(domain).build();
+        server.accept();
+        Client client = Client.builder()
+                .trustInsecure()
+                .enableProtocolMemory(true)
+                .build();
+        try {
+            // no version in the requests
+            Request request = Request.get().url(server.getServerConfig().getAddress().base()).build();
+            assertEquals("Hello World", client.call(request, response ->
+                    response.getBodyAsString(StandardCharsets.UTF_8)));
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < loop; i++) {
+                futures.add(client.send(Request.get().url(server.getServerConfig().getAddress().base()).build(),
+                        response -> response.getBodyAsString(StandardCharsets.UTF_8)));
+            }
+            for (CompletableFuture<String> future : futures) {
+                assertEquals("Hello World", future.get(30L, TimeUnit.SECONDS));
+            }
+            HttpVersion httpVersion = client.getProtocolMemory().get(httpAddress);
+            logger.log(Level.INFO, httpAddress + " speaks " + httpVersion + " on " + remotePorts.size() + " connections");
+            return httpVersion;
+        } finally {
+            client.shutdownGracefully();
+            server.shutdownGracefully();
+        }
+    }
+}